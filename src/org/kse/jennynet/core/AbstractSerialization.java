@@ -1,7 +1,9 @@
 package org.kse.jennynet.core;
 
+import java.io.ByteArrayOutputStream;
 import java.io.NotSerializableException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Objects;
@@ -16,7 +18,11 @@ import org.kse.jennynet.intfa.Serialization;
  */
 public abstract class AbstractSerialization implements Cloneable, Serialization {
 
+	/** Maximum length of a compression dictionary (DEFLATE window size). */
+	public static final int MAX_DICTIONARY_LENGTH = 32 * 1024;
+
 	protected LinkedHashMap<Class<?>, Class<?>> classMap = new LinkedHashMap<>();
+	private byte[] dictionary;
 
 	public AbstractSerialization() {
 	}
@@ -47,9 +53,43 @@ public abstract class AbstractSerialization implements Cloneable, Serialization
 	    }
 	    
 	    classMap.put(c, null);
+	    dictionary = null;
 	    return true;
 	}
 
+	/** Returns a typical serialised form of objects of the given registered
+	 * class, which becomes part of the compression dictionary, or null if 
+	 * not available. Returns null by default.
+	 * 
+	 * @param c {@code Class<?>}
+	 * @return byte[] serialisation sample or null
+	 */
+	protected byte[] typicalForm (Class<?> c) {
+		return null;
+	}
+	
+	/** Returns a compression dictionary composed of the typical serialised
+	 * forms of the registered classes in registration order. Only the last
+	 * {@code MAX_DICTIONARY_LENGTH} bytes are used, so that recently 
+	 * registered classes take precedence.
+	 */
+	@Override
+	public synchronized byte[] getCompressionDictionary () {
+		if (dictionary == null) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+			for (Class<?> c : classMap.keySet()) {
+				byte[] form = typicalForm(c);
+				if (form != null) {
+					out.write(form, 0, form.length);
+				}
+			}
+			byte[] block = out.toByteArray();
+			int length = Math.min(block.length, MAX_DICTIONARY_LENGTH);
+			dictionary = Arrays.copyOfRange(block, block.length - length, block.length);
+		}
+		return dictionary.length == 0 ? null : dictionary;
+	}
+
 	/** Whether the given class qualifies to be serialised. This is a 
 	 * categorical property of the class and has nothing to do with being 
 	 * registered. 
@@ -77,6 +117,7 @@ public abstract class AbstractSerialization implements Cloneable, Serialization
 	@Override
 	public void clear() {
 		classMap.clear();
+		dictionary = null;
 	}
 
 	
@@ -0,0 +1,279 @@
+/*  File: BroadcastFileSource.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.kse.jennynet.core.JennyNet.ChecksumType;
+
+/** The shared source of a file which is sent to a set of connections at once
+ * (server broadcast). The file is read in blocks into a bounded window which
+ * is shared by all send-orders of the broadcast, so that each block is read 
+ * from disk only once as long as the receivers keep pace with each other.
+ * 
+ * <p>The window is a ring of block slots. A block is loaded into its slot 
+ * by the first order which requests it and replaces the block one window 
+ * length below. Each order reads with its own cursor (the file position of
+ * its parcels); an order which falls behind the window does not hold back
+ * the faster ones but re-reads its data directly from the file. 
+ * 
+ * <p>The file checksums for the checksum types of the target connections 
+ * are computed once while blocks are loaded into the window. The instance is
+ * reference counted like {@code FileSource}; the file is closed when the
+ * last reference is released.
+ */
+final class BroadcastFileSource {
+	
+   /** data size of a window block */
+   public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+   /** number of blocks in the window */
+   public static final int DEFAULT_WINDOW_SIZE = 32;
+
+   private final File file;
+   private final long fileLength;
+   private final FileSource source;
+   private final int blockSize;
+   private final long nrOfBlocks;
+   private final Slot[] window;
+   
+   /** running checksums of the loaded blocks, per checksum type */
+   private final Map<ChecksumType, ParcelChecksum> checksums = new EnumMap<>(ChecksumType.class);
+   private final Map<ChecksumType, byte[]> checksumResults = new EnumMap<>(ChecksumType.class);
+   private long checksumBlock;
+   
+   private final AtomicLong blockReads = new AtomicLong();
+   private final AtomicLong fallbackReads = new AtomicLong();
+   
+   /** Creates a new broadcast source on the given file with the default
+    * block and window size. The new instance holds one reference which is
+    * owned by the caller.
+    * 
+    * @param file File source file
+    * @param types {@code Set<ChecksumType>} the checksum types to compute,
+    *        may be empty
+    * @throws IOException
+    */
+   public BroadcastFileSource (File file, Set<ChecksumType> types) throws IOException {
+	  this(file, types, DEFAULT_BLOCK_SIZE, DEFAULT_WINDOW_SIZE);
+   }
+   
+   /** Creates a new broadcast source on the given file. The new instance 
+    * holds one reference which is owned by the caller.
+    * 
+    * @param file File source file
+    * @param types {@code Set<ChecksumType>} the checksum types to compute,
+    *        may be empty
+    * @param blockSize int data size of a window block
+    * @param windowSize int number of blocks in the window
+    * @throws IOException
+    */
+   public BroadcastFileSource (File file, Set<ChecksumType> types, int blockSize, 
+		                       int windowSize) throws IOException {
+	  Objects.requireNonNull(types, "types is null");
+	  if (blockSize < 1 | windowSize < 1)
+		  throw new IllegalArgumentException("illegal block or window size");
+	  
+	  this.file = file.getCanonicalFile();
+	  this.blockSize = blockSize;
+	  source = new FileSource(this.file);
+	  fileLength = source.getChannel().size();
+	  nrOfBlocks = (fileLength + blockSize - 1) / blockSize;
+	  window = new Slot[windowSize];
+	  for (int i = 0; i < windowSize; i++) {
+		  window[i] = new Slot();
+	  }
+	  for (ChecksumType type : types) {
+		  checksums.put(type, new ParcelChecksum(type));
+	  }
+   }
+   
+   /** Returns the (canonical) source file.
+    * 
+    * @return File
+    */
+   public File getFile () {return file;}
+   
+   /** Returns the length of the source file when this source was opened.
+    * 
+    * @return long
+    */
+   public long getFileLength () {return fileLength;}
+   
+   /** Returns the number of blocks which were loaded into the window.
+    * 
+    * @return long
+    */
+   public long getBlockReads () {return blockReads.get();}
+   
+   /** Returns the number of direct file reads for data of blocks which had
+    * left the window.
+    * 
+    * @return long
+    */
+   public long getFallbackReads () {return fallbackReads.get();}
+   
+   /** Reads file data from the given position into the buffer until the 
+    * requested length is read or the end of the file is reached. Returns 
+    * the number of bytes read or -1 if the position is at the end of the 
+    * file.
+    * 
+    * @param buf byte[] target buffer
+    * @param off int offset in buffer
+    * @param len int number of bytes to read
+    * @param position long file position
+    * @return int number of bytes read or -1
+    * @throws IOException
+    */
+   public int read (byte[] buf, int off, int len, long position) throws IOException {
+	  int total = 0;
+	  while (total < len && position + total < fileLength) {
+		 long pos = position + total;
+		 long index = pos / blockSize;
+		 int start = (int) (pos - index * blockSize);
+		 int n = readBlock(index, start, buf, off + total, len - total);
+		 if (n <= 0) break;
+		 total += n;
+	  }
+	  return total == 0 && len > 0 ? -1 : total;
+   }
+   
+   /** Copies data of the block with the given index into the buffer and 
+    * returns the number of bytes copied. The block is loaded into the 
+    * window if it is ahead of the window, or read directly from the file if 
+    * it has left the window.
+    */
+   private int readBlock (long index, int start, byte[] buf, int off, int len) throws IOException {
+	  Slot slot = window[(int) (index % window.length)];
+	  synchronized (slot) {
+		 if (slot.index < index) {
+			 slot.load(index);
+		 }
+		 if (slot.index == index) {
+			 int n = Math.min(len, slot.length - start);
+			 if (n > 0) {
+				 System.arraycopy(slot.data, start, buf, off, n);
+			 }
+			 return n;
+		 }
+	  }
+	  
+	  // block has left the window: read directly from the file
+	  fallbackReads.incrementAndGet();
+	  long blockPos = index * blockSize;
+	  int n = (int) Math.min(len, Math.min(blockSize - start, fileLength - blockPos - start));
+	  return n > 0 ? source.read(ByteBuffer.wrap(buf, off, n), blockPos + start) : n;
+   }
+   
+   /** Returns the checksum of the file data for the given checksum type.
+    * The value is computed from the window blocks if they were loaded in 
+    * order and the type was requested at construction, otherwise by an 
+    * additional pass over the file. 
+    *  
+    * @param type {@code ChecksumType}
+    * @return byte[] checksum value 
+    * @throws IOException
+    */
+   public synchronized byte[] getChecksum (ChecksumType type) throws IOException {
+	  byte[] value = checksumResults.get(type);
+	  if (value == null) {
+		 ParcelChecksum crc = checksums.get(type);
+		 if (crc == null || checksumBlock != nrOfBlocks) {
+			crc = new ParcelChecksum(type);
+			ByteBuffer buf = ByteBuffer.allocate(blockSize);
+			for (long pos = 0; pos < fileLength; pos += blockSize) {
+				buf.clear();
+				source.read(buf, pos);
+				buf.flip();
+				crc.update(buf);
+			}
+		 }
+		 value = crc.getByteArray();
+		 checksumResults.put(type, value);
+	  }
+	  return value;
+   }
+   
+   /** Adds the data of a block, which was loaded into the window, to the 
+    * running checksums. 
+    */
+   private synchronized void updateChecksums (long index, byte[] data, int length) {
+	  if (index == checksumBlock) {
+		 for (ParcelChecksum crc : checksums.values()) {
+			 crc.update(data, 0, length);
+		 }
+		 checksumBlock++;
+	  }
+   }
+   
+   /** Adds a reference to this source.
+    */
+   public void retain () {
+	  source.retain();
+   }
+   
+   /** Removes a reference from this source and closes the file when no 
+    * reference remains.
+    */
+   public void release () {
+	  source.release();
+   }
+   
+   /** Whether the file of this source is open.
+    * 
+    * @return boolean
+    */
+   public boolean isOpen () {return source.isOpen();}
+   
+   @Override
+   public String toString () {
+	  return "BroadcastFileSource [" + file + ", blocks " + nrOfBlocks + ", loaded " 
+			 + blockReads + ", re-read " + fallbackReads + "]"; 
+   }
+
+   /** A block slot of the window. */
+   private class Slot {
+	  long index = -1;
+	  byte[] data;
+	  int length;
+	  
+	  /** Loads the block with the given index into this slot. 
+	   */
+	  void load (long index) throws IOException {
+		 if (data == null) {
+			 data = new byte[blockSize];
+		 }
+		 this.index = -1;
+		 int n = source.read(ByteBuffer.wrap(data), index * blockSize);
+		 length = Math.max(n, 0);
+		 this.index = index;
+		 blockReads.incrementAndGet();
+		 updateChecksums(index, data, length);
+	  }
+   }
+}
@@ -0,0 +1,167 @@
+/*  File: BroadcastObject.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.kse.jennynet.exception.SerialisationException;
+import org.kse.jennynet.intfa.CompressionCodec;
+import org.kse.jennynet.intfa.Serialization;
+
+/** A user object which is sent to multiple connections (broadcast). The
+ * object is serialised once for each distinct serialisation device 
+ * setting (method and registered classes) and compressed once for each
+ * codec; the results are shared by all connections sending this object.
+ * The connections only create their own parcel headers as views on the 
+ * shared, immutable serialisation data.
+ * 
+ * <p>Serialisation and compression are performed lazily by the first 
+ * connection which requires them, other connections wait for and take 
+ * the result. A serialisation error is reported to each connection.
+ */
+final class BroadcastObject {
+
+   private final Object object;
+   private final List<Serial> serials = new ArrayList<>(2);
+   private int serialisations;
+   private int compressions;
+   
+   /** A serialisation result for a given device setting. */
+   private static class Serial {
+	  final int method;
+	  final List<Class<?>> classes;
+	  byte[] data;
+	  SerialisationException error;
+	  byte[][] compressed;
+	  
+	  Serial (int method, List<Class<?>> classes) {
+		 this.method = method;
+		 this.classes = classes;
+	  }
+   }
+   
+   /** Creates a new broadcast object for the given user object.
+    * 
+    * @param object Object user object
+    */
+   public BroadcastObject (Object object) {
+	  Objects.requireNonNull(object);
+	  this.object = object;
+   }
+   
+   public Object getObject () {return object;}
+   
+   /** Returns the serialisation of the user object by the given device.
+    * The object is only serialised if no serialisation exists for the 
+    * method and registered classes of the device.
+    * 
+    * @param ser {@code Serialization}
+    * @return byte[] shared serialisation data (must not be modified)
+    * @throws SerialisationException
+    */
+   public synchronized byte[] serialise (Serialization ser) throws SerialisationException {
+	  int method = ser.getMethodID();
+	  List<Class<?>> classes = ser.getRegisteredClasses();
+	  Serial serial = null;
+	  for (Serial s : serials) {
+		 if (s.method == method && s.classes.equals(classes)) {
+			serial = s;
+			break;
+		 }
+	  }
+	  
+	  if (serial == null) {
+		 serial = new Serial(method, classes);
+		 try {
+			serial.data = ser.serialiseObject(object);
+		 } catch (SerialisationException e) {
+			serial.error = e;
+		 }
+		 serials.add(serial);
+		 serialisations++;
+	  }
+	  
+	  if (serial.error != null) {
+		 throw serial.error;
+	  }
+	  return serial.data;
+   }
+   
+   /** Returns the compression of the given serialisation data with the
+    * given codec if it is smaller than the original, null otherwise. The 
+    * data is only compressed if no result for the codec exists; otherwise
+    * the compression is accounted to the given connection.
+    * 
+    * @param con {@code ConnectionImpl} sending connection
+    * @param codec {@code CompressionCodec}
+    * @param data byte[] serialisation data as rendered by this object
+    * @param dictionary byte[] preset dictionary or null
+    * @return byte[] shared compressed data (must not be modified) or null
+    */
+   public synchronized byte[] compress (ConnectionImpl con, CompressionCodec codec, 
+		   byte[] data, byte[] dictionary) {
+	  Serial serial = null;
+	  for (Serial s : serials) {
+		 if (s.data == data) {
+			serial = s;
+			break;
+		 }
+	  }
+	  if (serial == null) {
+		 return con.compress(codec, data, 0, data.length, dictionary);
+	  }
+	  
+	  int id = codec.getCodecID();
+	  if (serial.compressed == null) {
+		 serial.compressed = new byte[JennyNet.MAX_COMPRESSION_CODEC][];
+	  }
+	  byte[] block = serial.compressed[id];
+	  if (block == null) {
+		 block = con.compress(codec, data, 0, data.length, dictionary);
+		 serial.compressed[id] = block == null ? data : block;
+		 compressions++;
+	  } else {
+		 con.countCompression(data.length, block.length);
+	  }
+	  return block == data ? null : block;
+   }
+   
+   /** Returns the number of serialisations performed for this object.
+    * 
+    * @return int
+    */
+   public synchronized int getSerialisations () {return serialisations;}
+   
+   /** Returns the number of compressions performed for this object.
+    * 
+    * @return int
+    */
+   public synchronized int getCompressions () {return compressions;}
+
+   @Override
+   public String toString () {
+	  return "BroadcastObject " + object.getClass().getName() + ", serialisations " 
+			  + serialisations;
+   }
+}
@@ -0,0 +1,132 @@
+/*  File: BufferPool.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import java.util.ArrayDeque;
+
+/** A size-classed pool of byte arrays for the payload of received 
+ * transmission parcels. Buffer sizes are powers of two between
+ * {@code MIN_BUFFER_SIZE} and {@code MAX_BUFFER_SIZE}; a request is served
+ * with a buffer of the smallest class which holds the requested length, 
+ * hence the buffer may be larger than the data it carries. Requests above
+ * the largest class are served with exactly sized arrays which are not 
+ * taken back into the pool.
+ * 
+ * <p>The amount of memory retained by each size class is limited; buffers
+ * returned to a full class are left to the garbage collector. Instances
+ * are thread-safe.
+ */
+final class BufferPool {
+	
+   public static final int MIN_BUFFER_SIZE = 1024;
+   public static final int MAX_BUFFER_SIZE = JennyNet.MAX_TRANSMISSION_PARCEL_SIZE;
+   private static final int MIN_SHIFT = Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+
+   private final ArrayDeque<byte[]>[] classes;
+   private final int[] classLimit;
+
+   /** Creates a new buffer pool which retains up to the given amount of 
+    * memory per size class (but at least 4 buffers).
+    * 
+    * @param classMemory int maximum bytes retained per size class
+    */
+   @SuppressWarnings({"unchecked", "rawtypes"})
+   public BufferPool (int classMemory) {
+      int n = classIndex(MAX_BUFFER_SIZE) + 1;
+      classes = new ArrayDeque[n];
+      classLimit = new int[n];
+      for (int i = 0; i < n; i++) {
+    	 int size = MIN_BUFFER_SIZE << i;
+    	 classLimit[i] = Math.max(4, classMemory / size);
+    	 classes[i] = new ArrayDeque<>(Math.min(classLimit[i], 64));
+      }
+   }
+   
+   /** Returns the index of the size class for the given buffer length.
+    * 
+    * @param length int
+    * @return int class index
+    */
+   private static int classIndex (int length) {
+	  if (length <= MIN_BUFFER_SIZE) return 0;
+	  return 32 - Integer.numberOfLeadingZeros(length - 1) - MIN_SHIFT;
+   }
+   
+   /** Returns a pooled buffer with a length of at least the given value 
+    * or null if no such buffer is available.
+    * 
+    * @param length int required data length
+    * @return byte[] or null
+    */
+   public byte[] poll (int length) {
+	  if (length > MAX_BUFFER_SIZE) return null;
+	  ArrayDeque<byte[]> queue = classes[classIndex(length)];
+	  synchronized (queue) {
+		 return queue.pollLast();
+	  }
+   }
+   
+   /** Creates a new buffer suitable for the given data length. The 
+    * buffer has the size of the corresponding size class if the length is 
+    * not above the largest class.
+    * 
+    * @param length int required data length
+    * @return byte[]
+    */
+   public byte[] allocate (int length) {
+	  if (length > MAX_BUFFER_SIZE) return new byte[length];
+	  return new byte[MIN_BUFFER_SIZE << classIndex(length)];
+   }
+
+   /** Returns a buffer to this pool. Buffers which don't match a size 
+    * class are ignored, as are buffers of a class which is full.
+    * 
+    * @param buffer byte[] buffer obtained from this pool
+    */
+   public void recycle (byte[] buffer) {
+	  int length = buffer.length;
+	  if (length < MIN_BUFFER_SIZE | length > MAX_BUFFER_SIZE 
+		  | Integer.bitCount(length) != 1) return;
+	  
+	  int index = classIndex(length);
+	  ArrayDeque<byte[]> queue = classes[index];
+	  synchronized (queue) {
+		 if (queue.size() < classLimit[index]) {
+			 queue.addLast(buffer);
+		 }
+	  }
+   }
+   
+   /** Returns the number of buffers currently held in this pool.
+    * 
+    * @return int
+    */
+   public int size () {
+	  int size = 0;
+	  for (ArrayDeque<byte[]> queue : classes) {
+		 synchronized (queue) {
+			 size += queue.size();
+		 }
+	  }
+	  return size;
+   }
+}
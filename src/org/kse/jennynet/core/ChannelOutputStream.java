@@ -0,0 +1,137 @@
+/*  File: ChannelOutputStream.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Objects;
+
+/** An output stream which writes to a non-blocking socket channel and 
+ * behaves like a blocking stream. If the channel cannot take more data, the
+ * writing thread waits on a private selector until the channel becomes
+ * writable again. This allows the sending side of a connection to remain
+ * stream based while the receiving side is operated by a 
+ * {@code ReceiveSelector}. 
+ * <p>Instances are not thread-safe; writing is expected to occur by one
+ * thread at a time.
+ */
+class ChannelOutputStream extends OutputStream {
+   private static final int WRITE_WAIT_PERIOD = 1000;
+   
+   private final SocketChannel channel;
+   private final ByteBuffer single = ByteBuffer.allocate(1);
+   private Selector selector;
+   
+   /** Creates a new output stream for the given non-blocking channel.
+    * 
+    * @param channel {@code SocketChannel}
+    */
+   public ChannelOutputStream (SocketChannel channel) {
+	  Objects.requireNonNull(channel);
+	  this.channel = channel;
+   }
+
+   @Override
+   public void write (int b) throws IOException {
+	  single.clear();
+	  single.put((byte)b);
+	  single.flip();
+	  write(single);
+   }
+
+   @Override
+   public void write (byte[] b, int off, int len) throws IOException {
+	  write(ByteBuffer.wrap(b, off, len));
+   }
+
+   /** Writes all remaining data of the given buffer to the channel. Blocks
+    * until all data has been taken by the channel.
+    * 
+    * @param buf {@code ByteBuffer}
+    * @throws IOException
+    */
+   public void write (ByteBuffer buf) throws IOException {
+	  while (buf.hasRemaining()) {
+		 if (channel.write(buf) == 0) {
+			awaitWritable();
+		 }
+	  }
+   }
+   
+   /** Transfers a region of the given file to the channel. The file data
+    * is handed from file to socket by the operating system where available
+    * (zero-copy). Blocks until the region has been taken by the channel.
+    * 
+    * @param source {@code FileChannel} source file
+    * @param position long file position of region
+    * @param count long length of region
+    * @throws IOException
+    */
+   public void transferFrom (FileChannel source, long position, long count) throws IOException {
+	  while (count > 0) {
+		 long n = source.transferTo(position, count, channel);
+		 if (n == 0) {
+			if (position >= source.size()) 
+			   throw new EOFException("file region beyond end of file");
+			awaitWritable();
+		 }
+		 position += n;
+		 count -= n;
+	  }
+   }
+   
+   /** Returns the socket channel of this stream.
+    * 
+    * @return {@code SocketChannel}
+    */
+   public SocketChannel getChannel () {return channel;}
+   
+   /** Waits until the channel signals writability or a period has passed.
+    * 
+    * @throws IOException
+    */
+   private void awaitWritable () throws IOException {
+	  if (selector == null) {
+		 selector = Selector.open();
+		 channel.register(selector, SelectionKey.OP_WRITE);
+	  }
+	  selector.select(WRITE_WAIT_PERIOD);
+	  selector.selectedKeys().clear();
+	  if (!channel.isOpen()) 
+		 throw new ClosedChannelException();
+   }
+
+   @Override
+   public void close () throws IOException {
+	  if (selector != null) {
+		 selector.close();
+	  }
+	  channel.close();
+   }
+}
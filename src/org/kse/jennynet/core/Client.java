@@ -52,7 +52,7 @@ import org.kse.jennynet.intfa.IClient;
  */
 public class Client extends ConnectionImpl implements IClient {
 
-   private Socket socket = new Socket();
+   private Socket socket = JennyNet.createSocket();
 
 
    /** Creates an unbound client. When connecting an unbound client, an 
@@ -157,7 +157,7 @@ public class Client extends ConnectionImpl implements IClient {
 	          if (debug) {
 	        	  prot("-- creating new socket for port " + localPort);
 	          }
-	       	  socket = new Socket();
+	       	  socket = JennyNet.createSocket();
 	       	  if (localPort > -1) {
 	       		  bind(localPort);
 	       	  }
@@ -177,11 +177,19 @@ public class Client extends ConnectionImpl implements IClient {
 
       // verify connection was accepted
       int time = timeout - (int)(System.currentTimeMillis() - startTime); 
-      JennyNet.waitForConnection(socket, getTimer(), time);
+      int capabilities = JennyNet.waitForConnection(socket, getTimer(), time);
+      if (capabilities != 0) {
+    	 setRemoteCapabilities(capabilities);
+      }
       
       // only then start Connection resources (running status)
       start(socket);
       
+      // answer server capabilities with ours (remote assigns parcel format)
+      if (capabilities != 0) {
+    	 sendSignal(Signal.newCapabilitiesSignal(this, JennyNet.localCapabilities()));
+      }
+      
       // integrate to global active client list
 	  JennyNet.addClientToGlobalSet(this);
 	  if (JennyNet.debug) {
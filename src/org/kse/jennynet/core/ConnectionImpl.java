@@ -34,24 +34,35 @@ import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Hashtable;
-import java.util.Map;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Properties;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.UUID;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+import org.kse.jennynet.core.JennyNet.ChecksumType;
+import org.kse.jennynet.core.JennyNet.HeaderFormat;
 import org.kse.jennynet.core.JennyNet.ThreadUsage;
 import org.kse.jennynet.exception.ClosedConnectionException;
 import org.kse.jennynet.exception.ConnectionTimeoutException;
 import org.kse.jennynet.exception.FileInTransmissionException;
 import org.kse.jennynet.exception.ListOverflowException;
+import org.kse.jennynet.exception.ParcelProtocolErrorException;
 import org.kse.jennynet.exception.RemoteTransferBreakException;
 import org.kse.jennynet.exception.SerialisationException;
 import org.kse.jennynet.exception.SerialisationOversizedException;
@@ -60,6 +71,7 @@ import org.kse.jennynet.exception.UnconnectedException;
 import org.kse.jennynet.exception.UnregisteredObjectException;
 import org.kse.jennynet.exception.UserBreakException;
 import org.kse.jennynet.intfa.ComDirection;
+import org.kse.jennynet.intfa.CompressionCodec;
 import org.kse.jennynet.intfa.Connection;
 import org.kse.jennynet.intfa.ConnectionEventType;
 import org.kse.jennynet.intfa.ConnectionListener;
@@ -71,8 +83,8 @@ import org.kse.jennynet.intfa.TransmissionEvent;
 import org.kse.jennynet.intfa.TransmissionEventType;
 import org.kse.jennynet.util.ArraySet;
 import org.kse.jennynet.util.IO_Manager;
-import org.kse.jennynet.util.MutableBoolean;
 import org.kse.jennynet.util.SchedulableTimerTask;
+import org.kse.jennynet.util.WheelTimer;
 import org.kse.jennynet.util.Util;
 
 /** Implementation of the JennyNet <code>Connection</code> interface, building 
@@ -82,15 +94,19 @@ class ConnectionImpl implements Connection {
    
    protected static final boolean debug = JennyNet.debug;
    
-   /** Internal static Timer for time-control tasks. */
-   private static Timer timer = new Timer();
-
    /** singleton static parcel sending queue and processor */
    static CoreSend coreSendClient, coreSendServer;
 
-   /** singleton static user-object queue and delivery processor */
-   static OutputProcessor staticOutputClient, staticOutputServer;
+   /** static user-object queues and delivery processors (global delivery service) */
+   private static OutputProcessor[] staticOutputClient = new OutputProcessor[0], 
+		   staticOutputServer = new OutputProcessor[0];
+   private static int staticOutputClientCounter, staticOutputServerCounter;
+
+   /** static pool of payload buffers for received parcels */
+   private static final BufferPool receivePool = new BufferPool(2 * JennyNet.MEGA);
    
+   /** number of levels in priority ordered queues */
+   static final int NR_PRIORITY_LEVELS = SendPriority.values().length;
 
    // parametric
    private UUID uuid = UUID.randomUUID();
@@ -108,10 +124,27 @@ class ConnectionImpl implements Connection {
    private Socket socket;
    private OutputStream socketOutput;
    private InputStream socketInput;
-   private Map<Long, Long> pingSentMap; // maps ping-id -> time sent
-   private Map<Object, SendFileOrder> fileSenderMap; 
-   private Map<Long, FileAgglomeration> fileReceptorMap; 
-   private Map<Long, ObjectAgglomeration> objectReceptorMap;
+   /** channel stream under the socket output if the socket has a channel */
+   private ChannelOutputStream channelOutput;
+   /** parcel checksum type for sending, standard until the server assigns
+    * the format (FORMAT signal) */
+   private volatile ChecksumType checksumType = JennyNet.DEFAULT_CHECKSUM_TYPE;
+   /** parcel header format for sending, standard until the server assigns
+    * the format (FORMAT signal) */
+   private volatile HeaderFormat headerFormat = JennyNet.DEFAULT_HEADER_FORMAT;
+   /** capabilities of remote as announced in handshake (bit set) */
+   private volatile int remoteCapabilities = JennyNet.STANDARD_CAPABILITIES;
+   /** whether a FORMAT signal has been sent to remote */
+   private volatile boolean formatAnnounced;
+   /** parcel codecs for the socket streams */
+   private volatile ParcelCodec sendCodec = new ParcelCodec();
+   private volatile ParcelCodec receiveCodec = new ParcelCodec();
+   private CopyOnWriteLongMap<Long> pingSentMap; // maps ping-id -> time sent
+   private CopyOnWriteLongMap<SendFileOrder> fileSenderMap; 
+   private Set<String> fileSenderPaths; 
+   private CopyOnWriteLongMap<FileAgglomeration> fileReceptorMap; 
+   /** object receptions, accessed by the receiving thread only */
+   private LongMap<ObjectAgglomeration> objectReceptorMap;
 
    // processors
    /** user object serialisation and sending processor */
@@ -119,9 +152,19 @@ class ConnectionImpl implements Connection {
    private SendFileProcessor sendFileProcessor;
    /** basic network reception, signal digestion and object de-serialisation processor */
    private ReceiveProcessor receiveProcessor;
+   private ReceiveSelector.Registration receiveRegistration;
+   /** objects of a received batch which are not yet handed to the output 
+    * queue, accessed by the receive-selector thread only */
+   private Iterator<ObjectBatch.Entry> batchRemainder;
+   private SendPriority batchPriority;
+   /** parcels of this connection taken from CoreSend and waiting to be written */
+   private LevelQueue<TransmissionParcel> sendLane = 
+		   new LevelQueue<>(CoreSend.NR_LEVELS, CoreSend::levelOf);
+   /** seized state of the send-lane; true == a writer thread is serving the lane */
+   private AtomicBoolean sendLaneBusy = new AtomicBoolean();
    
    // data queues sending
-   private PriorityBlockingQueue<ObjectSendSeparation> inputQueue;
+   private LevelQueue<ObjectSendSeparation> inputQueue;
    private PriorityBlockingQueue<SendFileOrder> fileSendQueue;
    
    // queues and processors receiving
@@ -131,9 +174,10 @@ class ConnectionImpl implements Connection {
    // locks
    private Object waitForDisconnectLock = new Object();
    private Object waitForClosedLock = new Object();
-   private Object sendAccessSync = new Object();
-   /** SEND-LOCK and boolean value object; state TRUE means the lock is closed. */
-   private MutableBoolean sendLock = new MutableBoolean(false);
+   /** credit based control of the send-load (volume of unsent parcels) */
+   private SendFlowControl flowControl = new SendFlowControl();
+   /** bounded control of objects pending in the output-processor */
+   private DeliveryControl deliveryControl = new DeliveryControl();
    
    // operational
    private ConnectionState operationState = ConnectionState.UNCONNECTED;
@@ -145,25 +189,35 @@ class ConnectionImpl implements Connection {
    private ErrorObject localCloseError;
 
    private AtomicLong objectSerialCounter = new AtomicLong();
-   private AtomicLong currentSendLoad = new AtomicLong();
-   private AtomicLong outputObjectCounter = new AtomicLong();
    private AtomicLong exchangedDataVolume = new AtomicLong();
    private AtomicLong transmittedVolume = new AtomicLong();
+   private AtomicLong compressInputVolume = new AtomicLong();
+   private AtomicLong compressOutputVolume = new AtomicLong();
+   private AtomicLong compressTime = new AtomicLong();
+   private AtomicLong decompressTime = new AtomicLong();
    private long receiveObjectCounter;
+   private long parcelWriteCounter;
+   private long socketFlushCounter;
+   private long receiveBufferRequests;
+   private long receiveBufferHits;
+   private AtomicInteger receiveBuffersOutstanding = new AtomicInteger();
    private long pingSerialCounter;
-   private long sendLoadLimit;
+   private ParcelSizer parcelSizer = new ParcelSizer();
    private long lastSendTime;
-   private long lastSendScheduleTime;
+   /** whether parcels other than format signals were written since the last flush */
+   private boolean transmitWritten;
+   private AtomicLong lastSendScheduleTime = new AtomicLong();
    private long lastReceiveTime;
    private long lastPingSendTime;
    private long sendObjectCounter;
+   private long batchedObjectCounter;
    private int lastPingValue;
    private int transmitSpeed = -1;
    private int sendFileCounter, receiveFileCounter;
+   private long checksumCacheHits, checksumCacheMisses;
    private int outgoingTestError, incomingTestError;
    
    protected boolean fixedTransmissionSpeed;
-   private boolean sendingOff;
    private boolean isCheckIdleState;
    private boolean suppressConfirm;	// testing tool
    private boolean objectsAllSent, filesAllSent, remoteAllSent;
@@ -324,9 +378,25 @@ class ConnectionImpl implements Connection {
 		m.trajectory = toString();
 		m.operationState = getOperationState();
 		m.serialMethod = getParameters().getSerialisationMethod();
-		m.currentSendLoad = currentSendLoad.get();
-		m.parcelsScheduled = getCoreSend().size();
+		m.checksumType = checksumType;
+		m.headerFormat = headerFormat;
+		m.currentSendLoad = flowControl.getLoad();
+		m.sendWaits = flowControl.getWaitCount();
+		m.sendWaitTime = flowControl.getWaitTime();
+		m.deliveryWaits = deliveryControl.getWaitCount();
+		m.deliveryWaitTime = deliveryControl.getWaitTime();
+		if (receiveRegistration != null) {
+			m.receiveResumesSignalled = receiveRegistration.getResumesSignalled();
+			m.receiveResumesPolled = receiveRegistration.getResumesPolled();
+		}
+		m.timerTickLag = getTimer().getTickLag();
+		m.parcelsScheduled = getCoreSend().size() + sendLane.size();
 		m.exchangedVolume = transmittedVolume.get();
+		m.parcelsWritten = parcelWriteCounter;
+		m.socketFlushes = socketFlushCounter;
+		m.receiveBufferRequests = receiveBufferRequests;
+		m.receiveBufferHits = receiveBufferHits;
+		m.receiveBuffersOutstanding = receiveBuffersOutstanding.get();
 		m.lastReceiveTime = lastReceiveTime;
 		m.lastSendTime = lastSendTime;
 		m.objectsIncoming = (objectReceptorMap == null ? 0 : objectReceptorMap.size()) + 
@@ -334,7 +404,17 @@ class ConnectionImpl implements Connection {
 		m.objectsOutgoing = inputQueue == null ? 0 : inputQueue.size();
 		m.objectsReceived = receiveObjectCounter;
 		m.objectsSent = sendObjectCounter;
+		m.objectsBatched = batchedObjectCounter;
+		m.adaptiveParcelSize = parameters.isAdaptiveParcelSize();
+		m.parcelSizes = parcelSizer.getParcelSizes();
+		m.sendRate = parcelSizer.getSendRate();
+		m.compressInput = compressInputVolume.get();
+		m.compressOutput = compressOutputVolume.get();
+		m.compressTime = compressTime.get() / 1000000;
+		m.decompressTime = decompressTime.get() / 1000000;
 		m.filesSent = sendFileCounter;
+		m.checksumCacheHits = checksumCacheHits;
+		m.checksumCacheMisses = checksumCacheMisses;
 		m.filesReceived = receiveFileCounter;
 		m.filesIncoming = fileReceptorMap == null ? 0 : fileReceptorMap.size();
 		m.filesOutgoing = fileSendQueue == null ? 0 : fileSendQueue.size();
@@ -442,35 +522,150 @@ class ConnectionImpl implements Connection {
 	   return ser;
    }
    
+   /** Returns the compression codec for a transmission of the given 
+    * priority and data length, or null if the transmission is to be sent
+    * uncompressed. This considers the connection parameters and the 
+    * codecs known to the remote station.
+    * 
+    * @param priority {@code SendPriority}
+    * @param length long data length
+    * @return {@code CompressionCodec} or null
+    */
+   CompressionCodec getSendCodec (SendPriority priority, long length) {
+	   CompressionCodec codec = getSendCodec(priority);
+	   return length < parameters.getCompressionThreshold() ? null : codec; 
+   }
+   
+   /** Returns the compression codec for transmissions of the given 
+    * priority regardless of data length, or null if transmissions are to
+    * be sent uncompressed. 
+    * 
+    * @param priority {@code SendPriority}
+    * @return {@code CompressionCodec} or null
+    */
+   CompressionCodec getSendCodec (SendPriority priority) {
+	   int id = parameters.getCompressionCodec();
+	   if (id == 0 || !parameters.isCompressedPriority(priority)
+		   || (remoteCapabilities & 1 << 24 + id) == 0) {
+		   return null;
+	   }
+	   return JennyNet.getCompressionCodec(id);
+   }
+   
+   /** Compresses the given data block with the given codec and returns the
+    * result if it is smaller than the original, null otherwise. 
+    * 
+    * @param codec {@code CompressionCodec}
+    * @param data byte[] data buffer
+    * @param offset int start offset in data
+    * @param length int length of data block
+    * @return byte[] compressed data or null
+    */
+   byte[] compress (CompressionCodec codec, byte[] data, int offset, int length) {
+	   return compress(codec, data, offset, length, null);
+   }
+   
+   /** Compresses the given data block with the given codec and preset 
+    * dictionary and returns the result if it is smaller than the original,
+    * null otherwise. 
+    * 
+    * @param codec {@code CompressionCodec}
+    * @param data byte[] data buffer
+    * @param offset int start offset in data
+    * @param length int length of data block
+    * @param dictionary byte[] preset dictionary or null
+    * @return byte[] compressed data or null
+    */
+   byte[] compress (CompressionCodec codec, byte[] data, int offset, int length, byte[] dictionary) {
+	   long start = System.nanoTime();
+	   byte[] block = codec.compress(data, offset, length, dictionary);
+	   compressTime.addAndGet(System.nanoTime() - start);
+	   boolean pays = block.length < length;
+	   countCompression(length, pays ? block.length : length);
+	   return pays ? block : null;
+   }
+   
+   /** Accounts a compression of data of the given input length to the 
+    * given output length in this connection's statistics.
+    * 
+    * @param input int data length
+    * @param output int length of the sent data (compressed or original)
+    */
+   void countCompression (int input, int output) {
+	   compressInputVolume.addAndGet(input);
+	   compressOutputVolume.addAndGet(output);
+   }
+   
+   /** Decompresses the given data block with the codec of the given ID.
+    * 
+    * @param codecID int codec ID
+    * @param data byte[] data buffer
+    * @param offset int start offset in data
+    * @param length int length of data block
+    * @param maxLength int maximum length of the decompressed data
+    * @return byte[] decompressed data
+    * @throws IOException if the codec is unknown, the data is corrupted 
+    *         or exceeds the maximum length
+    */
+   byte[] decompress (int codecID, byte[] data, int offset, int length, int maxLength) 
+		   throws IOException {
+	   return decompress(codecID, null, data, offset, length, maxLength);
+   }
+   
+   /** Decompresses the given object serialisation with the codec of the 
+    * given ID. Codecs with preset dictionary use the dictionary of the 
+    * given serialisation device.
+    * 
+    * @param codecID int codec ID
+    * @param ser {@code Serialization} receive serialisation or null
+    * @param data byte[] data buffer
+    * @param offset int start offset in data
+    * @param length int length of data block
+    * @param maxLength int maximum length of the decompressed data
+    * @return byte[] decompressed data
+    * @throws IOException if the codec is unknown, the data is corrupted 
+    *         or exceeds the maximum length
+    */
+   byte[] decompress (int codecID, Serialization ser, byte[] data, int offset, int length, 
+		   int maxLength) throws IOException {
+	   CompressionCodec codec = JennyNet.getCompressionCodec(codecID);
+	   if (codec == null) {
+		   throw new IOException("unknown compression codec: " + codecID);
+	   }
+	   byte[] dictionary = ser != null && codec.usesDictionary() ? ser.getCompressionDictionary() : null;
+	   long start = System.nanoTime();
+	   byte[] block = codec.decompress(data, offset, length, maxLength, dictionary);
+	   decompressTime.addAndGet(System.nanoTime() - start);
+	   return block;
+   }
+   
+   /** Returns the data size of transmission parcels for the given send
+    * priority. This is the TRANSMISSION_PARCEL_SIZE parameter or, with
+    * adaptive parcel size, a value derived from the measured send rate.
+    * 
+    * @param priority {@code SendPriority}
+    * @return int parcel size
+    */
+   private int getSendParcelSize (SendPriority priority) {
+	   int size = parameters.getTransmissionParcelSize();
+	   if (parameters.isAdaptiveParcelSize()) {
+		   boolean saturated = flowControl.getLoad() > flowControl.getLimit() / 2;
+		   size = parcelSizer.getParcelSize(priority, size, saturated, transmitSpeed);
+	   }
+	   return size;
+   }
+   
    /** Decrements the value of current send-load by the given number
-    * of bytes. This unlocks any waiting threads on the SEND-LOCK 
+    * of bytes. This releases send credit and wakes up waiting producers
     * if send-load falls below the limit as a result of this operation.
     * 
     * @param dataSize long bytes unloaded
     * @throws IllegalArgumentException if argument is negative
     */
    private void decrementSendLoad (long dataSize) {
-	  if (dataSize < 0)
-		 throw new IllegalArgumentException("illegal negative data size");
-	   
-	  long value = currentSendLoad.addAndGet(-dataSize);
-	  if (value < sendLoadLimit) {
-		  notifySendLock();
-	  }
+	  flowControl.release(dataSize);
    }
 
-   /** Increments the value of current send-load by the given number
-    * of bytes.
-    * 
-    * @param dataSize long
-    * @throws IllegalArgumentException if argument is negative
-    */
-   private void incrementSendLoad (long dataSize) {
-	   if (dataSize < 0)
-		   throw new IllegalArgumentException("illegal negative data size");
-	   currentSendLoad.addAndGet(dataSize);
-   }
-   
    @Override
    public UUID getUUID() {return uuid;}
 
@@ -544,7 +739,7 @@ class ConnectionImpl implements Connection {
 
 	@Override
 	public boolean isGlobalOutput() {
-		return outputProcessor == staticOutputClient || outputProcessor == staticOutputServer;
+		return outputProcessor != null && outputProcessor.isStatic();
 	}
 
    @Override
@@ -569,6 +764,24 @@ class ConnectionImpl implements Connection {
 
    @Override
    public long sendObject (Object object, int method, SendPriority priority) {
+	  return sendObject(object, null, method, priority);
+   }
+   
+   /** Sends a user object which is broadcast to multiple connections with
+    * the serialisation method of this connection's parameters. 
+    * Serialisation and compression of the object are shared with the 
+    * other connections sending the same broadcast object.
+    * 
+    * @param broadcast {@code BroadcastObject}
+    * @param priority {@code SendPriority}
+    * @return long object ID or -1 if the object was not queued
+    */
+   long sendObject (BroadcastObject broadcast, SendPriority priority) {
+	  int method = getParameters().getSerialisationMethod();
+	  return sendObject(broadcast.getObject(), broadcast, method, priority);
+   }
+   
+   private long sendObject (Object object, BroadcastObject broadcast, int method, SendPriority priority) {
       checkConnected();
       checkObjectRegisteredForSending(object, method);
       
@@ -582,7 +795,7 @@ class ConnectionImpl implements Connection {
 
     	  // assign object number and add to input queue
     	  objNr = getNextObjectNr();
-    	  inputQueue.add(new ObjectSendSeparation(object, objNr, method, priority));
+    	  inputQueue.add(new ObjectSendSeparation(object, objNr, method, priority, broadcast));
     	  if (debug) {
     		  prot("xx adding new user send-object (" + objNr + ") to send-queue (size " 
     	           + inputQueue.size() + "), rem " + getRemoteAddress());
@@ -624,6 +837,27 @@ class ConnectionImpl implements Connection {
    @Override
    public long sendFile (File file, String remotePath, SendPriority priority, 
 		                    int transaction) throws IOException {
+	  return sendFile(file, null, remotePath, priority, transaction);
+   }
+   
+   /** Sends a file which is broadcast to multiple connections. File reading
+    * and the file checksum are shared with the other connections sending 
+    * from the same broadcast source.
+    * 
+    * @param broadcast {@code BroadcastFileSource}
+    * @param remotePath String destination path information (target name)
+    * @param priority {@code SendPriority}
+    * @param transaction int optional transaction ID 
+    * @return long file-ID
+    * @throws IOException
+    */
+   long sendFile (BroadcastFileSource broadcast, String remotePath, SendPriority priority,
+		          int transaction) throws IOException {
+	  return sendFile(broadcast.getFile(), broadcast, remotePath, priority, transaction);
+   }
+   
+   private long sendFile (File file, BroadcastFileSource broadcast, String remotePath, 
+		                  SendPriority priority, int transaction) throws IOException {
       checkConnected();
 
       // test space in order-list
@@ -633,10 +867,10 @@ class ConnectionImpl implements Connection {
       
       // place file-send order in order queue
 	  synchronized (fileSendQueue) {
-		  SendFileOrder order = new SendFileOrder(file, remotePath, priority, transaction);
+		  SendFileOrder order = new SendFileOrder(file, broadcast, remotePath, priority, transaction);
 		  fileSendQueue.add(order);
 		  fileSenderMap.put(order.fileID, order);
-		  fileSenderMap.put(order.remotePath, order);
+		  fileSenderPaths.add(order.remotePath);
     	  if (debug) {
     		  prot("xx adding new user send-file (" + order.fileID + ") to send-queue (size " +
     	           fileSendQueue.size() + "), rem " + getRemoteAddress());
@@ -674,42 +908,41 @@ class ConnectionImpl implements Connection {
       return;
    }
 
-   /** Puts a transmit-parcel into coreSend processor. This method updates and
-    * deals with the current send-load of this connection, handles baud-delay
-    * (TEMPO) and enters WAIT-state if the conditions require it. This method 
-    * may block for a lengthy time. If the connection associated with the 
-    * parcel is closed, the parcel will not be posted. The method is
-    * thread-safe.
+   /** Puts a transmit-parcel into coreSend processor. This method acquires
+    * send credit for the parcel, which blocks while the send-load of this
+    * connection exceeds its limit or sending is switched off, and handles 
+    * baud-delay (TEMPO). This method may block for a lengthy time. If the 
+    * connection associated with the parcel is closed, the parcel will not 
+    * be posted. The method is thread-safe and may be called by any number
+    * of producers concurrently.
     *  
     * @param parcel {@code TransmissionParcel}
     * @throws InterruptedException
     */
    protected void queueParcelForSending (TransmissionParcel parcel) throws InterruptedException {
-	   synchronized (sendAccessSync) {
-		  // don't send if socket down
-		  if (!connected) return;
-
-		   // ensure starting value for lastSendScheduleTime
-		   if (lastSendScheduleTime == 0) {
-			   lastSendScheduleTime = System.currentTimeMillis();
+	   // don't send if socket down
+	   if (!connected) return;
+
+	   // send-queue blocking behaviour dependent on unsent data load
+	   // explain: we don't have input blocking in InputProcessor (queue)
+	   // and we may have endless amounts of parcels coming from FileSendProcessor
+	   int length = parcel.getSerialisedLength();
+	   flowControl.acquire(length);
+	   
+	   // baud delay solution in relation to last-send-schedule-time
+	   delay_baud(parcel, "queueParcelForSending");
+	
+	   try {
+		   // queue parcel into core-send (unchecked)
+		   if (!connected) 
+			   throw new ClosedConnectionException();
+		   if (!parcel.isSignal()) {
+			   parcelSizer.parcelQueued(parcel.getPriority());
 		   }
+		   getCoreSend().put(parcel);
 		   
-		   // baud delay solution in relation to last-send-schedule-time
-		   delay_baud(parcel, "queueParcelForSending");
-		
-		   try {
-			   // queue parcel into core-send (unchecked)
-			   incrementSendLoad(parcel.getSerialisedLength());
-			   getCoreSend().put(parcel);
-			   lastSendScheduleTime = System.currentTimeMillis();
-			   
-			   // send-queue blocking behaviour dependent on unsent data load
-			   // explain: we don't have input blocking in InputProcessor (queue)
-			   // and we may have endless amounts of parcels coming from FileSendProcessor
-			   checkAndPerformSendWait();
-			   
-		   } catch (ClosedConnectionException e) {
-		   }
+	   } catch (ClosedConnectionException e) {
+		   flowControl.release(length);
 	   }
    }
 
@@ -733,7 +966,7 @@ class ConnectionImpl implements Connection {
 	      }
 	
     	  getCoreSend().add(signal);
-    	  incrementSendLoad(signal.getSerialisedLength());
+    	  flowControl.charge(signal.getSerialisedLength());
     	  allSentSignalSent = true;
 	  }
    }
@@ -750,49 +983,7 @@ class ConnectionImpl implements Connection {
     */
    private void setSendLoadLimit (ConnectionParameters par) {
       long h = (long)par.getParcelQueueCapacity() * par.getTransmissionParcelSize() / 2;
-      sendLoadLimit = Math.min(Math.max(h, JennyNet.MIN_MAX_CON_SENDLOAD), JennyNet.MAX_CON_SENDLOAD);
-   }
-   
-   /** Notifies the SEND-LOCK to release any waiting threads. This performs 
-    * conditional to the current state of sendLock, which is a MutableBoolean.
-    */
-   private void notifySendLock () {
-	   //  There is a tiny false operation chance as the value checking
-	   //  occurs outside of the synchronised block, but this is seen harmless as 
-	   //  the worst case is a slipped through data parcel for sending. The locking
-	   //  system corrects itself through normal send operation.
-	   
-	  if (sendLock.getValue()) {
-		  synchronized(sendLock) {
-			 sendLock.notifyAll();
-			 sendLock.setValue(false);
-		  }
-	  }
-   }
-
-   /** Performs waiting on the send-lock if the conditions require it and
-    * until the conditions are met to release it. This is not secured against
-    * sporadic interrupts. Does nothing if the conditions are not met.
-    * <p>Waiting is entered either when sending is switched OFF (via TEMPO)
-    * or the current send-load for this connection is exceeding the limit. 
-    * The release of the lock is triggered by coreSend (after send-load 
-    * is low enough) or via setTempo() when sending is switched ON.
-    * 
-    * @throws InterruptedException
-    */
-   private void checkAndPerformSendWait () throws InterruptedException {
-	  do {
-		 if (currentSendLoad.get() < sendLoadLimit && !sendingOff) {
-			break;
-		 }
-		 synchronized(sendLock) {
-			 if (debug) {
-				 prot("-- (check-And-Perform-SendWait) \"" + Thread.currentThread().getName() + "\": entering WAIT STATE -- sending blocked");
-			 }
-			 sendLock.setValue(true);
-			 sendLock.wait();
-		 }
-	  } while (true);
+      flowControl.setLimit(Math.min(Math.max(h, JennyNet.MIN_MAX_CON_SENDLOAD), JennyNet.MAX_CON_SENDLOAD));
    }
    
    /** Inserts the specified delivery object into the outgoing queue. 
@@ -806,14 +997,8 @@ class ConnectionImpl implements Connection {
    */
    private void putObjectToReceiveQueue (DeliveryObject object, boolean restricted) {
 	   if (restricted) {
-		   // naive blocking behaviour depending on output object counter
-		   int topSize = getParameters().getObjectQueueCapacity();
-		   do {
-			   if (outputObjectCounter.get() < topSize) {
-				   break;
-			   }
-			   Util.sleep(20);
-		   } while (true);
+		   // wait until the output-processor signals space below capacity
+		   deliveryControl.awaitSpace();
 	   }
 
 		// put object into outgoing sorted queue
@@ -832,12 +1017,7 @@ class ConnectionImpl implements Connection {
 	   if (debug) {
 		   prot("-- waiting for objects delivered");
 	   }
-	   do {
-		   if (outputObjectCounter.get() <= 0 || outputProcessor.isBlocking()) {
-			   return true;
-		   }
-		   if (!Util.sleep(30)) return false;
-	   } while (true);
+	   return deliveryControl.awaitDrained(outputProcessor::isBlocking, 30);
    }
    
    @Override
@@ -1132,6 +1312,14 @@ class ConnectionImpl implements Connection {
 
    OutputProcessor getOutputProcessor () {return outputProcessor;}
    
+   /** Whether the processing threads of this connection are virtual threads.
+    * 
+    * @return boolean
+    */
+   boolean isVirtualThreads () {
+	   return parameters.getDeliveryThreadUsage() == ThreadUsage.VIRTUAL;
+   }
+   
    /** Returns for testing purposes the parcel-nr on which an internal
     * processing failure is thrown.
     * 
@@ -1187,28 +1375,48 @@ class ConnectionImpl implements Connection {
       filesAllSent = true;
       ConnectionParameters par = getParameters();
       int bufferSize = par.getTransmissionParcelSize() + 100;
-      socketOutput = new BufferedOutputStream(socket.getOutputStream(), bufferSize);
-      socketInput = socket.getInputStream();
+      SocketChannel channel = socket.getChannel();
+      if (channel != null) {
+    	  // non-blocking channel served by the receive-selector engine
+    	  channel.configureBlocking(false);
+    	  channelOutput = new ChannelOutputStream(channel);
+    	  socketOutput = new BufferedOutputStream(channelOutput, bufferSize);
+      } else {
+    	  socketOutput = new BufferedOutputStream(socket.getOutputStream(), bufferSize);
+    	  socketInput = new BufferedInputStream(socket.getInputStream(), bufferSize);
+      }
 
+      // parcel codecs with the standard checksum type and header format
+      sendCodec = new ParcelCodec(checksumType, headerFormat);
+      receiveCodec = new ParcelCodec(checksumType, headerFormat);
+      
       // data inits
       objectSerialCounter.set(0);;
       pingSerialCounter = 0;
       exchangedDataVolume.set(0);
       transmittedVolume.set(0);
-      currentSendLoad.set(0);
+      flowControl.reset();
       setSendLoadLimit(par);
+      deliveryControl.setCapacity(par.getObjectQueueCapacity());
       
-      // create hashtables and services
-      fileSenderMap = new Hashtable<Object, SendFileOrder>(); 
-      fileReceptorMap = new Hashtable<Long, FileAgglomeration>(); 
-      objectReceptorMap = new Hashtable<Long, ObjectAgglomeration>(); 
-      pingSentMap = new Hashtable<Long, Long>();
+      // create registries and services
+      fileSenderMap = new CopyOnWriteLongMap<>(); 
+      fileSenderPaths = Collections.synchronizedSet(new HashSet<>()); 
+      fileReceptorMap = new CopyOnWriteLongMap<>(); 
+      objectReceptorMap = new LongMap<>(); 
+      pingSentMap = new CopyOnWriteLongMap<>();
 
       // create data queues
-      inputQueue = new PriorityBlockingQueue<ObjectSendSeparation>();
+      inputQueue = new LevelQueue<ObjectSendSeparation>(NR_PRIORITY_LEVELS, 
+    		  sep -> priorityLevel(sep.getPriority()));
       fileSendQueue = new PriorityBlockingQueue<SendFileOrder>();
-      receiveProcessor = new ReceiveProcessor();
-      receiveProcessor.start();
+      if (channel != null) {
+    	  receiveRegistration = ReceiveSelector.register(this, channel);
+    	  deliveryControl.setSpaceListener(receiveRegistration::resume);
+      } else {
+	      receiveProcessor = new ReceiveProcessor();
+	      receiveProcessor.start();
+      }
       
       // request ALIVE sending from remote if defined
       int period = par.getAlivePeriod();
@@ -1329,6 +1537,18 @@ class ConnectionImpl implements Connection {
       if (closed) return;
 	  int errInfo = error.info;
 	  String errMsg = error.message;
+	  
+	  // closure must not block a shared receive-selector thread
+	  if (ReceiveSelector.isSelectorThread()) {
+		  Thread closer = new Thread("JennyNet Connection Closure") {
+			  @Override
+			  public void run() {
+				  closeTerminal(error, signalRemote);
+			  }
+		  };
+		  closer.start();
+		  return;
+	  }
 
       // closes connection against further user input
       closed = true;
@@ -1365,6 +1585,10 @@ class ConnectionImpl implements Connection {
        if (receiveProcessor != null && receiveProcessor.isAlive()) {
           receiveProcessor.terminate();
        }
+       if (receiveRegistration != null) {
+    	  receiveRegistration.cancel();
+    	  objectReceptorMap.clear();
+       }
 
        // wait for threads to terminate
        try {
@@ -1425,7 +1649,7 @@ class ConnectionImpl implements Connection {
 	  setOperationState(ConnectionState.CLOSED, error);
 
 	  // terminate an individual output-processor
-      if (outputProcessor != staticOutputClient && outputProcessor != staticOutputServer) {
+      if (!outputProcessor.isStatic()) {
    	      if (debug) {
 		     prot("-- (close-terminal) terminating individual output-processor");
 	      }
@@ -1468,8 +1692,9 @@ class ConnectionImpl implements Connection {
       try {
           if (socket != null && !socket.isClosed()) {
         	 // close the network socket
+             // (the buffered socket input is closed with the socket, which lets
+             // a blocked reader fail with a SocketException)
              socketOutput.close();
-             socketInput.close();
              socket.close();
 
              // report
@@ -1674,29 +1899,27 @@ class ConnectionImpl implements Connection {
    }
 
    /** Performs BAUD related sleep time of the calling thread if a transmit
-    * speed (TEMPO) is set. 
+    * speed (TEMPO) is set. The schedule time of the parcel is reserved in 
+    * relation to the last-send-schedule-time, so that concurrent callers
+    * obtain consecutive schedule times.
     * 
     * @param parcel <code>TransmissionParcel</code>
-    * @param markTime long time value when transmission of parcel started (ms)
     * @param function String algorithmic location (debug report)
     */
    private void delay_baud (TransmissionParcel parcel, String function) {
 	  long speed = getTransmissionSpeed();
-      if (speed > 0) {
-    	  long markTime = lastSendScheduleTime;
-    	  long shallLast = (long)parcel.getSerialisedLength() * 1000 / speed;
-    	  long hasTaken = System.currentTimeMillis() - markTime;
-    	  int delay = (int)(shallLast - hasTaken);
-// prot("(delay_baud) mark=" + markTime + ", shall=" +shallLast + ", taken=" + hasTaken + ", delay=" + delay);    	  
-    	  if (delay > 0) {
-              if (debug) {
-            	  prot("--- (" + function + ") : BAUD delay performing " 
-            		  + delay + " ms sleep, " + "consumed " + hasTaken 
-            		  + ", obj " + parcel.getObjectID());
-              }
-    		  Util.sleep(delay);
-    	  }
-      }
+	  long now = System.currentTimeMillis();
+	  long shallLast = speed > 0 ? (long)parcel.getSerialisedLength() * 1000 / speed : 0;
+	  long scheduleTime = lastSendScheduleTime.updateAndGet(
+			  mark -> Math.max((mark == 0 ? now : mark) + shallLast, now));
+	  int delay = (int)(scheduleTime - now);
+	  if (delay > 0) {
+          if (debug) {
+        	  prot("--- (" + function + ") : BAUD delay performing " 
+        		  + delay + " ms sleep, obj " + parcel.getObjectID());
+          }
+		  Util.sleep(delay);
+	  }
    }
    
    /** Returns the next object serial number for sending.
@@ -1723,11 +1946,176 @@ class ConnectionImpl implements Connection {
       return socket;
    }
    
-   /** Returns the static {@code Timer} instance used by this class.
+   /** Returns the checksum type for sent transmission parcels and 
+    * transmitted files. This is ADLER32 until the server has assigned the
+    * format of the connection.
+    * 
+    * @return {@code ChecksumType}
+    */
+   ChecksumType getChecksumType () {
+	   return checksumType;
+   }
+   
+   /** Returns the wire format of sent transmission parcel headers. This is
+    * STANDARD until the server has assigned the format of the connection.
+    * 
+    * @return {@code HeaderFormat}
+    */
+   HeaderFormat getHeaderFormat () {
+	   return headerFormat;
+   }
+   
+   /** Returns the capabilities of the remote station (supported checksum 
+    * types, header formats and features) as announced in handshake. This is
+    * {@code JennyNet.STANDARD_CAPABILITIES} for a remote which does not 
+    * announce capabilities (version 1.0.0).
+    * 
+    * @return int bit set
+    */
+   int getRemoteCapabilities () {
+	   return remoteCapabilities;
+   }
+   
+   /** Sets the capabilities of the remote station (supported checksum 
+    * types, header formats and features) as announced in handshake.
+    * 
+    * @param capabilities int bit set
+    */
+   void setRemoteCapabilities (int capabilities) {
+	   remoteCapabilities = capabilities | JennyNet.STANDARD_CAPABILITIES;
+   }
+   
+   /** Whether the given parcel is a signal of the format negotiation 
+    * (CAPABILITIES, FORMAT). These signals belong to establishing the 
+    * connection and do not count as transmission activity.
+    * 
+    * @param parcel {@code TransmissionParcel}
+    * @return boolean
+    */
+   private static boolean isFormatSignal (TransmissionParcel parcel) {
+	   if (!parcel.isSignal()) return false;
+	   int type = parcel.getParcelSequencelNr() & 0xFFFF;
+	   return type == SignalType.CAPABILITIES.ordinal() | type == SignalType.FORMAT.ordinal();
+   }
+   
+   /** Announces the given parcel format to remote by a FORMAT signal. The
+    * format becomes active for sending when the signal has been written
+    * (see {@code formatSignalWritten()}).
+    * 
+    * @param type {@code ChecksumType}
+    * @param format {@code HeaderFormat}
+    */
+   private void announceFormat (ChecksumType type, HeaderFormat format) {
+	   formatAnnounced = true;
+	   sendSignal(Signal.newFormatSignal(this, type, format));
+   }
+   
+   /** Activates the parcel format of a FORMAT signal for sending. This is 
+    * called by the sending thread directly after the signal has been 
+    * written, so that all following parcels are written in this format. 
+    * Parcels which were prepared in the previous format are converted by 
+    * the codec.
+    * 
+    * @param signal {@code Signal} written FORMAT signal
+    */
+   void formatSignalWritten (Signal signal) {
+	   ChecksumType type = signal.getFormatChecksumType();
+	   HeaderFormat format = signal.getFormatHeaderFormat();
+	   sendCodec = new ParcelCodec(type, format);
+	   checksumType = type;
+	   headerFormat = format;
+	   if (debug) {
+		   prot("-- parcel format for sending: " + type + ", " + format + ", " + this);
+	   }
+   }
+   
+   /** Activates the parcel format of a FORMAT signal received from remote 
+    * for reading. This is called by the receive engine before the next 
+    * parcel is decoded.
+    * 
+    * @param signal {@code Signal} received FORMAT signal
+    * @throws ParcelProtocolErrorException if the format is not supported
+    */
+   private void formatSignalReceived (Signal signal) {
+	   ChecksumType type = signal.getFormatChecksumType();
+	   HeaderFormat format = signal.getFormatHeaderFormat();
+	   if (type == null || format == null || !ParcelChecksum.isSupported(type)) {
+		   throw new ParcelProtocolErrorException("unsupported parcel format: " + signal.getInfo());
+	   }
+	   receiveCodec = new ParcelCodec(type, format);
+	   if (debug) {
+		   prot("-- parcel format for reading: " + type + ", " + format + ", " + this);
+	   }
+   }
+   
+   /** Returns the static {@code WheelTimer} instance used by this class
+    * for time-control tasks.
     *    
-    * @return Timer
+    * @return {@code WheelTimer}
+    */
+   protected static WheelTimer getTimer () {return JennyNet.getTimerService();}
+   
+   /** Returns the output-processors of the global delivery service for the
+    * given layer category. Slots of the service which have not yet been
+    * assigned are not contained.
+    *
+    * @param category {@code LayerCategory}
+    * @return {@code OutputProcessor[]}, may be empty
     */
-   protected static Timer getTimer () {return timer;}
+   static synchronized OutputProcessor[] getStaticOutputs (LayerCategory category) {
+	  OutputProcessor[] outputs = category == LayerCategory.CLIENT ? staticOutputClient : staticOutputServer;
+	  List<OutputProcessor> list = new ArrayList<>(outputs.length);
+	  for (OutputProcessor output : outputs) {
+		 if (output != null) {
+			list.add(output);
+		 }
+	  }
+	  return list.toArray(new OutputProcessor[list.size()]);
+   }
+   
+   /** Returns an output-processor of the global delivery service for the 
+    * given layer category, to which a connection is assigned. The service 
+    * operates {@code JennyNet.getOutputThreads()} processors per category,
+    * which are assigned in rotation. Missing or dead processors are created.
+    * 
+    * @param category {@code LayerCategory}
+    * @return {@code OutputProcessor}
+    */
+   static synchronized OutputProcessor assignStaticOutput (LayerCategory category) {
+	  boolean client = category == LayerCategory.CLIENT;
+	  OutputProcessor[] outputs = client ? staticOutputClient : staticOutputServer;
+	  int n = JennyNet.getOutputThreads();
+	  if (outputs.length != n) {
+		 // processors dropped from a reduced service continue to serve 
+		 // their assigned connections
+		 outputs = Arrays.copyOf(outputs, n);
+		 if (client) {
+			staticOutputClient = outputs;
+		 } else {
+			staticOutputServer = outputs;
+		 }
+	  }
+	  
+	  int index = (client ? staticOutputClientCounter++ : staticOutputServerCounter++) % n;
+	  OutputProcessor output = outputs[index];
+	  if (output == null || !output.isAlive()) {
+		 String name = (client ? "GLOBAL OUTPUT (Client)" : "GLOBAL OUTPUT (Server)")
+				 .concat(n > 1 ? " " + index : "");
+		 output = new OutputProcessor(name, category, JennyNet.getOutputThreadPriority(), true);
+		 outputs[index] = output;
+	  }
+	  return output;
+   }
+   
+   /** Returns the queue level of the given send-priority; level 0 is 
+    * the highest priority (TOP).
+    * 
+    * @param priority {@code SendPriority}
+    * @return int level 0..NR_PRIORITY_LEVELS-1
+    */
+   static int priorityLevel (SendPriority priority) {
+	  return NR_PRIORITY_LEVELS - 1 - priority.ordinal();
+   }
    
 	@Override
 	public void waitForDisconnect (long time) throws InterruptedException {
@@ -1778,11 +2166,11 @@ class ConnectionImpl implements Connection {
     * called, operations continue until the input-queue is empty or an 
     * error condition is set.
     */
-   private class InputProcessor extends Thread {
+   private class InputProcessor extends ProcessorThread {
       volatile boolean shutdown, terminate, errorCondition;
       
       InputProcessor () {
-         super("Input Processor ".concat(String.valueOf(getLocalAddress())));
+         super("Input Processor ".concat(String.valueOf(getLocalAddress())), isVirtualThreads());
          setPriority(parameters.getBaseThreadPriority());
          setSending(getParameters().getTransmissionSpeed() != 0);
       }
@@ -1803,25 +2191,21 @@ class ConnectionImpl implements Connection {
             try {
            	 	// enter waiting state if SENDING OFF
        		 	// we send only SIGNAL parcels in sending-off state
-           	 	if (sendingOff) {
+           	 	if (!flowControl.isOpen()) {
            	 		if (debug) {
            	 			prot("-- INPUT-PROCESSOR: sending is OFF");
            	 		}
-           	 		// checking and performing send-locked state
-                    checkAndPerformSendWait();
+           	 		// waiting for sending switched on
+           	 		flowControl.await();
            	 	}
-                sendingOff = getTransmissionSpeed() == 0;
+           	 	flowControl.setOpen(getTransmissionSpeed() != 0);
                 
                // get next send-object from input-queue and process for next parcel
                // (this can block until a send-object is available)
-               // we choose this two-step access method to allow for resorting of objects
-               // during sending (in particular relevant for TEMPO delayed connections)
-               // (unfortunately Java queues won't allow for waiting peek operations)
-               ObjectSendSeparation separation = inputQueue.peek();
-               if (separation == null) {
-            	   separation = inputQueue.take();
-            	   inputQueue.put(separation);
-               }
+               // the object remains in the queue during sending to allow for 
+               // preemption by objects of higher priority (in particular relevant 
+               // for TEMPO delayed connections)
+               ObjectSendSeparation separation = inputQueue.awaitHead();
                
                // get next send-parcel from send-object and push into core-sending
                // (pushing can block until send load has decreased under the connection's limit)
@@ -1832,14 +2216,18 @@ class ConnectionImpl implements Connection {
             	   inputQueue.remove(separation);
             	   sendObjectCounter++;
             	   if (inputQueue.isEmpty() && fileSendQueue.isEmpty()) {
-            		   lastSendScheduleTime = 0;
+            		   lastSendScheduleTime.set(0);
             	   }
                } else {
+            	   // pack following small objects into a batch parcel if opted
+            	   if (separation.isSingleParcel() && isObjectBatching()) {
+            		   parcel = batchObjects(separation, parcel);
+            	   }
             	   queueParcelForSending(parcel);
                }
         	   
             } catch (InterruptedException e) {
-            	interrupted();
+            	Thread.interrupted();
             	
             } catch (Throwable e) {
             	e.printStackTrace();
@@ -1859,21 +2247,91 @@ class ConnectionImpl implements Connection {
 		 }
       } // run
       
+      /** Whether small objects are sent in batches on this connection.
+       * 
+       * @return boolean
+       */
+      private boolean isObjectBatching () {
+    	  return parameters.isObjectBatching() && 
+    			  (getRemoteCapabilities() & JennyNet.FEATURE_OBJECT_BATCH) != 0; 
+      }
+      
+      /** Collects the following objects of the input queue which have the 
+       * same priority as the given object and fit into a single parcel into 
+       * a batch together with the given object and returns the batch parcel.
+       * If the input queue is empty, this waits for further objects up to 
+       * the BATCH_LINGER time. Returns the given parcel if no further objects 
+       * were collected. Collected objects are removed from the input queue.
+       * 
+       * @param first {@code ObjectSendSeparation} object of the given parcel
+       * @param parcel {@code TransmissionParcel} single parcel of 'first'
+       * @return {@code TransmissionParcel} batch parcel or 'parcel'
+       * @throws SerialisationException
+       */
+      private TransmissionParcel batchObjects (ObjectSendSeparation first, TransmissionParcel parcel)
+    		  throws SerialisationException {
+    	  long lingerEnd = System.currentTimeMillis() + parameters.getBatchLinger();
+    	  ObjectBatch batch = null;
+    	  
+    	  // the first object is kept out of the queue while collecting
+    	  inputQueue.remove(first);
+    	  try {
+	    	  while (true) {
+	    		  ObjectSendSeparation next = inputQueue.peek();
+	    		  if (next == null) {
+	    			  // wait for another object within linger time
+	    			  long wait = lingerEnd - System.currentTimeMillis();
+	    			  if (wait <= 0 || shutdown || terminate) break;
+	    			  try {
+	    				  next = inputQueue.awaitHead(wait, TimeUnit.MILLISECONDS);
+	    			  } catch (InterruptedException e) {
+	    				  break;
+	    			  }
+	    			  if (next == null) break;
+	    		  }
+	    		  
+	    		  // only objects of the same priority which fit into one parcel
+	    		  if (next.getPriority() != first.getPriority() || 
+	    			  next.getObjectNr() <= first.getObjectNr()) break;
+	    		  TransmissionParcel p = next.getSingleParcel();
+	    		  if (p == null) break;
+	    		  if (batch == null) {
+	    			  batch = new ObjectBatch(ConnectionImpl.this, parcel, 
+	    					  getSendParcelSize(first.getPriority()));
+	    		  }
+	    		  if (!batch.add(p)) break;
+	    		  
+	    		  next.skipParcels();
+	    		  inputQueue.remove(next);
+	    		  sendObjectCounter++;
+	    		  batchedObjectCounter++;
+	    	  }
+    	  } finally {
+    		  inputQueue.offerFirst(first);
+    	  }
+    	  
+    	  if (batch == null || batch.size() < 2) return parcel;
+    	  batchedObjectCounter++;
+    	  if (debug) {
+    		  prot("-- (InputProcessor) sending OBJECT batch of " + batch.size() + " objects, first ID " 
+    				  + first.getObjectNr() + ", rem " + getRemoteAddress());
+    	  }
+    	  return batch.toParcel();
+      }
+      
       /** Sets the cardinal send control (on/off state). If sending is off
        * no send-parcels get queued for sending.
        * 
        * @param doSend boolean true == send data, false == wait state
        */
       public void setSending (boolean doSend) {
-    	  if (sendingOff != doSend) return;
+    	  if (flowControl.isOpen() == doSend) return;
     	  if (debug) {
     		  prot("-- (InputProcessor) set SENDING to '" + doSend +"' : " + ConnectionImpl.this);
     	  }
     	  
-    	  sendingOff = !doSend;
-    	  if (doSend) {
-    		  notifySendLock();
-    	  } else {
+    	  flowControl.setOpen(doSend);
+    	  if (!doSend) {
     		  interrupt();
     	  }
       }
@@ -1919,7 +2377,7 @@ class ConnectionImpl implements Connection {
    /** Handles delivery of output objects (de-serialised net-received objects)
     * to the application.
     */
-   static class OutputProcessor extends PriorityBlockingQueue<DeliveryObject> {
+   static class OutputProcessor extends LevelQueue<DeliveryObject> {
 	  final LayerCategory layer;
 	  final Thread output; 
 	  final String name;
@@ -1927,7 +2385,9 @@ class ConnectionImpl implements Connection {
 	  long objectCounter;
 	  long deliverMarkTm;
 	  boolean isStatic;
+	  boolean isVirtual;
       volatile boolean terminated;
+      private final ReentrantLock putLock = new ReentrantLock();
 
       /** Creates a new output-processor and starts its thread.
        * 
@@ -1937,18 +2397,33 @@ class ConnectionImpl implements Connection {
        * @param staticUsage boolean whether instance is for static use 
        */
       public OutputProcessor (String name, LayerCategory category, int priority, boolean staticUsage) {
-    	 super(32);
+    	  this(name, category, priority, staticUsage, false);
+      }
+      
+      /** Creates a new output-processor and starts its thread, which may
+       * be a virtual thread.
+       * 
+       * @param name String processor name 
+       * @param category {@code LayerCategory} processor's belonging
+       * @param priority int thread priority 
+       * @param staticUsage boolean whether instance is for static use 
+       * @param virtual boolean whether the thread is virtual
+       */
+      public OutputProcessor (String name, LayerCategory category, int priority, 
+    		  boolean staticUsage, boolean virtual) {
+    	 super(NR_PRIORITY_LEVELS, obj -> priorityLevel(obj.getPriority()));
     	 Objects.requireNonNull(category, "category is null");
     	 this.name = name;
     	 layer = category;
     	 isStatic = staticUsage;
+    	 isVirtual = virtual;
     	 if (debug) {
     		 System.out.println("-- JENNY-NET OUTPUT INIT (" + category + ", " 
     				 + (staticUsage ? "static" : "specific") + "), priority = " + priority);
     	 }
     	 
     	 // create thread
-         output = new Thread("JennyNet Output Processor: " + name) {
+         output = ProcessorThread.newThread(new Runnable() {
         	 
          @Override
          public void run() {
@@ -1975,11 +2450,11 @@ class ConnectionImpl implements Connection {
                          
                     } finally {
                     	// decrement object counter of connection
-                    	con.outputObjectCounter.decrementAndGet();
+                    	con.deliveryControl.objectDelivered();
                     }
                       
                    } catch (InterruptedException e) {
-                   		interrupted();
+                   		Thread.interrupted();
                    }
              }
                 
@@ -1988,7 +2463,7 @@ class ConnectionImpl implements Connection {
             	 System.out.println("-- TERMINATING JENNY-NET OutputProcessor: " + name);
              }
          }  // run
-         };
+         }, "JennyNet Output Processor: " + name, virtual);
          
          setThreadPriority(priority);
          if (staticUsage) {
@@ -2013,6 +2488,12 @@ class ConnectionImpl implements Connection {
        */
       public boolean isStatic () {return isStatic;}
       
+      /** Whether the thread of this processor is a virtual thread.
+       * 
+       * @return boolean
+       */
+      public boolean isVirtual () {return isVirtual;}
+      
       /** In case of an ongoing (unfinished) event delivery this value 
        * indicates the delay which has taken place so far. If there is no
        * delivery ongoing, zero is returned.
@@ -2070,20 +2551,28 @@ class ConnectionImpl implements Connection {
     		  if (obj.getConnection() == con) {
     			  count++;
     			  other.put(obj);
-    			  remove(obj);
+    			  if (remove(obj)) {
+    				  // the object is counted again by the other processor
+    				  con.deliveryControl.objectDelivered();
+    			  }
     		  }
     	  }
     	  return count;
 	  }
 	  
       @Override
-      public synchronized void put (DeliveryObject obj) {
+      public void put (DeliveryObject obj) {
     	 if (!output.isAlive())
     		 throw new IllegalStateException("output processor unavailable");
     	 
-    	 obj.setDeliverNr(objectCounter++);
- 		 obj.getConnection().outputObjectCounter.incrementAndGet();
-		 super.put(obj);
+    	 putLock.lock();
+    	 try {
+    		 obj.setDeliverNr(objectCounter++);
+    		 obj.getConnection().deliveryControl.objectQueued();
+    		 super.put(obj);
+    	 } finally {
+    		 putLock.unlock();
+    	 }
 	  }
 
       /** Returns the number of delivery objects which belong to the given 
@@ -2200,6 +2689,11 @@ class ConnectionImpl implements Connection {
 	   private File file;
 	   /** input-stream of file */
        private InputStream fileIn;
+       /** file source for zero-copy sending (alternative to input-stream) */
+       private FileSource fileSource;
+       /** shared source of a broadcast file (alternative to input-stream) */
+       private BroadcastFileSource broadcast;
+       private boolean isBroadcasting;
 	   private SendPriority priority;
 	   private Object lock = new Object();
 	   /** the destination (relative) path for the receiver */
@@ -2211,6 +2705,19 @@ class ConnectionImpl implements Connection {
 	   private int parcelsSent;
 	   private int parcelBufferSize;
 	   private long transmittedLength;
+	   /** whether the file checksum is carried in a trailer parcel, otherwise
+	    * it is the CRC value of the object header (remote capability) */
+	   private boolean trailer;
+	   /** checksum type of the file checksum */
+	   private ChecksumType fileChecksumType;
+	   /** running checksum of the file data sent, carried in the trailer parcel */
+	   private ParcelChecksum fileChecksum;
+	   /** checksum of the file from the checksum cache, null if not cached */
+	   private byte[] cachedChecksum;
+	   /** modification time of the file when sending started */
+	   private long fileModified;
+	   /** compression codec of the file data, null for uncompressed */
+	   private CompressionCodec codec;
 	   /** optional transaction code (e.g. server multiplexor action) */
 	   private int transaction;
 	   /** whether transmission is not finished */
@@ -2222,6 +2729,8 @@ class ConnectionImpl implements Connection {
 	    * The input file is tested for existence and availability to read.
 	    * 
 	    * @param file File input file
+	    * @param broadcast {@code BroadcastFileSource} shared source of the file,
+	    *        may be null
 	    * @param remotePath String destination path information (target name)
 	    * @param priority {@code SendPriority}
 	    * @param transaction int optional transaction ID 
@@ -2231,7 +2740,7 @@ class ConnectionImpl implements Connection {
         *         be opened
 	    * @throws IOException 
 	    */
-	   public SendFileOrder (File file, String remotePath, 
+	   public SendFileOrder (File file, BroadcastFileSource broadcast, String remotePath, 
 			                 SendPriority priority, int transaction) throws IOException {
 		   Objects.requireNonNull(file, "file is null");
 		   Objects.requireNonNull(remotePath, "remotePath is null");
@@ -2242,10 +2751,18 @@ class ConnectionImpl implements Connection {
 			   throw new IllegalArgumentException("transaction is negative");
 		   
 		   this.file = file.getCanonicalFile();
+		   this.broadcast = broadcast;
 		   this.remotePath = remotePath;
 		   this.priority = priority;
 		   this.transaction = transaction;
 		   init();
+		   
+		   // the shared source is referenced from the queued order on, as the
+		   // broadcaster releases its own reference after queueing
+		   if (broadcast != null) {
+			   broadcast.retain();
+			   isBroadcasting = true;
+		   }
 	   }
 
 	   /** Calculates order data and tests them semantically deep.
@@ -2261,19 +2778,17 @@ class ConnectionImpl implements Connection {
           input.close();
           
           // check if file-target is not already in transmission
-          if (fileSenderMap.containsKey(remotePath)) {
+          if (fileSenderPaths.contains(remotePath)) {
              throw new FileInTransmissionException();
           }
 	         
 		  fileLength = file.length();
 		  fileID = getNextObjectNr();
-	      parcelBufferSize = parameters.getTransmissionParcelSize();
-	      long h = fileLength / parcelBufferSize;
-	      if (fileLength % parcelBufferSize > 0) h++;
-	      if (h > Integer.MAX_VALUE) {
-	    	  throw new IllegalStateException("illegal number of parcels for file-order: " + h);
-	      }
-	      nrOfParcels = Math.max(1, (int) h);
+		  trailer = (remoteCapabilities & JennyNet.FEATURE_FILE_TRAILER) != 0;
+		  fileChecksumType = trailer ? checksumType : ChecksumType.ADLER32;
+		  fileChecksum = new ParcelChecksum(fileChecksumType);
+	      setParcelSize(parameters.getTransmissionParcelSize());
+	      codec = getSendCodec(priority, fileLength);
 		  insertTime = System.currentTimeMillis();
 	      ongoing = true;
 	      
@@ -2284,17 +2799,122 @@ class ConnectionImpl implements Connection {
 	      }
 	   }
 
-	   /** Opens the source file and performs IO-reservation.
+	   /** Sets the data size of the file parcels and calculates the number of
+	    * parcels for this order.
+	    * 
+	    * @param size int parcel buffer size
+	    * @throws IllegalStateException if the number of parcels exceeds the
+	    *         integer range
+	    */
+	   private void setParcelSize (int size) {
+	      parcelBufferSize = size;
+	      long h = fileLength / parcelBufferSize;
+	      if (fileLength % parcelBufferSize > 0) h++;
+	      if (h >= Integer.MAX_VALUE) {
+	    	  throw new IllegalStateException("illegal number of parcels for file-order: " + h);
+	      }
+	      // data parcels plus the trailer parcel, if any
+	      nrOfParcels = Math.max(1, (int) h) + (trailer ? 1 : 0);
+	   }
+	   
+	   /** Opens the source file and performs IO-reservation. The parcel size
+	    * of the file is determined at this point if it is adaptive.
 	    * 
 	    * @throws FileInTransmissionException if the file is blocked in IO
 	    * @throws IOException
 	    */
 	   public void startSending () throws IOException {
+	      if (parameters.isAdaptiveParcelSize()) {
+	    	  setParcelSize(getSendParcelSize(priority));
+	      }
       	  if (!IO_Manager.get().enterActiveFile(file, ComDirection.INCOMING)) {
     		 throw new FileInTransmissionException("blocked IO for reading: " + file);
     	  }
       	  isReserved = true;
-          fileIn = new BufferedInputStream(new FileInputStream(file), JennyNet.STREAM_BUFFER_SIZE);
+      	  
+      	  // a cached checksum of the unchanged file saves the running checksum 
+      	  fileModified = file.lastModified();
+      	  if (fileChecksumType != ChecksumType.NONE) {
+      		  cachedChecksum = JennyNet.getChecksumCache().get(file, fileLength, 
+      				  fileModified, fileChecksumType);
+      		  if (cachedChecksum == null) {
+      			  checksumCacheMisses++;
+      		  } else {
+      			  checksumCacheHits++;
+      		  }
+      	  }
+      	  
+      	  // a broadcast order reads from the shared source
+      	  if (broadcast == null) {
+      		  if (channelOutput != null && JennyNet.isZeroCopyFileSending()) {
+      			  fileSource = new FileSource(file);
+      		  } else {
+      			  fileIn = new BufferedInputStream(new FileInputStream(file), JennyNet.STREAM_BUFFER_SIZE);
+      		  }
+      	  }
+	   }
+	   
+	   /** Returns the checksum of the file data for the trailer parcel or, 
+	    * without trailer, for the object header, in which case the file is
+	    * read to calculate it. A checksum which was computed is stored in the 
+	    * checksum cache if the file has not been modified meanwhile and its 
+	    * last modification is older than the order by the cache's tolerance (a
+	    * modification within the same timestamp would be undetectable).
+	    * 
+	    * @return byte[] checksum value
+	    * @throws IOException
+	    */
+	   public byte[] getFileChecksum () throws IOException {
+		   if (cachedChecksum != null) return cachedChecksum;
+		   
+		   byte[] value;
+		   if (broadcast != null) {
+			   value = broadcast.getChecksum(fileChecksumType);
+		   } else if (trailer) {
+			   value = fileChecksum.getByteArray();
+		   } else {
+			   value = new byte[4];
+			   Util.writeInt(value, 0, Util.CRC32_of(file));
+		   }
+		   if (fileChecksumType != ChecksumType.NONE && file.length() == fileLength 
+			   && file.lastModified() == fileModified 
+			   && fileModified < insertTime - FileChecksumCache.MODIFY_TOLERANCE) {
+			   JennyNet.getChecksumCache().put(file, fileLength, fileModified, 
+					   fileChecksumType, value);
+		   }
+		   return value;
+	   }
+	   
+	   /** Whether the file checksum has to be updated from the data of the
+	    * parcels, i.e. it is sent in the trailer and neither cached nor 
+	    * calculated by a broadcast source.
+	    * 
+	    * @return boolean
+	    */
+	   public boolean isChecksumRunning () {
+		   return trailer && broadcast == null && cachedChecksum == null;
+	   }
+	   
+	   /** Whether file regions of this order are sent without reading them,
+	    * which is the case for zero-copy sending without checksums and 
+	    * compression. Otherwise each region is read once to calculate the 
+	    * parcel and file checksums. An order created before the parcel format
+	    * changed to no checksums still reads its regions for a running file
+	    * checksum.
+	    * 
+	    * @return boolean
+	    */
+	   public boolean isRegionUnread () {
+		   return fileSource != null && codec == null && checksumType == ChecksumType.NONE
+				  && (fileChecksumType == ChecksumType.NONE || !isChecksumRunning());
+	   }
+	   
+	   /** Whether the source file has been opened for sending.
+	    * 
+	    * @return boolean
+	    */
+	   public boolean isStarted () {
+		   return fileIn != null || fileSource != null || isBroadcasting;
 	   }
 	   
 	   @Override
@@ -2381,7 +3001,7 @@ class ConnectionImpl implements Connection {
 	     // de-register this transmission thread
 	     duration = getTransmitTime();
 	     fileSenderMap.remove(fileID);
-	     fileSenderMap.remove(remotePath);
+	     fileSenderPaths.remove(remotePath);
 	     
 	     // close the file source and cancel IO-reservation
 	     closeFile();
@@ -2410,6 +3030,15 @@ class ConnectionImpl implements Connection {
 	    		 if (debug) {
 	    			 prot("	   source file closed: " + file);
 	    		 }
+	    	 }
+	    	 if (fileSource != null) {
+	    		 // file is closed when parcels referring to it are done 
+	    		 fileSource.release();
+	    		 fileSource = null;
+	    	 }
+	    	 if (isBroadcasting) {
+	    		 broadcast.release();
+	    		 isBroadcasting = false;
 	    	 }
 		     if (isReserved) {
 		    	 IO_Manager.get().removeActiveFile(file, ComDirection.INCOMING);
@@ -2514,10 +3143,12 @@ class ConnectionImpl implements Connection {
     * filled by the file-send commands.
     * 
     */
-   private class SendFileProcessor extends Thread {
+   private class SendFileProcessor extends ProcessorThread {
 	   
       private volatile boolean terminate;
       private SendFileOrder lastOrder;
+      private ByteBuffer regionBuffer;
+      private ParcelChecksum regionChecksum = new ParcelChecksum(checksumType);
 
       /** Creates a new file send processor (Thread) for a given file sending
        * order.
@@ -2528,7 +3159,7 @@ class ConnectionImpl implements Connection {
        * @throws IOException
        */
       public SendFileProcessor () throws IOException {
-         super("Send File Processor ".concat(String.valueOf(getLocalAddress())));
+         super("Send File Processor ".concat(String.valueOf(getLocalAddress())), isVirtualThreads());
          init();
          start();
       }
@@ -2570,12 +3201,19 @@ class ConnectionImpl implements Connection {
 	         }
 	         
 	         // open source input-stream if required
-	         if (order.fileIn == null) {
+	         if (!order.isStarted()) {
 	        	 order.startSending();
 	         }
 	        	 
 	         // prepare order sending data
-	         byte[] buffer = new byte[order.parcelBufferSize];
+	         // (zero-copy sending reads data only for checksums and compression)
+	         FileSource source = order.fileSource;
+	         byte[] buffer = null;
+	         if (source == null) {
+	        	 buffer = new byte[order.parcelBufferSize];
+	         } else if (regionBuffer == null || regionBuffer.capacity() < order.parcelBufferSize) {
+	        	 regionBuffer = ByteBuffer.allocateDirect(order.parcelBufferSize);
+	         }
 	         int parcelNr = order.parcelsSent;
 	         long fileID = order.fileID;
 	
@@ -2596,10 +3234,8 @@ class ConnectionImpl implements Connection {
 	        	// order may have been closed externally
 	        	if (!order.ongoing) break; 
 	        	
-	           // read from file (blocking) 
-	           int readLen = order.fileIn.read(buffer);
-	           if (parcelNr > 0 & readLen == -1) {
-	        	   // finish operation (file-sent)
+	           // finish operation after the trailer parcel (file-sent)
+	           if (parcelNr == order.nrOfParcels) {
 	               if (debug) {
 	               	 prot("--- (FileSendProcessor) all parcels queued for send-order " 
 	               			 	+ order.fileID + ", remote = " + order.remotePath);
@@ -2608,11 +3244,72 @@ class ConnectionImpl implements Connection {
 	               break;
 	           }
 	           
-	           // construct next parcel
-	           TransmissionParcel parcel = new TransmissionParcel(
-	        		 ConnectionImpl.this,
-	                 order.fileID, parcelNr, buffer, 0, Math.max(readLen, 0));
-	           parcel.setChannel(TransmissionChannel.FILE);
+	           // construct next parcel (the trailer parcel carries the CRC of the file data)
+	           TransmissionParcel parcel;
+	           int dataLength = 0;
+	           boolean isTrailer = order.trailer && parcelNr == order.nrOfParcels - 1;
+	           if (isTrailer) {
+	        	   parcel = new TransmissionParcel(ConnectionImpl.this, order.fileID, parcelNr, 
+	        			   order.getFileChecksum(), 0, 4);
+	        	   parcel.setChannel(TransmissionChannel.FILE);
+	           
+	           } else {
+		           // read from file (blocking) 
+		           long position = (long)parcelNr * order.parcelBufferSize;
+		           int readLen;
+		           if (order.broadcast != null) {
+		        	   readLen = order.broadcast.read(buffer, 0, buffer.length, position);
+		           } else if (source == null) {
+		        	   readLen = order.fileIn.read(buffer);
+		           } else if (order.isRegionUnread()) {
+		        	   readLen = (int)Math.min(order.parcelBufferSize, order.fileLength - position);
+		           } else {
+		        	   regionBuffer.clear().limit(order.parcelBufferSize);
+		        	   readLen = source.read(regionBuffer, position);
+		        	   regionBuffer.flip();
+		           }
+		           if (parcelNr > 0 & readLen == -1) {
+		        	   // premature end of file (file has shrunk while sending)
+		        	   order.breakTransfer(111, 2, new EOFException("premature end of file: " 
+		        			   + order.file));
+		               break;
+		           }
+		           
+		           // update the file checksum (not required if the checksum is cached,
+		           // a broadcast source computes it once)
+		           dataLength = Math.max(readLen, 0);
+		           if (source == null) {
+		        	   if (readLen > 0 && order.isChecksumRunning()) {
+		        		   order.fileChecksum.update(buffer, 0, readLen);
+		        	   }
+		           } else if (order.isChecksumRunning() && !order.isRegionUnread()) {
+		        	   order.fileChecksum.update(regionBuffer.duplicate());
+		           }
+		           
+		           // construct next data parcel (compressed, from buffer or as file region)
+		           byte[] block = order.codec == null ? null : 
+		        	   		compressFileData(order, parcelNr, buffer, dataLength);
+		           if (block != null) {
+		        	   parcel = new TransmissionParcel(ConnectionImpl.this,
+		        			   order.fileID, parcelNr, block, 0, block.length);
+		        	   parcel.setChannel(TransmissionChannel.FILE);
+		           } else if (source == null) {
+		        	   parcel = new TransmissionParcel(ConnectionImpl.this,
+		        			   order.fileID, parcelNr, buffer, 0, dataLength);
+		        	   parcel.setChannel(TransmissionChannel.FILE);
+		           } else {
+		        	   parcel = new TransmissionParcel(ConnectionImpl.this, order.fileID, parcelNr);
+		        	   parcel.setChannel(TransmissionChannel.FILE);
+		        	   if (order.isRegionUnread()) {
+		        		   parcel.setFileRegion(source, position, dataLength);
+		        	   } else {
+		        		   if (regionChecksum.getType() != checksumType) {
+		        			   regionChecksum = new ParcelChecksum(checksumType);
+		        		   }
+		        		   parcel.setFileRegion(source, position, regionBuffer, regionChecksum);
+		        	   }
+		           }
+	           }
 	           parcel.setPriority(order.priority);
 	           if (debug) {
 	        	   prot("--- created FILE PARCEL: file-ID " + fileID + ", ser " + parcelNr);
@@ -2625,11 +3322,18 @@ class ConnectionImpl implements Connection {
 	              header.setPath(order.remotePath);
 	              header.setNrOfParcels(order.nrOfParcels);
 	              header.setPriority(order.priority);
-	              header.setCrc32(Util.CRC32_of(order.file));
+	              header.setCompression(order.codec == null ? 0 : order.codec.getCodecID());
+	              if (order.trailer) {
+	            	  header.setSerialisationMethod(ObjectHeader.FILE_TRAILER 
+	            			  | order.fileChecksumType.ordinal());
+	              } else {
+	            	  header.setCrc32(Util.readInt(order.getFileChecksum(), 0));
+	              }
 	           }
 	
 	           // testing function: failure on parcel-nr
 	           else if (parcelNr == getProcessingTestError(ComDirection.OUTGOING)) {
+	        	  parcel.release();
 	         	  throw new IOException("TESTING IO-Error (file-sending)"); 
 	           }
 	           
@@ -2639,15 +3343,14 @@ class ConnectionImpl implements Connection {
 	           // add a timer-task for TRANSFER CONFIRM or abortion on last parcel
 	           // this will be scheduled after the parcel is sent on the socket
 	           if (isLastParcel) {
-	        	  int nrOfGiga = (int) (order.transmittedLength / JennyNet.GIGA);
 	              AbortFileTimeoutTask timeoutTask = new AbortFileTimeoutTask(
-	                  fileID, parameters.getConfirmTimeout() + nrOfGiga * 15000);
+	                  fileID, parameters.getConfirmTimeout());
 	              parcel.setTimerTask(timeoutTask);
 	           }
 	
 	           // queue file parcel for sending (blocking)
 	           queueParcelForSending(parcel);
-	           order.transmittedLength += parcel.getLength();
+	           order.transmittedLength += dataLength;
 	           order.parcelsSent++;
 	           
 	           // during SHUTDOWN state we delay the last send-order until reception of CONFIRM
@@ -2667,7 +3370,7 @@ class ConnectionImpl implements Connection {
          } // while
 
    	     if (inputQueue.isEmpty()) {
-   	   	     lastSendScheduleTime = 0;
+   	   	     lastSendScheduleTime.set(0);
    	     }
 
          // SHUTDOWN state controls, conditional send signal to remote
@@ -2679,6 +3382,36 @@ class ConnectionImpl implements Connection {
       
       } // run
 
+      /** Returns the payload of a data parcel of a compressed file, which 
+       * consists of a marker byte (0 = stored, 1 = compressed) and the data
+       * block. The data is taken from the given buffer or, if the buffer is
+       * null, from the region buffer. If compression of parcel 0 does not 
+       * pay off, compression is cancelled for the file and null is returned.
+       * 
+       * @param order {@code SendFileOrder}
+       * @param parcelNr int parcel number
+       * @param buffer byte[] file data or null
+       * @param length int data length
+       * @return byte[] parcel payload or null
+       */
+      private byte[] compressFileData (SendFileOrder order, int parcelNr, byte[] buffer, int length) {
+    	  byte[] data = buffer;
+    	  if (data == null) {
+    		  data = new byte[length];
+    		  regionBuffer.duplicate().get(data);
+    	  }
+    	  byte[] block = length > 0 ? compress(order.codec, data, 0, length) : null;
+    	  if (block == null && parcelNr == 0) {
+    		  order.codec = null;
+    		  return null;
+    	  }
+    	  
+    	  byte[] payload = new byte[1 + (block == null ? length : block.length)];
+    	  payload[0] = (byte)(block == null ? 0 : 1);
+    	  System.arraycopy(block == null ? data : block, 0, payload, 1, payload.length - 1);
+    	  return payload;
+      }
+      
       /** Terminates this file transmission without stating a cause.
        */
       public void terminate () {
@@ -2701,99 +3434,224 @@ class ConnectionImpl implements Connection {
    
    
    /** CoreSend is a global queue for send-parcels for all connections with an
-    * adjunct processing thread. The type is <code>PriorityBlockingQueue</code>
-    * of <code>TransmissionParcel</code>. The digesting end automatically sends 
-    * parcels over the net sockets which belong to the issuing connections
+    * adjunct set of processing threads. The type is <code>LevelQueue</code> of 
+    * <code>TransmissionParcel</code>, ordering parcels by channel and priority
+    * in constant time. The digesting end automatically 
+    * sends parcels over the net sockets which belong to the issuing connections
     * and are available as data element in the parcels. The processing occurs 
-    * as a daemon thread which runs until CoreSend is terminated. Currently 
+    * in daemon threads which run until CoreSend is terminated. Currently 
     * termination does not take place.
+    * <p>Taken parcels are placed into the send-lane of their connection. A 
+    * writer thread which succeeds in seizing a lane writes all of its parcels
+    * to the socket; parcels for a lane which is already served by another 
+    * writer are left to that writer. A connection whose socket is not 
+    * writable (blocked remote) thus parks one writer thread only while the
+    * remaining writers continue to serve the other connections.
     * <p>If sending of a parcel causes an error, the associated <code>Connection
     * </code> is closed by the processor stating the error. 
-    *
-    * Currently this terminates if an IO error occurs on the socket.
     */
-   static final class CoreSend extends PriorityBlockingQueue<TransmissionParcel> {
+   static final class CoreSend extends LevelQueue<TransmissionParcel> {
+      /** number of queue levels: priority levels for each transmission channel */
+      static final int NR_LEVELS = TransmissionChannel.values().length * NR_PRIORITY_LEVELS;
+      /** maximum time in nanoseconds for gathering parcels before flush */
+      private static final long MAX_GATHER_TIME = 2000000;
 	  final LayerCategory category;
-      final Thread send;
+      final Thread[] writers;
+      private final ReentrantLock takeLock = new ReentrantLock();
 	  volatile boolean terminate;
       
       public CoreSend (LayerCategory category) {
-         super(32);
+         super(NR_LEVELS, CoreSend::levelOf);
          Objects.requireNonNull(category);
          this.category = category;
+         int nrThreads = JennyNet.getSendThreads();
          if (debug) {
         	 System.out.println("-- JENNY-NET STATIC CORESEND INIT (" + category + "), priority = " 
-        			 + JennyNet.getSendThreadPriority());
+        			 + JennyNet.getSendThreadPriority() + ", threads = " + nrThreads);
          }
-         send = new Thread("JennyNet Static CoreSend") {
-        	 
-            @Override
-            public synchronized void run() {
-               ConnectionImpl con = null;
-               
-               while (true) {
-            	  // determine whether thread has to stop 
-            	  boolean working = !terminate || !isEmpty();
-            	  if (!working) break;
-                	  
-                  try {
-                     // take next parcel from send-queue
-                     TransmissionParcel parcel = take();
-                     con = parcel.getConnection();
-                     TransmissionChannel channel = parcel.getChannel();
-                     
-                     // ignore parcels of inactive connections
-                     // or cancelled file transfers
-                     if (!con.isConnected() ||
-                    	 (channel == TransmissionChannel.FILE &&
-                    	 con.fileSenderMap.get(parcel.getObjectID()) == null)) {
-                    	 if (debug) {
-                    		 prot(con, "-- (CoreSend) dropped a SENDER parcel, " + parcel.getChannel() + ", obj "  
-                    				 + parcel.getObjectID() + ", ser " + parcel.getParcelSequencelNr()
-                    				 + ", " + ", tar " + con.getRemoteAddress().getPort());
-                    	 }
-                    	 if (!parcel.isSignal()) {
-                             con.decrementSendLoad(parcel.getSerialisedLength());
-                    	 }
-                    	 continue;
-                     }
-
-                   	 // send parcel over network socket
-                   	 writeToSocket(parcel);
-                     
-                     // schedule a timer-task that may be defined on the parcel
-                     SchedulableTimerTask task = parcel.getTimerTask();
-                     if (task != null) {
-                        task.schedule(timer);
-                     }
-                     
-                  } catch (InterruptedException e) {
-             		 interrupted();
-
-                  } catch (Throwable e) {
-                	  if (debug) {
-                		  e.printStackTrace();
-                	  }
-                      if (con != null) {
-                    	  con.closeTerminal(new ErrorObject(5, e), true);
-                      }
-                  } 
-               }  // while
-
-               // clear input queue when terminating
-               clear();
-               if (debug) {
-            	   System.out.println("-- TERMINATING JENNY-NET STATIC CoreSend Processor");
-               }
-            } // run
-         };
          
-         // classify and start the thread
-         send.setPriority(JennyNet.getSendThreadPriority());
-         send.setDaemon(true);
-         send.start();
+         writers = new Thread[nrThreads];
+         for (int i = 0; i < nrThreads; i++) {
+        	 Thread t = new Thread("JennyNet Static CoreSend-" + i) {
+				 @Override
+				 public void run() {
+					 writerLoop();
+				 }
+        	 };
+        	 
+        	 // classify and start the thread
+             t.setPriority(JennyNet.getSendThreadPriority());
+             t.setDaemon(true);
+             writers[i] = t;
+             t.start();
+         }
       } // CoreSend
       
+      /** Returns the queue level of the given parcel. Parcels are ordered
+       * by transmission channel first and send-priority second.
+       * 
+       * @param parcel {@code TransmissionParcel}
+       * @return int level 0..NR_LEVELS-1
+       */
+      static int levelOf (TransmissionParcel parcel) {
+    	 return parcel.getChannel().ordinal() * NR_PRIORITY_LEVELS + priorityLevel(parcel.getPriority());
+      }
+      
+      /** Main loop of a writer thread. Takes parcels from the global queue, 
+       * enters them into the send-lane of their connection and serves the lane
+       * if it is not seized by another writer.
+       */
+      private void writerLoop () {
+         while (true) {
+        	// determine whether thread has to stop 
+        	boolean working = !terminate || !isEmpty();
+        	if (!working) break;
+            	  
+            try {
+               // take next parcel from send-queue and enter it to its lane
+               // (atomic operation to preserve the sequence of parcels per connection)
+               ConnectionImpl con;
+               takeLock.lock();
+               try {
+            	   TransmissionParcel parcel = take();
+            	   con = parcel.getConnection();
+            	   con.sendLane.add(parcel);
+               } finally {
+            	   takeLock.unlock();
+               }
+               serveLane(con);
+                 
+            } catch (InterruptedException e) {
+            }
+         }  // while
+
+         // clear input queue when terminating
+         clear();
+         if (debug) {
+        	 System.out.println("-- TERMINATING JENNY-NET STATIC CoreSend Processor");
+         }
+      }
+      
+      /** Writes the parcels of the given connection's send-lane if the lane 
+       * can be seized by the calling thread. Returns immediately if the lane
+       * is served by another thread. After releasing the lane it is checked
+       * again for parcels which may have been added in the meantime.
+       * <p>With send-gathering active, parcels available in the lane are
+       * written into the socket's output buffer and flushed together when 
+       * the lane is empty or the gathering time limit has expired. The 
+       * buffer writes through automatically when full. Timer-tasks of the
+       * parcels are scheduled after the flush.
+       *  
+       * @param con {@code ConnectionImpl}
+       */
+      private void serveLane (ConnectionImpl con) {
+    	 while (!con.sendLane.isEmpty() && con.sendLaneBusy.compareAndSet(false, true)) {
+    		List<SchedulableTimerTask> tasks = new ArrayList<>();
+    		try {
+    		   TransmissionParcel parcel;
+    		   boolean gathering = JennyNet.isSendGathering();
+    		   long gatherStart = 0;
+    		   int gathered = 0;
+    		   
+    		   while ((parcel = con.sendLane.poll()) != null) {
+    			  if (!sendParcel(parcel)) continue;
+    			  
+    			  SchedulableTimerTask task = parcel.getTimerTask();
+    			  if (task != null) {
+    				  tasks.add(task);
+    			  }
+    			  if (gathered++ == 0) {
+    				  gatherStart = System.nanoTime();
+    			  }
+    			  if (!gathering || System.nanoTime() - gatherStart > MAX_GATHER_TIME) {
+    				  flushLane(con, tasks);
+    				  gathered = 0;
+    			  }
+    		   }
+    		   
+    		   if (gathered > 0) {
+    			   flushLane(con, tasks);
+    		   }
+    		} finally {
+    		   con.sendLaneBusy.set(false);
+    		}
+    	 }
+      }
+      
+      /** Flushes the socket output of the given connection and schedules the
+       * given timer-tasks when successful. The task list is cleared. Errors 
+       * lead to closure of the connection.
+       * 
+       * @param con {@code ConnectionImpl}
+       * @param tasks {@code List<SchedulableTimerTask>} tasks of written parcels
+       */
+      private void flushLane (ConnectionImpl con, List<SchedulableTimerTask> tasks) {
+    	 try {
+    		 con.socketOutput.flush();
+    		 if (con.transmitWritten) {
+    			 con.setLastSendTime();
+    			 con.transmitWritten = false;
+    		 }
+    		 con.socketFlushCounter++;
+    		 
+             // schedule timer-tasks that may be defined on the parcels
+    		 for (SchedulableTimerTask task : tasks) {
+    			 task.schedule(getTimer());
+    		 }
+    		 
+    	 } catch (Throwable e) {
+        	 if (debug) {
+        		 e.printStackTrace();
+        	 }
+             con.closeTerminal(new ErrorObject(5, e), true);
+    	 }
+    	 tasks.clear();
+      }
+      
+      /** Writes a single parcel of a seized send-lane into the socket output
+       * without flushing. Parcels of inactive connections or cancelled file 
+       * transfers are dropped. Errors lead to closure of the connection.
+       * 
+       * @param parcel {@code TransmissionParcel}
+       * @return boolean true = parcel written, false = parcel dropped or failed
+       */
+      private boolean sendParcel (TransmissionParcel parcel) {
+    	 ConnectionImpl con = parcel.getConnection();
+    	 try {
+             TransmissionChannel channel = parcel.getChannel();
+             
+             // ignore parcels of inactive connections
+             // or cancelled file transfers
+             if (!con.isConnected() ||
+            	 (channel == TransmissionChannel.FILE &&
+            	 con.fileSenderMap.get(parcel.getObjectID()) == null)) {
+            	 if (debug) {
+            		 prot(con, "-- (CoreSend) dropped a SENDER parcel, " + parcel.getChannel() + ", obj "  
+            				 + parcel.getObjectID() + ", ser " + parcel.getParcelSequencelNr()
+            				 + ", " + ", tar " + con.getRemoteAddress().getPort());
+            	 }
+            	 if (!parcel.isSignal()) {
+                     con.decrementSendLoad(parcel.getSerialisedLength());
+            	 }
+            	 return false;
+             }
+
+           	 // send parcel over network socket
+           	 writeToSocket(parcel);
+           	 return true;
+                 
+    	 } catch (Throwable e) {
+        	 if (debug) {
+        		 e.printStackTrace();
+        	 }
+             con.closeTerminal(new ErrorObject(5, e), true);
+             return false;
+    	 } finally {
+    		 // release a file region
+    		 parcel.release();
+    	 }
+      }
+      
     /** Inserts the specified data parcel into this priority queue. 
     * This method will not block.
     * 
@@ -2823,9 +3681,9 @@ class ConnectionImpl implements Connection {
 		}
 	}
 
-    /** Writes a transmission parcel to its associated network socket.
-     * This method blocks until all data of the argument has been written
-     * to the output stream.
+    /** Writes a transmission parcel to the output stream of its associated
+     * network socket. The stream is not flushed. This method blocks until
+     * all data of the argument has been written to the output stream.
      * 
      * @param parcel {@code TransmissionParcel}
      * @throws IOException
@@ -2842,25 +3700,42 @@ class ConnectionImpl implements Connection {
         }
         
         // write to TCP socket
-        parcel.writeObject(con.socketOutput);
-        con.socketOutput.flush();
-        con.setLastSendTime();
+        con.sendCodec.write(parcel, con.socketOutput, con.channelOutput);
+        con.parcelWriteCounter++;
+        if (parcel instanceof Signal && ((Signal)parcel).getSigType() == SignalType.FORMAT) {
+        	con.formatSignalWritten((Signal)parcel);
+        }
+        con.transmitWritten |= !isFormatSignal(parcel);
 
         // update connection's exchanged volume counter 
         con.transmittedVolume.addAndGet(parcel.getSerialisedLength());
         if (!parcel.isSignal()) {
      	    con.addToExchangedVolume(parcel.getLength());
             con.decrementSendLoad(parcel.getSerialisedLength());
+            con.parcelSizer.parcelSent(parcel.getSerialisedLength(), 
+            		con.flowControl.getLoad() > 0);
         }
      }
     
-      /** Triggers termination of the sending thread. The internal thread
-       * stays alive until all queued parcels underwent a send attempt,
+      /** Triggers termination of the sending threads. The internal threads
+       * stay alive until all queued parcels underwent a send attempt,
        * i.e. the queue becomes empty.
        */
       public void terminate () {
          terminate = true;
-         send.interrupt();
+         for (Thread t : writers) {
+        	 t.interrupt();
+         }
+      }
+
+      /** Sets the priority of the internal sending threads.
+       * 
+       * @param p int thread priority
+       */
+      public void setThreadPriority (int p) {
+    	  for (Thread t : writers) {
+    		  t.setPriority(p);
+    	  }
       }
 
       @Override
@@ -2869,21 +3744,16 @@ class ConnectionImpl implements Connection {
          super.finalize();
       }
 
-//      /** Sets the priority of the internal sending thread.
-//       * 
-//       * @param p int thread priority
-//       */
-//      public void setThreadPriority (int p) {
-//         send.setPriority(p);
-//      }
-      
       /** Whether this sending instance is capable of sending parcels,
-       * i.e. the internal thread is alive.
+       * i.e. at least one internal thread is alive.
        * 
        * @return boolean true == sending is alive
        */
       public boolean isAlive () {
-    	  return send.isAlive();
+    	  for (Thread t : writers) {
+    		  if (t.isAlive()) return true;
+    	  }
+    	  return false;
       }
    }  // CoreSend
    
@@ -2895,11 +3765,11 @@ class ConnectionImpl implements Connection {
     * are distributed to the corresponding file agglomeration objects, which 
     * are processors themselves. OBJECT parcels are just stored into this queue.
     */
-   private class ReceiveProcessor  extends Thread {
+   private class ReceiveProcessor  extends ProcessorThread {
       volatile boolean terminated;
       
       public ReceiveProcessor () {
-    	  super("ReceiveProcessor ".concat(String.valueOf(getLocalAddress())));
+    	  super("ReceiveProcessor ".concat(String.valueOf(getLocalAddress())), isVirtualThreads());
 	      setPriority(parameters.getTransmitThreadPriority());
       }
       
@@ -2911,62 +3781,12 @@ class ConnectionImpl implements Connection {
                // read next incoming parcel from remote (blocking)
                TransmissionParcel parcel = readParcelFromSocket();
                if (terminated) break;
-        	   lastReceiveTime = System.currentTimeMillis();
 
                // branch parcel path into SIGNAL, FILE and OBJECT digestion
-               switch (parcel.getChannel()) {
-               case SIGNAL: 
-                  signalReceiveDigestion(parcel);
-               break;
-               case OBJECT: 
-	              // sum up exchanged data for IDLE state control (if opted)
-            	  parcelReceiveDigestion (parcel);
-               break;
-               case FILE: 
-                  // sum up exchanged data for IDLE state control (if opted)
-                  fileReceiveDigestion(parcel);
-               break;
-               case FINAL:
-            	   if (parcel.getParcelSequencelNr() == 1) {
-	            	 // signal ALL-SENT from remote
-                  	 remoteAllSent = true;
-                  	 if (ctrlShutdownTask != null && ctrlShutdownTask.hasRun) {
-                  		 controlEndOfShutdown();
-                  	 }
-            	   }
-               break;
-               default: throw new IllegalStateException("SOCKET-RECEIVE: unknown parcel channel");
-               }
+               digestReceivedParcel(parcel);
             
-             } catch (InterruptedException e) {
-        	   interrupted();
-        	   
-            } catch (SocketException | EOFException e) {
-               if (debug) {
-            	   prot("-- (ReceiveProcessor) fatal exception: " + e + ", " + ConnectionImpl.this);
-               }
-               if (operationState == ConnectionState.CONNECTED) {
-                  closeTerminal(new ErrorObject(6, e), false);
-               } else if (!remoteAllSent) {
-            	  prot("XXX BAD SOCKET EXCEPTION " + ConnectionImpl.this);
-            	  e.printStackTrace();
-            	  ErrorObject error = new ErrorObject(4, e); 
-                  closeTerminal(error, false);
-               }
-               break;
-               
             } catch (Throwable e) {
-               if (debug) {
-            	   prot("-- (ReceiveProcessor) Throwable: " + e + ", " + ConnectionImpl.this);
-               }
-               e.printStackTrace();
-
-               if (operationState == ConnectionState.CONNECTED) {
-                  close(e, 6);
-               } else {
-            	  closeTerminal(new ErrorObject(5, e), false);
-            	  break;
-               }
+               if (receiveFailure(e)) break;
             }
          } // while
          
@@ -2977,6 +3797,182 @@ class ConnectionImpl implements Connection {
 	     }
       } // run
       
+	   private TransmissionParcel readParcelFromSocket () throws IOException {
+	       TransmissionParcel parcel = receiveCodec.read(ConnectionImpl.this, socketInput);
+	       parcelReceived(parcel);
+		   return parcel;
+	   }
+	   
+      public void terminate () {
+         if (debug) {
+        	 String hstr = isAlive() ? "terminate called" : " already DEAD";
+        	 prot("--- (ReceiveProcessor) " + hstr + ", rem " + getRemoteAddress());
+         }
+         terminated = true;
+         interrupt();
+      }
+   } // ReceiveProcessor
+
+   /** Returns the parcel codec for reading from the network socket.
+    * 
+    * @return {@code ParcelCodec}
+    */
+   ParcelCodec getReceiveCodec () {
+	   return receiveCodec;
+   }
+
+   /** Returns a buffer for the payload of a received parcel with a length 
+    * of at least the given value. The buffer is taken from the receive 
+    * buffer pool if available and must be handed back by 
+    * {@code releaseReceiveBuffer()}. 
+    * 
+    * @param length int data length
+    * @return byte[] buffer
+    */
+   byte[] obtainReceiveBuffer (int length) {
+	   receiveBufferRequests++;
+	   receiveBuffersOutstanding.incrementAndGet();
+	   byte[] buffer = receivePool.poll(length);
+	   if (buffer == null) {
+		   return receivePool.allocate(length);
+	   }
+	   receiveBufferHits++;
+	   return buffer;
+   }
+   
+   /** Returns a buffer obtained by {@code obtainReceiveBuffer()} to the
+    * receive buffer pool.
+    * 
+    * @param buffer byte[]
+    */
+   void releaseReceiveBuffer (byte[] buffer) {
+	   receiveBuffersOutstanding.decrementAndGet();
+	   receivePool.recycle(buffer);
+   }
+
+   /** Registers the reception of a parcel from the network socket in the
+    * volume counters of this connection. 
+    * 
+    * @param parcel {@code TransmissionParcel} received parcel
+    */
+   void parcelReceived (TransmissionParcel parcel) {
+       if (!parcel.isSignal()) {
+    	   addToExchangedVolume(parcel.getLength());
+       } else if ((parcel.getParcelSequencelNr() & 0xFFFF) == SignalType.FORMAT.ordinal()) {
+    	   formatSignalReceived(new Signal(parcel));
+       }
+       transmittedVolume.addAndGet(parcel.getSerialisedLength());
+
+       if (debug) {
+           prot("--- (Receive) reading parcel from socket: " + ", " + parcel.getChannel() 
+           + " (" + parcel.getObjectID() + ", " + parcel.getParcelSequencelNr() 
+      		+ "), rem " + getRemoteAddress());
+           if (parcel.getParcelSequencelNr() == 0) {
+        	   parcel.report(0, System.out);
+           }
+       }
+   }
+   
+   /** Branches a parcel received from the network socket into SIGNAL, 
+    * OBJECT, FILE and FINAL digestion. This is called by the receive engine
+    * of the connection (receive-processor or receive-selector).
+    * The data buffer of the parcel is released after digestion, except for
+    * FILE parcels which are released by their file agglomeration.
+    * 
+    * @param parcel {@code TransmissionParcel} received parcel
+    * @throws InterruptedException
+    * @throws SerialisationException
+    */
+   void digestReceivedParcel (TransmissionParcel parcel) throws InterruptedException, SerialisationException {
+	   if (!isFormatSignal(parcel)) {
+		   lastReceiveTime = System.currentTimeMillis();
+	   }
+
+       switch (parcel.getChannel()) {
+       case SIGNAL: 
+          signalReceiveDigestion(parcel);
+          parcel.release();
+       break;
+       case OBJECT: 
+    	  parcelReceiveDigestion (parcel);
+    	  parcel.release();
+       break;
+       case FILE: 
+          fileReceiveDigestion(parcel);
+       break;
+       case FINAL:
+    	   if (parcel.getParcelSequencelNr() == 1) {
+        	 // signal ALL-SENT from remote
+          	 remoteAllSent = true;
+          	 if (ctrlShutdownTask != null && ctrlShutdownTask.hasRun) {
+          		 controlEndOfShutdown();
+          	 }
+    	   }
+       break;
+       default: throw new IllegalStateException("SOCKET-RECEIVE: unknown parcel channel");
+       }
+   }
+   
+   /** Whether the digestion of the given received parcel would block
+    * because the output queue or the concerned file receptor queue is 
+    * exhausted. This is used by the non-blocking receive engine.
+    * 
+    * @param parcel {@code TransmissionParcel} received parcel
+    * @return boolean true = parcel digestion must be delayed
+    */
+   boolean isReceptionBlocked (TransmissionParcel parcel) {
+	   if (deliveryControl.isFull()) {
+		   return true;
+	   }
+	   if (parcel.getChannel() == TransmissionChannel.FILE) {
+		   FileAgglomeration fileQueue = fileReceptorMap.get(parcel.getObjectID());
+		   return fileQueue != null && fileQueue.remainingCapacity() == 0;
+	   }
+	   return false;
+   }
+   
+   /** Reacts to an exception which occurred in the receive engine of this
+    * connection (reading or digesting a parcel). Dependent on the error and
+    * the operation state the connection is shut down or closed.
+    * 
+    * @param e {@code Throwable}
+    * @return boolean true = reception has to terminate, false = reception
+    *         may continue
+    */
+   boolean receiveFailure (Throwable e) {
+	   if (e instanceof InterruptedException) {
+		   Thread.interrupted();
+		   return false;
+	   }
+	   
+	   if (e instanceof SocketException | e instanceof EOFException) {
+           if (debug) {
+        	   prot("-- (Receive) fatal exception: " + e + ", " + ConnectionImpl.this);
+           }
+           if (operationState == ConnectionState.CONNECTED) {
+              closeTerminal(new ErrorObject(6, e), false);
+           } else if (!remoteAllSent) {
+        	  prot("XXX BAD SOCKET EXCEPTION " + ConnectionImpl.this);
+        	  e.printStackTrace();
+        	  ErrorObject error = new ErrorObject(4, e); 
+              closeTerminal(error, false);
+           }
+           return true;
+	   }
+	   
+       if (debug) {
+    	   prot("-- (Receive) Throwable: " + e + ", " + ConnectionImpl.this);
+       }
+       e.printStackTrace();
+
+       if (operationState == ConnectionState.CONNECTED) {
+          close(e, 6);
+          return false;
+       } 
+	   closeTerminal(new ErrorObject(5, e), false);
+	   return true;
+   }
+   
       private void fileReceiveDigestion (TransmissionParcel parcel) throws InterruptedException {
          
          // try find the specific receptor queue to take the parcel
@@ -2995,6 +3991,7 @@ class ConnectionImpl implements Connection {
             				parcel.getParcelSequencelNr() + ") rem= " +
             				parcel.getConnection().getRemoteAddress().getPort());
             	}
+            	parcel.release();
                 return;
             }
             
@@ -3006,6 +4003,7 @@ class ConnectionImpl implements Connection {
             } catch (Exception e) {
                // RETURN SIGNAL: incoming file cannot be received (some error)
                sendSignal(Signal.newBreakSignal(ConnectionImpl.this, fileID, 1, e.toString()));
+               parcel.release();
                return;
             }
          }
@@ -3020,6 +4018,12 @@ class ConnectionImpl implements Connection {
       private void parcelReceiveDigestion (TransmissionParcel parcel) throws SerialisationException {
           long objectNr = parcel.getObjectID();
           int sequenceNr = parcel.getParcelSequencelNr();
+       
+          // unpack a batch of objects
+          if (sequenceNr == 0 && ObjectBatch.isBatch(parcel)) {
+        	  batchReceiveDigestion(parcel);
+        	  return;
+          }
 
           // look for the relevant parcel agglomeration from registry
           ObjectAgglomeration agglom = objectReceptorMap.get(objectNr);                 
@@ -3089,6 +4093,100 @@ class ConnectionImpl implements Connection {
           }
 	 } // parcelReceiveDigestion
 
+   /** Hands the objects of a received batch parcel to the output queue in
+    * their sending order. A FAIL signal is sent to remote for each object
+    * which cannot be de-serialised.
+    * 
+    * @param parcel {@code TransmissionParcel} batch parcel
+    */
+   private void batchReceiveDigestion (TransmissionParcel parcel) {
+	   List<ObjectBatch.Entry> entries = ObjectBatch.entries(parcel);
+	   if (debug) {
+		   prot("--- (ReceiveProcessor) received OBJECT batch of " + entries.size() 
+		   		+ " objects, first ID " + parcel.getObjectID() + ", rem " + getRemoteAddress());
+	   }
+	   batchDelivery(entries.iterator(), parcel.getPriority());
+   }
+   
+   /** Hands the given objects of a received batch to the output queue. On
+    * a receive-selector thread, which must not block, delivery stops when 
+    * the output queue is full and the remaining objects are held back 
+    * until {@code resumeBatchDelivery()} is called.
+    * 
+    * @param it {@code Iterator<ObjectBatch.Entry>} objects of the batch
+    * @param priority {@code SendPriority} priority of the batch
+    */
+   private void batchDelivery (Iterator<ObjectBatch.Entry> it, SendPriority priority) {
+	   boolean selector = ReceiveSelector.isSelectorThread();
+	   while (it.hasNext()) {
+		   if (selector && deliveryControl.isFull()) {
+			   batchRemainder = it;
+			   batchPriority = priority;
+			   if (debug) {
+				   prot("--- (Receive) holding back OBJECT batch remainder, rem " + getRemoteAddress());
+			   }
+			   return;
+		   }
+		   
+		   ObjectBatch.Entry entry = it.next();
+		   long objectNr = entry.objectID;
+		   try {
+			   if (entry.serialisation.length > parameters.getMaxSerialisationSize()) {
+				   throw new SerialisationOversizedException("received oversized object serialisation: ID=" 
+						   + objectNr + ", serial-size=" + entry.serialisation.length);
+			   }
+			   Serialization ser = obtainReceiveSerialisation(entry.method);
+			   byte[] serialisation = entry.serialisation;
+			   if (entry.codec != 0) {
+				   try {
+					   serialisation = decompress(entry.codec, ser, serialisation, 0, serialisation.length, 
+							   parameters.getMaxSerialisationSize());
+				   } catch (IOException e) {
+					   throw new SerialisationException(7, "decompression failed", e);
+				   }
+			   }
+			   Object object = ser.deserialiseObject(serialisation);
+			   
+			   // put user object into output queue 
+			   receiveObjectCounter++;
+			   putObjectToReceiveQueue(new UserObject(object, objectNr, priority), true);
+			   
+		   } catch (SerialisationUnavailableException e) {
+			   // reaction to NO-RECEPTION-DEFINED: send FAIL 6 signal to remote 
+			   sendSignal(Signal.newFailSignal(ConnectionImpl.this, objectNr, 6, "reception undefined"));
+			   
+		   } catch (SerialisationException e) {
+			   // reaction to deserialisation error : send FAIL 5 signal to remote 
+			   sendSignal(Signal.newFailSignal(ConnectionImpl.this, objectNr, 5, e.toString()));
+		   }
+	   }
+   }
+   
+   /** Continues handing a held back remainder of a received object batch 
+    * to the output queue as long as there is space. This is called by the 
+    * receive-selector thread.
+    * 
+    * @return boolean true = no batch remainder is held, false = the output
+    *         queue is full
+    */
+   boolean resumeBatchDelivery () {
+	   Iterator<ObjectBatch.Entry> it = batchRemainder;
+	   if (it != null) {
+		   batchRemainder = null;
+		   batchDelivery(it, batchPriority);
+	   }
+	   return batchRemainder == null;
+   }
+   
+   /** Whether a remainder of a received object batch is held back because 
+    * the output queue was full (receive-selector engine).
+    * 
+    * @return boolean
+    */
+   boolean hasBatchRemainder () {
+	   return batchRemainder != null;
+   }
+
 	private void signalReceiveDigestion (TransmissionParcel parcel) {
          
          // identify signal (analyse parcel)
@@ -3124,6 +4222,22 @@ class ConnectionImpl implements Connection {
          case PING:
             sendSignal(Signal.newEchoSignal(ConnectionImpl.this, objectID));
          break;
+      
+         case CAPABILITIES:
+        	 // remote understands capabilities: assign the parcel format
+        	 setRemoteCapabilities(info);
+        	 if (!formatAnnounced) {
+        		announceFormat(JennyNet.selectChecksumType(parameters.getChecksumType(), remoteCapabilities), 
+        				JennyNet.selectHeaderFormat(parameters.getHeaderFormat(), remoteCapabilities));
+        	 }
+         break;
+         
+         case FORMAT:
+        	 // remote has assigned the parcel format: adopt it for sending
+        	 if (!formatAnnounced) {
+        		announceFormat(signal.getFormatChecksumType(), signal.getFormatHeaderFormat());
+        	 }
+         break;
          
          case ECHO:
             try {
@@ -3260,34 +4374,6 @@ class ConnectionImpl implements Connection {
          }
       } // signalReceiveDigestion
 
-	   private TransmissionParcel readParcelFromSocket () throws IOException {
-	       TransmissionParcel parcel = TransmissionParcel.readParcel(ConnectionImpl.this, socketInput);
-	       if (!parcel.isSignal()) {
-	    	   addToExchangedVolume(parcel.getLength());
-	       }
-	       transmittedVolume.addAndGet(parcel.getSerialisedLength());
-
-	       if (debug) {
-	           prot("--- (ReceiveProcessor) reading parcel from socket: " + ", " + parcel.getChannel() 
-	           + " (" + parcel.getObjectID() + ", " + parcel.getParcelSequencelNr() 
-	      		+ "), rem " + getRemoteAddress());
-	           if (parcel.getParcelSequencelNr() == 0) {
-	        	   parcel.report(0, System.out);
-	           }
-	       }
-		   return parcel;
-	   }
-	   
-      public void terminate () {
-         if (debug) {
-        	 String hstr = isAlive() ? "terminate called" : " already DEAD";
-        	 prot("--- (ReceiveProcessor) " + hstr + ", rem " + getRemoteAddress());
-         }
-         terminated = true;
-         interrupt();
-      }
-   } // ReceiveProcessor
-
    /** One-time task to control the termination of a file-send-order.
     * If at the time this task is running the file-sender-map contains the
     * given file-ID, then the corresponding file-send-order is aborted
@@ -3336,7 +4422,7 @@ class ConnectionImpl implements Connection {
 	   /** Creates a new task.
 	    */
 	   public ControlEndOfShutdownTask () {
-		   super(0, "Control-End-Of-Shutdown-Task");
+		   super(100, "Control-End-Of-Shutdown-Task");
 	   }
 
 	   @Override
@@ -3344,7 +4430,6 @@ class ConnectionImpl implements Connection {
 		   if (debug) {
 		      prot("-- running Control-End-Of-Shutdown-Task, tar " + getRemoteAddress());
 		   }
-	 	   Util.sleep(100);
 		   controlEndOfShutdown();
 		   hasRun = true;
 	   }
@@ -3358,7 +4443,7 @@ class ConnectionImpl implements Connection {
     * has changed. The check period and the change threshold of volume can be 
     * set in connection parameters.
     */
-   private class CheckIdleTimerTask extends TimerTask {
+   private class CheckIdleTimerTask extends SchedulableTimerTask {
       private long volumeMarker;
       private long lastCheckTime;
       private final int period;
@@ -3368,6 +4453,7 @@ class ConnectionImpl implements Connection {
        * @param period int milliseconds of check-period
        */
       public CheckIdleTimerTask (int period) {
+    	 super(period, period, "CheckIdleTimerTask");
          this.volumeMarker = exchangedDataVolume.get();
          this.period = Math.max(5000, period);
          lastCheckTime = System.currentTimeMillis();
@@ -3381,7 +4467,7 @@ class ConnectionImpl implements Connection {
      	 }
 
          // schedule the new task
-         timer.schedule(this, period, period);
+         schedule(getTimer());
       }
       
       /** Creates and schedules on <i>timer</i> a new idle-check-task
@@ -3403,6 +4489,7 @@ class ConnectionImpl implements Connection {
        * 
        * @return int milliseconds
        */
+      @Override
       public int getPeriod () {return period;}
       
       public int getThreshold () {
@@ -3470,7 +4557,7 @@ class ConnectionImpl implements Connection {
      * The task cancels itself if the connection is no longer connected.
     * 
     */
-   private static class AliveSignalTimerTask extends TimerTask {
+   private static class AliveSignalTimerTask extends SchedulableTimerTask {
       private ConnectionImpl connection;
       private int period;
       private long sendTime;
@@ -3508,6 +4595,7 @@ class ConnectionImpl implements Connection {
        * @throws IllegalArgumentException if period is 0 or negative          
        */
       private AliveSignalTimerTask (ConnectionImpl con, int period) {
+    	 super(period, period, "AliveSignalTimerTask");
     	 Objects.requireNonNull(con);
          if (period <= 0) 
             throw new IllegalArgumentException("period <= 0");
@@ -3520,7 +4608,7 @@ class ConnectionImpl implements Connection {
      	 }
 
          // schedule this task
-         timer.schedule(this, period, period);
+         schedule(getTimer());
       }
       
     @Override
@@ -3609,6 +4697,16 @@ class ConnectionImpl implements Connection {
          setConfirmTimeout(p.getConfirmTimeout());
          setDeliveryThreadUsage(p.getDeliveryThreadUsage());
          setDeliverTolerance(p.getDeliverTolerance());
+         setChecksumType(p.getChecksumType());
+         setHeaderFormat(p.getHeaderFormat());
+         setObjectBatching(p.isObjectBatching());
+         setBatchLinger(p.getBatchLinger());
+         setCompressionCodec(p.getCompressionCodec());
+         setCompressionThreshold(p.getCompressionThreshold());
+         setAdaptiveParcelSize(p.isAdaptiveParcelSize());
+         for (SendPriority priority : SendPriority.values()) {
+        	 setCompressedPriority(priority, p.isCompressedPriority(priority));
+         }
          setFileRootDir(p.getFileRootDir());
          setIdleCheckPeriod(p.getIdleCheckPeriod());
          setIdleThreshold(p.getIdleThreshold());
@@ -3689,58 +4787,35 @@ class ConnectionImpl implements Connection {
   		 synchronized (this) {
 	     super.setDeliveryThreadUsage(usage);
 	  	 OutputProcessor oldProcessor = outputProcessor;
-	  	 int staticPrio = JennyNet.getOutputThreadPriority();
 	  	 int indivPrio = Math.min(Thread.MAX_PRIORITY, getBaseThreadPriority() + 1);
 
-	  		
-	     // Client thread
-    	 if (layerCat == LayerCategory.CLIENT) {
-		     // set to GLOBAL
-		     if (usage == ThreadUsage.GLOBAL) {
-		  	    // ensure static global output processor existence
-		  	    if (staticOutputClient == null || !staticOutputClient.isAlive()) {
-		  		   staticOutputClient = new OutputProcessor("GLOBAL OUTPUT (Client)", layerCat, staticPrio, true);
-		  	    }
-		  		   
-		  	    // set this connection's processor to static processor
-		  	    outputProcessor = staticOutputClient;
-		
-		  	    // terminate an orphan output processor
-		  	    if (oldProcessor != null && oldProcessor != staticOutputClient) {
-		  		   oldProcessor.terminate();
-		  	    }
-		  		   
-		      // set to INDIVIDUAL
-		     } else {
-		  	     if (outputProcessor == null || !outputProcessor.isAlive() || outputProcessor == staticOutputClient) {
-		  		    outputProcessor = new OutputProcessor("SPECIFIC OUTPUT (Client)", layerCat, indivPrio, false);
-		  	    }
-		  	 }
-
-	     // Server thread
+	     // set to GLOBAL
+	     if (usage == ThreadUsage.GLOBAL) {
+	    	// keep an assigned global output processor to preserve event sequence
+	  	    if (oldProcessor == null || !oldProcessor.isStatic() || !oldProcessor.isAlive()) {
+	  	       // set this connection's processor to a processor of the global service
+	  	       outputProcessor = assignStaticOutput(layerCat);
+	
+	  	       // terminate an orphan output processor
+	  	       if (oldProcessor != null && !oldProcessor.isStatic()) {
+	  		      oldProcessor.terminate();
+	  	       }
+	  	    }
+	  		   
+	      // set to INDIVIDUAL or VIRTUAL
 	     } else {
-		     // set to GLOBAL
-		     if (usage == ThreadUsage.GLOBAL) {
-		  	    // ensure static global output processor existence
-		  	    if (staticOutputServer == null || !staticOutputServer.isAlive()) {
-		  	    	staticOutputServer = new OutputProcessor("GLOBAL OUTPUT (Server)", layerCat, staticPrio, true);
-		  	    }
-		  		   
-		  	    // set this connection's processor to static processor
-		  	    outputProcessor = staticOutputServer;
-		
-		  	    // terminate an orphan output processor
-		  	    if (oldProcessor != null && oldProcessor != staticOutputServer) {
-		  		   oldProcessor.terminate();
-		  	    }
-		  		   
-		      // set to INDIVIDUAL
-		     } else {
-		  	     if (outputProcessor == null || !outputProcessor.isAlive() || outputProcessor == staticOutputServer) {
-		  		    outputProcessor = new OutputProcessor("SPECIFIC OUTPUT (Server)", layerCat, indivPrio, false);
-		  	    }
-		  	 }
-	     }
+	  	     boolean virtual = usage == ThreadUsage.VIRTUAL;
+	  	     if (outputProcessor == null || !outputProcessor.isAlive() || outputProcessor.isStatic()
+	  	    	 || outputProcessor.isVirtual() != virtual) {
+	  	    	String name = layerCat == LayerCategory.CLIENT ? "SPECIFIC OUTPUT (Client)" : "SPECIFIC OUTPUT (Server)"; 
+	  		    outputProcessor = new OutputProcessor(name, layerCat, indivPrio, false, virtual);
+	  		    
+	  		    // terminate a replaced individual output processor
+	  		    if (oldProcessor != null && !oldProcessor.isStatic()) {
+	  		       oldProcessor.terminate();
+	  		    }
+	  	    }
+	  	 }
   		 }
 	  } // setDeliveryThreadUsage
 	
@@ -3759,6 +4834,20 @@ class ConnectionImpl implements Connection {
             throw new IllegalStateException(rejectMsg);
          super.setObjectQueueCapacity(objectQueueCapacity);
       }
+
+      @Override
+      public void setChecksumType (ChecksumType type) {
+         if (isConnected()) 
+            throw new IllegalStateException(rejectMsg);
+         super.setChecksumType(type);
+      }
+
+      @Override
+      public void setHeaderFormat (HeaderFormat format) {
+         if (isConnected()) 
+            throw new IllegalStateException(rejectMsg);
+         super.setHeaderFormat(format);
+      }
    }
    
    // --------------- inner classes ----------------   
@@ -3801,6 +4890,7 @@ class ConnectionImpl implements Connection {
        */
       private class ObjectSendSeparation  extends UserObject  {
     	  TransmissionParcel[] parcelBundle;
+    	  BroadcastObject broadcast;
     	  int serialMethod;
     	  int nextParcel;
 
@@ -3810,14 +4900,18 @@ class ConnectionImpl implements Connection {
     	   * @param id long object identifier
     	   * @param method int serialisation method 
     	   * @param priority {@code SendPriority} send-channel
+    	   * @param broadcast {@code BroadcastObject} shared serialisation of 
+    	   *        the user object or null 
     	   * @throws IllegalArgumentException if method is invalid
     	   */
-	  	  public ObjectSendSeparation (Object userObject, long id, int method, SendPriority priority) {
+	  	  public ObjectSendSeparation (Object userObject, long id, int method, SendPriority priority,
+	  			  BroadcastObject broadcast) {
 	   		  super(userObject, id, priority);
 	   		  if (method < 0 | method >= JennyNet.MAX_SERIAL_DEVICE)
 	   			  throw new IllegalArgumentException("illegal method number : " + method);
 	   		  
 	   		  serialMethod = method;
+	   		  this.broadcast = broadcast;
 	   	  }
 	
 		/** Returns the {@code TransmissionParcel} which is next to be sent
@@ -3836,6 +4930,36 @@ class ConnectionImpl implements Connection {
 	   		  return nextParcel == parcelBundle.length ? null : parcelBundle[nextParcel++];
 	   	  }
 	   	   
+	   	  /** Returns the single transmission parcel of this object if its
+	   	   * serialisation fits into one parcel and the parcel has not yet 
+	   	   * been taken, null otherwise. This performs object serialisation 
+	   	   * if required but does not advance the parcel iteration.
+	   	   *  
+	   	   * @return {@code TransmissionParcel} or null
+	   	   * @throws SerialisationException 
+	   	   */
+	   	  public TransmissionParcel getSingleParcel () throws SerialisationException {
+	   		  if (parcelBundle == null) {
+	   			  separateParcels();
+	   		  }
+	   		  return parcelBundle.length == 1 && nextParcel == 0 ? parcelBundle[0] : null;
+	   	  }
+	   	  
+	   	  /** Whether the serialisation of this object fits into a single
+	   	   * parcel. Object serialisation must have been performed.
+	   	   * 
+	   	   * @return boolean
+	   	   */
+	   	  public boolean isSingleParcel () {
+	   		  return parcelBundle != null && parcelBundle.length == 1;
+	   	  }
+	   	  
+	   	  /** Marks all parcels of this object as taken.
+	   	   */
+	   	  public void skipParcels () {
+	   		  nextParcel = parcelBundle.length;
+	   	  }
+	   	   
 	   	  /** Divides the incorporated user object into sendable
 	   	   *  transmission parcels. This performs object serialisation.
 	   	   *
@@ -3860,7 +4984,8 @@ class ConnectionImpl implements Connection {
 //	        	  }
 //	          }
 	          
-       	   	  serObj = ser.serialiseObject(getObject());
+       	   	  serObj = broadcast == null ? ser.serialiseObject(getObject()) 
+       	   			  : broadcast.serialise(ser);
 //	          } catch (Exception e) {
 //	        	  throw new IllegalStateException("send serialisation error (" +
 //	        		   getLocalAddress() + ") object-id " + objectNr, e);
@@ -3872,10 +4997,27 @@ class ConnectionImpl implements Connection {
 	        		   objectNr + ", size " + serObj.length);
 	          }
 	           
+	          // compress the serialisation if opted and profitable
+	          int codecID = 0;
+	          // (codecs with dictionary are not limited by the threshold)
+	          CompressionCodec codec = getSendCodec(getPriority());
+	          if (codec != null && (codec.usesDictionary() || 
+	        		  serObj.length >= parameters.getCompressionThreshold())) {
+	        	  byte[] dictionary = codec.usesDictionary() ? ser.getCompressionDictionary() : null;
+	        	  byte[] block = broadcast == null ? 
+	        			  compress(codec, serObj, 0, serObj.length, dictionary) :
+	        			  broadcast.compress(ConnectionImpl.this, codec, serObj, dictionary);
+	        	  if (block != null) {
+	        		  serObj = block;
+	        		  codecID = codec.getCodecID();
+	        	  }
+	          }
+	           
 	          // split object serialisation into send parcels
 	          parcelBundle = TransmissionParcel.createParcelArray(
 	           		   ConnectionImpl.this, serObj, objectNr, serialMethod, getPriority(),
-	                   parameters.getTransmissionParcelSize());
+	                   getSendParcelSize(getPriority()));
+	          parcelBundle[0].getObjectHeader().setCompression(codecID);
 	   	  }
 
 		 /** Terminates the transmission of this object-separation and issues 
@@ -4020,7 +5162,7 @@ class ConnectionImpl implements Connection {
      * time is passed. Period and tolerance time can be set by parameters. 
      * The task cancels itself if the connection is no longer connected.
      */
-	static class AliveReceptionControlTask extends TimerTask {
+	static class AliveReceptionControlTask extends SchedulableTimerTask {
 	      private ConnectionImpl connection;
 	      private long confirmedTime;
 	      private int countSignals;
@@ -4066,6 +5208,7 @@ class ConnectionImpl implements Connection {
 	       * @throws IllegalArgumentException if period is 0 or negative          
 	       */
 	      private AliveReceptionControlTask (ConnectionImpl con, int period, int tolerance) {
+	    	 super(period, period, "AliveReceptionControlTask");
 	    	 Objects.requireNonNull(con, "connection is null");
 	         if (period <= 0) 
 	            throw new IllegalArgumentException("period <= 0");
@@ -4081,7 +5224,7 @@ class ConnectionImpl implements Connection {
              }
              
 	         // schedule the new task
-	         timer.schedule(this, period, period);
+	         schedule(getTimer());
 	      }
 	      
 	      /** Pushes the current time as actual ALIVE-ECHO confirmed time.
@@ -21,7 +21,11 @@ Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
 
 package org.kse.jennynet.core;
 
+import java.util.Arrays;
+
 import org.kse.jennynet.intfa.Connection.ConnectionState;
+import org.kse.jennynet.core.JennyNet.ChecksumType;
+import org.kse.jennynet.core.JennyNet.HeaderFormat;
 import org.kse.jennynet.intfa.Connection.LayerCategory;
 
 /** Defines a set of values for inspection of the operation states of a 
@@ -33,24 +37,71 @@ public class ConnectionMonitor {
 	public ConnectionState operationState;
 	public String trajectory;
 	public int serialMethod;
+	public ChecksumType checksumType;
+	public HeaderFormat headerFormat;
 	
 	public int filesSent;
+	/** number of outgoing files with their checksum found in the checksum cache */
+	public long checksumCacheHits;
+	/** number of outgoing files with their checksum not found in the checksum cache */
+	public long checksumCacheMisses;
 	public int filesReceived;
 	/** size of send-file-order queue */
 	public int filesOutgoing;
 	/** number of file-agglomerations */
 	public int filesIncoming;
 	public long objectsSent;
+	public long objectsBatched;
+	/** data volume offered to compression (objects and files) */
+	public long compressInput;
+	/** data volume sent after compression */
+	public long compressOutput;
+	/** milliseconds spent in compression */
+	public long compressTime;
+	/** milliseconds spent in decompression */
+	public long decompressTime;
 	public long objectsReceived;
 	public int objectsOutgoing;
 	public int objectsIncoming;
 
 	public int parcelsScheduled;  // global queue
 	public long currentSendLoad;  // conn value
+	/** number of times senders waited for send credit */
+	public long sendWaits;
+	/** milliseconds senders spent waiting for send credit */
+	public long sendWaitTime;
+	/** number of times reception waited for delivery space */
+	public long deliveryWaits;
+	/** milliseconds reception spent waiting for delivery space */
+	public long deliveryWaitTime;
+	/** number of times held back reception was continued by a signal of 
+	 * delivery space (SELECTOR engine) */
+	public long receiveResumesSignalled;
+	/** number of times held back reception was continued by the periodic 
+	 * control (SELECTOR engine) */
+	public long receiveResumesPolled;
+	/** milliseconds the layer's timer service lagged on its latest tick */
+	public long timerTickLag;
 	public long exchangedVolume;
+	/** number of parcels written to the socket */
+	public long parcelsWritten;
+	/** number of flush operations on the socket output */
+	public long socketFlushes;
+	/** number of payload buffers requested from the receive buffer pool */
+	public long receiveBufferRequests;
+	/** number of receive buffer requests served from the pool */
+	public long receiveBufferHits;
+	/** number of receive buffers in use (not yet released) */
+	public int receiveBuffersOutstanding;
 	public long lastSendTime;
 	public long lastReceiveTime;
 	public int transmitSpeed;
+	public boolean adaptiveParcelSize;
+	/** last adaptive parcel sizes, indexed by send priority ordinal 
+	 * (0 = not rendered) */
+	public int[] parcelSizes;
+	/** measured send rate in bytes per second (0 = unknown) */
+	public long sendRate;
 	public int lastPingValue;
 	public int aliveSendPeriod;
 	public int aliveTimeout;
@@ -77,10 +128,17 @@ public class ConnectionMonitor {
 		}
 		addBuf(buf, offset, "op-state         ".concat(operationState.name()));
 		addBuf(buf, offset, "serialisation    ".concat(String.valueOf(serialMethod)));
+		addBuf(buf, offset, "checksum         ".concat(String.valueOf(checksumType)));
+		addBuf(buf, offset, "header format    ".concat(String.valueOf(headerFormat)));
 		addBuf(buf, offset, "idle             ".concat(isIdle? "true" : "false"));
 		addBuf(buf, offset, "transmitting     ".concat(transmitting ? "true" : "false"));
 		hstr = transmitSpeed == -1 ? "unlimited" : String.valueOf(transmitSpeed);
 		addBuf(buf, offset, "transmit-speed   ".concat(hstr));
+		if (adaptiveParcelSize && parcelSizes != null) {
+			hstr = Arrays.toString(parcelSizes);
+			addBuf(buf, offset, "parcel sizes     ".concat(hstr).concat(", rate ")
+					.concat(String.valueOf(sendRate)).concat(" B/s"));
+		}
 		addBuf(buf, offset, "ping-time        ".concat(String.valueOf(lastPingValue)));
 		addBuf(buf, offset, "alive sending    ".concat(String.valueOf(aliveSendPeriod)));
 		addBuf(buf, offset, "alive timeout    ".concat(String.valueOf(aliveTimeout)));
@@ -88,16 +146,37 @@ public class ConnectionMonitor {
 		addBuf(buf, offset, "idle period      ".concat(String.valueOf(idleCheckPeriod)));
 		addBuf(buf, offset, "exchange volume  ".concat(String.valueOf(exchangedVolume)));
 		addBuf(buf, offset, "sendload         ".concat(String.valueOf(currentSendLoad)));
+		addBuf(buf, offset, "send waits       ".concat(String.valueOf(sendWaits))
+				.concat(", time ").concat(String.valueOf(sendWaitTime)).concat(" ms"));
+		addBuf(buf, offset, "delivery waits   ".concat(String.valueOf(deliveryWaits))
+				.concat(", time ").concat(String.valueOf(deliveryWaitTime)).concat(" ms"));
+		addBuf(buf, offset, "receive resumes  ".concat(String.valueOf(receiveResumesSignalled))
+				.concat(" signalled, ").concat(String.valueOf(receiveResumesPolled)).concat(" polled"));
+		addBuf(buf, offset, "timer lag        ".concat(String.valueOf(timerTickLag)).concat(" ms"));
 		addBuf(buf, offset, "core-send        ".concat(String.valueOf(parcelsScheduled)));
+		addBuf(buf, offset, "parcels written  ".concat(String.valueOf(parcelsWritten)));
+		addBuf(buf, offset, "socket flushes   ".concat(String.valueOf(socketFlushes)));
+		hstr = receiveBufferRequests == 0 ? "0" : String.valueOf(receiveBufferHits * 100 / receiveBufferRequests);
+		addBuf(buf, offset, "rec-buffers      ".concat(String.valueOf(receiveBufferRequests))
+				.concat(", hits ").concat(hstr).concat(" %, outstanding ")
+				.concat(String.valueOf(receiveBuffersOutstanding)));
 		addBuf(buf, offset, "send-time        ".concat(String.valueOf(lastSendTime)));
 		addBuf(buf, offset, "receive-time     ".concat(String.valueOf(lastReceiveTime)));
 		buf.append('\n');
 		addBuf(buf, offset, "objects sent     ".concat(String.valueOf(objectsSent)));
+		addBuf(buf, offset, "objects batched  ".concat(String.valueOf(objectsBatched)));
+		hstr = compressInput == 0 ? "-" : String.valueOf(compressOutput * 100 / compressInput) + " %";
+		addBuf(buf, offset, "compression      ".concat(String.valueOf(compressInput))
+				.concat(" -> ").concat(String.valueOf(compressOutput)).concat(", ratio ").concat(hstr)
+				.concat(", time ").concat(String.valueOf(compressTime)).concat(" / ")
+				.concat(String.valueOf(decompressTime)).concat(" ms"));
 		addBuf(buf, offset, "objects rece     ".concat(String.valueOf(objectsReceived)));
 		addBuf(buf, offset, "objects outg     ".concat(String.valueOf(objectsOutgoing)));
 		addBuf(buf, offset, "files sent       ".concat(String.valueOf(filesSent)));
 		addBuf(buf, offset, "files rece       ".concat(String.valueOf(filesReceived)));
 		addBuf(buf, offset, "files outg       ".concat(String.valueOf(filesOutgoing)));
+		addBuf(buf, offset, "checksum cache   hits ".concat(String.valueOf(checksumCacheHits))
+				.concat(", misses ").concat(String.valueOf(checksumCacheMisses)));
 		
 		return buf.toString();
 	}
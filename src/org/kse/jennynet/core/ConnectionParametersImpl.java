@@ -25,8 +25,11 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Objects;
 
+import org.kse.jennynet.core.JennyNet.ChecksumType;
+import org.kse.jennynet.core.JennyNet.HeaderFormat;
 import org.kse.jennynet.core.JennyNet.ThreadUsage;
 import org.kse.jennynet.intfa.ConnectionParameters;
+import org.kse.jennynet.intfa.SendPriority;
 
 /**
  * This is the implementation class for interface {@code ConnectionParameters}.
@@ -57,6 +60,15 @@ class ConnectionParametersImpl implements Cloneable, ConnectionParameters {
    private int transmissionTempo = JennyNet.DEFAULT_TRANSMISSION_TEMPO;
    private int maxSerialiseSize = JennyNet.DEFAULT_MAX_SERIALISE_SIZE;
    private int deliverTolerance = JennyNet.DEFAULT_DELIVER_TOLERANCE;
+   private ChecksumType checksumType = JennyNet.DEFAULT_CHECKSUM_TYPE;
+   private HeaderFormat headerFormat = JennyNet.DEFAULT_HEADER_FORMAT;
+   private boolean objectBatching;
+   private int batchLinger = JennyNet.DEFAULT_BATCH_LINGER;
+   private int compressionCodec = JennyNet.DEFAULT_COMPRESSION_CODEC;
+   private int compressionThreshold = JennyNet.DEFAULT_COMPRESSION_THRESHOLD;
+   /** bit set of SendPriority ordinals which are exempted from compression */
+   private int uncompressedPriorities;
+   private boolean adaptiveParcelSize;
 
    public ConnectionParametersImpl() {
    }
@@ -100,6 +112,8 @@ class ConnectionParametersImpl implements Cloneable, ConnectionParameters {
 	@Override
 	public void setDeliveryThreadUsage (ThreadUsage usage) {
 		Objects.requireNonNull(usage);
+		if (usage == ThreadUsage.VIRTUAL && !ProcessorThread.isVirtualSupported())
+			throw new IllegalArgumentException("virtual threads not supported");
 		deliveryUsage = usage;
 	}
 
@@ -248,25 +262,124 @@ class ConnectionParametersImpl implements Cloneable, ConnectionParameters {
 		deliverTolerance = Math.max(delay, JennyNet.MIN_DELIVER_TOLERANCE);
 	}
 
+	@Override
+	public ChecksumType getChecksumType () {
+		return checksumType;
+	}
+
+	@Override
+	public void setChecksumType (ChecksumType type) {
+		Objects.requireNonNull(type);
+		if (!ParcelChecksum.isSupported(type))
+			throw new IllegalArgumentException("checksum type not supported: " + type);
+		checksumType = type;
+	}
+
+	@Override
+	public HeaderFormat getHeaderFormat () {
+		return headerFormat;
+	}
+
+	@Override
+	public void setHeaderFormat (HeaderFormat format) {
+		Objects.requireNonNull(format);
+		headerFormat = format;
+	}
+
+	@Override
+	public boolean isObjectBatching () {
+		return objectBatching;
+	}
+
+	@Override
+	public void setObjectBatching (boolean batching) {
+		objectBatching = batching;
+	}
+
+	@Override
+	public int getBatchLinger () {
+		return batchLinger;
+	}
+
+	@Override
+	public void setBatchLinger (int linger) {
+		batchLinger = Math.max(0, Math.min(JennyNet.MAX_BATCH_LINGER, linger));
+	}
+
+	@Override
+	public int getCompressionCodec () {
+		return compressionCodec;
+	}
+
+	@Override
+	public void setCompressionCodec (int codec) {
+		if (codec < 0 | codec >= JennyNet.MAX_COMPRESSION_CODEC)
+			throw new IllegalArgumentException("illegal codec ID: " + codec);
+		compressionCodec = codec;
+	}
+
+	@Override
+	public int getCompressionThreshold () {
+		return compressionThreshold;
+	}
+
+	@Override
+	public void setCompressionThreshold (int threshold) {
+		compressionThreshold = Math.max(0, threshold);
+	}
+
+	@Override
+	public boolean isCompressedPriority (SendPriority priority) {
+		return (uncompressedPriorities & 1 << priority.ordinal()) == 0;
+	}
+
+	@Override
+	public void setCompressedPriority (SendPriority priority, boolean compressed) {
+		Objects.requireNonNull(priority);
+		if (compressed) {
+			uncompressedPriorities &= ~(1 << priority.ordinal());
+		} else {
+			uncompressedPriorities |= 1 << priority.ordinal();
+		}
+	}
+
+	@Override
+	public boolean isAdaptiveParcelSize () {
+		return adaptiveParcelSize;
+	}
+
+	@Override
+	public void setAdaptiveParcelSize (boolean adaptive) {
+		adaptiveParcelSize = adaptive;
+	}
+
 	@Override
 	public boolean equalValues (ConnectionParameters p) {
 		ConnectionParametersImpl par = (ConnectionParametersImpl) p;
-		boolean ok = alivePeriod == par.alivePeriod &&
+		boolean ok = adaptiveParcelSize == par.adaptiveParcelSize &&
+				alivePeriod == par.alivePeriod &&
 				baseThreadPriority == par.baseThreadPriority &&
+				batchLinger == par.batchLinger &&
+				checksumType == par.checksumType &&
+				compressionCodec == par.compressionCodec &&
+				compressionThreshold == par.compressionThreshold &&
 				confirmTimeout == par.confirmTimeout &&
 				deliverTolerance == par.deliverTolerance &&
 				deliveryUsage.equals(par.deliveryUsage) &&
-				fileRootDir == null ? par.fileRootDir == null : 
-					(par.fileRootDir != null && fileRootDir.equals(par.fileRootDir)) &&
+				headerFormat == par.headerFormat &&
+				(fileRootDir == null ? par.fileRootDir == null : 
+					(par.fileRootDir != null && fileRootDir.equals(par.fileRootDir))) &&
 				idleCheckPeriod == par.idleCheckPeriod &&
 				idleThreshold == par.idleThreshold &&
 				maxSerialiseSize == par.maxSerialiseSize &&
+				objectBatching == par.objectBatching &&
 				objectQueueCapacity == par.objectQueueCapacity &&
 				parcelQueueCapacity == par.parcelQueueCapacity &&
 				serialMethod == par.serialMethod &&
 				transmissionParcelSize == par.transmissionParcelSize &&
 				transmissionTempo == par.transmissionTempo &&
-				transmitThreadPriority == par.transmitThreadPriority;
+				transmitThreadPriority == par.transmitThreadPriority &&
+				uncompressedPriorities == par.uncompressedPriorities;
 		return ok;
 	}
 }
@@ -0,0 +1,109 @@
+/*  File: CopyOnWriteLongMap.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import java.util.List;
+import java.util.Objects;
+
+/** A thread-safe hash map with primitive {@code long} keys for registries
+ * which are read much more often than modified, e.g. the file transfers
+ * of a connection which are looked up for every file parcel. 
+ * 
+ * <p>Reads are lock-free and work on an immutable snapshot of a 
+ * {@code LongMap}. Modifications are synchronised and replace the 
+ * snapshot with a modified copy. Null values are not allowed.
+ * 
+ * @param <V> value type
+ */
+final class CopyOnWriteLongMap<V> {
+
+   private volatile LongMap<V> map = new LongMap<>();
+   
+   /** Returns the value mapped to the given key.
+    * 
+    * @param key long
+    * @return V value or null if the key is not mapped
+    */
+   public V get (long key) {
+	  return map.get(key);
+   }
+   
+   public boolean containsKey (long key) {
+	  return map.containsKey(key);
+   }
+   
+   /** Maps the given value to the given key.
+    * 
+    * @param key long
+    * @param value V
+    * @return V the previous value for the key or null
+    * @throws NullPointerException if value is null
+    */
+   public synchronized V put (long key, V value) {
+	  Objects.requireNonNull(value);
+	  LongMap<V> copy = new LongMap<>(map);
+	  V old = copy.put(key, value);
+	  map = copy;
+	  return old;
+   }
+   
+   /** Removes the mapping of the given key.
+    * 
+    * @param key long
+    * @return V the removed value or null if the key was not mapped
+    */
+   public synchronized V remove (long key) {
+	  if (!map.containsKey(key)) return null;
+	  LongMap<V> copy = new LongMap<>(map);
+	  V old = copy.remove(key);
+	  map = copy;
+	  return old;
+   }
+   
+   public int size () {
+	  return map.size();
+   }
+   
+   public boolean isEmpty () {
+	  return map.isEmpty();
+   }
+   
+   /** Removes all mappings.
+    */
+   public synchronized void clear () {
+	  map = new LongMap<>();
+   }
+   
+   /** Returns a list of the values of this map in undefined order. The list
+    * is a copy and not backed by this map.
+    * 
+    * @return {@code List<V>}
+    */
+   public List<V> values () {
+	  return map.values();
+   }
+   
+   @Override
+   public String toString () {
+	  return map.toString();
+   }
+}
@@ -0,0 +1,175 @@
+/*  File: DeflateCodec.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+
+package org.kse.jennynet.core;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.kse.jennynet.intfa.CompressionCodec;
+
+/** Compression codec with the ZLIB (deflate) algorithm of the Java runtime.
+ * This is codec 1 of the layer and registered by default. A variant with 
+ * preset dictionary for object serialisations is registered as codec 2.
+ * Deflater and inflater devices are kept per thread.
+ */
+public class DeflateCodec implements CompressionCodec {
+   /** Code number of this codec. */
+   public static final int CODEC_ID = 1;
+   /** Code number of this codec with preset dictionary. */
+   public static final int DICTIONARY_CODEC_ID = 2;
+   
+   private final int level;
+   private final boolean dictionary;
+   private final ThreadLocal<Deflater> deflaters;
+   private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(Inflater::new);
+   
+   /** Creates a deflate codec with the default compression level. 
+    */
+   public DeflateCodec () {
+	  this(Deflater.DEFAULT_COMPRESSION, false);
+   }
+   
+   /** Creates a deflate codec with the given compression level.
+    * 
+    * @param level int compression level (0..9, -1 = default)
+    * @throws IllegalArgumentException if level is invalid
+    */
+   public DeflateCodec (int level) {
+	  this(level, false);
+   }
+   
+   /** Creates a deflate codec with the given compression level and 
+    * optional use of preset dictionaries. The codec ID is 
+    * {@code CODEC_ID} without and {@code DICTIONARY_CODEC_ID} with 
+    * dictionary.
+    * 
+    * @param level int compression level (0..9, -1 = default)
+    * @param dictionary boolean whether object serialisations are compressed
+    *        with a preset dictionary
+    * @throws IllegalArgumentException if level is invalid
+    */
+   public DeflateCodec (int level, boolean dictionary) {
+	  if (level < -1 | level > 9) 
+		 throw new IllegalArgumentException("illegal compression level: " + level);
+	  this.level = level;
+	  this.dictionary = dictionary;
+	  deflaters = ThreadLocal.withInitial(() -> new Deflater(this.level));
+   }
+   
+   @Override
+   public int getCodecID () {
+	  return dictionary ? DICTIONARY_CODEC_ID : CODEC_ID;
+   }
+
+   @Override
+   public String getName () {
+	  return (dictionary ? "DEFLATE-DICT-" : "DEFLATE-") + level;
+   }
+
+   @Override
+   public boolean usesDictionary () {
+	  return dictionary;
+   }
+
+   @Override
+   public byte[] compress (byte[] data, int offset, int length) {
+	  return compress(data, offset, length, null);
+   }
+
+   @Override
+   public byte[] compress (byte[] data, int offset, int length, byte[] dictionary) {
+	  Deflater deflater = deflaters.get();
+	  deflater.reset();
+	  if (dictionary != null) {
+		 deflater.setDictionary(dictionary);
+	  }
+	  deflater.setInput(data, offset, length);
+	  deflater.finish();
+	  
+	  byte[] out = new byte[length / 2 + 64];
+	  int size = 0;
+	  while (!deflater.finished()) {
+		 if (size == out.length) {
+			out = Arrays.copyOf(out, out.length * 2);
+		 }
+		 size += deflater.deflate(out, size, out.length - size);
+	  }
+	  return size == out.length ? out : Arrays.copyOf(out, size);
+   }
+
+   @Override
+   public byte[] decompress (byte[] data, int offset, int length, int maxLength) throws IOException {
+	  return decompress(data, offset, length, maxLength, null);
+   }
+   
+   @Override
+   public byte[] decompress (byte[] data, int offset, int length, int maxLength, 
+		   byte[] dictionary) throws IOException {
+	  Inflater inflater = inflaters.get();
+	  inflater.reset();
+	  inflater.setInput(data, offset, length);
+	  
+	  byte[] out = new byte[Math.min(maxLength, Math.max(length * 4, 256))];
+	  int size = 0;
+	  try {
+		 while (!inflater.finished()) {
+			if (size == out.length) {
+			   if (size == maxLength) 
+				  throw new IOException("decompressed data exceeds maximum length: " + maxLength);
+			   out = Arrays.copyOf(out, (int)Math.min(maxLength, out.length * 2L));
+			}
+			int n = inflater.inflate(out, size, out.length - size);
+			if (n == 0 && inflater.needsDictionary()) {
+			   setDictionary(inflater, dictionary);
+			} else if (n == 0 && inflater.needsInput()) { 
+			   throw new IOException("truncated compressed data");
+			}
+			size += n;
+		 }
+	  } catch (DataFormatException e) {
+		 throw new IOException("corrupted compressed data", e);
+	  }
+	  return size == out.length ? out : Arrays.copyOf(out, size);
+   }
+   
+   /** Sets the given preset dictionary on an inflater which requests a 
+    * dictionary. The dictionary is verified by its Adler-32 checksum.
+    * 
+    * @param inflater {@code Inflater}
+    * @param dictionary byte[] dictionary or null
+    * @throws IOException if the dictionary is missing or does not match
+    */
+   private static void setDictionary (Inflater inflater, byte[] dictionary) throws IOException {
+	  if (dictionary == null) 
+		 throw new IOException("missing compression dictionary");
+	  Adler32 adler = new Adler32();
+	  adler.update(dictionary);
+	  if ((int)adler.getValue() != inflater.getAdler()) 
+		 throw new IOException("compression dictionary mismatch (different class registrations)");
+	  inflater.setDictionary(dictionary);
+   }
+}
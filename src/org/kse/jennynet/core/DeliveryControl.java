@@ -0,0 +1,155 @@
+/*  File: DeliveryControl.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/** Bounded delivery control for the received objects and events of a 
+ * connection. It counts the delivery objects which have been handed to
+ * the output-processor but not yet delivered to the application. The
+ * receiving engine waits for space when the count reaches the 
+ * object-queue capacity and is woken by the output-processor the moment 
+ * the count falls below the capacity again.
+ * 
+ * <p>The control is lock-free. Waiting threads are parked and woken by 
+ * the delivery which makes space available. Additionally a space listener
+ * can be set which is called when the count falls below the capacity; 
+ * this is used by the non-blocking receive engine to resume a suspended 
+ * connection. The time the receiving engine spends waiting for space is 
+ * recorded (see {@code WaiterList}).
+ */
+final class DeliveryControl {
+
+   private final AtomicLong pending = new AtomicLong();
+   private final WaiterList waiters = new WaiterList();
+   private volatile int capacity = Integer.MAX_VALUE;
+   private volatile Runnable spaceListener;
+   
+   /** Sets the maximum number of pending delivery objects.
+    * 
+    * @param capacity int number of objects
+    * @throws IllegalArgumentException if argument is below 1
+    */
+   public void setCapacity (int capacity) {
+	  if (capacity < 1)
+		 throw new IllegalArgumentException("illegal capacity: " + capacity);
+	  this.capacity = capacity;
+	  signalWaiters();
+   }
+   
+   public int getCapacity () {return capacity;}
+   
+   /** Sets the listener which is called when the number of pending 
+    * objects falls below the capacity. The listener is called on the 
+    * delivering thread and must not block.
+    * 
+    * @param listener {@code Runnable}, may be null
+    */
+   public void setSpaceListener (Runnable listener) {
+	  spaceListener = listener;
+   }
+   
+   /** Returns the number of pending delivery objects.
+    * 
+    * @return long
+    */
+   public long getPending () {return pending.get();}
+   
+   /** Whether the number of pending objects has reached the capacity.
+    * 
+    * @return boolean
+    */
+   public boolean isFull () {
+	  return pending.get() >= capacity;
+   }
+   
+   /** Counts a delivery object which has been handed to the 
+    * output-processor.
+    */
+   public void objectQueued () {
+	  pending.incrementAndGet();
+   }
+   
+   /** Counts a delivery object which has been delivered to the application
+    * or dropped. Waiting threads are woken if space becomes available.
+    */
+   public void objectDelivered () {
+	  long n = pending.decrementAndGet();
+	  if (n < capacity) {
+		 signalWaiters();
+		 
+		 // the space listener is called when crossing the threshold
+		 Runnable listener = spaceListener;
+		 if (listener != null && n == capacity - 1) {
+			listener.run();
+		 }
+	  }
+   }
+   
+   /** Blocks until the number of pending objects is below the capacity.
+    * This does not react to thread interruption; the interrupted state of
+    * the calling thread is preserved.
+    */
+   public void awaitSpace () {
+	  if (!isFull()) return;
+	  waiters.awaitUninterruptibly(() -> !isFull(), this);
+   }
+   
+   /** Blocks until all pending objects have been delivered or the given 
+    * escape condition becomes true. As the escape condition is not 
+    * signalled, it is tested in the given period while waiting.
+    *  
+    * @param escape {@code BooleanSupplier} condition to end waiting
+    * @param period int milliseconds of testing the escape condition 
+    * @return boolean true = wait terminated regularly, false = calling
+    *         thread interrupted
+    */
+   public boolean awaitDrained (BooleanSupplier escape, int period) {
+	  if (pending.get() <= 0 || escape.getAsBoolean()) return true;
+	  return waiters.awaitPolling(() -> pending.get() <= 0 || escape.getAsBoolean(), this, 
+			  TimeUnit.MILLISECONDS.toNanos(period));
+   }
+   
+   /** Returns the total time the receiving engine has been waiting for
+    * delivery space.
+    * 
+    * @return long milliseconds
+    */
+   public long getWaitTime () {
+	  return waiters.getWaitTime();
+   }
+   
+   /** Returns the number of times the receiving engine had to wait for
+    * delivery space.
+    * 
+    * @return long number of waits
+    */
+   public long getWaitCount () {
+	  return waiters.getWaitCount();
+   }
+   
+   private void signalWaiters () {
+	  waiters.signal();
+   }
+}
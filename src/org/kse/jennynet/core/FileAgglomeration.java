@@ -25,8 +25,10 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Objects;
 
+import org.kse.jennynet.core.JennyNet.ChecksumType;
 import org.kse.jennynet.exception.FileInTransmissionException;
 import org.kse.jennynet.exception.IllegalDestinationPathException;
 import org.kse.jennynet.exception.InsufficientFileSpaceException;
@@ -37,7 +39,6 @@ import org.kse.jennynet.intfa.ComDirection;
 import org.kse.jennynet.intfa.SendPriority;
 import org.kse.jennynet.intfa.TransmissionEventType;
 import org.kse.jennynet.util.IO_Manager;
-import org.kse.jennynet.util.Util;
 
 /** Class to collect data parcels of the FILE channel in order to build up
  * a data file which is transmitted over the net. An instance of this class
@@ -47,11 +48,13 @@ import org.kse.jennynet.util.Util;
  * <p><b>Object-ID (= File-ID)</b> - a long integer identifying the transmission
  * <br><b>expected file length</b> - an long integer for the file length 
  * (Long.MAX_VALUE)
- * <br><b>expected number of parcels</b> - long integer
+ * <br><b>expected number of parcels</b> - long integer, including a final 
+ * trailer parcel which carries the CRC of the file data if the method flags
+ * it (otherwise the CRC is given in the header)
  * <br><b>target filepath (= PATH)</b> - String to identify an output path 
  * for the transmitted file. See the special convention for this variable
  * below.
- * <br><b>method</b> byte, serialisation method identifier
+ * <br><b>method</b> byte, trailer flag and checksum type of the file CRC
  * 
  * <p><b>FILE PATH and File Storage Convention</b>
  * <p>An incoming file transmission is first stored in a TEMPORARY file with 
@@ -81,6 +84,12 @@ class FileAgglomeration extends ParcelAgglomeration {
    private long expectedNrOfParcels;
    private SendPriority priority;
    private int crc32;
+   /** checksum of the file data, updated as parcels are written */
+   private ParcelChecksum checksum;
+   /** whether the CRC is carried in a trailer parcel */
+   private boolean trailer;
+   /** compression codec of the file data parcels, 0 for uncompressed */
+   private int codec;
 
    // operational
    private ConnectionImpl connection;
@@ -124,13 +133,34 @@ class FileAgglomeration extends ParcelAgglomeration {
       priority = header.getPriority();
       expectedNrOfParcels = header.getNumberOfParcels();
       expectedFileLength = header.getTransmissionSize();
+      codec = header.getCompression();
       startTime = System.currentTimeMillis();
       
+      // the file CRC is given in the header or in a trailer parcel
+      int method = header.getSerialisationMethod();
+      ChecksumType type = ChecksumType.ADLER32;
+      trailer = (method & ObjectHeader.FILE_TRAILER) != 0;
+      if (trailer) {
+    	 int ordinal = method & ~ObjectHeader.FILE_TRAILER;
+    	 if (ordinal >= ChecksumType.values().length 
+    		 || !ParcelChecksum.isSupported(ChecksumType.values()[ordinal])) {
+    		 throw new ParcelProtocolErrorException("bad FILE checksum type, obj=" +
+    				 fileID + ", type=" + ordinal);
+    	 }
+    	 type = ChecksumType.values()[ordinal];
+      }
+      checksum = new ParcelChecksum(type);
+      
       // break condition: invalid file target information
       if (path == null || path.isEmpty()) {
           throw new IllegalDestinationPathException("no path setup");
       }
       
+      // break condition: unknown compression codec
+      if (codec != 0 && JennyNet.getCompressionCodec(codec) == null) {
+          throw new IOException("unknown compression codec: " + codec);
+      }
+      
       // break condition: reception (root-path) undefined
       File conRootDir = connection.getParameters().getFileRootDir();
       if (conRootDir == null || !conRootDir.isDirectory()) {
@@ -249,12 +279,38 @@ class FileAgglomeration extends ParcelAgglomeration {
     	  throw new IOException("TESTING IO-Error (file-reception)"); 
       }
       
+      // the final parcel (trailer) carries the CRC of the file data
+      if (trailer && parcelNr > 0 && parcelNr == expectedNrOfParcels - 1) {
+    	 if (parcel.getLength() != 4) {
+            throw new ParcelProtocolErrorException("bad FILE trailer parcel, obj=" +
+                  fileID + ", length=" + parcel.getLength());
+    	 }
+    	 crc32 = ByteBuffer.wrap(parcel.getData(), parcel.getOffset(), 4).getInt();
+      }
+      
       // write parcel data to file
-      if (parcel.getLength() > 0 && fileOutput != null) {
+      else if (parcel.getLength() > 0 && fileOutput != null) {
+    	 byte[] data = parcel.getData();
+    	 int offset = parcel.getOffset();
+    	 int length = parcel.getLength();
+    	 
+    	 // data parcels of a compressed file start with a marker (1 = compressed)
+    	 if (codec != 0) {
+    		 boolean compressed = data[offset] == 1;
+    		 offset++;
+    		 length--;
+    		 if (compressed) {
+    			 long maxLength = Math.min(expectedFileLength - receivedFileLength, Integer.MAX_VALUE);
+    			 data = connection.decompress(codec, data, offset, length, (int)maxLength);
+    			 offset = 0;
+    			 length = data.length;
+    		 }
+    	 }
+    	 
     	 synchronized(fileOutput) {
-    		 byte[] data = parcel.getData();
-    		 fileOutput.write(data);
-    		 receivedFileLength += data.length;
+    		 fileOutput.write(data, offset, length);
+    		 checksum.update(data, offset, length);
+    		 receivedFileLength += length;
     	 }
       }
       
@@ -326,8 +382,7 @@ class FileAgglomeration extends ParcelAgglomeration {
       
       // CRC control of resulting file data
       if (info == 0 && crc32 != 0) {
-    	  int crc = Util.CRC32_of(file);
-    	  if (crc != crc32) {
+    	  if (checksum.getIntValue() != crc32) {
     	      info = 118;
     	      text = "CRC failure on target file";
     	  }
@@ -0,0 +1,294 @@
+/*  File: FileChecksumCache.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.kse.jennynet.core.JennyNet.ChecksumType;
+import org.kse.jennynet.util.Util;
+
+/** A bounded cache of file checksums for outgoing file transfers. Entries 
+ * are keyed by checksum type and canonical file path and are valid as long
+ * as the length and the modification time of the file are unchanged. When
+ * the capacity is exceeded, the least recently used entry is removed.
+ * 
+ * <p>Optionally the cache is stored in a sidecar file, so that checksums 
+ * survive a restart of the application. The sidecar is a text file with 
+ * one entry per line in the order of use and is rewritten by a writer 
+ * thread shortly after entries have been added, outside of the cache lock.
+ */
+final class FileChecksumCache {
+
+   /** minimum age in milliseconds of the modification time of a file 
+    * whose checksum is added to the cache; this covers coarse file system
+    * timestamps */
+   public static final int MODIFY_TOLERANCE = 2000;
+   /** delay in milliseconds of saving the sidecar file after an entry has
+    * been added; entries added within the delay are saved together */
+   public static final int SAVE_DELAY = 500;
+
+   private final LinkedHashMap<String, Entry> map = new LinkedHashMap<>(64, 0.75f, true);
+   private int capacity;
+   private File sidecar;
+   private final Object saveLock = new Object();
+   private boolean saveScheduled;
+   private long hits;
+   private long misses;
+   
+   /** Creates a new cache with the given capacity.
+    * 
+    * @param capacity int maximum number of entries, 0 = cache disabled
+    */
+   public FileChecksumCache (int capacity) {
+	  setCapacity(capacity);
+   }
+   
+   /** Returns the checksum of the given file for the given checksum type or
+    * null if the cache has no valid entry for it. An entry for a file which
+    * has been modified is removed.
+    * 
+    * @param file File canonical file
+    * @param length long current length of the file
+    * @param modified long current modification time of the file
+    * @param type {@code ChecksumType}
+    * @return byte[] checksum or null
+    */
+   public synchronized byte[] get (File file, long length, long modified, ChecksumType type) {
+	  if (capacity == 0) return null;
+	  String key = key(file, type);
+	  Entry entry = map.get(key);
+	  if (entry != null && (entry.length != length || entry.modified != modified)) {
+		 map.remove(key);
+		 entry = null;
+	  }
+	  if (entry == null) {
+		 misses++;
+		 return null;
+	  }
+	  hits++;
+	  return entry.checksum.clone();
+   }
+   
+   /** Stores the checksum of the given file for the given checksum type. 
+    * If a sidecar file is defined, saving the cache to it is scheduled.
+    * 
+    * @param file File canonical file
+    * @param length long length of the file
+    * @param modified long modification time of the file
+    * @param type {@code ChecksumType}
+    * @param checksum byte[] checksum value
+    */
+   public synchronized void put (File file, long length, long modified, ChecksumType type, 
+		                         byte[] checksum) {
+	  if (capacity == 0) return;
+	  map.put(key(file, type), new Entry(length, modified, checksum.clone()));
+	  trim();
+	  
+	  if (sidecar != null && !saveScheduled) {
+		 saveScheduled = true;
+		 Thread writer = new Thread("JennyNet Checksum Cache Writer") {
+			 @Override
+			 public void run() {
+				 Util.sleep(SAVE_DELAY);
+				 try {
+					save();
+				 } catch (IOException e) {
+					e.printStackTrace();
+				 }
+			 }
+		 };
+		 // pending entries are saved before the application terminates
+		 writer.setDaemon(false);
+		 writer.start();
+	  }
+   }
+   
+   private static String key (File file, ChecksumType type) {
+	  return type.name().concat("|").concat(file.getPath());
+   }
+   
+   private void trim () {
+	  Iterator<Map.Entry<String, Entry>> it = map.entrySet().iterator();
+	  while (map.size() > capacity && it.hasNext()) {
+		 it.next();
+		 it.remove();
+	  }
+   }
+   
+   /** Sets the maximum number of entries of this cache. Excess entries are
+    * removed in the order of their last use. 
+    * 
+    * @param capacity int maximum number of entries, 0 = cache disabled
+    */
+   public synchronized void setCapacity (int capacity) {
+	  if (capacity < 0)
+		  throw new IllegalArgumentException("capacity is negative");
+	  this.capacity = capacity;
+	  trim();
+   }
+   
+   /** Returns the maximum number of entries of this cache.
+    * 
+    * @return int capacity, 0 = cache disabled
+    */
+   public synchronized int getCapacity () {return capacity;}
+   
+   /** Returns the number of entries in this cache.
+    * 
+    * @return int
+    */
+   public synchronized int size () {return map.size();}
+   
+   /** Returns the number of lookups which found a valid entry.
+    * 
+    * @return long
+    */
+   public synchronized long getHits () {return hits;}
+   
+   /** Returns the number of lookups which found no valid entry.
+    * 
+    * @return long
+    */
+   public synchronized long getMisses () {return misses;}
+   
+   /** Removes all entries and resets the counters of this cache. The 
+    * sidecar file is not modified.
+    */
+   public synchronized void clear () {
+	  map.clear();
+	  hits = 0;
+	  misses = 0;
+   }
+   
+   /** Removes all entries and the sidecar file setting and sets the given
+    * capacity. The sidecar file is not modified.
+    * 
+    * @param capacity int maximum number of entries, 0 = cache disabled
+    */
+   public synchronized void reset (int capacity) {
+	  clear();
+	  sidecar = null;
+	  setCapacity(capacity);
+   }
+   
+   /** Returns the sidecar file of this cache.
+    * 
+    * @return File sidecar file or null
+    */
+   public synchronized File getSidecar () {return sidecar;}
+   
+   /** Sets the sidecar file in which this cache is stored. If the file 
+    * exists, its entries are added to the cache. A value of null ends 
+    * storing of the cache.
+    * 
+    * @param file File sidecar file, may be null
+    * @throws IOException if the sidecar file cannot be read
+    */
+   public synchronized void setSidecar (File file) throws IOException {
+	  sidecar = file;
+	  if (file != null && file.isFile()) {
+		 load(file);
+	  }
+   }
+   
+   /** Reads the entries of the given sidecar file into this cache. Lines
+    * which cannot be interpreted are ignored.
+    */
+   private void load (File file) throws IOException {
+	  try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+			  new FileInputStream(file), StandardCharsets.UTF_8))) {
+		 String line;
+		 while ((line = reader.readLine()) != null) {
+			String[] token = line.split("\t", 5);
+			if (token.length < 5) continue;
+			try {
+				ChecksumType type = ChecksumType.valueOf(token[0]);
+				long length = Long.parseLong(token[1]);
+				long modified = Long.parseLong(token[2]);
+				byte[] checksum = Util.hexToBytes(token[3]);
+				map.put(key(new File(token[4]), type), new Entry(length, modified, checksum));
+			} catch (IllegalArgumentException e) {
+			}
+		 }
+	  }
+	  trim();
+   }
+   
+   /** Writes the entries of this cache into the sidecar file, if it is 
+    * defined. The entries are copied under the cache lock and written 
+    * without holding it. The file is replaced only after it was written 
+    * completely.
+    * 
+    * @throws IOException
+    */
+   public void save () throws IOException {
+	  // saves are performed in sequence, so a later copy is written last
+	  synchronized (saveLock) {
+		 File file;
+		 StringBuilder text = new StringBuilder();
+		 synchronized (this) {
+			saveScheduled = false;
+			file = sidecar;
+			if (file == null) return;
+			for (Map.Entry<String, Entry> e : map.entrySet()) {
+			   int index = e.getKey().indexOf('|');
+			   Entry entry = e.getValue();
+			   text.append(e.getKey().substring(0, index) + "\t" + entry.length + "\t" 
+					   + entry.modified + "\t" + Util.bytesToHex(entry.checksum) + "\t" 
+					   + e.getKey().substring(index + 1) + "\n");
+			}
+		 }
+		 
+		 File temp = new File(file.getPath().concat(".tmp"));
+		 try (Writer writer = new OutputStreamWriter(new FileOutputStream(temp), 
+				 StandardCharsets.UTF_8)) {
+			writer.write(text.toString());
+		 }
+		 Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	  }
+   }
+   
+   private static class Entry {
+	  final long length;
+	  final long modified;
+	  final byte[] checksum;
+	  
+	  Entry (long length, long modified, byte[] checksum) {
+		 this.length = length;
+		 this.modified = modified;
+		 this.checksum = checksum;
+	  }
+   }
+}
@@ -0,0 +1,100 @@
+/*  File: FileSource.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/** A reference counted read channel on a source file of a file transfer.
+ * FILE parcels which refer to a region of the file instead of carrying data
+ * hold a reference on the source, so that the file is closed only when the 
+ * last of these parcels has been written to the socket (or dropped) and 
+ * the send-order has released its own reference.
+ */
+final class FileSource {
+	
+   private final FileChannel channel;
+   private int references = 1;
+
+   /** Opens the given file for reading. The new instance holds one 
+    * reference which is owned by the caller.
+    * 
+    * @param file File source file
+    * @throws IOException
+    */
+   public FileSource (File file) throws IOException {
+	  channel = new FileInputStream(file).getChannel();
+   }
+   
+   /** Returns the file channel of this source.
+    * 
+    * @return {@code FileChannel}
+    */
+   public FileChannel getChannel () {return channel;}
+   
+   /** Reads file data from the given position into the buffer until the 
+    * buffer is full or the end of the file is reached. Returns the number of
+    * bytes read or -1 if the position is at the end of the file.
+    * 
+    * @param buf {@code ByteBuffer} target buffer
+    * @param position long file position
+    * @return int number of bytes read or -1
+    * @throws IOException
+    */
+   public int read (ByteBuffer buf, long position) throws IOException {
+	  int total = 0;
+	  while (buf.hasRemaining()) {
+		 int n = channel.read(buf, position + total);
+		 if (n < 0) break;
+		 total += n;
+	  }
+	  return total == 0 && buf.hasRemaining() ? -1 : total;
+   }
+   
+   /** Adds a reference to this source.
+    */
+   public synchronized void retain () {
+	  references++;
+   }
+   
+   /** Removes a reference from this source and closes the file when no 
+    * reference remains.
+    */
+   public synchronized void release () {
+	  if (references > 0 && --references == 0) {
+		 try {
+			channel.close();
+		 } catch (IOException e) {
+			e.printStackTrace();
+		 }
+	  }
+   }
+   
+   /** Whether the file of this source is open.
+    * 
+    * @return boolean
+    */
+   public boolean isOpen () {return channel.isOpen();}
+}
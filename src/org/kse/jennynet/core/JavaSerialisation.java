@@ -8,6 +8,7 @@ import java.io.InvalidClassException;
 import java.io.NotSerializableException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
 import java.io.Serializable;
 import java.io.StreamCorruptedException;
 import java.util.Objects;
@@ -88,6 +89,24 @@ public class JavaSerialisation extends AbstractSerialization {
 		return object;
 	}
 
+	/** Returns the serialised class descriptor of the given class, which
+	 * makes up the larger part of the serialisation of small objects.
+	 */
+	@Override
+	protected byte[] typicalForm (Class<?> c) {
+		ObjectStreamClass desc = ObjectStreamClass.lookup(c);
+		if (desc == null) return null;
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+			ObjectOutputStream oos = new ObjectOutputStream(out);
+			oos.writeObject(desc);
+			oos.close();
+			return out.toByteArray();
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
 	@Override
 	public int getMethodID() {return METHOD_ID;}
 
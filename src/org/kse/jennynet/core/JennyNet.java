@@ -27,8 +27,11 @@ import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.NotSerializableException;
+import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.UnsupportedCharsetException;
 import java.util.ArrayList;
@@ -36,9 +39,8 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.Vector;
+import java.util.zip.Deflater;
 
 import org.kse.jennynet.core.ConnectionImpl.OutputProcessor;
 import org.kse.jennynet.exception.ConnectionRejectedException;
@@ -46,12 +48,15 @@ import org.kse.jennynet.exception.ConnectionTimeoutException;
 import org.kse.jennynet.exception.JennyNetHandshakeException;
 import org.kse.jennynet.exception.SerialisationUnavailableException;
 import org.kse.jennynet.intfa.Connection;
+import org.kse.jennynet.intfa.Connection.LayerCategory;
+import org.kse.jennynet.intfa.CompressionCodec;
 import org.kse.jennynet.intfa.ConnectionParameters;
 import org.kse.jennynet.intfa.IClient;
 import org.kse.jennynet.intfa.IServer;
 import org.kse.jennynet.intfa.Serialization;
 import org.kse.jennynet.util.ArraySet;
 import org.kse.jennynet.util.SchedulableTimerTask;
+import org.kse.jennynet.util.WheelTimer;
 import org.kse.jennynet.util.Util;
 
 /** Class for global structures, operations and settings of the <i>JennyNet</i>
@@ -94,7 +99,10 @@ import org.kse.jennynet.util.Util;
  * <p><b>Global Thread Settings</b>
  * <br>JennyNet uses global (static) threads to send objects off network
  * sockets and to deliver received objects to the user. The run-priorities of
- * these threads can be set and read here.
+ * these threads can be set and read here. Reading from network sockets is
+ * performed either by a receive thread per connection (THREAD engine) or by
+ * a small, fixed set of selector threads which serve all connections over
+ * non-blocking socket channels (SELECTOR engine).
  * 
  * <p><b>Output Blockage Control</b>
  * <br>An automated control of output-thread blockage can be activated (by
@@ -128,8 +136,25 @@ public class JennyNet {
    public static final int HOUR = 60 * MINUTE;
    public static final int DAY = 24 * HOUR;
 
-   /** Enum for an application type: 'global' or 'individual'. */
-   public static enum ThreadUsage {GLOBAL, INDIVIDUAL}
+   /** Enum for an application type: 'global', 'individual' or 'virtual'
+    * (individual on virtual threads, Java 21 and later). */
+   public static enum ThreadUsage {GLOBAL, INDIVIDUAL, VIRTUAL}
+   
+   /** Enum for the socket receive engine: 'thread' (one blocking thread per
+    * connection) or 'selector' (shared event-loops on non-blocking channels). 
+    */
+   public static enum ReceiveEngine {THREAD, SELECTOR}
+   
+   /** Enum for the integrity checksum of transmission parcels: 'adler32', 
+    * 'crc32c' (Java 9 and later) or 'none' (no checksum, trusted links). 
+    */
+   public static enum ChecksumType {ADLER32, CRC32C, NONE}
+   
+   /** Enum for the wire format of transmission parcel headers: 'standard'
+    * (fixed length fields) or 'compact' (variable length fields, requires 
+    * remote support). 
+    */
+   public static enum HeaderFormat {STANDARD, COMPACT}
    
    // markers for version 1.0.0
    public static final String VERSION = "1.0.0";
@@ -145,6 +170,20 @@ public class JennyNet {
 
    /** Maximum number of serialisation devices */
    public static final int MAX_SERIAL_DEVICE = 3;
+   /** Serialisation method number in the object header of a parcel which 
+    * contains a batch of small objects. */
+   static final int BATCH_SERIAL_METHOD = 255;
+   /** Marker of the capabilities in the CONNECTION_CONFIRM signal. */
+   static final int CAPABILITIES_ANNOUNCED = 1 << 31;
+   /** Capabilities of every remote: ADLER32 checksum, STANDARD header. */
+   static final int STANDARD_CAPABILITIES = 1 << ChecksumType.ADLER32.ordinal() 
+		   | 1 << 16 + HeaderFormat.STANDARD.ordinal();
+   /** Handshake capability: file checksum in a trailer parcel. */
+   static final int FEATURE_FILE_TRAILER = 1 << 23;
+   /** Handshake capability: reception of object batches. */
+   static final int FEATURE_OBJECT_BATCH = 1 << 24;
+   /** Maximum number of compression codecs (codec IDs 1..6). */
+   public static final int MAX_COMPRESSION_CODEC = 7;
    public static final int DEFAULT_SERIALISATION_METHOD = 0; // JAVA
    /** Maximum buffer size for object serialisation. */
    public static final int DEFAULT_MAX_SERIALISE_SIZE = 100 * MEGA;
@@ -154,6 +193,7 @@ public class JennyNet {
    public static final int MIN_MAX_CON_SENDLOAD = 16 * KILO; 
    public static final int MAX_TRANSMISSION_PARCEL_SIZE = 256 * KILO; 
    public static final int MIN_TRANSMISSION_PARCEL_SIZE = 1024; 
+   public static final int MIN_ADAPTIVE_PARCEL_SIZE = 4 * KILO; 
    public static final int MIN_ALIVE_PERIOD = 5000; 
    public static final int MIN_CONFIRM_TIMEOUT = 1000; 
    public static final int MIN_IDLE_CHECK_PERIOD = 5000; 
@@ -168,14 +208,34 @@ public class JennyNet {
    public static final int DEFAULT_IDLE_CHECK_PERIOD = 60000; 
    public static final int DEFAULT_TRANSMISSION_TEMPO = -1;
    public static final ThreadUsage DEFAULT_THREAD_USAGE = ThreadUsage.GLOBAL;
+   public static final ReceiveEngine DEFAULT_RECEIVE_ENGINE = ReceiveEngine.THREAD;
+   public static final ChecksumType DEFAULT_CHECKSUM_TYPE = ChecksumType.ADLER32;
+   public static final HeaderFormat DEFAULT_HEADER_FORMAT = HeaderFormat.STANDARD;
+   public static final int DEFAULT_BATCH_LINGER = 0;
+   public static final int MAX_BATCH_LINGER = 1000;
+   public static final int DEFAULT_COMPRESSION_CODEC = 0;
+   public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
+   public static final int DEFAULT_SELECTOR_THREADS = Math.max(1, Math.min(4, 
+		   								Runtime.getRuntime().availableProcessors() / 2));
+   public static final int MAX_SELECTOR_THREADS = 64;
+   public static final int DEFAULT_SEND_THREADS = Math.max(2, Math.min(4, 
+		   								Runtime.getRuntime().availableProcessors()));
+   public static final int MAX_SEND_THREADS = 32;
+   public static final int DEFAULT_OUTPUT_THREADS = 1;
+   public static final int MAX_OUTPUT_THREADS = 32;
+   public static final int DEFAULT_CHECKSUM_CACHE_CAPACITY = 256;
 
    // global structures
-   /** Occupied file registry to protect from file output overrun events. */
-   private static Timer timer; 
+   /** Timer service for all time-control tasks of the layer. */
+   private static final WheelTimer timerService = new WheelTimer("JennyNet Timer");
+   private static final FileChecksumCache checksumCache = 
+		   new FileChecksumCache(DEFAULT_CHECKSUM_CACHE_CAPACITY);
+   private static SchedulableTimerTask blockingControlTask; 
 
    private static Vector<IClient> globalClientList;
    private static Vector<IServer> globalServerList;
    private static Serialization[] globalSerials = new Serialization[MAX_SERIAL_DEVICE]; 
+   private static CompressionCodec[] globalCodecs = new CompressionCodec[MAX_COMPRESSION_CODEC]; 
    private static Charset codingCharset;
    private static File tempDir;
 
@@ -184,6 +244,12 @@ public class JennyNet {
    private static ConnectionParameters parameters;
    private static int outputThreadPriority;
    private static int sendThreadPriority;
+   private static ReceiveEngine receiveEngine;
+   private static int selectorThreads;
+   private static int sendThreads;
+   private static int outputThreads;
+   private static boolean sendGathering;
+   private static boolean zeroCopyFileSending;
    
    static {
 	   reset();
@@ -202,14 +268,21 @@ public class JennyNet {
       // initial structures
       globalClientList = new Vector<>(16, 32);
       globalServerList = new Vector<>(16, 32);
-      if (timer != null) {
-    	  timer.cancel();
-    	  timer = null;
+      if (blockingControlTask != null) {
+    	  blockingControlTask.cancel();
+    	  blockingControlTask = null;
       }
       
       // initial values
       outputThreadPriority = Thread.NORM_PRIORITY + 1;
       sendThreadPriority = Thread.MAX_PRIORITY - 2;
+      receiveEngine = DEFAULT_RECEIVE_ENGINE;
+      selectorThreads = DEFAULT_SELECTOR_THREADS;
+      sendThreads = DEFAULT_SEND_THREADS;
+      outputThreads = DEFAULT_OUTPUT_THREADS;
+      sendGathering = true;
+      zeroCopyFileSending = true;
+      checksumCache.reset(DEFAULT_CHECKSUM_CACHE_CAPACITY);
       tempDir = new File(System.getProperty("java.io.tmpdir"));
       
       // default initialised objects
@@ -222,6 +295,10 @@ public class JennyNet {
       } catch (SerialisationUnavailableException e) {
     	  parameters.setSerialisationMethod(0);
       }
+      
+      Arrays.fill(globalCodecs, null);
+      globalCodecs[DeflateCodec.CODEC_ID] = new DeflateCodec();
+      globalCodecs[DeflateCodec.DICTIONARY_CODEC_ID] = new DeflateCodec(Deflater.DEFAULT_COMPRESSION, true);
    }
    
    /** If this is set <b>true</b>, a periodic control for event delivery
@@ -237,15 +314,13 @@ public class JennyNet {
     * @param v boolean true = control is ON, false = control is OFF
     */
    public static void setConnectionBlockingControl (boolean v) {
-	   if (v & timer == null) {
-		  timer = new Timer(true);
-		  
+	   if (v & blockingControlTask == null) {
 		  // start  the connection control task
-		  SchedulableTimerTask task = new ControlBlockingOutputTask();
-		  task.schedule(timer);
-	   } else if (!v & timer != null) {
-		   timer.cancel();
-		   timer = null;
+		  blockingControlTask = new ControlBlockingOutputTask();
+		  blockingControlTask.schedule(timerService);
+	   } else if (!v & blockingControlTask != null) {
+		   blockingControlTask.cancel();
+		   blockingControlTask = null;
 	   }
    }
 
@@ -255,7 +330,35 @@ public class JennyNet {
     * @return boolean true = control is ON, false = control is OFF
     */
    public static boolean isConBlockingControlled () {
-	   return timer != null;
+	   return blockingControlTask != null;
+   }
+   
+   /** Returns the timer service which performs all time-control tasks of 
+    * the layer, e.g. ALIVE signalling, IDLE checking and transfer 
+    * timeouts.
+    * 
+    * @return {@code WheelTimer}
+    */
+   static WheelTimer getTimerService () {
+	   return timerService;
+   }
+   
+   /** Returns the lag of the layer's timer service on its most recent 
+    * tick. A rising value indicates that time-control tasks are delayed,
+    * e.g. by an overloaded system.
+    * 
+    * @return long milliseconds
+    */
+   public static long getTimerTickLag () {
+	   return timerService.getTickLag();
+   }
+   
+   /** Returns the highest tick lag observed on the layer's timer service.
+    * 
+    * @return long milliseconds
+    */
+   public static long getTimerMaxTickLag () {
+	   return timerService.getMaxTickLag();
    }
    
    /** Shuts down the <i>JennyNet</i> network layer with all communicating 
@@ -306,13 +409,134 @@ public class JennyNet {
       sendThreadPriority = Math.min(Math.max(p, Thread.MIN_PRIORITY), Thread.MAX_PRIORITY);
 
       if (ConnectionImpl.coreSendClient != null) {
-    	  setThreadPriority(ConnectionImpl.coreSendClient.send, sendThreadPriority);
+    	  ConnectionImpl.coreSendClient.setThreadPriority(sendThreadPriority);
       }
       if (ConnectionImpl.coreSendServer != null) {
-    	  setThreadPriority(ConnectionImpl.coreSendServer.send, sendThreadPriority);
+    	  ConnectionImpl.coreSendServer.setThreadPriority(sendThreadPriority);
       }
    }
    
+   /** Returns the number of socket sending service threads per layer 
+    * category (client or server).
+    * 
+    * @return int number of threads
+    */
+   public static int getSendThreads () {return sendThreads;}
+
+   /** Sets the number of socket sending service threads per layer category
+    * (client or server). Each connection is served by at most one of these
+    * threads at a time. The threads block in the socket write of a remote
+    * which has stopped reading, hence with N threads up to N-1 stalled 
+    * remote receivers are isolated from the other connections, while N
+    * stalled receivers stall the sending of the entire category. 
+    * The value is effective only before the sending service has been 
+    * created, i.e. before the first connection of a category has started. 
+    * Defaults to the number of processors, between 2 and 4.
+    * 
+    * @param n int number of threads (1..32)
+    */
+   public static void setSendThreads (int n) {
+	  sendThreads = Math.min(Math.max(n, 1), MAX_SEND_THREADS);
+   }
+   
+   /** Whether the socket sending service gathers parcels which are ready 
+    * for a connection into a single flush operation on the socket.
+    * Defaults to true.
+    * 
+    * @return boolean true = send-gathering active
+    */
+   public static boolean isSendGathering () {return sendGathering;}
+
+   /** Sets whether the socket sending service gathers parcels which are 
+    * ready for a connection into a single flush operation on the socket.
+    * If false, each parcel is flushed individually. Gathering does not wait
+    * for parcels; it is restricted to 2 milliseconds per flush and the 
+    * connection's output buffer size (transmission parcel size).
+    * Defaults to true.
+    * 
+    * @param v boolean true = send-gathering active
+    */
+   public static void setSendGathering (boolean v) {
+	  sendGathering = v;
+   }
+   
+   /** Whether file transfers are sent by transferring file regions directly
+    * from file to socket (zero-copy).
+    * 
+    * @return boolean true = zero-copy file sending active
+    */
+   public static boolean isZeroCopyFileSending () {return zeroCopyFileSending;}
+
+   /** Sets whether file transfers are sent by transferring file regions 
+    * directly from file to socket, in which case the operating system may
+    * send file data without copying it through the application (sendfile). 
+    * Unless the connection's checksum type is NONE, each file region is 
+    * still read once into a direct buffer to calculate the parcel and file
+    * checksums; zero-copy then saves the copying of file data into the 
+    * socket but not the reading of the file. Compressed file transfers are
+    * read as usual. This is effective only for connections with a socket 
+    * channel, i.e. under the SELECTOR receive engine, and for file transfers
+    * started after the setting. Defaults to true.
+    * 
+    * @param v boolean true = zero-copy file sending active
+    */
+   public static void setZeroCopyFileSending (boolean v) {
+	  zeroCopyFileSending = v;
+   }
+   
+   /** Returns the maximum number of entries of the file checksum cache.
+    * 
+    * @return int capacity, 0 = cache disabled
+    */
+   public static int getChecksumCacheCapacity () {return checksumCache.getCapacity();}
+
+   /** Sets the maximum number of entries of the file checksum cache. The
+    * cache holds the checksums of files which were sent, keyed by canonical
+    * path, file length and modification time. A file which is sent again 
+    * unchanged takes its checksum from the cache instead of computing it 
+    * while sending. The least recently used entries are removed when the 
+    * capacity is exceeded. Defaults to 256.
+    * 
+    * @param n int capacity, 0 = cache disabled
+    */
+   public static void setChecksumCacheCapacity (int n) {
+	  checksumCache.setCapacity(Math.max(n, 0));
+   }
+   
+   /** Returns the sidecar file in which the file checksum cache is stored.
+    * 
+    * @return File sidecar file or null
+    */
+   public static File getChecksumCacheFile () {return checksumCache.getSidecar();}
+   
+   /** Sets a sidecar file in which the file checksum cache is stored, so 
+    * that file checksums survive a restart of the application. If the file
+    * exists, its entries are loaded into the cache. The file is rewritten
+    * when a checksum is added to the cache. A value of null ends storing.
+    * Defaults to null.
+    * 
+    * @param file File sidecar file, may be null
+    * @throws IOException if the sidecar file cannot be read
+    */
+   public static void setChecksumCacheFile (File file) throws IOException {
+	  checksumCache.setSidecar(file == null ? null : file.getAbsoluteFile());
+   }
+   
+   /** Returns the file checksum cache of the layer.
+    * 
+    * @return {@code FileChecksumCache}
+    */
+   static FileChecksumCache getChecksumCache () {return checksumCache;}
+   
+   /** Whether virtual threads are available in this Java runtime (Java 21 
+    * and later), which is required for {@code ThreadUsage.VIRTUAL}.
+    * 
+    * @return boolean true = virtual threads available
+    */
+   public static boolean isVirtualThreadSupported () {
+	  return ProcessorThread.isVirtualSupported();
+   }
+   
    /** Returns the thread priority of the layer's output service threads.
     * This includes threads which deliver received objects and events to the 
     * application. Defaults to Thread.NORM_PRIORITY + 1.
@@ -330,14 +554,108 @@ public class JennyNet {
    public static void setOutputThreadPriority (int p) {
       outputThreadPriority = Math.min(Math.max(p, Thread.MIN_PRIORITY), Thread.MAX_PRIORITY);
       
-      if (ConnectionImpl.staticOutputClient != null) {
-    	  setThreadPriority(ConnectionImpl.staticOutputClient.output, outputThreadPriority);
-      }
-      if (ConnectionImpl.staticOutputServer != null) {
-    	  setThreadPriority(ConnectionImpl.staticOutputServer.output, outputThreadPriority);
+      for (LayerCategory cat : LayerCategory.values()) {
+    	  for (OutputProcessor output : ConnectionImpl.getStaticOutputs(cat)) {
+    		  setThreadPriority(output.output, outputThreadPriority);
+    	  }
       }
    }
    
+   /** Returns the number of output threads of the global delivery service
+    * per layer category (client or server).
+    * 
+    * @return int number of threads
+    */
+   public static int getOutputThreads () {return outputThreads;}
+
+   /** Sets the number of output threads of the global delivery service per
+    * layer category (client or server). Connections with delivery thread 
+    * usage GLOBAL are assigned to one of these threads in rotation and keep
+    * it, hence events of a connection are delivered in sequence while a 
+    * slow listener of one connection delays only the connections on the
+    * same thread. With the value 1 all connections of a category share a 
+    * single thread. The value is effective for connections which are 
+    * assigned to the global service after this call. Defaults to 1.
+    * 
+    * @param n int number of threads (1..32)
+    */
+   public static void setOutputThreads (int n) {
+	  outputThreads = Math.min(Math.max(n, 1), MAX_OUTPUT_THREADS);
+   }
+   
+   /** Returns the engine which reads incoming data from the network sockets
+    * of new connections. Defaults to THREAD.
+    * 
+    * @return {@code ReceiveEngine}
+    */
+   public static ReceiveEngine getReceiveEngine () {return receiveEngine;}
+
+   /** Sets the engine which reads incoming data from the network sockets
+    * of connections. With THREAD each connection operates its own receive 
+    * thread which blocks on the socket input stream. With SELECTOR a small,
+    * fixed set of selector threads reads from non-blocking socket channels
+    * for all connections, so the number of threads does not grow with the
+    * number of connections. 
+    * <p>NOTE: The setting becomes effective for clients and servers which
+    * are created after this call. Defaults to THREAD.
+    * 
+    * @param engine {@code ReceiveEngine}
+    */
+   public static void setReceiveEngine (ReceiveEngine engine) {
+	  Objects.requireNonNull(engine);
+	  receiveEngine = engine;
+   }
+   
+   /** Returns the number of selector threads which serve connections
+    * under the SELECTOR receive engine.
+    * 
+    * @return int number of threads
+    */
+   public static int getSelectorThreads () {return selectorThreads;}
+
+   /** Sets the number of selector threads which serve connections under
+    * the SELECTOR receive engine. The value is effective only before the 
+    * selector threads have been created, i.e. before the first connection
+    * with this engine has started. Defaults to half the number of processors,
+    * not exceeding 4.
+    * 
+    * @param n int number of threads (1..64)
+    */
+   public static void setSelectorThreads (int n) {
+	  selectorThreads = Math.min(Math.max(n, 1), MAX_SELECTOR_THREADS);
+   }
+   
+   /** Creates a new unconnected client socket suitable for the current 
+    * receive engine. Under the SELECTOR engine the socket is backed by a
+    * {@code SocketChannel}.
+    * 
+    * @return {@code Socket}
+    */
+   static Socket createSocket () {
+	  if (receiveEngine == ReceiveEngine.SELECTOR) {
+		 try {
+			return SocketChannel.open().socket();
+		 } catch (IOException e) {
+			e.printStackTrace();
+		 }
+	  }
+	  return new Socket();
+   }
+   
+   /** Creates a new unbound server socket suitable for the current receive
+    * engine. Under the SELECTOR engine the socket is backed by a 
+    * {@code ServerSocketChannel} and accepted sockets have channels.
+    * 
+    * @return {@code ServerSocket}
+    * @throws IOException
+    */
+   static ServerSocket createServerSocket () throws IOException {
+	  if (receiveEngine == ReceiveEngine.SELECTOR) {
+		 return ServerSocketChannel.open().socket();
+	  }
+	  return new ServerSocket();
+   }
+   
    private static void setThreadPriority (Thread thread, int priority) {
 	   if (thread != null) {
 		   thread.setPriority(priority);
@@ -386,6 +704,44 @@ public class JennyNet {
 	   }
    }
    
+   /** Returns the registered compression codec for the given codec ID or
+    * null if no such codec is registered.
+    * 
+    * @param id int codec ID
+    * @return {@code CompressionCodec} or null
+    */
+   public static CompressionCodec getCompressionCodec (int id) {
+	   return id > 0 & id < MAX_COMPRESSION_CODEC ? globalCodecs[id] : null;
+   }
+   
+   /** Registers the given compression codec under its codec ID, replacing
+    * a codec which was registered under the same ID. Codec 1 is the 
+    * DEFLATE codec and codec 2 the DEFLATE codec with preset dictionary
+    * for object serialisations; both are registered by default. Registrations are announced
+    * to remote stations in the handshake of new connections; both ends 
+    * must register equal codecs under the same ID.
+    * 
+    * @param codec {@code CompressionCodec}
+    * @throws IllegalArgumentException if the codec ID is out of range 1..6
+    */
+   public static void setCompressionCodec (CompressionCodec codec) {
+	   Objects.requireNonNull(codec);
+	   int id = codec.getCodecID();
+	   if (id < 1 | id >= MAX_COMPRESSION_CODEC)
+		   throw new IllegalArgumentException("illegal codec ID: " + id);
+	   globalCodecs[id] = codec;
+   }
+   
+   /** Removes the compression codec with the given ID from the layer.
+    * 
+    * @param id int codec ID
+    */
+   public static void removeCompressionCodec (int id) {
+	   if (id > 0 & id < MAX_COMPRESSION_CODEC) {
+		   globalCodecs[id] = null;
+	   }
+   }
+   
    /** Sets the charset used for layer internal use.
     * 
     * @return Charset text coding charset
@@ -519,7 +875,7 @@ public class JennyNet {
     *
     * @param agent int controlling agent: 0 = server, 1 = client
     * @param socket Socket connected socket
-    * @param timer Timer the timer thread to use for the timer task
+    * @param timer {@code WheelTimer} the timer to use for the timeout task
     * @param time int milliseconds to wait for a remote signal
 
     * @return boolean true == JennyNet confirmed, false == invalid endpoint or timeout
@@ -527,7 +883,7 @@ public class JennyNet {
     * @throws IOException 
     */
    @SuppressWarnings("hiding")
-   static boolean verifyNetworkLayer (int agent, final Socket socket, Timer timer, int time) 
+   static boolean verifyNetworkLayer (int agent, final Socket socket, WheelTimer timer, int time) 
          throws IOException {
       // check for conditions
       if (!socket.isConnected())
@@ -543,7 +899,7 @@ public class JennyNet {
       try {
          // file in for the socket shutdown timer
          // which covers the case that remote doesn't send enough bytes
-         TimerTask task = new TimerTask() {
+         WheelTimer.Timeout timeout = timer.schedule(new Runnable() {
 
             @Override
             public void run() {
@@ -557,13 +913,12 @@ public class JennyNet {
                   e.printStackTrace();
                }
             }
-         };
-         timer.schedule(task, time);
+         }, time);
          
          // try read remote handshake
          byte[] handshake = new byte[16];
          new DataInputStream(socket.getInputStream()).readFully(handshake);
-         task.cancel();
+         timeout.cancel();
 
          // test and verify remote handshake
          return Util.equalArrays(handshake, receiveHandshake);
@@ -713,16 +1068,112 @@ public class JennyNet {
 	   return globalClientList.remove(client);
    }
    
+   /** Returns the set of checksum types which are supported in this Java
+    * runtime, as bit set of the {@code ChecksumType} ordinals.
+    * 
+    * @return int bit set
+    */
+   static int supportedChecksumTypes () {
+	   int set = 0;
+	   for (ChecksumType type : ChecksumType.values()) {
+		   if (ParcelChecksum.isSupported(type)) {
+			   set |= 1 << type.ordinal();
+		   }
+	   }
+	   return set;
+   }
+   
+   /** Returns the capabilities of this layer as announced to remote 
+    * (see {@code sendConnectionConfirm()}): the set of supported checksum 
+    * types (bits 0..15, {@code ChecksumType} ordinals), the set of supported
+    * parcel header formats (bits 16..22, {@code HeaderFormat} ordinals), 
+    * protocol features (bit 23, {@code FEATURE_FILE_TRAILER}, bit 24, 
+    * {@code FEATURE_OBJECT_BATCH}) and the set of registered compression 
+    * codecs (bits 25..30, codec ID + 24). Unknown bits are ignored by 
+    * remote.
+    * 
+    * @return int bit set
+    */
+   static int localCapabilities () {
+	   return supportedChecksumTypes() | supportedHeaderFormats() | FEATURE_FILE_TRAILER
+			  | FEATURE_OBJECT_BATCH | supportedCompressionCodecs();
+   }
+   
+   /** Returns the set of compression codecs which are registered in this
+    * layer, as bit set of the codec IDs shifted by 24.
+    * 
+    * @return int bit set
+    */
+   static int supportedCompressionCodecs () {
+	   int set = 0;
+	   for (int i = 1; i < MAX_COMPRESSION_CODEC; i++) {
+		   if (globalCodecs[i] != null) {
+			   set |= 1 << 24 + i;
+		   }
+	   }
+	   return set;
+   }
+   
+   /** Returns the set of parcel header formats which are supported by this
+    * layer, as bit set of the {@code HeaderFormat} ordinals shifted by 16.
+    * 
+    * @return int bit set
+    */
+   static int supportedHeaderFormats () {
+	   int set = 0;
+	   for (HeaderFormat format : HeaderFormat.values()) {
+		   set |= 1 << 16 + format.ordinal();
+	   }
+	   return set;
+   }
+   
+   /** Returns the parcel header format to be used for a connection with the
+    * given preference and the given capabilities of remote. The preferred 
+    * format is used if remote supports it, otherwise STANDARD.
+    * 
+    * @param preferred {@code HeaderFormat} 
+    * @param remoteCapabilities int capabilities of remote (bit set)
+    * @return {@code HeaderFormat}
+    */
+   static HeaderFormat selectHeaderFormat (HeaderFormat preferred, int remoteCapabilities) {
+	   if ((remoteCapabilities & 1 << 16 + preferred.ordinal()) != 0) {
+		   return preferred;
+	   }
+	   return HeaderFormat.STANDARD;
+   }
+   
+   /** Returns the checksum type to be used for a connection with the given
+    * preference and the given set of checksum types supported by remote. 
+    * The preferred type is used if remote supports it, otherwise ADLER32.
+    * 
+    * @param preferred {@code ChecksumType} 
+    * @param remoteTypes int checksum types supported by remote (bit set),
+    *        may contain other capabilities
+    * @return {@code ChecksumType}
+    */
+   static ChecksumType selectChecksumType (ChecksumType preferred, int remoteTypes) {
+	   if ((remoteTypes & 1 << preferred.ordinal()) != 0 && ParcelChecksum.isSupported(preferred)) {
+		   return preferred;
+	   }
+	   return ChecksumType.ADLER32;
+   }
+   
    /** Waits the given time for a CONNECTION_VERIFIED signal received from the
     * remote endpoint. This should only take place after <i>verifyNetworkLayer()</i> has been
     * passed positively. Method throws exceptions to indicate various failure conditions.
     * The socket must be connected. If a timeout, rejection or IO exception is thrown, the socket 
     * gets closed.
     * 
+    * <p>A server of this version announces its capabilities in the signal
+    * (see {@code sendConnectionConfirm()}), a server of version 1.0.0 does 
+    * not; in the latter case the connection operates with the standard 
+    * protocol.
+    * 
     * @param socket Socket connected socket
-    * @param timer Timer the timer thread to use for the timer task
+    * @param timer {@code WheelTimer} the timer to use for the timeout task
     * @param time int milliseconds to wait for a remote signal
-    * @return int ALIVE period as requested by remote
+    * @return int capabilities of remote (bit set) or 0 if remote does not 
+    *         announce capabilities
     * 
     * @throws JennyNetHandshakeException if remote sent a false signal (out of protocol)
     * @throws ConnectionRejectedException if remote JennyNet layer refused the connection
@@ -731,7 +1182,7 @@ public class JennyNet {
     * @throws IOException
     * @throws IllegalArgumentException if socket is unconnected
     */
-   static int waitForConnection (final Socket socket, Timer timer, int time) throws IOException {
+   static int waitForConnection (final Socket socket, WheelTimer timer, int time) throws IOException {
       // check for conditions
       if (!socket.isConnected())
          throw new IllegalArgumentException("socket is unconnected!");
@@ -740,7 +1191,7 @@ public class JennyNet {
       
       // file in for the socket shutdown timer
       // which covers the case that remote doesn't send enough bytes
-      class WaitTimerTask extends TimerTask {
+      class WaitTimerTask implements Runnable {
          boolean expired = false;
 
          @Override
@@ -762,22 +1213,26 @@ public class JennyNet {
          }
       };
       WaitTimerTask task = new WaitTimerTask();
-      timer.schedule(task, time);
+      WheelTimer.Timeout timeout = timer.schedule(task, time);
          
       try {
          // try read remote connection confirm signal
          byte[] remoteSignal = new byte[20];
          new DataInputStream(socket.getInputStream()).readFully(remoteSignal);
-         task.cancel();
+         timeout.cancel();
    
          // test and verify remote handshake
          byte[] verifySignal = Arrays.copyOf(remoteSignal, 16);
          if ( !Util.equalArrays(verifySignal, JennyNet.CONNECTION_CONFIRM) )
             throw new JennyNetHandshakeException("false signal on WAIT_FOR_CONNECTION_CONFIRM");
          
-         // extract ALIVE-PERIOD request from remote
-         int alivePeriod = Util.readInt(remoteSignal, 16);
-         return alivePeriod;
+         // extract the capabilities of remote (version 1.0.0 sends the 
+         // ALIVE period which is never negative)
+         int value = Util.readInt(remoteSignal, 16);
+         if ((value & CAPABILITIES_ANNOUNCED) == 0) {
+        	 return 0;
+         }
+         return value & ~CAPABILITIES_ANNOUNCED | STANDARD_CAPABILITIES;
          
       } catch (SocketException e) {
          socket.close();
@@ -801,16 +1256,23 @@ public class JennyNet {
       }
    }
 
-   /** Sends a CONNECTION_CONFIRM message to remote station including a
-    * request for ALIVE signals, if any. This is part of the initial handshake
-    * protocol during establishing a connection between client and server.
+   /** Sends a CONNECTION_CONFIRM message to remote station including the
+    * capabilities of this layer, marked by {@code CAPABILITIES_ANNOUNCED}. 
+    * Version 1.0.0 sent the ALIVE period in this place, which remote
+    * ignores. This is part of the initial handshake protocol during 
+    * establishing a connection between client and server.
+    * <p>A client which understands the capabilities answers with its own
+    * capabilities in a CAPABILITIES signal, upon which the server assigns
+    * the parcel format (see {@code ConnectionImpl}). A client of version 
+    * 1.0.0 does not answer and the connection remains on the standard 
+    * protocol.
     *  
     * @param connection <code>Connection</code> sending connection
     * @throws IOException 
     */
    static void sendConnectionConfirm (Connection connection) throws IOException {
       byte[] signal = Arrays.copyOf(JennyNet.CONNECTION_CONFIRM, 20);
-      Util.writeInt(signal, 16, connection.getParameters().getAlivePeriod());
+      Util.writeInt(signal, 16, CAPABILITIES_ANNOUNCED | localCapabilities());
       ((ConnectionImpl)connection).getSocket().getOutputStream().write(signal);
    }
 
@@ -830,24 +1292,25 @@ public class JennyNet {
 		    if (debug) {
 			   System.out.println("$$ running Control-Blocking-Output-Processor");
 	        }
-		   	for (int i = 0; i < 2; i++) {
-		   		
-			   OutputProcessor output = i == 0 ? ConnectionImpl.staticOutputClient : ConnectionImpl.staticOutputServer;
-			   ConnectionImpl con = output.connection;
-			   boolean blocking = output.isBlocking();
-			   if (debug) {
-				   boolean conOk = con != null;
-				   System.out.println("$$ (control-blocking-output) con = " + conOk + ", output alive = " + output.isAlive() 
-				   		    + ", blocking = " + blocking);
-		       }
-			   if (blocking && con != null && output.isAlive()) {
-				   con.getParameters().setDeliveryThreadUsage(ThreadUsage.INDIVIDUAL);
-				   int count = output.drainConEventsTo(con, con.getOutputProcessor());
-				   output.interrupt();
+		   // control all output threads of the global delivery service
+		   for (LayerCategory cat : LayerCategory.values()) {
+			   for (OutputProcessor output : ConnectionImpl.getStaticOutputs(cat)) {
+				   ConnectionImpl con = output.connection;
+				   boolean blocking = output.isBlocking();
 				   if (debug) {
-				      con.prot("--$$ (control-blocking): replaced global output to individual, " 
-				    		  + count + " events moved, rem "+ con.getRemoteAddress());
-				      con.prot("--$$ (control-blocking) output time-mark is " + output.deliverMarkTm);
+					   boolean conOk = con != null;
+					   System.out.println("$$ (control-blocking-output) con = " + conOk + ", output alive = " + output.isAlive() 
+					   		    + ", blocking = " + blocking);
+			       }
+				   if (blocking && con != null && output.isAlive()) {
+					   con.getParameters().setDeliveryThreadUsage(ThreadUsage.INDIVIDUAL);
+					   int count = output.drainConEventsTo(con, con.getOutputProcessor());
+					   output.interrupt();
+					   if (debug) {
+					      con.prot("--$$ (control-blocking): replaced global output to individual, " 
+					    		  + count + " events moved, rem "+ con.getRemoteAddress());
+					      con.prot("--$$ (control-blocking) output time-mark is " + output.deliverMarkTm);
+					   }
 				   }
 			   }
 		   }
@@ -38,6 +38,7 @@ import org.kse.jennynet.util.CRC32;
 public class JennyNetByteBuffer implements Serializable {
    private static long serialVersionUID = 834209742878217L;
    
+   private static final byte[] EMPTY_DATA = new byte[0];
    protected byte[] data;
    protected transient int crc32;
    
@@ -71,7 +72,7 @@ public class JennyNetByteBuffer implements Serializable {
    /** Creates an byte buffer with an empty data array.
     */
    protected JennyNetByteBuffer () {
-	   data = new byte[0];
+	   data = EMPTY_DATA;
    }
    
    /** Returns the stored data buffer.
@@ -114,6 +114,21 @@ public class KryoSerialisation extends AbstractSerialization {
       return object;
    }
 
+   /** Returns the serialisation of a fresh instance of the given class or
+    * null if the class cannot be instantiated.
+    */
+   @Override
+   protected byte[] typicalForm (Class<?> c) {
+	   try {
+		   Output output = new Output(256, MAX_DICTIONARY_LENGTH);
+		   kryo.writeClassAndObject(output, kryo.newInstance(c));
+		   output.close();
+		   return output.toBytes();
+	   } catch (RuntimeException e) {
+		   return null;
+	   }
+   }
+
    @Override
    public int getMethodID() {
       return METHOD_ID;
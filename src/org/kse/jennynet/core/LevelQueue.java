@@ -0,0 +1,415 @@
+/*  File: LevelQueue.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+/** An unbounded blocking queue which orders its elements by a small number
+ * of precedence levels. Each level is a FIFO list; a bitmap of non-empty 
+ * levels leads to the head element in constant time. Level 0 is the 
+ * highest precedence. The level of an element is determined by a function
+ * given at construction and must not change while the element is queued.
+ * 
+ * <p>Insertion and removal of elements are lock-free. A lock is only used
+ * by consumers which wait for an element; producers signal waiting 
+ * consumers and otherwise don't touch the lock. Besides the standard 
+ * {@code BlockingQueue} methods this queue offers a blocking peek 
+ * ({@code awaitHead()}) and the reinsertion of an element at the head of
+ * its level ({@code offerFirst()}).
+ * 
+ * <p>Within a level, elements are ordered by insertion, hence this can 
+ * replace a {@code PriorityBlockingQueue} if the elements' natural order 
+ * is level first and insertion sequence second. The iterator and 
+ * {@code size()} are weakly consistent.
+ * 
+ * @param <E> element type
+ */
+class LevelQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+   /** maximum number of levels */
+   public static final int MAX_LEVELS = 32;
+   
+   private final ConcurrentLinkedDeque<E>[] levels;
+   private final ToIntFunction<? super E> leveller;
+   private final AtomicInteger bitmap = new AtomicInteger();
+   private final AtomicInteger count = new AtomicInteger();
+   private final AtomicInteger waiters = new AtomicInteger();
+   private final ReentrantLock waitLock = new ReentrantLock();
+   private final Condition notEmpty = waitLock.newCondition();
+   
+   /** Creates a new level queue.
+    * 
+    * @param nrLevels int number of levels (1..32)
+    * @param leveller {@code ToIntFunction} function rendering the level
+    *        of an element (0..nrLevels-1)
+    * @throws IllegalArgumentException if nrLevels is out of range
+    */
+   @SuppressWarnings({"unchecked", "rawtypes"})
+   public LevelQueue (int nrLevels, ToIntFunction<? super E> leveller) {
+	  Objects.requireNonNull(leveller, "leveller is null");
+	  if (nrLevels < 1 | nrLevels > MAX_LEVELS)
+		 throw new IllegalArgumentException("number of levels out of range: " + nrLevels);
+	  this.leveller = leveller;
+	  levels = new ConcurrentLinkedDeque[nrLevels];
+	  for (int i = 0; i < nrLevels; i++) {
+		 levels[i] = new ConcurrentLinkedDeque<>();
+	  }
+   }
+   
+   public int getNrOfLevels () {return levels.length;}
+   
+   private int levelOf (E e) {
+	  int level = leveller.applyAsInt(e);
+	  if (level < 0 | level >= levels.length)
+		 throw new IllegalArgumentException("element level out of range: " + level);
+	  return level;
+   }
+   
+   /** Marks the given level as non-empty and signals waiting consumers.
+    * This is called after an element has been inserted.
+    * 
+    * @param level int
+    */
+   private void inserted (int level) {
+	  int mask = 1 << level;
+	  if ((bitmap.get() & mask) == 0) {
+		 bitmap.getAndUpdate(b -> b | mask);
+	  }
+	  count.incrementAndGet();
+	  if (waiters.get() > 0) {
+		 waitLock.lock();
+		 try {
+			notEmpty.signal();
+		 } finally {
+			waitLock.unlock();
+		 }
+	  }
+   }
+   
+   /** Clears the mark of the given level if the level is empty. The level
+    * is tested again after clearing, so that a concurrent insertion cannot
+    * be lost.
+    * 
+    * @param level int
+    */
+   private void clearLevel (int level) {
+	  int mask = 1 << level;
+	  bitmap.getAndUpdate(b -> b & ~mask);
+	  if (!levels[level].isEmpty()) {
+		 bitmap.getAndUpdate(b -> b | mask);
+	  }
+   }
+   
+   @Override
+   public boolean offer (E e) {
+	  Objects.requireNonNull(e);
+	  int level = levelOf(e);
+	  levels[level].offerLast(e);
+	  inserted(level);
+	  return true;
+   }
+   
+   /** Inserts the given element at the head of its level. This can be used
+    * to return an element which has been taken from the queue.
+    * 
+    * @param e E element
+    * @return boolean true
+    */
+   public boolean offerFirst (E e) {
+	  Objects.requireNonNull(e);
+	  int level = levelOf(e);
+	  levels[level].offerFirst(e);
+	  inserted(level);
+	  return true;
+   }
+   
+   @Override
+   public void put (E e) {
+	  offer(e);
+   }
+
+   @Override
+   public boolean offer (E e, long timeout, TimeUnit unit) {
+	  return offer(e);
+   }
+
+   @Override
+   public E poll () {
+	  int bits;
+	  while ((bits = bitmap.get()) != 0) {
+		 int level = Integer.numberOfTrailingZeros(bits);
+		 E e = levels[level].pollFirst();
+		 if (e != null) {
+			count.decrementAndGet();
+			return e;
+		 }
+		 clearLevel(level);
+	  }
+	  return null;
+   }
+
+   @Override
+   public E peek () {
+	  int bits = bitmap.get();
+	  while (bits != 0) {
+		 int level = Integer.numberOfTrailingZeros(bits);
+		 E e = levels[level].peekFirst();
+		 if (e != null) return e;
+		 bits &= ~(1 << level);
+	  }
+	  return null;
+   }
+
+   @Override
+   public E take () throws InterruptedException {
+	  E e = poll();
+	  if (e != null) return e;
+	  
+	  waitLock.lockInterruptibly();
+	  waiters.incrementAndGet();
+	  try {
+		 while ((e = poll()) == null) {
+			notEmpty.await();
+		 }
+	  } finally {
+		 waiters.decrementAndGet();
+		 waitLock.unlock();
+	  }
+	  
+	  // pass on the signal if more elements are available
+	  if (!isEmpty()) {
+		 signalWaiter();
+	  }
+	  return e;
+   }
+
+   @Override
+   public E poll (long timeout, TimeUnit unit) throws InterruptedException {
+	  E e = poll();
+	  if (e != null) return e;
+	  
+	  long nanos = unit.toNanos(timeout);
+	  waitLock.lockInterruptibly();
+	  waiters.incrementAndGet();
+	  try {
+		 while ((e = poll()) == null) {
+			if (nanos <= 0) return null;
+			nanos = notEmpty.awaitNanos(nanos);
+		 }
+	  } finally {
+		 waiters.decrementAndGet();
+		 waitLock.unlock();
+	  }
+	  
+	  if (!isEmpty()) {
+		 signalWaiter();
+	  }
+	  return e;
+   }
+   
+   /** Returns the head of this queue without removing it, waiting if 
+    * necessary until an element becomes available.
+    * 
+    * @return E head element
+    * @throws InterruptedException if interrupted while waiting
+    */
+   public E awaitHead () throws InterruptedException {
+	  E e = peek();
+	  if (e != null) return e;
+	  
+	  waitLock.lockInterruptibly();
+	  waiters.incrementAndGet();
+	  try {
+		 while ((e = peek()) == null) {
+			notEmpty.await();
+		 }
+	  } finally {
+		 waiters.decrementAndGet();
+		 waitLock.unlock();
+	  }
+	  
+	  // the element remains available to other consumers
+	  signalWaiter();
+	  return e;
+   }
+   
+   /** Returns the head of this queue without removing it, waiting up to 
+    * the given time if necessary until an element becomes available.
+    * 
+    * @param timeout long time to wait
+    * @param unit {@code TimeUnit} unit of timeout
+    * @return E head element or null if the waiting time elapsed
+    * @throws InterruptedException if interrupted while waiting
+    */
+   public E awaitHead (long timeout, TimeUnit unit) throws InterruptedException {
+	  E e = peek();
+	  if (e != null) return e;
+	  
+	  long nanos = unit.toNanos(timeout);
+	  waitLock.lockInterruptibly();
+	  waiters.incrementAndGet();
+	  try {
+		 while ((e = peek()) == null) {
+			if (nanos <= 0) return null;
+			nanos = notEmpty.awaitNanos(nanos);
+		 }
+	  } finally {
+		 waiters.decrementAndGet();
+		 waitLock.unlock();
+	  }
+	  
+	  signalWaiter();
+	  return e;
+   }
+   
+   private void signalWaiter () {
+	  if (waiters.get() > 0) {
+		 waitLock.lock();
+		 try {
+			notEmpty.signal();
+		 } finally {
+			waitLock.unlock();
+		 }
+	  }
+   }
+   
+   @Override
+   public boolean remove (Object o) {
+	  if (o == null) return false;
+	  for (int i = 0; i < levels.length; i++) {
+		 if (levels[i].remove(o)) {
+			count.decrementAndGet();
+			if (levels[i].isEmpty()) {
+			   clearLevel(i);
+			}
+			return true;
+		 }
+	  }
+	  return false;
+   }
+
+   @Override
+   public boolean contains (Object o) {
+	  if (o == null) return false;
+	  for (ConcurrentLinkedDeque<E> level : levels) {
+		 if (level.contains(o)) return true;
+	  }
+	  return false;
+   }
+   
+   @Override
+   public boolean isEmpty () {
+	  return peek() == null;
+   }
+   
+   @Override
+   public int size () {
+	  return Math.max(0, count.get());
+   }
+
+   /** Returns the number of elements in the given level.
+    * 
+    * @param level int
+    * @return int
+    */
+   public int size (int level) {
+	  return levels[level].size();
+   }
+   
+   @Override
+   public int remainingCapacity () {
+	  return Integer.MAX_VALUE;
+   }
+
+   @Override
+   public void clear () {
+	  while (poll() != null);
+   }
+   
+   @Override
+   public int drainTo (Collection<? super E> c) {
+	  return drainTo(c, Integer.MAX_VALUE);
+   }
+
+   @Override
+   public int drainTo (Collection<? super E> c, int maxElements) {
+	  Objects.requireNonNull(c);
+	  if (c == this)
+		 throw new IllegalArgumentException();
+	  int n = 0;
+	  E e;
+	  while (n < maxElements && (e = poll()) != null) {
+		 c.add(e);
+		 n++;
+	  }
+	  return n;
+   }
+
+   /** Returns an iterator over the elements of this queue in level order.
+    * The iterator is weakly consistent.
+    * 
+    * @return {@code Iterator<E>}
+    */
+   @Override
+   public Iterator<E> iterator () {
+	  return new Iterator<E>() {
+		 int level;
+		 Iterator<E> it = levels[0].iterator();
+		 
+		 @Override
+		 public boolean hasNext () {
+			while (!it.hasNext()) {
+			   if (++level == levels.length) {
+				  level--;
+				  return false;
+			   }
+			   it = levels[level].iterator();
+			}
+			return true;
+		 }
+
+		 @Override
+		 public E next () {
+			if (!hasNext()) 
+			   throw new NoSuchElementException();
+			return it.next();
+		 }
+
+		 @Override
+		 public void remove () {
+			it.remove();
+			count.decrementAndGet();
+		 }
+	  };
+   }
+}
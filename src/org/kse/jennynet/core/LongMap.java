@@ -0,0 +1,256 @@
+/*  File: LongMap.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/** A hash map with primitive {@code long} keys based on open addressing
+ * with linear probing. Keys are stored in a {@code long} array, hence 
+ * lookups don't box the key and entries don't allocate nodes. 
+ * Null values are not allowed; a null result of {@code get()} or 
+ * {@code remove()} means the key is not mapped.
+ * 
+ * <p>This map is not synchronised. It is meant for registries which are 
+ * modified and read by a single thread; other threads may only read 
+ * {@code size()}. For registries shared between threads see
+ * {@code CopyOnWriteLongMap}.
+ * 
+ * @param <V> value type
+ */
+class LongMap<V> {
+
+   private static final int MIN_CAPACITY = 8;
+   private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+   
+   private long[] keys;
+   private Object[] values;
+   private int mask;
+   private int shift;
+   private int threshold;
+   private volatile int size;
+   
+   /** Creates a new map with a default initial capacity.
+    */
+   public LongMap () {
+	  this(MIN_CAPACITY);
+   }
+   
+   /** Creates a new map which can hold the given number of entries 
+    * without resizing.
+    * 
+    * @param capacity int expected number of entries
+    */
+   public LongMap (int capacity) {
+	  int n = MIN_CAPACITY;
+	  while (n * 3 / 4 < capacity) {
+		 n <<= 1;
+	  }
+	  allocate(n);
+   }
+   
+   /** Creates a new map as a copy of the given map. The copy is compacted
+    * if the given map is sparsely filled.
+    * 
+    * @param map {@code LongMap}
+    */
+   LongMap (LongMap<V> map) {
+	  if (map.keys.length > MIN_CAPACITY && map.size < map.threshold / 4) {
+		 keys = map.keys;
+		 values = map.values;
+		 rehash(map.keys.length >> 1);
+	  } else {
+		 keys = map.keys.clone();
+		 values = map.values.clone();
+		 mask = map.mask;
+		 shift = map.shift;
+		 threshold = map.threshold;
+	  }
+	  size = map.size;
+   }
+   
+   private void allocate (int n) {
+	  keys = new long[n];
+	  values = new Object[n];
+	  mask = n - 1;
+	  shift = 64 - Integer.numberOfTrailingZeros(n);
+	  threshold = n * 3 / 4;
+   }
+   
+   private int slot (long key) {
+	  return (int) ((key * GOLDEN) >>> shift);
+   }
+   
+   /** Returns the index of the given key or -1 if it is not mapped.
+    */
+   private int indexOf (long key) {
+	  for (int i = slot(key); values[i] != null; i = (i + 1) & mask) {
+		 if (keys[i] == key) return i;
+	  }
+	  return -1;
+   }
+   
+   /** Returns the value mapped to the given key.
+    * 
+    * @param key long
+    * @return V value or null if the key is not mapped
+    */
+   @SuppressWarnings("unchecked")
+   public V get (long key) {
+	  int i = indexOf(key);
+	  return i < 0 ? null : (V) values[i];
+   }
+   
+   /** Whether the given key is mapped.
+    * 
+    * @param key long
+    * @return boolean
+    */
+   public boolean containsKey (long key) {
+	  return indexOf(key) > -1;
+   }
+   
+   /** Maps the given value to the given key.
+    * 
+    * @param key long
+    * @param value V
+    * @return V the previous value for the key or null
+    * @throws NullPointerException if value is null
+    */
+   @SuppressWarnings("unchecked")
+   public V put (long key, V value) {
+	  Objects.requireNonNull(value);
+	  int i = slot(key);
+	  for (; values[i] != null; i = (i + 1) & mask) {
+		 if (keys[i] == key) {
+			V old = (V) values[i];
+			values[i] = value;
+			return old;
+		 }
+	  }
+	  
+	  keys[i] = key;
+	  values[i] = value;
+	  if (++size > threshold) {
+		 rehash(keys.length << 1);
+	  }
+	  return null;
+   }
+   
+   /** Removes the mapping of the given key.
+    * 
+    * @param key long
+    * @return V the removed value or null if the key was not mapped
+    */
+   @SuppressWarnings("unchecked")
+   public V remove (long key) {
+	  int i = indexOf(key);
+	  if (i < 0) return null;
+	  V old = (V) values[i];
+	  
+	  // shift back following entries of the probe sequence
+	  int j = i;
+	  while (true) {
+		 j = (j + 1) & mask;
+		 if (values[j] == null) break;
+		 int home = slot(keys[j]);
+		 // move entry j into the gap if its home slot is not within (i, j]
+		 if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+			keys[i] = keys[j];
+			values[i] = values[j];
+			i = j;
+		 }
+	  }
+	  values[i] = null;
+	  size--;
+	  return old;
+   }
+   
+   private void rehash (int n) {
+	  long[] oldKeys = keys;
+	  Object[] oldValues = values;
+	  allocate(n);
+	  for (int i = 0; i < oldValues.length; i++) {
+		 if (oldValues[i] != null) {
+			int j = slot(oldKeys[i]);
+			while (values[j] != null) {
+			   j = (j + 1) & mask;
+			}
+			keys[j] = oldKeys[i];
+			values[j] = oldValues[i];
+		 }
+	  }
+   }
+   
+   /** Returns the number of mappings.
+    * 
+    * @return int
+    */
+   public int size () {
+	  return size;
+   }
+   
+   public boolean isEmpty () {
+	  return size == 0;
+   }
+   
+   /** Removes all mappings.
+    */
+   public void clear () {
+	  if (size > 0) {
+		 Arrays.fill(values, null);
+		 size = 0;
+	  }
+   }
+   
+   /** Returns a list of the values of this map in undefined order. The list
+    * is a copy and not backed by this map.
+    * 
+    * @return {@code List<V>}
+    */
+   @SuppressWarnings("unchecked")
+   public List<V> values () {
+	  List<V> list = new ArrayList<>(size);
+	  for (Object v : values) {
+		 if (v != null) {
+			list.add((V) v);
+		 }
+	  }
+	  return list;
+   }
+   
+   @Override
+   public String toString () {
+	  StringBuilder sb = new StringBuilder(size * 16 + 2).append('{');
+	  for (int i = 0; i < values.length; i++) {
+		 if (values[i] != null) {
+			if (sb.length() > 1) {
+			   sb.append(", ");
+			}
+			sb.append(keys[i]).append('=').append(values[i]);
+		 }
+	  }
+	  return sb.append('}').toString();
+   }
+}
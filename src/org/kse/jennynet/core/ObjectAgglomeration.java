@@ -21,6 +21,8 @@ Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
 
 package org.kse.jennynet.core;
 
+import java.io.IOException;
+
 import org.kse.jennynet.exception.SerialisationException;
 import org.kse.jennynet.exception.SerialisationOversizedException;
 import org.kse.jennynet.exception.SerialisationUnavailableException;
@@ -38,6 +40,7 @@ class ObjectAgglomeration {
    private SendPriority priority;
    private long objectID;
    private int serialMethod = -1;
+   private int codec;
    private int serialSize, bufferPos;
    private int numberOfParcels;
    private Object object;
@@ -124,6 +127,7 @@ class ObjectAgglomeration {
          
          // individualise receive-serialisations
          serialMethod = header.getSerialisationMethod();
+         codec = header.getCompression();
          serialisation = connection.obtainReceiveSerialisation(serialMethod);
          
          // check feasibility of serialisation buffer length 
@@ -138,7 +142,7 @@ class ObjectAgglomeration {
       
       // add parcel data to byte stream
       try {
-         System.arraycopy(parcel.getData(), 0, byteStore, bufferPos, parcel.getLength());
+         System.arraycopy(parcel.getData(), parcel.getOffset(), byteStore, bufferPos, parcel.getLength());
          bufferPos += parcel.getLength();
       } catch (Throwable e) {
          e.printStackTrace();
@@ -148,7 +152,16 @@ class ObjectAgglomeration {
 
       // if last parcel arrived, perform object de-serialisation
       if (nextParcelNr+1 == numberOfParcels) {
-         object = serialisation.deserialiseObject(byteStore);
+    	 byte[] data = byteStore;
+    	 if (codec != 0) {
+    		try {
+    		   data = connection.decompress(codec, serialisation, byteStore, 0, byteStore.length, 
+    				   connection.getParameters().getMaxSerialisationSize());
+    		} catch (IOException e) {
+    		   throw new SerialisationException(7, "decompression failed", e);
+    		}
+    	 }
+         object = serialisation.deserialiseObject(data);
       } else {
          nextParcelNr++;
       }
@@ -0,0 +1,162 @@
+/*  File: ObjectBatch.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.kse.jennynet.exception.BadTransmissionParcelException;
+import org.kse.jennynet.intfa.SendPriority;
+
+/** A batch of small object serialisations which is transmitted in a single
+ * parcel of the OBJECT channel. The object header of the parcel carries the
+ * serialisation method {@code JennyNet.BATCH_SERIAL_METHOD} and the parcel's
+ * object-ID is the ID of the first object in the batch.
+ * 
+ * <p>The data block of the parcel is a sequence of entries, one for each
+ * object in sending order, consisting of: object-ID offset to the parcel's
+ * object-ID (variable length), serialisation method and compression codec
+ * (byte), serialisation length (variable length) and serialisation data.
+ */
+class ObjectBatch {
+	
+   /** Maximum length of an entry besides the serialisation data. */
+   static final int ENTRY_OVERHEAD = 16;
+
+   private ConnectionImpl connection;
+   private long objectID;
+   private SendPriority priority;
+   private ByteBuffer data;
+   private int size;
+   
+   /** Creates a new batch which starts with the given object parcel.
+    * 
+    * @param con {@code ConnectionImpl} sending connection
+    * @param parcel {@code TransmissionParcel} single parcel of the first 
+    *        object
+    * @param capacity int maximum data length of the batch parcel
+    */
+   public ObjectBatch (ConnectionImpl con, TransmissionParcel parcel, int capacity) {
+	  connection = con;
+	  objectID = parcel.getObjectID();
+	  priority = parcel.getPriority();
+	  data = ByteBuffer.allocate(Math.max(capacity, parcel.getLength() + ENTRY_OVERHEAD));
+	  add(parcel);
+   }
+   
+   /** Adds the object of the given parcel to this batch if there is 
+    * sufficient space. The parcel must contain a complete object 
+    * serialisation with an object-ID above the batch's object-ID.
+    * 
+    * @param parcel {@code TransmissionParcel} single parcel of an object 
+    * @return boolean true = object added, false = no space
+    */
+   public boolean add (TransmissionParcel parcel) {
+	  if (data.remaining() < parcel.getLength() + ENTRY_OVERHEAD) return false;
+	  
+	  TransmissionParcel.putVarLong(data, parcel.getObjectID() - objectID);
+	  data.put((byte)parcel.getObjectHeader().getMethodCode());
+	  TransmissionParcel.putVarLong(data, parcel.getLength());
+	  data.put(parcel.getData(), parcel.getOffset(), parcel.getLength());
+	  size++;
+	  return true;
+   }
+   
+   /** Returns the number of objects in this batch.
+    * 
+    * @return int
+    */
+   public int size () {
+	  return size;
+   }
+   
+   /** Returns the transmission parcel which carries this batch.
+    * 
+    * @return {@code TransmissionParcel}
+    */
+   public TransmissionParcel toParcel () {
+	  TransmissionParcel parcel = new TransmissionParcel(connection, objectID, 0);
+	  parcel.setData(data.array(), 0, data.position());
+	  parcel.setPriority(priority);
+	  ObjectHeader header = parcel.getObjectHeader();
+	  header.setSerialisationMethod(JennyNet.BATCH_SERIAL_METHOD);
+	  header.setTransmissionSize(data.position());
+	  header.setNrOfParcels(1);
+	  header.setPriority(priority);
+	  return parcel;
+   }
+   
+   /** Whether the given parcel carries a batch of objects.
+    * 
+    * @param parcel {@code TransmissionParcel}
+    * @return boolean
+    */
+   public static boolean isBatch (TransmissionParcel parcel) {
+	  ObjectHeader header = parcel.getObjectHeader();
+	  return header != null && header.getSerialisationMethod() == JennyNet.BATCH_SERIAL_METHOD;
+   }
+   
+   /** Returns the object entries contained in the given batch parcel in 
+    * sending order.
+    * 
+    * @param parcel {@code TransmissionParcel} batch parcel
+    * @return {@code List<Entry>}
+    * @throws BadTransmissionParcelException if the batch is malformed
+    */
+   public static List<Entry> entries (TransmissionParcel parcel) {
+	  List<Entry> list = new ArrayList<>();
+	  ByteBuffer in = ByteBuffer.wrap(parcel.getData(), parcel.getOffset(), parcel.getLength());
+	  try {
+		 while (in.hasRemaining()) {
+			long id = parcel.getObjectID() + TransmissionParcel.getVarLong(in);
+			int code = in.get() & 0xFF;
+			long length = TransmissionParcel.getVarLong(in);
+			if (length > in.remaining()) 
+			   throw new BadTransmissionParcelException("bad batch entry length: " + length);
+			byte[] block = new byte[(int)length];
+			in.get(block);
+			list.add(new Entry(id, code & ObjectHeader.METHOD_MASK, 
+					code >>> ObjectHeader.CODEC_SHIFT, block));
+		 }
+	  } catch (RuntimeException e) {
+		 if (e instanceof BadTransmissionParcelException) throw e;
+		 throw new BadTransmissionParcelException("malformed object batch: " + e);
+	  }
+	  return list;
+   }
+   
+   /** An object contained in a batch. */
+   static class Entry {
+	  final long objectID;
+	  final int method;
+	  final int codec;
+	  final byte[] serialisation;
+	  
+	  Entry (long objectID, int method, int codec, byte[] serialisation) {
+		 this.objectID = objectID;
+		 this.method = method;
+		 this.codec = codec;
+		 this.serialisation = serialisation;
+	  }
+   }
+}
@@ -24,6 +24,7 @@ package org.kse.jennynet.core;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.kse.jennynet.intfa.SendPriority;
 
@@ -40,9 +41,21 @@ import org.kse.jennynet.intfa.SendPriority;
  */
 
 class ObjectHeader {
+   /** Serialisation length of the header without PATH information. */
+   public static final int FIXED_LENGTH = 24;
+   /** Mask of the serialisation method in the transmitted method byte. */
+   static final int METHOD_MASK = 0x0F;
+   /** Bit position of the compression codec in the transmitted method byte. */
+   static final int CODEC_SHIFT = 4;
+   /** Flag in the serialisation method of a FILE header: the file checksum
+    * is carried in a trailer parcel, its {@code ChecksumType} ordinal is 
+    * given in the lower bits. Without the flag the file checksum (ADLER32)
+    * is the CRC value of the header. */
+   static final int FILE_TRAILER = 0x08;
    
    private long objectID;
    private int method; 
+   private int codec; // compression codec of transmission data
    private long objectSize; // object serialisation size
    private long nrParcels;
    private SendPriority priority; // channel of transmission
@@ -103,7 +116,7 @@ class ObjectHeader {
    public void writeObject (DataOutputStream output) throws IOException {
       DataOutputStream out = output;
       
-      out.write(method);
+      out.write(getMethodCode());
       out.write(priority.ordinal());
       out.writeLong(objectSize);
       out.writeLong(nrParcels);
@@ -118,18 +131,120 @@ class ObjectHeader {
       }
    }
    
+   /** Writes this header to the given byte-buffer at its current position.
+    * The buffer must have sufficient space (see {@code getHeaderLength()}).
+    * 
+    * @param out {@code ByteBuffer}
+    */
+   public void writeObject (ByteBuffer out) {
+      out.put((byte)getMethodCode());
+      out.put((byte)priority.ordinal());
+      out.putLong(objectSize);
+      out.putLong(nrParcels);
+      out.putInt(crc32);
+
+      // write path string if available
+      if ( path != null) {
+         out.putShort((short)serialisedPath.length);
+         out.put(serialisedPath);
+      } else {
+         out.putShort((short)0);
+      }
+   }
+
    /** Returns the length required to write this header to serialisation.
     * 
     * @return int length in bytes
     */
    public int getHeaderLength () {
-      return 24 + (path != null ? serialisedPath.length : 0);
+      return FIXED_LENGTH + (path != null ? serialisedPath.length : 0);
+   }
+   
+   /** Whether this header describes an object which is transmitted in a 
+    * single parcel with the given data length and has no path and no CRC.
+    * In the COMPACT format such a header is reduced to the serialisation
+    * method. 
+    * 
+    * @param dataLength int data length of the parcel
+    * @return boolean
+    */
+   boolean isSingleParcel (int dataLength) {
+	  return nrParcels == 1 & objectSize == dataLength & crc32 == 0 & path == null;
+   }
+   
+   /** Writes this header in the COMPACT format to the given byte-buffer at
+    * its current position. The priority is not written, it is the priority
+    * of the parcel. The buffer must have sufficient space (see 
+    * {@code getCompactLength()}).
+    * 
+    * @param out {@code ByteBuffer}
+    * @param single boolean whether only the serialisation method is written
+    *        (see {@code isSingleParcel()})
+    */
+   void writeCompact (ByteBuffer out, boolean single) {
+      out.put((byte)getMethodCode());
+      if (!single) {
+         TransmissionParcel.putVarLong(out, objectSize);
+         TransmissionParcel.putVarLong(out, nrParcels);
+         TransmissionParcel.putVarLong(out, crc32 & 0xFFFFFFFFL);
+         if (path != null) {
+            TransmissionParcel.putVarLong(out, serialisedPath.length);
+            out.put(serialisedPath);
+         } else {
+            out.put((byte)0);
+         }
+      }
+   }
+   
+   /** Returns the maximum length required to write this header in the 
+    * COMPACT format.
+    * 
+    * @return int length in bytes
+    */
+   int getCompactLength () {
+      return 29 + (path != null ? serialisedPath.length : 0);
+   }
+   
+   /** Reads this header in the COMPACT format from the given byte-buffer at 
+    * its current position.
+    * 
+    * @param in {@code ByteBuffer}
+    * @param single boolean whether only the serialisation method is present
+    * @param priority {@code SendPriority} priority of the parcel
+    * @param dataLength int data length of the parcel
+    * @throws IOException
+    */
+   void readCompact (ByteBuffer in, boolean single, SendPriority priority, int dataLength) 
+		   throws IOException {
+      setMethodCode(in.get() & 0xFF);
+      this.priority = priority;
+      if (single) {
+    	 objectSize = dataLength;
+    	 nrParcels = 1;
+    	 crc32 = 0;
+    	 path = null;
+    	 return;
+      }
+      
+      objectSize = TransmissionParcel.getVarLong(in);
+      nrParcels = TransmissionParcel.getVarLong(in);
+      crc32 = (int)TransmissionParcel.getVarLong(in);
+      
+      // read path string if available
+      int len = (int)TransmissionParcel.getVarLong(in);
+      if (len > 0) {
+         serialisedPath = new byte[len];
+         in.get(serialisedPath);
+         path = new String(serialisedPath, JennyNet.getCodingCharset());
+      } else {
+         path = null;
+      }
    }
    
    public void readObject (DataInputStream input) throws IOException {
       DataInputStream in = input;
       
-      method = in.read();
+      setMethodCode(in.read());
       priority = SendPriority.valueOf(in.read());
       objectSize = in.readLong();
       nrParcels = in.readLong();
@@ -146,6 +261,24 @@ class ObjectHeader {
       }
    }
 
+   public void readObject (ByteBuffer in) throws IOException {
+      setMethodCode(in.get() & 0xFF);
+      priority = SendPriority.valueOf(in.get() & 0xFF);
+      objectSize = in.getLong();
+      nrParcels = in.getLong();
+      crc32 = in.getInt();
+      
+      // read path string if available
+      int len = in.getShort();
+      if ( len > 0) {
+         serialisedPath = new byte[len];
+         in.get(serialisedPath);
+         path = new String(serialisedPath, JennyNet.getCodingCharset());
+      } else {
+         path = null;
+      }
+   }
+
    /** Header data soundness. 
     * 
     * @return boolean true = header ok
@@ -174,6 +307,48 @@ class ObjectHeader {
       this.method = method;
    }
 
+   /** Returns the identifier of the compression codec which was applied
+    * to the transmission data or 0 for uncompressed data. 
+    * 
+    * @return int codec ID
+    */
+   public int getCompression () {
+	  return codec;
+   }
+   
+   /** Sets the identifier of the compression codec which was applied to 
+    * the transmission data. For objects the codec applies to the complete
+    * serialisation, for files to the data parcels.
+    * 
+    * @param codec int codec ID (0..15), 0 = uncompressed
+    * @throws IllegalArgumentException if codec is out of range
+    */
+   public void setCompression (int codec) {
+	  if (codec < 0 | codec > 15) 
+		  throw new IllegalArgumentException("illegal codec ID: " + codec);
+	  this.codec = codec;
+   }
+   
+   /** Returns the transmitted method byte, which combines the serialisation
+    * method (low 4 bits) and the compression codec (high 4 bits).
+    * 
+    * @return int method code (0..255)
+    */
+   int getMethodCode () {
+	  return method == JennyNet.BATCH_SERIAL_METHOD ? method : method | codec << CODEC_SHIFT;
+   }
+   
+   /** Sets serialisation method and compression codec from the given 
+    * transmitted method byte.
+    * 
+    * @param code int method code (0..255) or -1 
+    */
+   void setMethodCode (int code) {
+	  boolean plain = code < 0 | code == JennyNet.BATCH_SERIAL_METHOD;
+	  method = plain ? code : code & METHOD_MASK;
+	  codec = plain ? 0 : code >>> CODEC_SHIFT;
+   }
+
    /** Sets the PATH information for the transmission object. The length of
     * the path is limited to 0xFFFF. The path is required for file
     * transmissions only.
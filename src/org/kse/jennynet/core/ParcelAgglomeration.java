@@ -23,6 +23,7 @@ package org.kse.jennynet.core;
 
 import java.util.concurrent.LinkedBlockingQueue;
 
+import org.kse.jennynet.core.JennyNet.ThreadUsage;
 import org.kse.jennynet.intfa.Connection;
 
 /** This class defines a general purpose parcel collector. An instance 
@@ -42,15 +43,18 @@ abstract class ParcelAgglomeration extends LinkedBlockingQueue<TransmissionParce
    public ParcelAgglomeration (Connection connection) {
       super(connection.getParameters().getParcelQueueCapacity());
       
-      worker = new Thread(THREAD_BASENAME + connection.getLocalAddress().getPort()) {
+      boolean virtual = connection.getParameters().getDeliveryThreadUsage() == ThreadUsage.VIRTUAL;
+      worker = ProcessorThread.newThread(new Runnable() {
          @Override
          public void run() {
-            setPriority(connection.getParameters().getTransmitThreadPriority());
-             
             while (!terminate) {
                try {
                   TransmissionParcel parcel = take();
-                  processReceivedParcel(parcel);
+                  try {
+                     processReceivedParcel(parcel);
+                  } finally {
+                	 parcel.release();
+                  }
                   
                } catch (InterruptedException e) {
                   ParcelAgglomeration.this.interrupted(e);
@@ -59,8 +63,9 @@ abstract class ParcelAgglomeration extends LinkedBlockingQueue<TransmissionParce
                } 
             }
          }
-       };
-       worker.start();
+       }, THREAD_BASENAME + connection.getLocalAddress().getPort(), virtual);
+      worker.setPriority(connection.getParameters().getTransmitThreadPriority());
+      worker.start();
    }
 
    abstract protected void processReceivedParcel(TransmissionParcel parcel) throws Exception;
@@ -105,11 +110,17 @@ abstract class ParcelAgglomeration extends LinkedBlockingQueue<TransmissionParce
       worker.setPriority(threadPriority);
    }
 
-   /** Terminates the worker thread.
+   /** Terminates the worker thread. Parcels remaining in the queue are
+    * released.
     */
    public void terminate () {
       terminate = true;
       worker.interrupt();
+      
+      TransmissionParcel parcel;
+      while ((parcel = poll()) != null) {
+    	 parcel.release();
+      }
    }
 
    public boolean isTerminated () {return terminate;}
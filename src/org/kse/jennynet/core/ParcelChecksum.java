@@ -0,0 +1,216 @@
+/*  File: ParcelChecksum.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.zip.Adler32;
+import java.util.zip.Checksum;
+
+import org.kse.jennynet.core.JennyNet.ChecksumType;
+import org.kse.jennynet.util.Util;
+
+/** A 32-bit checksum of transmission parcels and file data based on the
+ * algorithm selected for a connection ({@code ChecksumType}). The default
+ * algorithm ADLER32 renders the same values as {@code util.CRC32}. The 
+ * algorithm CRC32C is based on java.util.zip.CRC32C, which is available in
+ * Java 9 and later; algorithm NONE performs no calculation and renders a 
+ * constant value of zero.
+ */
+final class ParcelChecksum implements Checksum {
+   
+   private static final MethodHandle CRC32C_CONSTRUCTOR;
+   private static final MethodHandle CRC32C_UPDATE_BUFFER;
+   
+   static {
+	  MethodHandle constructor = null, update = null;
+	  try {
+		 Class<?> cl = Class.forName("java.util.zip.CRC32C");
+		 MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		 constructor = lookup.findConstructor(cl, MethodType.methodType(void.class))
+				 .asType(MethodType.methodType(Checksum.class));
+		 update = lookup.findVirtual(cl, "update", MethodType.methodType(void.class, ByteBuffer.class))
+				 .asType(MethodType.methodType(void.class, Checksum.class, ByteBuffer.class));
+	  } catch (ReflectiveOperationException e) {
+		 // CRC32C is not available in this Java runtime
+	  }
+	  CRC32C_CONSTRUCTOR = constructor;
+	  CRC32C_UPDATE_BUFFER = update;
+   }
+   
+   private final ChecksumType type;
+   private final Checksum checksum;
+   
+   /** Creates a new checksum of type ADLER32.
+    */
+   public ParcelChecksum () {
+      this(ChecksumType.ADLER32);
+   }
+
+   /** Creates a new checksum of the given algorithm type.
+    * 
+    * @param type {@code ChecksumType}
+    * @throws IllegalArgumentException if the type is not supported by
+    *         this Java runtime
+    */
+   public ParcelChecksum (ChecksumType type) {
+	  Objects.requireNonNull(type);
+	  this.type = type;
+	  switch (type) {
+	  case CRC32C:
+		 if (CRC32C_CONSTRUCTOR == null)
+			throw new IllegalArgumentException("checksum type not supported: " + type);
+		 try {
+			checksum = (Checksum) CRC32C_CONSTRUCTOR.invokeExact();
+		 } catch (Throwable e) {
+			throw new IllegalStateException(e);
+		 }
+		 break;
+	  case NONE:
+		 checksum = null;
+		 break;
+	  default:
+		 checksum = new Adler32();
+	  }
+   }
+
+   /** Whether the given checksum type can be used in this Java runtime.
+    * 
+    * @param type {@code ChecksumType}
+    * @return boolean
+    */
+   public static boolean isSupported (ChecksumType type) {
+	  return type != ChecksumType.CRC32C || CRC32C_CONSTRUCTOR != null;
+   }
+   
+   /** Returns the algorithm type of this checksum.
+    * 
+    * @return {@code ChecksumType}
+    */
+   public ChecksumType getType () {return type;}
+   
+   /** Update one byte.
+    * @param b byte value
+    */
+   public void update (byte b) {
+	   if (checksum != null) {
+		   checksum.update(b & 0xFF);
+	   }
+   }
+
+   /** Update one integer value (4 bytes).
+    * @param b int (all bytes used)
+    */
+   @Override
+   public void update (int b) {
+	   if (checksum == null) return;
+       checksum.update((b >>> 24) & 0xFF);
+       checksum.update((b >>> 16) & 0xFF);
+       checksum.update((b >>> 8) & 0xFF);
+       checksum.update(b & 0xFF);
+   }
+
+   /** Update one long value (8 bytes).
+    * @param b long (all bytes used) 
+    */
+   public void update (long b) {
+       update((int)((b >>> 32) & 0xFFFFFFFF));
+       update((int)((b & 0xFFFFFFFF)));
+   }
+
+   /** Update an array of bytes.
+    * @param b byte[] data
+    */
+   public void update (byte[] b) {
+	   update(b, 0, b.length);
+   }
+   
+   @Override
+   public void update (byte[] b, int off, int len) {
+	   if (checksum != null) {
+		   checksum.update(b, off, len);
+	   }
+   }
+   
+   /** Update the remaining bytes of the given buffer. The buffer position
+    * is set to its limit.
+    * @param buffer {@code ByteBuffer}
+    */
+   public void update (ByteBuffer buffer) {
+	   if (checksum instanceof Adler32) {
+		   ((Adler32)checksum).update(buffer);
+	   } else if (checksum != null) {
+		   try {
+			   CRC32C_UPDATE_BUFFER.invokeExact(checksum, buffer);
+		   } catch (Throwable e) {
+			   throw new IllegalStateException(e);
+		   }
+	   } else {
+		   buffer.position(buffer.limit());
+	   }
+   }
+   
+   @Override
+   public long getValue () {
+	   return checksum == null ? 0 : checksum.getValue();
+   }
+
+   @Override
+   public void reset () {
+	   if (checksum != null) {
+		   checksum.reset();
+	   }
+   }
+
+//  ******** RETURNS *************
+
+   /** Returns a 4-byte array of the checksum value. 
+    * @return byte[4]
+    */
+   public byte[] getByteArray() {
+       long val = getValue();
+       return new byte[] {
+        (byte)((val>>24) & 0xff),
+        (byte)((val>>16) & 0xff),
+        (byte)((val>>8) & 0xff),
+        (byte)(val & 0xff) };
+   }
+
+   /**
+    * Returns the value of the checksum as an integer.
+    * @return int
+    */
+   public int getIntValue() {
+       return (int)getValue();
+   }
+
+   /** Returns a hexadecimal representation of the 4-byte checksum value.
+    * @return String 8 hexadecimal characters
+    */
+   @Override
+   public String toString() {
+       return Util.bytesToHex(getByteArray());
+   }
+}
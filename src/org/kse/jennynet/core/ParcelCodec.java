@@ -0,0 +1,369 @@
+/*  File: ParcelCodec.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+import org.kse.jennynet.core.JennyNet.ChecksumType;
+import org.kse.jennynet.core.JennyNet.HeaderFormat;
+import org.kse.jennynet.exception.BadTransmissionParcelException;
+import org.kse.jennynet.exception.StreamOutOfSyncException;
+
+/** Encoder and decoder of transmission parcels on the network streams of a
+ * connection. The codec holds a reusable buffer for the parcel header and 
+ * the object header and a reusable checksum instance, so that writing and 
+ * reading parcels allocates no memory except for the parcel and its data 
+ * block. Data blocks of decoded parcels are obtained from the receive 
+ * buffer pool of the connection. 
+ * <p>The codec writes and reads parcel headers in the header format of the 
+ * connection (STANDARD or COMPACT, see {@code TransmissionParcel}).
+ * <p>Instances are not thread-safe. A connection uses separate instances
+ * for sending and receiving.
+ */
+final class ParcelCodec {
+	
+   private ByteBuffer head = ByteBuffer.allocate(TransmissionParcel.HEADER_LENGTH 
+		   + ObjectHeader.FIXED_LENGTH + 256);
+   private final ParcelChecksum checksum;
+   private final boolean compact;
+   private final boolean withCrc;
+   
+   /** Creates a new codec with the default checksum type and header format.
+    */
+   public ParcelCodec () {
+	  this(JennyNet.DEFAULT_CHECKSUM_TYPE);
+   }
+   
+   /** Creates a new codec with the given checksum type for parcel CRC
+    * values and the STANDARD header format.
+    * 
+    * @param type {@code ChecksumType}
+    */
+   public ParcelCodec (ChecksumType type) {
+	  this(type, HeaderFormat.STANDARD);
+   }
+   
+   /** Creates a new codec with the given checksum type for parcel CRC
+    * values and the given header format. The COMPACT format omits the CRC 
+    * field if the checksum type is NONE.
+    * 
+    * @param type {@code ChecksumType}
+    * @param format {@code HeaderFormat}
+    */
+   public ParcelCodec (ChecksumType type, HeaderFormat format) {
+	  checksum = new ParcelChecksum(type);
+	  compact = format == HeaderFormat.COMPACT;
+	  withCrc = type != ChecksumType.NONE;
+   }
+   
+   /** Returns the serialisation length of the parcel which starts at the 
+    * current position of the given buffer or -1 if the buffer does not yet
+    * contain enough data to determine this value (see 
+    * {@code TransmissionParcel.frameLength()}).
+    * 
+    * @param buf {@code ByteBuffer} received data
+    * @return int parcel length or -1 if undetermined
+    * @throws IOException if the data is not a valid parcel header
+    */
+   public int frameLength (ByteBuffer buf) throws IOException {
+	  return compact ? TransmissionParcel.compactFrameLength(buf, withCrc) : 
+		  	 TransmissionParcel.frameLength(buf);
+   }
+   
+   /** Returns the header buffer with at least the given capacity, cleared
+    * for use.
+    * 
+    * @param capacity int required buffer capacity
+    * @return {@code ByteBuffer}
+    */
+   private ByteBuffer headBuffer (int capacity) {
+	  if (head.capacity() < capacity) {
+		 head = ByteBuffer.allocate(capacity);
+	  }
+	  head.clear();
+	  return head;
+   }
+   
+   /** Writes the given transmission parcel to the given output stream.
+    * 
+    * @param parcel {@code TransmissionParcel}
+    * @param out {@code OutputStream}
+    * @throws IOException
+    */
+   public void write (TransmissionParcel parcel, OutputStream out) throws IOException {
+	  write(parcel, out, null);
+   }
+   
+   /** Writes the given transmission parcel to the given output stream. 
+    * The data of a parcel which refers to a file region is transferred 
+    * from the file directly into the given channel stream, which has to be
+    * the stream underlying the output stream; the output stream is flushed
+    * before.
+    * 
+    * @param parcel {@code TransmissionParcel}
+    * @param out {@code OutputStream}
+    * @param channel {@code ChannelOutputStream} socket channel stream, 
+    *        may be null if there are no file region parcels 
+    * @throws IOException
+    */
+   public void write (TransmissionParcel parcel, OutputStream out, ChannelOutputStream channel) 
+		   throws IOException {
+      // ensure CRC is calculated for the checksum type of this codec
+      parcel.getCRC(checksum);
+      parcel.adjustRegionCRC(checksum);
+      
+      // prevent sending invalid parcels
+      if ( !parcel.verify() ) {
+         throw new IOException("invalid send parcel: object=" + parcel.getObjectID() 
+         		+ ", parcel=" + parcel.getParcelSequencelNr());
+      }
+      
+      // write header and data
+      ByteBuffer buf;
+      if (compact) {
+    	 buf = headBuffer(parcel.getCompactHeaderLength());
+    	 parcel.writeCompactHeader(buf, withCrc);
+      } else {
+    	 buf = headBuffer(parcel.getHeaderLength());
+    	 parcel.writeHeader(buf);
+      }
+      out.write(buf.array(), 0, buf.position());
+      if (parcel.isFileRegion()) {
+    	 if (channel == null) 
+    		throw new IOException("no socket channel for file region parcel");
+    	 out.flush();
+    	 channel.transferFrom(parcel.getFileSource().getChannel(), parcel.getFilePosition(), 
+    			 parcel.getLength());
+      } else if (parcel.getLength() > 0) {
+         out.write(parcel.getData(), parcel.getOffset(), parcel.getLength());
+      }
+   }
+   
+   /** Reads the next transmission parcel from the given input stream.
+    * 
+    * @param con {@code ConnectionImpl} receiving connection
+    * @param in {@code InputStream}
+    * @return {@code TransmissionParcel}
+    * @throws IOException
+    */
+   public TransmissionParcel read (ConnectionImpl con, InputStream in) throws IOException {
+	  if (compact) {
+		 return readCompact(con, in);
+	  }
+	  
+	  final int hlen = TransmissionParcel.HEADER_LENGTH;
+	  ByteBuffer buf = headBuffer(hlen);
+	  readFully(in, buf.array(), 0, hlen);
+	  if (buf.getInt(0) != TransmissionParcel.PARCEL_MARK) {
+         throw new StreamOutOfSyncException("bad parcel mark");
+	  }
+	  
+	  // read extended header information of parcel number 0 
+	  int length = hlen;
+	  int channel = buf.get(4);
+	  if (buf.getInt(14) == 0 & (channel == TransmissionChannel.OBJECT.ordinal() |
+	       channel == TransmissionChannel.FILE.ordinal()) ) {
+		 readFully(in, buf.array(), hlen, ObjectHeader.FIXED_LENGTH);
+		 length += ObjectHeader.FIXED_LENGTH;
+		 int pathLength = buf.getShort(hlen + 22);
+		 if (pathLength > 0) {
+			 if (length + pathLength > buf.capacity()) {
+				 ByteBuffer b = headBuffer(length + pathLength);
+				 b.put(buf.array(), 0, length);
+				 buf = b;
+			 }
+			 readFully(in, buf.array(), length, pathLength);
+			 length += pathLength;
+		 }
+	  }
+	  
+	  // decode header information
+	  buf.position(0).limit(length);
+	  TransmissionParcel parcel = new TransmissionParcel();
+	  int dataLength = parcel.readHeader(con, buf);
+	  if (dataLength < 0) {
+		 throw new BadTransmissionParcelException("bad data length: " + dataLength);
+	  }
+	  
+      // read the serial buffer (pool buffer) if it is supplied
+      if (dataLength > 0) {
+         byte[] data = con.obtainReceiveBuffer(dataLength);
+         parcel.setPooledData(data, dataLength);
+         readFully(in, data, 0, dataLength);
+      }
+      
+      // check CRC value of the parcel
+      if (buf.getInt(22) != parcel.getCRC(checksum)) {
+    	 parcel.release();
+         throw new BadTransmissionParcelException("bad CRC value");
+      }
+      return parcel;
+   }
+   
+   /** Reads the next transmission parcel from the given byte-buffer. The 
+    * buffer must contain the complete parcel serialisation starting at 
+    * its current position (see {@code frameLength()}). 
+    * The buffer position is advanced by the parcel's serialisation length.
+    * 
+    * @param con {@code ConnectionImpl} receiving connection
+    * @param in {@code ByteBuffer}
+    * @return {@code TransmissionParcel}
+    * @throws IOException
+    */
+   public TransmissionParcel read (ConnectionImpl con, ByteBuffer in) throws IOException {
+	  TransmissionParcel parcel = new TransmissionParcel();
+	  int crc, dataLength;
+	  if (compact) {
+		 crc = withCrc ? in.getInt(in.position() + 2) : 0;
+		 dataLength = parcel.readCompactHeader(con, in, withCrc);
+	  } else {
+         crc = in.getInt(in.position() + 22);
+         dataLength = parcel.readHeader(con, in);
+	  }
+
+      // read the serial buffer (pool buffer) if it is supplied
+      if (dataLength > 0) {
+         byte[] data = con.obtainReceiveBuffer(dataLength);
+         in.get(data, 0, dataLength);
+         parcel.setPooledData(data, dataLength);
+      }
+      
+      // check CRC value of the parcel
+      if (crc != parcel.getCRC(checksum)) {
+    	 parcel.release();
+         throw new BadTransmissionParcelException("bad CRC value");
+      }
+	  return parcel;
+   }
+   
+   /** Reads the next transmission parcel in COMPACT header format from the 
+    * given input stream.
+    * 
+    * @param con {@code ConnectionImpl} receiving connection
+    * @param in {@code InputStream}
+    * @return {@code TransmissionParcel}
+    * @throws IOException
+    */
+   private TransmissionParcel readCompact (ConnectionImpl con, InputStream in) throws IOException {
+	  // capacity for the longest encodings of all fields except path
+	  ByteBuffer buf = headBuffer(128);
+	  int hlen = withCrc ? 6 : 2;
+	  readFully(in, buf.array(), 0, hlen);
+	  if (buf.get(0) != TransmissionParcel.COMPACT_MARK) {
+         throw new StreamOutOfSyncException("bad parcel mark");
+	  }
+	  
+	  // read the variable length fields of the basic header
+	  int flags = buf.get(1) & 0xFF;
+	  boolean single = (flags & TransmissionParcel.COMPACT_SINGLE) != 0;
+	  int channel = flags & 3;
+	  buf.position(hlen);
+	  copyVarLong(in, buf);
+	  long sequence = single ? 0 : copyVarLong(in, buf);
+	  copyVarLong(in, buf);
+	  
+	  // read extended header information of parcel number 0 
+	  if (sequence == 0 & (channel == TransmissionChannel.OBJECT.ordinal() |
+	       channel == TransmissionChannel.FILE.ordinal()) ) {
+		 buf.put((byte)readByte(in));
+		 if (!single) {
+			copyVarLong(in, buf);
+			copyVarLong(in, buf);
+			copyVarLong(in, buf);
+			long pathLength = copyVarLong(in, buf);
+			if (pathLength > 0xFFFF) {
+			   throw new BadTransmissionParcelException("bad path length: " + pathLength);
+			}
+			if (pathLength > 0) {
+			   int length = buf.position();
+			   if (length + pathLength > buf.capacity()) {
+				  ByteBuffer b = headBuffer(length + (int)pathLength);
+				  b.put(buf.array(), 0, length);
+				  buf = b;
+			   }
+			   readFully(in, buf.array(), length, (int)pathLength);
+			   buf.position(length + (int)pathLength);
+			}
+		 }
+	  }
+	  
+	  // decode header information
+	  buf.flip();
+	  TransmissionParcel parcel = new TransmissionParcel();
+	  int dataLength = parcel.readCompactHeader(con, buf, withCrc);
+	  
+      // read the serial buffer (pool buffer) if it is supplied
+      if (dataLength > 0) {
+         byte[] data = con.obtainReceiveBuffer(dataLength);
+         parcel.setPooledData(data, dataLength);
+         readFully(in, data, 0, dataLength);
+      }
+      
+      // check CRC value of the parcel
+      int crc = withCrc ? buf.getInt(2) : 0;
+      if (crc != parcel.getCRC(checksum)) {
+    	 parcel.release();
+         throw new BadTransmissionParcelException("bad CRC value");
+      }
+      return parcel;
+   }
+   
+   /** Reads a variable length encoded value from the given input stream,
+    * appends its encoding to the given buffer and returns the value.
+    * 
+    * @param in {@code InputStream}
+    * @param buf {@code ByteBuffer} 
+    * @return long value
+    * @throws IOException
+    */
+   private static long copyVarLong (InputStream in, ByteBuffer buf) throws IOException {
+	  long value = 0;
+	  for (int shift = 0; shift < 64; shift += 7) {
+		 int b = readByte(in);
+		 buf.put((byte)b);
+		 value |= (long)(b & 0x7F) << shift;
+		 if (b < 0x80) return value;
+	  }
+      throw new BadTransmissionParcelException("bad variable length value");
+   }
+   
+   private static int readByte (InputStream in) throws IOException {
+	  int b = in.read();
+	  if (b < 0) 
+		 throw new EOFException();
+	  return b;
+   }
+   
+   private static void readFully (InputStream in, byte[] b, int off, int len) throws IOException {
+	  int n = 0;
+	  while (n < len) {
+		 int count = in.read(b, off + n, len - n);
+		 if (count < 0) 
+			throw new EOFException();
+		 n += count;
+	  }
+   }
+}
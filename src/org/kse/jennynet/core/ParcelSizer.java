@@ -0,0 +1,154 @@
+/*  File: ParcelSizer.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+
+package org.kse.jennynet.core;
+
+import org.kse.jennynet.intfa.SendPriority;
+
+/** Adaptive transmission parcel size of a connection. The size for a send
+ * priority is derived from the measured send rate of the connection, the
+ * load of its send queue and the presence of traffic of higher priority.
+ * With higher priority traffic present, parcels are sized to occupy the 
+ * link for {@code PREEMPT_TIME} milliseconds, so that priority parcels 
+ * are not held up behind large parcels. Otherwise a saturated send queue 
+ * receives the maximum size, which minimises header and system call 
+ * overhead, and an unsaturated queue parcels of {@code TARGET_TIME} 
+ * milliseconds of link time.
+ * 
+ * <p>The send rate is measured over intervals of at least 
+ * {@code RATE_INTERVAL} milliseconds in which the send queue stayed busy.
+ * A transmission speed set on the connection limits the measured rate. 
+ * Until a rate is known the maximum size is used.
+ * Instances are thread-safe.
+ */
+final class ParcelSizer {
+
+   /** Link time of a parcel in milliseconds when higher priority traffic 
+    * is present. */
+   static final int PREEMPT_TIME = 2;
+   /** Link time of a parcel in milliseconds on an unsaturated queue. */
+   static final int TARGET_TIME = 20;
+   /** Time in milliseconds for which traffic of a priority counts as 
+    * present after its last parcel was queued. */
+   static final int TRAFFIC_WINDOW = 500;
+   /** Minimum interval in milliseconds for a send rate measurement. */
+   static final int RATE_INTERVAL = 50;
+   
+   private final long[] trafficTime = new long[SendPriority.values().length];
+   private final int[] sizes = new int[SendPriority.values().length];
+   private long intervalStart;
+   private long intervalVolume;
+   /** measured send rate in bytes per millisecond, 0 = unknown */
+   private double rate;
+   
+   /** Notes that a parcel of the given priority has been queued for sending.
+    * 
+    * @param priority {@code SendPriority}
+    */
+   public void parcelQueued (SendPriority priority) {
+	  trafficTime[priority.ordinal()] = System.currentTimeMillis();
+   }
+   
+   /** Notes that a parcel of the given length has been written to the 
+    * socket. 
+    * 
+    * @param length int serialised parcel length
+    * @param busy boolean whether the send queue still holds data
+    */
+   public synchronized void parcelSent (int length, boolean busy) {
+	  long now = System.currentTimeMillis();
+	  if (intervalStart == 0) {
+		 intervalStart = now;
+	  }
+	  intervalVolume += length;
+	  
+	  // an interval ends when the queue runs idle or the minimum time elapsed;
+	  // only busy intervals render a send rate
+	  long time = now - intervalStart;
+	  if (!busy || time >= RATE_INTERVAL) {
+		 if (busy) {
+			double sample = (double)intervalVolume / time;
+			rate = rate == 0 ? sample : rate * 0.75 + sample * 0.25;
+		 }
+		 intervalStart = busy ? now : 0;
+		 intervalVolume = 0;
+	  }
+   }
+   
+   /** Returns the measured send rate in bytes per second, 0 if unknown.
+    * 
+    * @return long bytes per second
+    */
+   public synchronized long getSendRate () {
+	  return (long)(rate * 1000);
+   }
+   
+   /** Returns the parcel size for the given send priority.
+    * 
+    * @param priority {@code SendPriority}
+    * @param maxSize int maximum parcel size
+    * @param saturated boolean whether the send queue is saturated
+    * @param speed int transmission speed setting in bytes per second
+    *        (-1 = unlimited)
+    * @return int parcel size
+    */
+   public int getParcelSize (SendPriority priority, int maxSize, boolean saturated, int speed) {
+	  double r;
+	  synchronized (this) {
+		 r = rate;
+	  }
+	  if (speed > 0) {
+		 r = r == 0 ? speed / 1000.0 : Math.min(r, speed / 1000.0);
+	  }
+	  int size = maxSize;
+	  if (r > 0) {
+		 double target = higherTraffic(priority) ? r * PREEMPT_TIME : saturated ? maxSize : r * TARGET_TIME;
+		 size = (int)Math.min(target, maxSize) / JennyNet.KILO * JennyNet.KILO;
+		 size = Math.max(Math.min(JennyNet.MIN_ADAPTIVE_PARCEL_SIZE, maxSize), size);
+	  }
+	  sizes[priority.ordinal()] = size;
+	  return size;
+   }
+   
+   /** Returns the parcel sizes last rendered for the send priorities, 
+    * indexed by priority ordinal (0 = not yet rendered).
+    * 
+    * @return int[] 
+    */
+   public int[] getParcelSizes () {
+	  return sizes.clone();
+   }
+   
+   /** Whether traffic of higher priority than the given priority has been
+    * queued within the traffic window.
+    * 
+    * @param priority {@code SendPriority}
+    * @return boolean
+    */
+   private boolean higherTraffic (SendPriority priority) {
+	  long limit = System.currentTimeMillis() - TRAFFIC_WINDOW;
+	  for (int i = priority.ordinal() + 1; i < trafficTime.length; i++) {
+		 if (trafficTime[i] > limit) return true;
+	  }
+	  return false;
+   }
+}
@@ -0,0 +1,146 @@
+/*  File: ProcessorThread.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+
+package org.kse.jennynet.core;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Objects;
+
+/** A processing thread of a connection which runs either on a platform 
+ * thread or on a virtual thread. Virtual threads are available in Java 21 
+ * and later; they are created by reflection so that the library continues
+ * to run on older runtimes. Subclasses implement {@code run()}, the
+ * thread is started with {@code start()}.
+ * 
+ * <p>Virtual threads ignore thread priorities and are always daemon 
+ * threads. 
+ */
+abstract class ProcessorThread implements Runnable {
+
+   private static final MethodHandle OF_VIRTUAL;
+   private static final MethodHandle BUILDER_NAME;
+   private static final MethodHandle BUILDER_UNSTARTED;
+   
+   static {
+	  MethodHandle ofVirtual = null, name = null, unstarted = null;
+	  try {
+		 Class<?> builder = Class.forName("java.lang.Thread$Builder");
+		 Class<?> ofVirtualBuilder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+		 MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		 ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(ofVirtualBuilder))
+				 .asType(MethodType.methodType(Object.class));
+		 name = lookup.findVirtual(ofVirtualBuilder, "name", MethodType.methodType(ofVirtualBuilder, String.class))
+				 .asType(MethodType.methodType(Object.class, Object.class, String.class));
+		 unstarted = lookup.findVirtual(builder, "unstarted", MethodType.methodType(Thread.class, Runnable.class))
+				 .asType(MethodType.methodType(Thread.class, Object.class, Runnable.class));
+	  } catch (ReflectiveOperationException e) {
+		 // virtual threads are not available in this Java runtime
+	  }
+	  OF_VIRTUAL = ofVirtual;
+	  BUILDER_NAME = name;
+	  BUILDER_UNSTARTED = unstarted;
+   }
+   
+   private final Thread thread;
+   
+   /** Creates a new unstarted processor thread.
+    * 
+    * @param name String thread name
+    * @param virtual boolean whether to run on a virtual thread
+    * @throws IllegalStateException if virtual threads are not supported
+    */
+   protected ProcessorThread (String name, boolean virtual) {
+	  thread = newThread(this, name, virtual);
+   }
+   
+   /** Whether virtual threads can be used in this Java runtime.
+    * 
+    * @return boolean
+    */
+   public static boolean isVirtualSupported () {
+	  return OF_VIRTUAL != null;
+   }
+   
+   /** Creates a new unstarted thread for the given task. 
+    * 
+    * @param task {@code Runnable}
+    * @param name String thread name
+    * @param virtual boolean whether to create a virtual thread
+    * @return {@code Thread}
+    * @throws IllegalStateException if virtual threads are not supported
+    */
+   public static Thread newThread (Runnable task, String name, boolean virtual) {
+	  Objects.requireNonNull(task);
+	  Objects.requireNonNull(name);
+	  if (!virtual) {
+		 return new Thread(task, name);
+	  }
+	  if (OF_VIRTUAL == null)
+		 throw new IllegalStateException("virtual threads not supported");
+	  try {
+		 Object builder = BUILDER_NAME.invokeExact(OF_VIRTUAL.invokeExact(), name);
+		 return (Thread) BUILDER_UNSTARTED.invokeExact(builder, task);
+	  } catch (Throwable e) {
+		 throw new IllegalStateException("unable to create virtual thread", e);
+	  }
+   }
+   
+   /** Returns the thread which executes this processor.
+    * 
+    * @return {@code Thread}
+    */
+   public Thread getThread () {return thread;}
+   
+   public void start () {
+	  thread.start();
+   }
+   
+   public boolean isAlive () {
+	  return thread.isAlive();
+   }
+   
+   public void interrupt () {
+	  thread.interrupt();
+   }
+   
+   public void join () throws InterruptedException {
+	  thread.join();
+   }
+   
+   public void join (long millis) throws InterruptedException {
+	  thread.join(millis);
+   }
+   
+   public String getName () {
+	  return thread.getName();
+   }
+   
+   public void setPriority (int priority) {
+	  thread.setPriority(priority);
+   }
+   
+   public int getPriority () {
+	  return thread.getPriority();
+   }
+}
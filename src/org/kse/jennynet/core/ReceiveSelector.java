@@ -0,0 +1,404 @@
+/*  File: ReceiveSelector.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** The event-loop receive engine of the layer. A small, fixed set of 
+ * selector threads reads incoming data from non-blocking socket channels 
+ * for any number of connections, decodes parcels incrementally and hands 
+ * them over to the parcel digestion of their connections. This replaces the
+ * per-connection {@code ReceiveProcessor} thread when the SELECTOR receive
+ * engine is active (see {@code JennyNet.setReceiveEngine()}).
+ * 
+ * <p>A connection which cannot take more received parcels (its output queue
+ * or file receptor queue is full) is suspended from reading while the loop
+ * continues to serve the other connections. The same applies when the 
+ * output queue fills up while the objects of a batch parcel are unpacked;
+ * the remaining objects are delivered when the connection is resumed. Suspended connections are
+ * resumed immediately when the output queue signals space and controlled
+ * periodically for the file receptor queue.
+ */
+final class ReceiveSelector {
+   private static final int RESUME_PERIOD = 20;
+   private static final int MIN_BUFFER_SIZE = 16 * JennyNet.KILO;
+   
+   private static ReceiveSelector[] loops;
+
+   private final Selector selector;
+   private final Thread thread;
+   private final Queue<Registration> registerQueue = new ConcurrentLinkedQueue<>();
+   private final Queue<Registration> cancelQueue = new ConcurrentLinkedQueue<>();
+   private final List<Registration> suspended = new ArrayList<>();
+   private final AtomicInteger load = new AtomicInteger();
+   
+   /** Registers the given connection and its socket channel for reception
+    * at the least loaded selector thread. The channel is put into 
+    * non-blocking mode. Selector threads are created on first demand.
+    * 
+    * @param con {@code ConnectionImpl}
+    * @param channel {@code SocketChannel} connected channel of the connection
+    * @return {@code Registration}
+    * @throws IOException
+    */
+   static synchronized Registration register (ConnectionImpl con, SocketChannel channel) throws IOException {
+	  Objects.requireNonNull(con);
+	  Objects.requireNonNull(channel);
+	  if (loops == null) {
+		 loops = new ReceiveSelector[JennyNet.getSelectorThreads()];
+		 for (int i = 0; i < loops.length; i++) {
+			loops[i] = new ReceiveSelector(i);
+		 }
+	  }
+	  
+	  // select the least loaded loop
+	  ReceiveSelector loop = loops[0];
+	  for (ReceiveSelector rs : loops) {
+		 if (rs.load.get() < loop.load.get()) {
+			loop = rs;
+		 }
+	  }
+	  
+	  channel.configureBlocking(false);
+	  Registration reg = loop.new Registration(con, channel);
+	  loop.load.incrementAndGet();
+	  loop.registerQueue.add(reg);
+	  loop.selector.wakeup();
+	  return reg;
+   }
+   
+   /** Whether the calling thread is a selector thread of this engine.
+    * 
+    * @return boolean
+    */
+   static boolean isSelectorThread () {
+	  return Thread.currentThread() instanceof LoopThread;
+   }
+   
+   /** Returns the number of connections currently served by the engine.
+    * 
+    * @return int
+    */
+   static synchronized int getNrOfRegistrations () {
+	  int sum = 0;
+	  if (loops != null) {
+		 for (ReceiveSelector rs : loops) {
+			sum += rs.load.get();
+		 }
+	  }
+	  return sum;
+   }
+   
+   private ReceiveSelector (int index) throws IOException {
+	  selector = Selector.open();
+	  thread = new LoopThread("JennyNet Receive Selector " + index);
+	  thread.setPriority(JennyNet.DEFAULT_TRANSMIT_PRIORITY);
+	  thread.setDaemon(true);
+	  thread.start();
+   }
+   
+   private void registerPending () throws IOException {
+	  Registration reg;
+	  while ((reg = registerQueue.poll()) != null) {
+		 if (reg.cancelled) {
+			load.decrementAndGet();
+			continue;
+		 }
+		 reg.key = reg.channel.register(selector, SelectionKey.OP_READ, reg);
+	  }
+   }
+   
+   private void cancelPending () {
+	  Registration reg;
+	  while ((reg = cancelQueue.poll()) != null) {
+		 if (reg.key != null) {
+			reg.key.cancel();
+			suspended.remove(reg);
+			reg.key = null;
+			load.decrementAndGet();
+		 }
+	  }
+   }
+   
+   /** Reads available data from the channel of the given registration and
+    * digests the contained complete parcels.
+    *  
+    * @param reg {@code Registration}
+    */
+   private void readChannel (Registration reg) {
+	  int n;
+	  try {
+		 n = reg.channel.read(reg.buffer);
+	  } catch (IOException e) {
+		 SocketException se = new SocketException(e.toString());
+		 se.initCause(e);
+		 fail(reg, se);
+		 return;
+	  }
+	  
+	  if (n < 0) {
+		 fail(reg, new EOFException("end of socket stream"));
+		 return;
+	  }
+	  decode(reg);
+   }
+   
+   /** Decodes and digests all complete parcels available in the buffer of 
+    * the given registration. Decoding stops when the connection is 
+    * suspended (a parcel or a batch remainder is held back), the buffer 
+    * does not contain a complete parcel or the reception has been 
+    * terminated.
+    * 
+    * @param reg {@code Registration}
+    */
+   private void decode (Registration reg) {
+	  ByteBuffer buf = reg.buffer;
+	  buf.flip();
+	  
+	  while (reg.heldParcel == null && !reg.con.hasBatchRemainder() && !reg.cancelled) {
+		 try {
+			int frame = reg.con.getReceiveCodec().frameLength(buf);
+			if (frame == -1 || buf.remaining() < frame) {
+			   // enlarge buffer for a parcel which exceeds its capacity
+			   if (frame > buf.capacity()) {
+				  ByteBuffer nb = ByteBuffer.allocate(frame);
+				  nb.put(buf);
+				  reg.buffer = nb;
+				  return;
+			   }
+			   break;
+			}
+			
+			// decode next parcel (consumes the frame under all conditions)
+			int end = buf.position() + frame;
+			TransmissionParcel parcel;
+			try {
+			   parcel = reg.con.getReceiveCodec().read(reg.con, buf);
+			} finally {
+			   buf.position(end);
+			}
+			reg.con.parcelReceived(parcel);
+			
+			// hold back the parcel if the connection cannot take it
+			// (a space signal from here on resumes the connection)
+			reg.spaceSignalled = false;
+			if (reg.con.isReceptionBlocked(parcel)) {
+			   reg.heldParcel = parcel;
+			   suspend(reg);
+			} else {
+			   reg.con.digestReceivedParcel(parcel);
+			   
+			   // the output queue filled up while unpacking a batch
+			   if (reg.con.hasBatchRemainder()) {
+				  suspend(reg);
+			   }
+			}
+			
+		 } catch (Throwable e) {
+			if (reg.con.receiveFailure(e)) {
+			   reg.cancel();
+			   break;
+			}
+		 }
+	  }
+	  buf.compact();
+   }
+   
+   private void suspend (Registration reg) {
+	  if (reg.key != null && reg.key.isValid()) {
+		 reg.key.interestOps(0);
+	  }
+	  if (!suspended.contains(reg)) {
+		 suspended.add(reg);
+	  }
+   }
+
+   /** Attempts to digest held back parcels of suspended connections and
+    * resumes reading for connections which are no longer blocked.
+    */
+   private void resumeSuspended () {
+	  for (Registration reg : suspended.toArray(new Registration[suspended.size()])) {
+		 if (reg.cancelled) continue;
+		 
+		 // deliver the remainder of an unpacked batch
+		 boolean batch = reg.con.hasBatchRemainder();
+		 if (batch && !reg.con.resumeBatchDelivery()) continue;
+		 
+		 TransmissionParcel parcel = reg.heldParcel;
+		 if (parcel != null) {
+			if (reg.con.isReceptionBlocked(parcel)) continue;
+			
+			reg.heldParcel = null;
+			try {
+			   reg.con.digestReceivedParcel(parcel);
+			} catch (Throwable e) {
+			   if (reg.con.receiveFailure(e)) {
+				  reg.cancel();
+				  continue;
+			   }
+			}
+		 }
+		 
+		 // digest remaining buffered data
+		 if (batch || parcel != null) {
+			if (reg.spaceSignalled) {
+			   reg.resumesSignalled++;
+			} else {
+			   reg.resumesPolled++;
+			}
+			decode(reg);
+		 }
+		 
+		 // resume reading if not blocked
+		 if (reg.heldParcel == null && !reg.con.hasBatchRemainder()) {
+			suspended.remove(reg);
+			if (reg.key != null && reg.key.isValid()) {
+			   reg.key.interestOps(SelectionKey.OP_READ);
+			}
+		 }
+	  }
+   }
+   
+   private void fail (Registration reg, Throwable e) {
+	  reg.cancel();
+	  if (reg.channel.isOpen()) {
+		 reg.con.receiveFailure(e);
+	  }
+   }
+   
+// ----------- INNER CLASSES  ------------   
+   
+   /** The thread class of selector loops.
+    */
+   private class LoopThread extends Thread {
+	  
+	  LoopThread (String name) {
+		 super(name);
+	  }
+
+	  @Override
+	  public void run () {
+		 while (true) {
+			try {
+			   selector.select(suspended.isEmpty() ? 0 : RESUME_PERIOD);
+			   cancelPending();
+			   registerPending();
+			   
+			   // read from channels with available data
+			   Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+			   while (it.hasNext()) {
+				  SelectionKey key = it.next();
+				  it.remove();
+				  if (key.isValid() && key.isReadable()) {
+					 readChannel((Registration)key.attachment());
+				  }
+			   }
+			   
+			   // control suspended connections
+			   if (!suspended.isEmpty()) {
+				  resumeSuspended();
+			   }
+			   cancelPending();
+			   
+			} catch (ClosedSelectorException e) {
+			   break;
+			} catch (Throwable e) {
+			   e.printStackTrace();
+			}
+		 }
+	  }
+   }
+   
+   /** The registration of a connection for reception in a selector loop.
+    * Holds the reception state of the connection.
+    */
+   final class Registration {
+	  private final ConnectionImpl con;
+	  private final SocketChannel channel;
+	  private ByteBuffer buffer;
+	  private TransmissionParcel heldParcel;
+	  private SelectionKey key;
+	  private volatile boolean cancelled;
+	  /** whether space was signalled since the reception was blocked */
+	  private volatile boolean spaceSignalled;
+	  private volatile long resumesSignalled;
+	  private volatile long resumesPolled;
+	  
+	  private Registration (ConnectionImpl con, SocketChannel channel) {
+		 this.con = con;
+		 this.channel = channel;
+		 int size = Math.max(con.getParameters().getTransmissionParcelSize() * 2, MIN_BUFFER_SIZE);
+		 buffer = ByteBuffer.allocate(size);
+	  }
+	  
+	  /** Terminates reception for this registration. The connection's 
+	   * channel is removed from the selector. 
+	   */
+	  public void cancel () {
+		 if (cancelled) return;
+		 cancelled = true;
+		 cancelQueue.add(this);
+		 selector.wakeup();
+	  }
+	  
+	  /** Wakes the selector loop of this registration to control without
+	   * delay whether a suspended reception can be resumed. This is called
+	   * when the obstacle of reception is removed.
+	   */
+	  public void resume () {
+		 if (!cancelled) {
+			spaceSignalled = true;
+			selector.wakeup();
+		 }
+	  }
+	  
+	  public boolean isCancelled () {return cancelled;}
+	  
+	  /** Returns the number of times held back reception was continued 
+	   * after a call to {@code resume()}.
+	   * 
+	   * @return long
+	   */
+	  public long getResumesSignalled () {return resumesSignalled;}
+	  
+	  /** Returns the number of times held back reception was continued 
+	   * by the periodic control of suspended connections.
+	   * 
+	   * @return long
+	   */
+	  public long getResumesPolled () {return resumesPolled;}
+   }
+}
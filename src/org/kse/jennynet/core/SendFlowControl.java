@@ -0,0 +1,167 @@
+/*  File: SendFlowControl.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+
+package org.kse.jennynet.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Credit based flow control for the send-load of a connection. The 
+ * send-load is the data volume of parcels which have been queued for 
+ * sending but not yet written to the network socket. Producers acquire 
+ * credit for a parcel before they queue it and the sending engine releases
+ * the credit after the parcel has been written. Credit is available while 
+ * the send-load is below the limit and the control is open.
+ * 
+ * <p>The control is lock-free. Producers which find no credit available 
+ * are parked and woken up by the release which makes credit available,
+ * so any number of producers can operate on a connection concurrently.
+ * As all waiting producers are woken, the limit can be exceeded by at 
+ * most one parcel per producer. The time producers spend waiting for 
+ * credit is recorded (see {@code WaiterList}).
+ */
+final class SendFlowControl {
+
+   private final AtomicLong load = new AtomicLong();
+   private final WaiterList waiters = new WaiterList();
+   private volatile long limit = Long.MAX_VALUE;
+   private volatile boolean open = true;
+   
+   /** Sets the send-load limit.
+    * 
+    * @param limit long bytes
+    * @throws IllegalArgumentException if argument is negative
+    */
+   public void setLimit (long limit) {
+	  if (limit < 0)
+		 throw new IllegalArgumentException("illegal negative limit");
+	  this.limit = limit;
+	  signalWaiters();
+   }
+   
+   public long getLimit () {return limit;}
+   
+   /** Returns the current send-load.
+    * 
+    * @return long bytes
+    */
+   public long getLoad () {return load.get();}
+   
+   /** Sets the send-load to zero.
+    */
+   public void reset () {
+	  load.set(0);
+	  signalWaiters();
+   }
+   
+   /** Sets whether credit can be granted, independent of the send-load.
+    * Closing the control blocks all producers. 
+    * 
+    * @param open boolean true = open, false = closed
+    */
+   public void setOpen (boolean open) {
+	  this.open = open;
+	  if (open) {
+		 signalWaiters();
+	  }
+   }
+   
+   public boolean isOpen () {return open;}
+   
+   /** Whether credit is currently available.
+    * 
+    * @return boolean
+    */
+   public boolean isAvailable () {
+	  return open && load.get() < limit;
+   }
+   
+   /** Acquires credit for the given data volume. This blocks until credit
+    * is available.
+    * 
+    * @param bytes long data volume
+    * @throws InterruptedException if the calling thread is interrupted 
+    *         while waiting
+    * @throws IllegalArgumentException if argument is negative
+    */
+   public void acquire (long bytes) throws InterruptedException {
+	  if (bytes < 0)
+		 throw new IllegalArgumentException("illegal negative data size");
+	  await();
+	  load.addAndGet(bytes);
+   }
+   
+   /** Blocks until credit is available without acquiring it. 
+    * 
+    * @throws InterruptedException if the calling thread is interrupted 
+    *         while waiting
+    */
+   public void await () throws InterruptedException {
+	  if (isAvailable()) return;
+	  waiters.await(this::isAvailable, this);
+   }
+   
+   /** Adds the given data volume to the send-load without waiting for 
+    * credit.
+    * 
+    * @param bytes long data volume
+    * @throws IllegalArgumentException if argument is negative
+    */
+   public void charge (long bytes) {
+	  if (bytes < 0)
+		 throw new IllegalArgumentException("illegal negative data size");
+	  load.addAndGet(bytes);
+   }
+   
+   /** Releases credit for the given data volume, which has been sent or
+    * dropped. Waiting producers are woken if credit becomes available.
+    * 
+    * @param bytes long data volume
+    * @throws IllegalArgumentException if argument is negative
+    */
+   public void release (long bytes) {
+	  if (bytes < 0)
+		 throw new IllegalArgumentException("illegal negative data size");
+	  if (load.addAndGet(-bytes) < limit) {
+		 signalWaiters();
+	  }
+   }
+   
+   /** Returns the total time producers have been waiting for credit.
+    * 
+    * @return long milliseconds
+    */
+   public long getWaitTime () {
+	  return waiters.getWaitTime();
+   }
+   
+   /** Returns the number of times producers had to wait for credit.
+    * 
+    * @return long number of waits
+    */
+   public long getWaitCount () {
+	  return waiters.getWaitCount();
+   }
+   
+   private void signalWaiters () {
+	  waiters.signal();
+   }
+}
@@ -28,19 +28,20 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketAddress;
 import java.net.SocketException;
+import java.nio.channels.ClosedChannelException;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
+import org.kse.jennynet.core.JennyNet.ChecksumType;
 import org.kse.jennynet.intfa.Connection;
 import org.kse.jennynet.intfa.ConnectionListener;
 import org.kse.jennynet.intfa.ConnectionParameters;
@@ -50,6 +51,8 @@ import org.kse.jennynet.intfa.ServerConnection;
 import org.kse.jennynet.intfa.ServerListener;
 import org.kse.jennynet.intfa.ServerSignalMethod;
 import org.kse.jennynet.util.ArraySet;
+import org.kse.jennynet.util.SchedulableTimerTask;
+import org.kse.jennynet.util.WheelTimer;
 
 /**
  *  <p>A {@code Server} object can be allocated, either bound to a local 
@@ -86,7 +89,6 @@ public class Server implements IServer {
    protected static boolean debug = JennyNet.debug;
    
    private static final int SOCKET_BACKLOG = 10;
-   private static Timer timer = new Timer();
    private static int nextTransActionNumber = 1;
    
    private static synchronized int nextTransactionNumber () {
@@ -151,7 +153,7 @@ public class Server implements IServer {
    }
    
    private void init (SocketAddress address) throws IOException {
-      serverSocket = new ServerSocket();
+      serverSocket = JennyNet.createServerSocket();
       serverSocket.setReuseAddress(true);
       
       if (address != null) {
@@ -335,10 +337,16 @@ public class Server implements IServer {
     	  object = new JennyNetByteBuffer((byte[])object);
       }
       
+      // the object is serialised once for all our connections
+      BroadcastObject broadcast = new BroadcastObject(object);
       for (Connection con : getConnections()) {
          try { 
-            if (con.isConnected() && (id == null || !id.equals(con.getUUID()))) { 
-               con.sendObject(object, priority); 
+            if (con.isConnected() && (id == null || !id.equals(con.getUUID()))) {
+               if (con instanceof ConnectionImpl) {
+            	   ((ConnectionImpl)con).sendObject(broadcast, priority);
+               } else {
+            	   con.sendObject(object, priority);
+               }
             }
          } catch (Throwable e) {
             if (collector == null) {
@@ -365,10 +373,30 @@ public class Server implements IServer {
       TransmissionErrorCollector collector = null;
       int transActionId = nextTransactionNumber();
       
+      // the file is read once for all our connections (shared source)
+      // errors on the file are reported per connection as by 'sendFile()' 
+      BroadcastFileSource broadcast = null;
+      Set<ChecksumType> types = EnumSet.noneOf(ChecksumType.class);
+      for (Connection con : getConnections()) {
+    	  if (con instanceof ConnectionImpl) {
+    		  types.add(((ConnectionImpl)con).getChecksumType());
+    	  }
+      }
+      if (file != null && !types.isEmpty()) {
+    	  try {
+    		  broadcast = new BroadcastFileSource(file, types);
+    	  } catch (IOException e) {
+    	  }
+      }
+      
       for (Connection con : getConnections()) {
          try { 
             if (con.isConnected() && (id == null || !id.equals(con.getUUID()))) { 
-               con.sendFile(file, pathInfo, priority, transActionId); 
+               if (broadcast != null && con instanceof ConnectionImpl) {
+            	   ((ConnectionImpl)con).sendFile(broadcast, pathInfo, priority, transActionId);
+               } else {
+            	   con.sendFile(file, pathInfo, priority, transActionId);
+               }
             }
          } catch (Throwable e) {
             if (collector == null) {
@@ -378,6 +406,11 @@ public class Server implements IServer {
          }
       }
       
+      // the file is closed when the last send-order has released the source
+      if (broadcast != null) {
+    	  broadcast.release();
+      }
+      
       // report any occurred error conditions
       if (collector != null) {
          collector.reportErrors();
@@ -664,12 +697,12 @@ public class Server implements IServer {
       return serverSocket;
    }
 
-   /** Returns the {@code Timer} instance used by this class.
+   /** Returns the {@code WheelTimer} instance used by this class.
     *    
-    * @return Timer
+    * @return {@code WheelTimer}
     */
-   protected static Timer getTimer () {
-      return timer;
+   protected static WheelTimer getTimer () {
+      return JennyNet.getTimerService();
    }
    
 //   /** Sets the {@code Timer} instance for this class.
@@ -745,8 +778,7 @@ public class Server implements IServer {
 
             // verify network layer
             int time = getParameters().getConfirmTimeout() / 2;
-            boolean verified = JennyNet.verifyNetworkLayer(0, socket, timer, time);
-            if (!verified) continue;
+            if (!JennyNet.verifyNetworkLayer(0, socket, getTimer(), time)) continue;
             
             // once nature is verified, create the server connection (unstarted)
             ServerConnectionImpl connection = new ServerConnectionImpl(Server.this, socket);
@@ -756,8 +788,8 @@ public class Server implements IServer {
             
             // create and schedule timer task to shutdown socket in case
             // application doesn't decide on acceptance
-            timer.schedule(new SocketShutdownTask(connection), 
-                  getParameters().getConfirmTimeout());
+            new SocketShutdownTask(connection, getParameters().getConfirmTimeout())
+                  .schedule(getTimer());
 
             // signal connection event to user (various methods)
             if (signalMethod == ServerSignalMethod.LISTENER) {
@@ -771,7 +803,7 @@ public class Server implements IServer {
                }
             }
          
-         } catch (SocketException e) {
+         } catch (SocketException | ClosedChannelException e) {
             if (!terminate) {
                e.printStackTrace();
             }
@@ -827,15 +859,16 @@ public class Server implements IServer {
    } // ClientListener
 
    /**
-    * TimerTask (scheduled at the server's Timer instance) for controlling
+    * TimerTask (scheduled at the server's timer instance) for controlling
     * expiration of the socket open time for an incoming connection request.
     * The task closes the socket to the client if and only if the 
     * associated connection has not been started by the application.  
     */
-   private class SocketShutdownTask extends TimerTask {
+   private class SocketShutdownTask extends SchedulableTimerTask {
       private ServerConnection connection;
       
-      public SocketShutdownTask (ServerConnection con) {
+      public SocketShutdownTask (ServerConnection con, int delay) {
+    	 super(delay, "SocketShutdownTask");
     	 Objects.requireNonNull(con);
          connection = con;
       }
@@ -21,6 +21,8 @@ Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
 
 package org.kse.jennynet.core;
 
+import org.kse.jennynet.core.JennyNet.ChecksumType;
+import org.kse.jennynet.core.JennyNet.HeaderFormat;
 import org.kse.jennynet.intfa.SendPriority;
 import org.kse.jennynet.util.Util;
 
@@ -54,9 +56,11 @@ class Signal extends TransmissionParcel {
       int serialNr = getParcelSequencelNr();
       this.sigType = SignalType.valueOf(serialNr & 0xFFFF);
       byte[] data = getData();
-      this.text = data.length == 0 ? null : 
-    	          data.length == 4 ? null : new String(data, 4, data.length-4, JennyNet.getCodingCharset());
-      this.info = data.length == 0 ? 0 : Util.readInt(data, 0); 
+      int offset = getOffset();
+      int length = getLength();
+      this.text = length == 0 ? null : 
+    	          length == 4 ? null : new String(data, offset + 4, length-4, JennyNet.getCodingCharset());
+      this.info = length == 0 ? 0 : Util.readInt(data, offset); 
    }
 
    public SignalType getSigType() {
@@ -71,6 +75,24 @@ class Signal extends TransmissionParcel {
       return text;
    }
    
+   /** Returns the checksum type of a FORMAT signal.
+    * 
+    * @return {@code ChecksumType} or null if the value is undefined
+    */
+   public ChecksumType getFormatChecksumType () {
+	  int v = info & 0xFF;
+	  return v < ChecksumType.values().length ? ChecksumType.values()[v] : null;
+   }
+
+   /** Returns the header format of a FORMAT signal.
+    * 
+    * @return {@code HeaderFormat} or null if the value is undefined
+    */
+   public HeaderFormat getFormatHeaderFormat () {
+	  int v = info >> 8 & 0xFF;
+	  return v < HeaderFormat.values().length ? HeaderFormat.values()[v] : null;
+   }
+   
    /** Creates a new BREAK transmission signal for a transmission object
     * and a reason.
     *   
@@ -138,6 +160,33 @@ class Signal extends TransmissionParcel {
 	  return new Signal(con, SignalType.SHUTDOWN, 0, info, msg);
    }
 
+   /** Creates a new CAPABILITIES signal which announces the given 
+    * capabilities of the local layer to remote.
+    *  
+    * @param con {@code ConnectionImpl}
+    * @param capabilities int bit set (see {@code JennyNet.localCapabilities()})
+    * @return {@code Signal}
+    */
+   public static Signal newCapabilitiesSignal (ConnectionImpl con, int capabilities) {
+	  Signal s = new Signal(con, SignalType.CAPABILITIES, 0, capabilities, null);
+	  s.setPriority(SendPriority.TOP);
+      return s;
+   }
+   
+   /** Creates a new FORMAT signal which announces that all parcels following
+    * the signal are written in the given checksum type and header format.
+    *  
+    * @param con {@code ConnectionImpl}
+    * @param type {@code ChecksumType} parcel checksum type
+    * @param format {@code HeaderFormat} parcel header format
+    * @return {@code Signal}
+    */
+   public static Signal newFormatSignal (ConnectionImpl con, ChecksumType type, HeaderFormat format) {
+	  Signal s = new Signal(con, SignalType.FORMAT, 0, type.ordinal() | format.ordinal() << 8, null);
+	  s.setPriority(SendPriority.TOP);
+      return s;
+   }
+
 
    
 }
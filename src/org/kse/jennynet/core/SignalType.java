@@ -36,7 +36,9 @@ enum SignalType {
    SHUTDOWN,
    CLOSED,
    PING,
-   ECHO
+   ECHO,
+   CAPABILITIES,
+   FORMAT
 ;
 
    public static SignalType valueOf (int ordinal) {
@@ -53,6 +55,8 @@ enum SignalType {
       case 8 : sp = SignalType.CLOSED; break;
       case 9 : sp = SignalType.PING; break;
       case 10: sp = SignalType.ECHO; break;
+      case 11: sp = SignalType.CAPABILITIES; break;
+      case 12: sp = SignalType.FORMAT; break;
       default: throw new IllegalArgumentException("undefined ordinal value: " + ordinal);
       }
       return sp;
@@ -0,0 +1,283 @@
+/*  File: TestUnit_Broadcast_File.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.kse.jennynet.core.JennyNet.ChecksumType;
+import org.kse.jennynet.intfa.Connection;
+import org.kse.jennynet.intfa.SendPriority;
+import org.kse.jennynet.intfa.TransmissionEvent;
+import org.kse.jennynet.intfa.TransmissionEventType;
+import org.kse.jennynet.test.StandardServer;
+import org.kse.jennynet.util.Util;
+
+/** Tests the shared source of a file which is broadcast by a server to its
+ * connections. The file data is read once into a bounded window for all 
+ * send-orders which keep pace, while slow readers re-read from the file.
+ */
+public class TestUnit_Broadcast_File {
+
+	private static final int NR_CLIENTS = 8;
+	
+	/** A reader of the broadcast source with its own cursor. */
+	private static class Reader {
+		final byte[] buffer;
+		final byte[] result;
+		long position;
+		
+		Reader (int parcelSize, int fileLength) {
+			buffer = new byte[parcelSize];
+			result = new byte[fileLength];
+		}
+		
+		boolean next (BroadcastFileSource source) throws IOException {
+			int n = source.read(buffer, 0, buffer.length, position);
+			if (n == -1) return false;
+			System.arraycopy(buffer, 0, result, (int) position, n);
+			position += n;
+			return true;
+		}
+	}
+	
+	/** Releases a latch when a file has been received. */
+	private static class ReceptionListener extends DefaultConnectionListener {
+		volatile CountDownLatch latch;
+		List<File> received = new ArrayList<>();
+		AtomicInteger aborted = new AtomicInteger();
+		
+		void expect (int count) {
+			received.clear();
+			latch = new CountDownLatch(count);
+		}
+		
+		@Override
+		public void transmissionEventOccurred (TransmissionEvent evt) {
+			if (evt.getType() == TransmissionEventType.FILE_RECEIVED) {
+				synchronized (received) {
+					received.add(evt.getFile());
+				}
+				latch.countDown();
+			} else if (evt.getType() == TransmissionEventType.FILE_ABORTED) {
+				aborted.incrementAndGet();
+				latch.countDown();
+			}
+		}
+	}
+	
+	@Test
+	public void window_reading () throws IOException {
+		int length = 1000000;
+		int blockSize = 16 * 1024;
+		int windowSize = 8;
+		long nrBlocks = (length + blockSize - 1) / blockSize;
+		byte[] data = Util.randBytes(length);
+		File src = Util.getTempFile();
+		Util.makeFile(src, data);
+		BroadcastFileSource source = new BroadcastFileSource(src, 
+				EnumSet.of(ChecksumType.ADLER32), blockSize, windowSize);
+		
+	try {
+		assertTrue(source.getFileLength() == length);
+		
+		// readers of different parcel sizes which keep pace: each block is read once
+		Reader[] readers = new Reader[] {new Reader(4096, length), new Reader(10000, length),
+				new Reader(16 * 1024, length), new Reader(33333, length)};
+		boolean reading = true;
+		while (reading) {
+			Reader slowest = readers[0];
+			for (Reader r : readers) {
+				if (r.position < slowest.position) slowest = r;
+			}
+			reading = slowest.next(source);
+		}
+		for (Reader r : readers) {
+			assertTrue("data mismatch", Util.equalArrays(data, r.result));
+		}
+		System.out.println("-- " + source);
+		assertTrue("block reads: " + source.getBlockReads(), source.getBlockReads() == nrBlocks);
+		assertTrue("fallback reads: " + source.getFallbackReads(), source.getFallbackReads() == 0);
+		
+		// a reader behind the window re-reads without disturbing the window
+		Reader late = new Reader(20000, length);
+		while (late.next(source));
+		assertTrue("data mismatch", Util.equalArrays(data, late.result));
+		System.out.println("-- " + source);
+		assertTrue("block reads: " + source.getBlockReads(), source.getBlockReads() == nrBlocks);
+		assertTrue("fallback reads: " + source.getFallbackReads(), 
+				source.getFallbackReads() >= nrBlocks - windowSize);
+		
+		// file checksums, computed with the window or by an extra pass
+		for (ChecksumType type : ChecksumType.values()) {
+			if (!ParcelChecksum.isSupported(type)) continue;
+			ParcelChecksum crc = new ParcelChecksum(type);
+			crc.update(data);
+			assertTrue("checksum mismatch: " + type, 
+					Util.equalArrays(crc.getByteArray(), source.getChecksum(type)));
+		}
+		
+		// the file is closed with the last reference
+		source.retain();
+		source.release();
+		assertTrue(source.isOpen());
+		source.release();
+		assertFalse(source.isOpen());
+
+	} finally {
+		source.release();
+		src.delete();
+	}
+	}
+	
+	@Test
+	public void broadcast_transmission () throws IOException, InterruptedException {
+		int length = 4 * JennyNet.MEGA;
+		byte[] data = Util.randBytes(length);
+		File src = Util.getTempFile();
+		Util.makeFile(src, data);
+		ReceptionListener listener = new ReceptionListener();
+		Server sv = null;
+		List<Client> clients = new ArrayList<>();
+		
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000));
+		sv.start();
+		
+		for (int i = 0; i < NR_CLIENTS; i++) {
+			Client cl = new Client();
+			File dir = new File("test/client-" + i);
+			dir.mkdirs();
+			cl.getParameters().setFileRootDir(dir);
+			cl.addListener(listener);
+			cl.connect(100, sv.getSocketAddress());
+			clients.add(cl);
+		}
+		Util.sleep(100);
+		Connection[] cons = sv.getConnections();
+		assertTrue(cons.length == NR_CLIENTS);
+
+		for (int round = 0; round < 2; round++) {
+			// individual sending, each connection reads the file
+			listener.expect(NR_CLIENTS);
+			long start = System.nanoTime();
+			for (Connection con : cons) {
+				con.sendFile(src, "empfang/single-" + round + ".dat");
+			}
+			assertTrue("sending incomplete", listener.latch.await(60, TimeUnit.SECONDS));
+			long individual = System.nanoTime() - start;
+			assertTrue("file aborted", listener.aborted.get() == 0);
+			
+			// broadcast sending from a shared source
+			listener.expect(NR_CLIENTS);
+			start = System.nanoTime();
+			sv.sendFileToAll(src, "empfang/broadcast-" + round + ".dat", SendPriority.NORMAL);
+			assertTrue("broadcast incomplete", listener.latch.await(60, TimeUnit.SECONDS));
+			long broadcast = System.nanoTime() - start;
+			assertTrue("file aborted", listener.aborted.get() == 0);
+			
+			for (File f : listener.received) {
+				assertTrue("file data mismatch", Util.equalArrays(data, Util.readFile(f)));
+				f.delete();
+			}
+			System.out.println("-- file to " + NR_CLIENTS + " connections: individual " 
+					+ individual / 1000000 + " ms, broadcast " + broadcast / 1000000 + " ms");
+		}
+		
+	} finally {
+		src.delete();
+		for (Client cl : clients) {
+			cl.close();
+		}
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+	
+	@Test
+	public void broadcast_behind_busy_queue () throws IOException, InterruptedException {
+		int length = 30 * JennyNet.MEGA;
+		byte[] data = Util.randBytes(length);
+		byte[] small = Util.randBytes(100000);
+		File src = Util.getTempFile();
+		File smallSrc = Util.getTempFile();
+		Util.makeFile(src, data);
+		Util.makeFile(smallSrc, small);
+		ReceptionListener listener = new ReceptionListener();
+		Server sv = null;
+		List<Client> clients = new ArrayList<>();
+		
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000));
+		sv.start();
+		
+		for (int i = 0; i < 2; i++) {
+			Client cl = new Client();
+			File dir = new File("test/client-" + i);
+			dir.mkdirs();
+			cl.getParameters().setFileRootDir(dir);
+			cl.addListener(listener);
+			cl.connect(100, sv.getSocketAddress());
+			clients.add(cl);
+		}
+		Util.sleep(100);
+		Connection[] cons = sv.getConnections();
+		assertTrue(cons.length == 2);
+
+		// the broadcast order of the first connection starts after the large 
+		// file, when the server has released its reference to the source
+		listener.expect(3);
+		cons[0].sendFile(src, "empfang/busy-large.dat");
+		sv.sendFileToAll(smallSrc, "empfang/busy-broadcast.dat", SendPriority.NORMAL);
+		assertTrue("sending incomplete", listener.latch.await(60, TimeUnit.SECONDS));
+		assertTrue("file aborted", listener.aborted.get() == 0);
+		
+		for (File f : listener.received) {
+			byte[] expected = f.length() == length ? data : small;
+			assertTrue("file data mismatch", Util.equalArrays(expected, Util.readFile(f)));
+			f.delete();
+		}
+		
+	} finally {
+		src.delete();
+		smallSrc.delete();
+		for (Client cl : clients) {
+			cl.close();
+		}
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+}
@@ -0,0 +1,203 @@
+/*  File: TestUnit_Checksum_Cache.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.kse.jennynet.core.JennyNet.ChecksumType;
+import org.kse.jennynet.intfa.TransmissionEvent;
+import org.kse.jennynet.intfa.TransmissionEventType;
+import org.kse.jennynet.test.StandardServer;
+import org.kse.jennynet.util.Util;
+
+/** Tests the cache of file checksums for outgoing file transfers, its 
+ * optional sidecar file and its use in file sending.
+ */
+public class TestUnit_Checksum_Cache {
+
+	/** Releases a latch when a file has been received. */
+	private static class ReceptionListener extends DefaultConnectionListener {
+		volatile CountDownLatch latch;
+		volatile File received;
+		
+		@Override
+		public void transmissionEventOccurred (TransmissionEvent evt) {
+			if (evt.getType() == TransmissionEventType.FILE_RECEIVED) {
+				received = evt.getFile();
+				latch.countDown();
+			} else if (evt.getType() == TransmissionEventType.FILE_ABORTED) {
+				latch.countDown();
+			}
+		}
+	}
+	
+	private int sendCounter;
+	
+	@After
+	public void restore () {
+		JennyNet.reset();
+	}
+	
+	@Test
+	public void cache_operations () throws IOException {
+		FileChecksumCache cache = new FileChecksumCache(3);
+		File f1 = new File("/data/file-1"), f2 = new File("/data/file-2"), 
+			 f3 = new File("/data/file-3"), f4 = new File("/data/file-4");
+		byte[] c1 = Util.randBytes(4), c2 = Util.randBytes(4), c3 = Util.randBytes(4);
+		
+		// entries are valid for unchanged length and modification time
+		cache.put(f1, 1000, 5000, ChecksumType.ADLER32, c1);
+		assertTrue(Util.equalArrays(c1, cache.get(f1, 1000, 5000, ChecksumType.ADLER32)));
+		assertNull(cache.get(f1, 1000, 5000, ChecksumType.CRC32C));
+		assertNull(cache.get(f1, 1001, 5000, ChecksumType.ADLER32));
+		assertNull("modified file remains valid", cache.get(f1, 1000, 5000, ChecksumType.ADLER32));
+		assertTrue(cache.size() == 0);
+		assertTrue(cache.getHits() == 1 & cache.getMisses() == 3);
+		
+		// least recently used entries are removed
+		cache.put(f1, 1000, 5000, ChecksumType.ADLER32, c1);
+		cache.put(f2, 2000, 5000, ChecksumType.ADLER32, c2);
+		cache.put(f3, 3000, 5000, ChecksumType.ADLER32, c3);
+		cache.get(f1, 1000, 5000, ChecksumType.ADLER32);
+		cache.put(f4, 4000, 5000, ChecksumType.ADLER32, c3);
+		assertTrue(cache.size() == 3);
+		assertNull(cache.get(f2, 2000, 5000, ChecksumType.ADLER32));
+		assertTrue(cache.get(f1, 1000, 5000, ChecksumType.ADLER32) != null);
+		cache.setCapacity(1);
+		assertTrue(cache.size() == 1);
+		assertTrue(cache.get(f1, 1000, 5000, ChecksumType.ADLER32) != null);
+		
+		// disabled cache
+		cache.setCapacity(0);
+		cache.put(f2, 2000, 5000, ChecksumType.ADLER32, c2);
+		assertTrue(cache.size() == 0);
+		assertNull(cache.get(f2, 2000, 5000, ChecksumType.ADLER32));
+		
+		// sidecar file stores the entries
+		File sidecar = Util.getTempFile();
+		sidecar.delete();
+	try {
+		cache.setCapacity(10);
+		cache.setSidecar(sidecar);
+		cache.put(f1, 1000, 5000, ChecksumType.ADLER32, c1);
+		cache.put(f2, 2000, 6000, ChecksumType.CRC32C, c2);
+		assertTrue("no sidecar file", awaitFile(sidecar));
+		
+		FileChecksumCache cache2 = new FileChecksumCache(10);
+		cache2.setSidecar(sidecar);
+		assertTrue(cache2.size() == 2);
+		assertTrue(Util.equalArrays(c1, cache2.get(f1, 1000, 5000, ChecksumType.ADLER32)));
+		assertTrue(Util.equalArrays(c2, cache2.get(f2, 2000, 6000, ChecksumType.CRC32C)));
+		assertFalse(new File(sidecar.getPath() + ".tmp").exists());
+	} finally {
+		sidecar.delete();
+	}
+	}
+	
+	@Test
+	public void repeated_sending () throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+		ReceptionListener listener = new ReceptionListener();
+		File src = Util.getTempFile(); 
+		byte[] data = Util.randBytes(2 * JennyNet.MEGA);
+		Util.makeFile(src, data);
+		File sidecar = Util.getTempFile();
+		sidecar.delete();
+		JennyNet.setChecksumCacheFile(sidecar);
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		File root = new File("test");
+		root.mkdirs();
+		sv.getParameters().setFileRootDir(root);
+		sv.start();
+		
+		cl = new Client();
+		cl.connect(100, sv.getSocketAddress());
+		Util.sleep(100);
+
+		// a recently modified file is not cached
+		sendFile(cl, listener, src, data);
+		sendFile(cl, listener, src, data);
+		ConnectionMonitor mon = cl.getMonitor();
+		assertTrue(mon.checksumCacheHits == 0 & mon.checksumCacheMisses == 2);
+		
+		// an unchanged file is sent with the cached checksum
+		src.setLastModified(System.currentTimeMillis() - 10000);
+		for (int i = 0; i < 3; i++) {
+			sendFile(cl, listener, src, data);
+		}
+		mon = cl.getMonitor();
+		System.out.println(mon.report(3));
+		assertTrue(mon.checksumCacheHits == 2 & mon.checksumCacheMisses == 3);
+		assertTrue("no sidecar file", awaitFile(sidecar));
+		
+		// a modified file of the same length
+		data = Util.randBytes(data.length);
+		Util.makeFile(src, data);
+		src.setLastModified(System.currentTimeMillis() - 5000);
+		sendFile(cl, listener, src, data);
+		sendFile(cl, listener, src, data);
+		mon = cl.getMonitor();
+		assertTrue(mon.checksumCacheHits == 3 & mon.checksumCacheMisses == 4);
+		
+	} finally {
+		src.delete();
+		sidecar.delete();
+		if (cl != null) cl.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+	
+	/** Waits up to 5 seconds for the given file to be written. */
+	private static boolean awaitFile (File file) {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!file.isFile() && System.currentTimeMillis() < deadline) {
+			Util.sleep(20);
+		}
+		return file.isFile();
+	}
+	
+	private void sendFile (Client cl, ReceptionListener listener, File src, byte[] data)
+			throws IOException, InterruptedException {
+		listener.latch = new CountDownLatch(1);
+		listener.received = null;
+		cl.sendFile(src, "empfang/cached-checksum-" + (++sendCounter) + ".dat");
+		assertTrue("file not received", listener.latch.await(30, TimeUnit.SECONDS) 
+				&& listener.received != null);
+		assertTrue("file data mismatch", Util.equalArrays(data, Util.readFile(listener.received)));
+		listener.received.delete();
+	}
+}
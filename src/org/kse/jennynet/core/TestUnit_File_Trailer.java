@@ -0,0 +1,162 @@
+/*  File: TestUnit_File_Trailer.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.kse.jennynet.core.JennyNet.ChecksumType;
+import org.kse.jennynet.intfa.TransmissionEvent;
+import org.kse.jennynet.intfa.TransmissionEventType;
+import org.kse.jennynet.test.StandardServer;
+import org.kse.jennynet.util.Util;
+
+/** Tests the transmission of the file checksum in a trailer parcel or, 
+ * for a remote which does not announce the trailer capability, in the 
+ * object header.
+ */
+public class TestUnit_File_Trailer {
+
+	/** Releases a latch when a file has been received or aborted. */
+	private static class ReceptionListener extends DefaultConnectionListener {
+		volatile CountDownLatch latch;
+		volatile File received;
+		AtomicInteger aborted = new AtomicInteger();
+		
+		@Override
+		public void transmissionEventOccurred (TransmissionEvent evt) {
+			if (evt.getType() == TransmissionEventType.FILE_RECEIVED) {
+				received = evt.getFile();
+				latch.countDown();
+			} else if (evt.getType() == TransmissionEventType.FILE_ABORTED) {
+				aborted.incrementAndGet();
+				latch.countDown();
+			}
+		}
+	}
+	
+	@Test
+	public void trailer_and_header_checksum () throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+		ReceptionListener listener = new ReceptionListener();
+		File src = Util.getTempFile(); 
+		byte[] data = Util.randBytes(3 * JennyNet.MEGA + 1000);
+		Util.makeFile(src, data);
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		File root = new File("test");
+		root.mkdirs();
+		sv.getParameters().setFileRootDir(root);
+		sv.getParameters().setChecksumType(ChecksumType.CRC32C);
+		sv.start();
+		
+		cl = new Client();
+		cl.connect(100, sv.getSocketAddress());
+		Util.sleep(100);
+		int capabilities = cl.getRemoteCapabilities();
+		assertTrue("no trailer capability", (capabilities & JennyNet.FEATURE_FILE_TRAILER) != 0);
+		
+		// file checksum in trailer parcel
+		sendFile(cl, listener, src, "empfang/trailer-checksum.dat", data);
+		
+		// file checksum in object header (remote w/o trailer capability)
+		cl.setRemoteCapabilities(capabilities & ~JennyNet.FEATURE_FILE_TRAILER);
+		sendFile(cl, listener, src, "empfang/header-checksum.dat", data);
+		
+		// empty file in object header
+		File empty = Util.getTempFile();
+		sendFile(cl, listener, empty, "empfang/header-empty.dat", new byte[0]);
+		empty.delete();
+		assertTrue("file aborted", listener.aborted.get() == 0);
+		
+	} finally {
+		src.delete();
+		if (cl != null) cl.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+	
+	@Test
+	public void shrinking_source_file () throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+		ReceptionListener listener = new ReceptionListener();
+		File src = Util.getTempFile(); 
+		Util.makeFile(src, Util.randBytes(3 * JennyNet.MEGA));
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		File root = new File("test");
+		root.mkdirs();
+		sv.getParameters().setFileRootDir(root);
+		sv.start();
+		
+		cl = new Client();
+		cl.addListener(listener);
+		cl.connect(100, sv.getSocketAddress());
+		cl.setTempo(500000);
+		Util.sleep(100);
+		
+		// the file shrinks while sending: both sides abort the transfer
+		listener.latch = new CountDownLatch(2);
+		listener.received = null;
+		cl.sendFile(src, "empfang/shrinking-file.dat");
+		Util.sleep(500);
+		try (RandomAccessFile raf = new RandomAccessFile(src, "rw")) {
+			raf.setLength(100000);
+		}
+		assertTrue("transfer not aborted", listener.latch.await(30, TimeUnit.SECONDS));
+		assertTrue("aborted: " + listener.aborted, listener.aborted.get() == 2);
+		assertTrue(listener.received == null);
+		
+	} finally {
+		src.delete();
+		if (cl != null) cl.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+	
+	private void sendFile (Client cl, ReceptionListener listener, File src, String target, 
+			byte[] data) throws IOException, InterruptedException {
+		listener.latch = new CountDownLatch(1);
+		listener.received = null;
+		cl.sendFile(src, target);
+		assertTrue("file not received: " + target, listener.latch.await(30, TimeUnit.SECONDS) 
+				&& listener.received != null);
+		assertTrue("file data mismatch", Util.equalArrays(data, Util.readFile(listener.received)));
+		listener.received.delete();
+	}
+}
@@ -0,0 +1,266 @@
+/*  File: TestUnit_Level_Queue.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.kse.jennynet.intfa.SendPriority;
+import org.kse.jennynet.util.Util;
+
+/** Tests the multi-level queue of the send path and compares its 
+ * throughput with the formerly used {@code PriorityBlockingQueue}.
+ */
+public class TestUnit_Level_Queue {
+
+	private static final int NR_LEVELS = ConnectionImpl.NR_PRIORITY_LEVELS;
+
+	/** Queue element with a priority and a serial number which is ordered 
+	 * like the send parcels: priority first, serial number second.
+	 */
+	private static class Element implements Comparable<Element> {
+		final SendPriority priority;
+		final long serial;
+		
+		Element (SendPriority priority, long serial) {
+			this.priority = priority;
+			this.serial = serial;
+		}
+		
+		@Override
+		public int compareTo (Element obj) {
+			if (priority.ordinal() > obj.priority.ordinal()) return -1;
+			if (priority.ordinal() < obj.priority.ordinal()) return +1;
+			return serial < obj.serial ? -1 : serial > obj.serial ? 1 : 0;
+		}
+	}
+	
+	private static LevelQueue<Element> newLevelQueue () {
+		return new LevelQueue<>(NR_LEVELS, e -> ConnectionImpl.priorityLevel(e.priority));
+	}
+	
+	@Test
+	public void ordering () throws InterruptedException {
+		LevelQueue<Element> queue = newLevelQueue();
+		PriorityBlockingQueue<Element> reference = new PriorityBlockingQueue<>();
+		assertTrue(queue.isEmpty());
+		assertTrue(queue.peek() == null && queue.poll() == null);
+		
+		// random priorities in ascending serial order
+		SendPriority[] prios = SendPriority.values();
+		for (int i = 0; i < 1000; i++) {
+			Element e = new Element(prios[Util.nextRand(prios.length)], i);
+			queue.put(e);
+			reference.put(e);
+		}
+		assertTrue(queue.size() == 1000);
+		assertTrue(queue.toArray().length == 1000);
+		
+		// same order as the priority queue
+		while (!reference.isEmpty()) {
+			Element e = reference.take();
+			assertTrue("order mismatch", queue.peek() == e);
+			assertTrue("order mismatch", queue.take() == e);
+		}
+		assertTrue(queue.isEmpty() && queue.size() == 0);
+		
+		// reinsertion at the head of the level
+		Element e1 = new Element(SendPriority.NORMAL, 1), e2 = new Element(SendPriority.NORMAL, 2), 
+				e3 = new Element(SendPriority.LOW, 3), e4 = new Element(SendPriority.HIGH, 4);
+		queue.add(e1);
+		queue.add(e2);
+		queue.add(e3);
+		assertTrue(queue.poll() == e1);
+		queue.offerFirst(e1);
+		assertTrue(queue.peek() == e1);
+		queue.add(e4);
+		assertTrue(queue.peek() == e4);
+		
+		// removal of elements
+		assertTrue(queue.remove(e4));
+		assertTrue(!queue.remove(e4));
+		assertTrue(queue.remove(e1));
+		assertTrue(queue.size() == 2 && queue.peek() == e2);
+		assertTrue(queue.contains(e3) && !queue.contains(e1));
+		List<Element> list = new ArrayList<>();
+		assertTrue(queue.drainTo(list) == 2);
+		assertTrue(list.get(0) == e2 && list.get(1) == e3);
+		assertTrue(queue.isEmpty());
+	}
+	
+	@Test
+	public void blocking () throws InterruptedException {
+		LevelQueue<Element> queue = newLevelQueue();
+		Element element = new Element(SendPriority.NORMAL, 1);
+		
+		// timed operations on empty queue
+		long start = System.currentTimeMillis();
+		assertTrue(queue.poll(50, TimeUnit.MILLISECONDS) == null);
+		assertTrue(queue.awaitHead(50, TimeUnit.MILLISECONDS) == null);
+		assertTrue(System.currentTimeMillis() - start >= 95);
+		
+		// blocking peek returns element without removing it
+		AtomicReference<Element> result = new AtomicReference<>();
+		Thread t = new Thread(() -> {
+			try {
+				result.set(queue.awaitHead());
+			} catch (InterruptedException e) {
+			}
+		});
+		t.start();
+		Util.sleep(50);
+		assertTrue(result.get() == null);
+		queue.put(element);
+		t.join(1000);
+		assertTrue("blocking peek failed", result.get() == element);
+		assertTrue(queue.size() == 1);
+		
+		// blocking take
+		assertTrue(queue.take() == element);
+		result.set(null);
+		t = new Thread(() -> {
+			try {
+				result.set(queue.take());
+			} catch (InterruptedException e) {
+			}
+		});
+		t.start();
+		Util.sleep(50);
+		queue.put(element);
+		t.join(1000);
+		assertTrue("blocking take failed", result.get() == element);
+		assertTrue(queue.isEmpty());
+		
+		// interruption of waiting
+		t = new Thread(() -> {
+			try {
+				queue.awaitHead();
+			} catch (InterruptedException e) {
+				result.set(null);
+			}
+		});
+		t.start();
+		Util.sleep(50);
+		t.interrupt();
+		t.join(1000);
+		assertTrue("wait not interrupted", result.get() == null);
+	}
+	
+	/** Several producers and consumers exchange elements; no element is
+	 * lost or taken twice.
+	 */
+	@Test
+	public void concurrent_exchange () throws InterruptedException {
+		LevelQueue<Element> queue = newLevelQueue();
+		int producers = 4, consumers = 3, amount = 50000;
+		AtomicLong sum = new AtomicLong();
+		AtomicLong taken = new AtomicLong();
+		
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < producers; i++) {
+			threads.add(new Thread(() -> {
+				SendPriority[] prios = SendPriority.values();
+				for (int j = 1; j <= amount; j++) {
+					queue.put(new Element(prios[j % prios.length], j));
+				}
+			}));
+		}
+		for (int i = 0; i < consumers; i++) {
+			threads.add(new Thread(() -> {
+				try {
+					while (taken.get() < producers * amount) {
+						Element e = queue.poll(100, TimeUnit.MILLISECONDS);
+						if (e != null) {
+							sum.addAndGet(e.serial);
+							taken.incrementAndGet();
+						}
+					}
+				} catch (InterruptedException e) {
+				}
+			}));
+		}
+		for (Thread t : threads) t.start();
+		for (Thread t : threads) t.join(20000);
+		
+		long expected = (long)producers * amount * (amount + 1) / 2;
+		assertTrue("elements lost: " + taken.get(), taken.get() == producers * amount);
+		assertTrue("element sum mismatch", sum.get() == expected);
+		assertTrue(queue.isEmpty() && queue.size() == 0);
+	}
+	
+	private static long runQueue (BlockingQueue<Element> queue, int producers, int amount, int backlog) 
+			throws InterruptedException {
+		SendPriority[] prios = SendPriority.values();
+		for (int i = 0; i < backlog; i++) {
+			queue.put(new Element(prios[i % prios.length], i));
+		}
+		
+		long start = System.nanoTime();
+		Thread[] threads = new Thread[producers];
+		for (int i = 0; i < producers; i++) {
+			threads[i] = new Thread(() -> {
+				for (int j = 0; j < amount; j++) {
+					queue.offer(new Element(prios[j % prios.length], j));
+				}
+			});
+			threads[i].start();
+		}
+		for (int i = 0; i < producers * amount; i++) {
+			queue.take();
+		}
+		long time = System.nanoTime() - start;
+		for (Thread t : threads) t.join();
+		queue.clear();
+		return time;
+	}
+	
+	/** Compares put/take throughput with {@code PriorityBlockingQueue}
+	 * for a single consumer and several producers on a queue backlog. 
+	 */
+	@Test
+	public void throughput () throws InterruptedException {
+		int amount = 200000;
+		
+		for (int backlog : new int[] {0, 1000}) {
+			for (int producers : new int[] {1, 4}) {
+				long pbq = Long.MAX_VALUE, lvq = Long.MAX_VALUE;
+				
+				// best of several rounds
+				for (int round = 0; round < 5; round++) {
+					pbq = Math.min(pbq, runQueue(new PriorityBlockingQueue<>(), producers, amount / producers, backlog));
+					lvq = Math.min(lvq, runQueue(newLevelQueue(), producers, amount / producers, backlog));
+				}
+				System.out.printf("-- %d producers, backlog %4d: PriorityBlockingQueue %5.1f ops/us,"
+						+ " LevelQueue %5.1f ops/us%n", producers, backlog, 
+						amount * 1000.0 / pbq, amount * 1000.0 / lvq);
+			}
+		}
+	}
+}
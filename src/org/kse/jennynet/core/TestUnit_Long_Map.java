@@ -0,0 +1,233 @@
+/*  File: TestUnit_Long_Map.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import org.junit.Test;
+import org.kse.jennynet.util.Util;
+
+/** Tests the primitive long-keyed maps of the connection registries and
+ * compares their lookup cost and allocation with the formerly used 
+ * {@code Hashtable<Long, V>}.
+ */
+public class TestUnit_Long_Map {
+
+	/** first key of the benchmark, outside of the Long value cache */
+	private static final long KEY_BASE = 1000000;
+	
+	@Test
+	public void operations () {
+		LongMap<String> map = new LongMap<>();
+		Map<Long, String> reference = new HashMap<>();
+		assertTrue(map.isEmpty() && map.get(0) == null && map.remove(0) == null);
+		
+		// random put, remove and get on a small key range (many collisions 
+		// and removals within probe sequences)
+		for (int i = 0; i < 200000; i++) {
+			long key = Util.nextRand(500) - 100;
+			int op = Util.nextRand(3);
+			if (op == 0) {
+				String value = String.valueOf(i);
+				assertTrue(equal(reference.put(key, value), map.put(key, value)));
+			} else if (op == 1) {
+				assertTrue(equal(reference.remove(key), map.remove(key)));
+			} else {
+				assertTrue(equal(reference.get(key), map.get(key)));
+				assertTrue(reference.containsKey(key) == map.containsKey(key));
+			}
+			assertTrue(reference.size() == map.size());
+		}
+		assertTrue(new HashSet<>(reference.values()).equals(new HashSet<>(map.values())));
+		
+		// large and extreme keys
+		map.clear();
+		assertTrue(map.isEmpty() && map.values().isEmpty());
+		long[] keys = {Long.MIN_VALUE, Long.MAX_VALUE, 0, -1, 1L << 32, 1L << 63 >>> 1};
+		for (long key : keys) {
+			map.put(key, "v" + key);
+		}
+		for (long key : keys) {
+			assertTrue(map.get(key).equals("v" + key));
+		}
+		assertTrue(map.size() == keys.length);
+		
+		// copies are independent and compact when sparse
+		LongMap<String> big = new LongMap<>();
+		for (int i = 0; i < 1000; i++) {
+			big.put(KEY_BASE + i, "x");
+		}
+		for (int i = 0; i < 995; i++) {
+			big.remove(KEY_BASE + i);
+		}
+		LongMap<String> copy = new LongMap<>(big);
+		copy.put(1, "y");
+		assertTrue(big.size() == 5 && copy.size() == 6 && big.get(1) == null);
+		for (int i = 995; i < 1000; i++) {
+			assertTrue(copy.get(KEY_BASE + i).equals("x"));
+		}
+	}
+	
+	private static boolean equal (Object a, Object b) {
+		return a == null ? b == null : a.equals(b);
+	}
+	
+	@Test
+	public void copy_on_write () throws InterruptedException {
+		CopyOnWriteLongMap<Long> map = new CopyOnWriteLongMap<>();
+		
+		// keys 0..99 are permanent, keys from 1000 come and go
+		for (long i = 0; i < 100; i++) {
+			map.put(i, i);
+		}
+		AtomicBoolean stop = new AtomicBoolean();
+		AtomicLong errors = new AtomicLong();
+		List<Thread> readers = new ArrayList<>();
+		for (int t = 0; t < 3; t++) {
+			Thread th = new Thread(() -> {
+				while (!stop.get()) {
+					long key = Util.nextRand(100);
+					Long v = map.get(key);
+					if (v == null || v != key) {
+						errors.incrementAndGet();
+					}
+				}
+			});
+			th.start();
+			readers.add(th);
+		}
+		
+		for (long i = 1000; i < 21000; i++) {
+			map.put(i, i);
+			if (i % 3 != 0) {
+				assertTrue(map.remove(i) == i);
+			}
+		}
+		stop.set(true);
+		for (Thread th : readers) {
+			th.join();
+		}
+		
+		assertTrue("reader errors: " + errors.get(), errors.get() == 0);
+		assertTrue(map.size() == 100 + 20000 / 3);
+		assertTrue(map.remove(1) == 1 && map.remove(1) == null);
+		map.clear();
+		assertTrue(map.isEmpty());
+	}
+	
+	/** Returns the bytes allocated by the current thread, -1 if not 
+	 * supported.
+	 */
+	private static long allocatedBytes () {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(
+					Thread.currentThread().getId());
+		}
+		return -1;
+	}
+	
+	/** Performs the given number of lookups of the given keys and returns
+	 * a checksum.
+	 */
+	private static long lookups (LongFunction<Object> lookup, long[] keys, int n) {
+		long sum = 0;
+		for (int i = 0; i < n; i++) {
+			if (lookup.apply(keys[i & (keys.length - 1)]) != null) {
+				sum++;
+			}
+		}
+		return sum;
+	}
+	
+	@Test
+	public void lookup_cost () {
+		int n = 5000000;
+		for (int size : new int[] {16, 1024}) {
+			Hashtable<Long, Object> table = new Hashtable<>();
+			LongMap<Object> longMap = new LongMap<>();
+			CopyOnWriteLongMap<Object> cowMap = new CopyOnWriteLongMap<>();
+			long[] keys = new long[size];
+			for (int i = 0; i < size; i++) {
+				keys[i] = KEY_BASE + i * 7;
+				table.put(keys[i], "v");
+				longMap.put(keys[i], "v");
+				cowMap.put(keys[i], "v");
+			}
+			
+			@SuppressWarnings({"unchecked", "rawtypes"})
+			LongFunction<Object>[] lookups = new LongFunction[] {
+					k -> table.get(k), k -> longMap.get(k), k -> cowMap.get(k)}; 
+			String[] names = {"Hashtable", "LongMap", "CopyOnWriteLongMap"};
+			
+			for (int round = 0; round < 3; round++) {
+				StringBuilder sb = new StringBuilder("-- lookups, size " + size + ": ");
+				for (int j = 0; j < lookups.length; j++) {
+					long alloc = allocatedBytes();
+					long start = System.nanoTime();
+					long hits = lookups(lookups[j], keys, n);
+					long time = System.nanoTime() - start;
+					alloc = allocatedBytes() - alloc;
+					assertTrue(hits == n);
+					sb.append(names[j]).append(' ').append(String.format("%.1f", (double)time / n))
+					  .append(" ns, ").append(alloc / n).append(" B/op; ");
+				}
+				System.out.println(sb);
+			}
+		}
+		
+		// allocation for registering and de-registering 100000 transfers
+		Hashtable<Long, Object> table = new Hashtable<>();
+		LongMap<Object> longMap = new LongMap<>();
+		long[] allocs = new long[2];
+		for (int round = 0; round < 3; round++) {
+			long alloc = allocatedBytes();
+			for (long i = 0; i < 100000; i++) {
+				table.put(KEY_BASE + i, "v");
+				table.remove(KEY_BASE + i - 8);
+			}
+			allocs[0] = allocatedBytes() - alloc;
+			alloc = allocatedBytes();
+			for (long i = 0; i < 100000; i++) {
+				longMap.put(KEY_BASE + i, "v");
+				longMap.remove(KEY_BASE + i - 8);
+			}
+			allocs[1] = allocatedBytes() - alloc;
+			table.clear();
+			longMap.clear();
+		}
+		System.out.println("-- register/de-register 100000 keys: Hashtable " + allocs[0] 
+				+ " bytes, LongMap " + allocs[1] + " bytes");
+		assertTrue(allocs[1] < allocs[0]);
+	}
+}
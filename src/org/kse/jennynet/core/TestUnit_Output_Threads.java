@@ -0,0 +1,229 @@
+/*  File: TestUnit_Output_Threads.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.kse.jennynet.core.ConnectionImpl.OutputProcessor;
+import org.kse.jennynet.core.JennyNet.ThreadUsage;
+import org.kse.jennynet.intfa.Connection;
+import org.kse.jennynet.intfa.SendPriority;
+import org.kse.jennynet.intfa.ServerConnection;
+import org.kse.jennynet.test.StandardServer;
+import org.kse.jennynet.util.Util;
+
+/** Tests the global delivery service with several output threads.
+ */
+public class TestUnit_Output_Threads {
+
+	/** Records the sequence of received object numbers per connection and
+	 * blocks in delivery for objects of a selected connection.
+	 */
+	private static class RecordListener extends DefaultConnectionListener {
+		final Map<Connection, List<Long>> received = new HashMap<>();
+		final CountDownLatch latch;
+		volatile Connection slowConnection;
+		volatile int slowTime;
+		
+		RecordListener (int count) {
+			latch = new CountDownLatch(count);
+		}
+		
+		@Override
+		public void objectReceived (Connection con, SendPriority priority, long objNr, Object obj) {
+			synchronized (received) {
+				received.computeIfAbsent(con, c -> new ArrayList<>()).add(objNr);
+			}
+			if (con == slowConnection) {
+				Util.sleep(slowTime);
+			}
+			latch.countDown();
+		}
+		
+		int getReceived (Connection con) {
+			synchronized (received) {
+				List<Long> list = received.get(con);
+				return list == null ? 0 : list.size();
+			}
+		}
+	}
+	
+	@After
+	public void restore () {
+		JennyNet.setOutputThreads(JennyNet.DEFAULT_OUTPUT_THREADS);
+	}
+	
+	@Test
+	public void assignment () throws IOException {
+		List<Client> clients = new ArrayList<>();
+		JennyNet.setOutputThreads(3);
+		assertTrue(JennyNet.getOutputThreads() == 3);
+		
+	try {
+		// connections are assigned to the output threads in rotation
+		Set<OutputProcessor> processors = new HashSet<>();
+		for (int i = 0; i < 6; i++) {
+			Client cl = new Client();
+			clients.add(cl);
+			assertTrue("connection not on global output", cl.isGlobalOutput());
+			processors.add(cl.getOutputProcessor());
+		}
+		assertTrue("bad number of output threads: " + processors.size(), processors.size() == 3);
+		for (OutputProcessor p : processors) {
+			assertTrue(p.isStatic() && p.isAlive());
+		}
+		assertTrue(ConnectionImpl.getStaticOutputs(Connection.LayerCategory.CLIENT).length == 3);
+
+		// repeated setting keeps the assigned thread
+		Client cl = clients.get(0);
+		OutputProcessor proc = cl.getOutputProcessor();
+		cl.getParameters().setDeliveryThreadUsage(ThreadUsage.GLOBAL);
+		assertTrue("output thread changed", cl.getOutputProcessor() == proc);
+		
+		// individual and back to global
+		cl.getParameters().setDeliveryThreadUsage(ThreadUsage.INDIVIDUAL);
+		assertTrue(!cl.isGlobalOutput() && !processors.contains(cl.getOutputProcessor()));
+		cl.getParameters().setDeliveryThreadUsage(ThreadUsage.GLOBAL);
+		assertTrue(cl.isGlobalOutput() && processors.contains(cl.getOutputProcessor()));
+		
+		// setting limits
+		JennyNet.setOutputThreads(0);
+		assertTrue(JennyNet.getOutputThreads() == 1);
+		JennyNet.setOutputThreads(1000);
+		assertTrue(JennyNet.getOutputThreads() == JennyNet.MAX_OUTPUT_THREADS);
+
+		// a grown service contains unassigned slots
+		clients.add(new Client());
+		assertTrue(ConnectionImpl.getStaticOutputs(Connection.LayerCategory.CLIENT).length < JennyNet.MAX_OUTPUT_THREADS);
+		JennyNet.setOutputThreadPriority(JennyNet.getOutputThreadPriority());
+
+	} finally {
+		for (Client c : clients) {
+			c.close();
+		}
+	}
+	}
+
+	/** A slow listener on one connection does not delay the delivery for
+	 * connections on other output threads; the sequence of objects is 
+	 * preserved for each connection.
+	 */
+	@Test
+	public void slow_listener_isolation () throws IOException, InterruptedException {
+		Server sv = null;
+		List<Client> clients = new ArrayList<>();
+		int nrClients = 4, nrObjects = 50;
+		JennyNet.setOutputThreads(nrClients);
+		RecordListener listener = new RecordListener(nrClients * nrObjects);
+		
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		sv.getParameters().setDeliverTolerance(60000);
+		sv.start();
+		
+		for (int i = 0; i < nrClients; i++) {
+			Client cl = new Client();
+			cl.connect(100, sv.getSocketAddress());
+			clients.add(cl);
+		}
+		Util.sleep(100);
+		
+		// server connections are on separate output threads
+		Set<OutputProcessor> processors = new HashSet<>();
+		List<ServerConnectionImpl> scons = new ArrayList<>();
+		for (ServerConnection sc : sv.getConnections()) {
+			ServerConnectionImpl scon = (ServerConnectionImpl) sc;
+			scons.add(scon);
+			processors.add(scon.getOutputProcessor());
+		}
+		assertTrue("connections share output threads", processors.size() == nrClients);
+		
+		// delivery for the first connection is slow
+		listener.slowConnection = scons.get(0);
+		listener.slowTime = 100;
+		Client slowClient = null;
+		for (Client cl : clients) {
+			if (scons.get(0).getRemoteAddress().equals(cl.getLocalAddress())) {
+				slowClient = cl;
+			}
+		}
+		assertTrue(slowClient != null);
+		
+		long start = System.currentTimeMillis();
+		for (int j = 0; j < nrObjects; j++) {
+			for (Client cl : clients) {
+				cl.sendData(Util.randBytes(100), SendPriority.NORMAL);
+			}
+		}
+		
+		// objects of the other connections are delivered while the slow 
+		// connection is still being served
+		long limit = System.currentTimeMillis() + 5000;
+		boolean othersDone = false;
+		while (!othersDone && System.currentTimeMillis() < limit) {
+			othersDone = true;
+			for (ServerConnectionImpl scon : scons.subList(1, nrClients)) {
+				othersDone &= listener.getReceived(scon) == nrObjects;
+			}
+			Util.sleep(10);
+		}
+		long time = System.currentTimeMillis() - start;
+		int slowCount = listener.getReceived(scons.get(0));
+		System.out.println("-- other connections delivered in " + time + " ms, slow connection " 
+				+ slowCount + " of " + nrObjects);
+		assertTrue("delivery of other connections delayed", othersDone);
+		assertTrue("slow connection not slow", slowCount < nrObjects);
+		
+		assertTrue("objects missing", listener.latch.await(20, TimeUnit.SECONDS));
+		
+		// sequence of objects per connection
+		for (ServerConnectionImpl scon : scons) {
+			List<Long> list = listener.received.get(scon);
+			assertTrue(list.size() == nrObjects);
+			for (int i = 1; i < list.size(); i++) {
+				assertTrue("object sequence error", list.get(i) > list.get(i - 1));
+			}
+		}
+		
+	} finally {
+		for (Client cl : clients) {
+			cl.close();
+		}
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+}
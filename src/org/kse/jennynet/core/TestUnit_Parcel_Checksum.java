@@ -0,0 +1,106 @@
+/*  File: TestUnit_Parcel_Checksum.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+import org.kse.jennynet.core.JennyNet.ChecksumType;
+import org.kse.jennynet.util.CRC32;
+import org.kse.jennynet.util.Util;
+
+/** Tests on the parcel checksum types and a comparison of their 
+ * calculation cost.
+ */
+public class TestUnit_Parcel_Checksum {
+
+	@Test
+	public void checksum_values () {
+		byte[] data = Util.randBytes(5000);
+		for (ChecksumType type : ChecksumType.values()) {
+			if (!ParcelChecksum.isSupported(type)) continue;
+			ParcelChecksum crc1 = new ParcelChecksum(type);
+			crc1.update(data);
+			ParcelChecksum crc2 = new ParcelChecksum(type);
+			crc2.update(ByteBuffer.wrap(data));
+			assertTrue("buffer update differs: " + type, crc1.getValue() == crc2.getValue());
+			
+			ByteBuffer direct = ByteBuffer.allocateDirect(data.length);
+			direct.put(data).flip();
+			crc2.reset();
+			crc2.update(direct);
+			assertTrue("direct buffer update differs: " + type, crc1.getValue() == crc2.getValue());
+			assertTrue("buffer not consumed", !direct.hasRemaining());
+		}
+		
+		ParcelChecksum none = new ParcelChecksum(ChecksumType.NONE);
+		none.update(data);
+		assertTrue("NONE must render zero", none.getValue() == 0);
+		assertTrue("ADLER32 default", new ParcelChecksum().getIntValue() == Util.CRC32_of(new byte[0]));
+		ParcelChecksum adler = new ParcelChecksum(ChecksumType.ADLER32);
+		adler.update(data);
+		adler.update(4711L);
+		CRC32 crc = new CRC32();
+		crc.update(data);
+		crc.update(4711L);
+		assertTrue("ADLER32 differs from util.CRC32", adler.getIntValue() == crc.getIntValue());
+	}
+	
+	/** Compares the calculation cost of parcel checksums per parcel size and
+	 * checksum type. 
+	 */
+	@Test
+	public void checksum_cost () {
+		int[] sizes = new int[] {JennyNet.KILO, 64 * JennyNet.KILO, 256 * JennyNet.KILO};
+		long volume = 256 * JennyNet.MEGA;
+		
+		for (int size : sizes) {
+			byte[] data = Util.randBytes(size);
+			int loops = (int) (volume / size);
+			for (ChecksumType type : ChecksumType.values()) {
+				if (!ParcelChecksum.isSupported(type)) continue;
+				ParcelChecksum crc = new ParcelChecksum(type);
+				
+				// warm-up and measure
+				int value = 0;
+				for (int i = 0; i < loops / 4; i++) {
+					crc.reset();
+					crc.update(data, 0, size);
+					value ^= crc.getIntValue();
+				}
+				long start = System.nanoTime();
+				for (int i = 0; i < loops; i++) {
+					crc.reset();
+					crc.update(data, 0, size);
+					crc.update((long)i);
+					value ^= crc.getIntValue();
+				}
+				long time = Math.max(1, System.nanoTime() - start);
+				System.out.println("-- checksum " + type + ", parcel " + size / JennyNet.KILO 
+						+ " KB: " + time / loops + " ns/parcel, " + volume / JennyNet.MEGA * 1000000000L / time + " MB/s"
+						+ " (" + (value & 1) + ")");
+			}
+		}
+	}
+}
@@ -0,0 +1,443 @@
+/*  File: TestUnit_Parcel_Codec.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.kse.jennynet.core.JennyNet.ChecksumType;
+import org.kse.jennynet.core.JennyNet.HeaderFormat;
+import org.kse.jennynet.exception.BadTransmissionParcelException;
+import org.kse.jennynet.intfa.Connection.LayerCategory;
+import org.kse.jennynet.intfa.SendPriority;
+import org.kse.jennynet.util.Util;
+
+/** Tests the parcel codec for correctness and its allocation rate on 
+ * encoding and decoding of transmission parcels. Tests the slicing of 
+ * object serialisations into parcels and the COMPACT header format.
+ */
+public class TestUnit_Parcel_Codec {
+
+	private static final int NR_OBJECTS = 200;
+	private static final int OBJECT_SIZE = 4800;
+	private static final int PARCEL_SIZE = 1000;
+	private static final int OBJECT_PARCELS = (OBJECT_SIZE + PARCEL_SIZE - 1) / PARCEL_SIZE;
+	
+	private static final com.sun.management.ThreadMXBean threadBean = 
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	/** An output stream which discards all data. */
+	private static class NullOutputStream extends OutputStream {
+		@Override
+		public void write (int b) {
+		}
+		@Override
+		public void write (byte[] b, int off, int len) {
+		}
+	}
+	
+	private static long allocatedBytes () {
+		return threadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+	
+	private static TransmissionParcel[] createParcels (ConnectionImpl con) {
+		TransmissionParcel[] parcels = new TransmissionParcel[NR_OBJECTS * OBJECT_PARCELS];
+		byte[] data = Util.randBytes(OBJECT_SIZE);
+		int index = 0;
+		for (int i = 0; i < NR_OBJECTS; i++) {
+			for (TransmissionParcel p : TransmissionParcel.createParcelArray(con, data, i + 1, 0, 
+					SendPriority.NORMAL, PARCEL_SIZE)) {
+				parcels[index++] = p;
+			}
+		}
+		return parcels;
+	}
+	
+	private static byte[] encode (TransmissionParcel[] parcels) throws IOException {
+		ParcelCodec codec = new ParcelCodec();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (TransmissionParcel p : parcels) {
+			codec.write(p, out);
+		}
+		return out.toByteArray();
+	}
+	
+	@Test
+	public void codec_encode_decode () throws IOException {
+		ConnectionImpl con = new ConnectionImpl(LayerCategory.CLIENT);
+		TransmissionParcel[] parcels = createParcels(con);
+		byte[] stream = encode(parcels);
+		
+		// codec encoding is identical to stream encoding
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for (TransmissionParcel p : parcels) {
+			p.writeObject(out);
+		}
+		assertTrue("codec encoding differs", Util.equalArrays(stream, out.toByteArray()));
+		
+		// decoding restores parcels
+		ParcelCodec codec = new ParcelCodec();
+		ByteArrayInputStream in = new ByteArrayInputStream(stream);
+		for (TransmissionParcel p : parcels) {
+			TransmissionParcel r = codec.read(con, in);
+			assertTrue("decoded parcel mismatch", r.equals(p));
+			assertTrue("decoded data length mismatch", r.getLength() == p.getLength());
+			assertTrue("decoded data mismatch", r.getLength() == 0 || Util.equalArrays(
+					Arrays.copyOf(r.getData(), r.getLength()), 
+					Arrays.copyOfRange(p.getData(), p.getOffset(), p.getOffset() + p.getLength())));
+			assertTrue("decoded CRC mismatch", r.getCRC() == p.getCRC());
+			if (p.getParcelSequencelNr() == 0) {
+				ObjectHeader h = r.getObjectHeader();
+				assertTrue("object header missing", h != null);
+				assertTrue("object header mismatch", h.getNumberOfParcels() == OBJECT_PARCELS
+						&& h.getTransmissionSize() == OBJECT_SIZE);
+			}
+			r.release();
+			assertTrue("released parcel has data", r.getLength() == 0);
+		}
+		assertTrue("stream not consumed", in.available() == 0);
+	}
+	
+	@Test
+	public void codec_allocation_rate () throws IOException {
+		ConnectionImpl con = new ConnectionImpl(LayerCategory.CLIENT);
+		TransmissionParcel[] parcels = createParcels(con);
+		byte[] stream = encode(parcels);
+		ParcelCodec codec = new ParcelCodec();
+		OutputStream sink = new NullOutputStream();
+		int rounds = 20;
+		long nrParcels = (long)rounds * parcels.length;
+		
+		long payload = 0;
+		for (TransmissionParcel p : parcels) {
+			payload += p.getLength();
+		}
+		payload *= rounds;
+		
+		// warm up
+		for (int i = 0; i < rounds; i++) {
+			for (TransmissionParcel p : parcels) {
+				codec.write(p, sink);
+				p.writeObject(sink);
+			}
+			ByteArrayInputStream in = new ByteArrayInputStream(stream);
+			for (int j = 0; j < parcels.length; j++) {
+				codec.read(con, in).release();
+			}
+			in = new ByteArrayInputStream(stream);
+			for (int j = 0; j < parcels.length; j++) {
+				TransmissionParcel.readParcel(con, in);
+			}
+		}
+		
+		// encoding (codec)
+		long mark = allocatedBytes();
+		for (int i = 0; i < rounds; i++) {
+			for (TransmissionParcel p : parcels) {
+				codec.write(p, sink);
+			}
+		}
+		long encCodec = allocatedBytes() - mark;
+		
+		// encoding (data stream)
+		mark = allocatedBytes();
+		for (int i = 0; i < rounds; i++) {
+			for (TransmissionParcel p : parcels) {
+				p.writeObject(sink);
+			}
+		}
+		long encStream = allocatedBytes() - mark;
+		
+		// decoding (codec, pooled data buffers)
+		ByteArrayInputStream[] inputs = new ByteArrayInputStream[rounds];
+		for (int i = 0; i < rounds; i++) {
+			inputs[i] = new ByteArrayInputStream(stream);
+		}
+		mark = allocatedBytes();
+		for (int i = 0; i < rounds; i++) {
+			for (int j = 0; j < parcels.length; j++) {
+				codec.read(con, inputs[i]).release();
+			}
+		}
+		long decCodec = allocatedBytes() - mark;
+		
+		// decoding (data stream)
+		for (int i = 0; i < rounds; i++) {
+			inputs[i] = new ByteArrayInputStream(stream);
+		}
+		mark = allocatedBytes();
+		for (int i = 0; i < rounds; i++) {
+			for (int j = 0; j < parcels.length; j++) {
+				TransmissionParcel.readParcel(con, inputs[i]);
+			}
+		}
+		long decStream = allocatedBytes() - mark;
+		
+		System.out.println("-- parcels: " + nrParcels + ", payload bytes: " + payload);
+		System.out.println("-- encoding, bytes allocated per parcel: codec " + encCodec / nrParcels 
+				+ ", data-stream " + encStream / nrParcels);
+		System.out.println("-- decoding, bytes allocated per parcel: codec (pooled) " 
+				+ decCodec / nrParcels + ", data-stream " + decStream / nrParcels 
+				+ " (beyond payload " + (decStream - payload) / nrParcels + ")");
+		
+		// encoding allocates nothing (allow for measurement noise)
+		assertTrue("codec encoding allocates: " + encCodec, encCodec < 4096);
+		
+		// decoding allocates no more than the parcel and the object header
+		assertTrue("codec decoding allocates: " + decCodec / nrParcels, decCodec / nrParcels <= 128);
+	}
+
+	@Test
+	public void parcel_views () throws IOException {
+		ConnectionImpl con = new ConnectionImpl(LayerCategory.CLIENT);
+		
+		// parcels are sections of the serialisation buffer
+		for (int size : new int[] {4000, 4800, 999, 1000}) {
+			byte[] data = Util.randBytes(size);
+			TransmissionParcel[] parcels = TransmissionParcel.createParcelArray(con, data, 1, 0, 
+					SendPriority.NORMAL, PARCEL_SIZE);
+			assertTrue("bad number of parcels", parcels.length == (size + PARCEL_SIZE - 1) / PARCEL_SIZE);
+			int pos = 0;
+			for (TransmissionParcel p : parcels) {
+				assertTrue("parcel data is not a view", p.getData() == data);
+				assertTrue("bad parcel offset", p.getOffset() == pos);
+				assertTrue("bad parcel length", p.getLength() == Math.min(PARCEL_SIZE, size - pos));
+				pos += p.getLength();
+			}
+			assertTrue("data not covered by parcels", pos == size);
+			
+			// decoded parcels restore the data
+			ByteArrayInputStream in = new ByteArrayInputStream(encode(parcels));
+			ParcelCodec codec = new ParcelCodec();
+			byte[] result = new byte[size];
+			pos = 0;
+			for (int i = 0; i < parcels.length; i++) {
+				TransmissionParcel r = codec.read(con, in);
+				System.arraycopy(r.getData(), r.getOffset(), result, pos, r.getLength());
+				pos += r.getLength();
+				r.release();
+			}
+			assertTrue("decoded data mismatch", pos == size && Util.equalArrays(result, data));
+		}
+		
+		// slicing allocates no copy of the data
+		byte[] data = Util.randBytes(100000);
+		TransmissionParcel.createParcelArray(con, data, 1, 0, SendPriority.NORMAL, PARCEL_SIZE);
+		long mark = allocatedBytes();
+		TransmissionParcel.createParcelArray(con, data, 2, 0, SendPriority.NORMAL, PARCEL_SIZE);
+		long alloc = allocatedBytes() - mark;
+		System.out.println("-- slicing 100000 bytes into " + 100000 / PARCEL_SIZE + " parcels allocates " + alloc);
+		assertTrue("slicing copies data: " + alloc, alloc < data.length / 2);
+	}
+
+	/** Returns parcels of various kinds: a single-parcel object, a 
+	 * multi-parcel object, file parcels with path and signals.
+	 */
+	private static List<TransmissionParcel> createMixedParcels (ConnectionImpl con) {
+		List<TransmissionParcel> list = new ArrayList<>();
+		list.addAll(Arrays.asList(TransmissionParcel.createParcelArray(con, Util.randBytes(60), 
+				1, 0, SendPriority.NORMAL, PARCEL_SIZE)));
+		list.addAll(Arrays.asList(TransmissionParcel.createParcelArray(con, Util.randBytes(OBJECT_SIZE), 
+				200000, 1, SendPriority.HIGH, PARCEL_SIZE)));
+		
+		byte[] data = Util.randBytes(PARCEL_SIZE);
+		TransmissionParcel p = new TransmissionParcel(con, 3000000000L, 0, data, 0, 500);
+		p.setChannel(TransmissionChannel.FILE);
+		p.setPriority(SendPriority.LOW);
+		ObjectHeader header = p.getObjectHeader();
+		header.setPath("empfang/dateien/test-file.dat");
+		header.setTransmissionSize(123456789L);
+		header.setNrOfParcels(124);
+		header.setCrc32(0x8badf00d);
+		header.setPriority(SendPriority.LOW);
+		list.add(p);
+		p = new TransmissionParcel(con, 3000000000L, 123, data, 0, 800);
+		p.setChannel(TransmissionChannel.FILE);
+		p.setPriority(SendPriority.LOW);
+		list.add(p);
+		
+		list.add(Signal.newConfirmSignal(con, 3000000000L));
+		list.add(Signal.newBreakSignal(con, 5, 3, "user break"));
+		return list;
+	}
+	
+	private static void assertEqualParcels (TransmissionParcel p, TransmissionParcel r) {
+		assertTrue("decoded parcel mismatch", r.equals(p));
+		assertTrue("decoded channel mismatch", r.getChannel() == p.getChannel());
+		assertTrue("decoded priority mismatch", r.getPriority() == p.getPriority());
+		assertTrue("decoded data length mismatch", r.getLength() == p.getLength());
+		assertTrue("decoded data mismatch", r.getLength() == 0 || Util.equalArrays(
+				Arrays.copyOfRange(r.getData(), r.getOffset(), r.getOffset() + r.getLength()), 
+				Arrays.copyOfRange(p.getData(), p.getOffset(), p.getOffset() + p.getLength())));
+		ObjectHeader h1 = p.getObjectHeader();
+		ObjectHeader h2 = r.getObjectHeader();
+		assertTrue("object header mismatch", (h1 == null) == (h2 == null));
+		if (h1 != null) {
+			assertTrue("object header mismatch", h1.getNumberOfParcels() == h2.getNumberOfParcels()
+					&& h1.getTransmissionSize() == h2.getTransmissionSize()
+					&& h1.getSerialisationMethod() == h2.getSerialisationMethod()
+					&& h1.getCrc32() == h2.getCrc32()
+					&& h1.getPriority() == h2.getPriority());
+			assertTrue("object header path mismatch", h1.getPath() == null ? h2.getPath() == null
+					: h1.getPath().equals(h2.getPath()));
+		}
+	}
+	
+	@Test
+	public void compact_encode_decode () throws IOException {
+		ConnectionImpl con = new ConnectionImpl(LayerCategory.CLIENT);
+		
+		for (ChecksumType type : new ChecksumType[] {ChecksumType.ADLER32, ChecksumType.NONE}) {
+			List<TransmissionParcel> parcels = createMixedParcels(con);
+			ParcelCodec codec = new ParcelCodec(type, HeaderFormat.COMPACT);
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			for (TransmissionParcel p : parcels) {
+				codec.write(p, out);
+			}
+			byte[] stream = out.toByteArray();
+			
+			// decoding from stream restores parcels
+			ByteArrayInputStream in = new ByteArrayInputStream(stream);
+			for (TransmissionParcel p : parcels) {
+				TransmissionParcel r = codec.read(con, in);
+				assertEqualParcels(p, r);
+				r.release();
+			}
+			assertTrue("stream not consumed", in.available() == 0);
+			
+			// decoding from buffer restores parcels, frame length is 
+			// undetermined or correct on incomplete data
+			ByteBuffer buf = ByteBuffer.wrap(stream);
+			for (TransmissionParcel p : parcels) {
+				int pos = buf.position();
+				int frame = codec.frameLength(buf);
+				assertTrue("frame length undetermined", frame > 0);
+				for (int k = 0; k < frame; k++) {
+					buf.limit(pos + k);
+					int f = codec.frameLength(buf);
+					assertTrue("bad frame length on partial data: " + f, f == -1 || f == frame);
+				}
+				buf.limit(stream.length);
+				TransmissionParcel r = codec.read(con, buf);
+				assertTrue("bad frame length", buf.position() - pos == frame);
+				assertEqualParcels(p, r);
+				r.release();
+			}
+			assertTrue("buffer not consumed", !buf.hasRemaining());
+		}
+		
+		// a corrupted parcel is detected
+		List<TransmissionParcel> parcels = createMixedParcels(con);
+		ParcelCodec codec = new ParcelCodec(ChecksumType.ADLER32, HeaderFormat.COMPACT);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		codec.write(parcels.get(0), out);
+		byte[] stream = out.toByteArray();
+		stream[stream.length - 1] ^= 1;
+		try {
+			codec.read(con, new ByteArrayInputStream(stream));
+			assertTrue("corrupted parcel not detected", false);
+		} catch (BadTransmissionParcelException e) {
+		}
+	}
+	
+	/** A file region parcel whose CRC value was calculated for a different
+	 * checksum type (change of the connection format) is recalculated from
+	 * the file for the checksum type of the sender.
+	 */
+	@Test
+	public void region_crc_adjust () throws IOException {
+		ConnectionImpl con = new ConnectionImpl(LayerCategory.CLIENT);
+		byte[] data = Util.randBytes(PARCEL_SIZE);
+		File file = Util.getTempFile();
+		Util.makeFile(file, data);
+		FileSource source = new FileSource(file);
+		
+	try {
+		TransmissionParcel region = new TransmissionParcel(con, 5, 1);
+		region.setChannel(TransmissionChannel.FILE);
+		region.setFileRegion(source, 0, ByteBuffer.wrap(data), null);
+		TransmissionParcel block = new TransmissionParcel(con, 5, 1, data);
+		block.setChannel(TransmissionChannel.FILE);
+		assertTrue("ADLER32 region CRC", region.getCRC() == block.getCRC());
+		
+		for (ChecksumType type : new ChecksumType[] {ChecksumType.NONE, ChecksumType.CRC32C, 
+				ChecksumType.ADLER32}) {
+			if (!ParcelChecksum.isSupported(type)) continue;
+			ParcelChecksum checksum = new ParcelChecksum(type);
+			int crc = block.getCRC(checksum);
+			region.adjustRegionCRC(checksum);
+			assertTrue(type + " region CRC", region.getCRC(checksum) == crc);
+		}
+		region.release();
+		
+	} finally {
+		source.release();
+		file.delete();
+	}
+	}
+	
+	/** Compares the header overhead per object of the STANDARD and COMPACT
+	 * formats for small objects.
+	 */
+	@Test
+	public void compact_header_size () throws IOException {
+		ConnectionImpl con = new ConnectionImpl(LayerCategory.CLIENT);
+		int nrObjects = 1000;
+		
+		for (int size : new int[] {16, 100, 1000}) {
+			long[] overhead = new long[3];
+			ParcelCodec[] codecs = new ParcelCodec[] {
+					new ParcelCodec(ChecksumType.ADLER32, HeaderFormat.STANDARD),
+					new ParcelCodec(ChecksumType.ADLER32, HeaderFormat.COMPACT),
+					new ParcelCodec(ChecksumType.NONE, HeaderFormat.COMPACT)};
+			
+			for (int i = 0; i < codecs.length; i++) {
+				ByteArrayOutputStream out = new ByteArrayOutputStream();
+				for (int j = 0; j < nrObjects; j++) {
+					for (TransmissionParcel p : TransmissionParcel.createParcelArray(con, 
+							Util.randBytes(size), j + 1, 0, SendPriority.NORMAL, PARCEL_SIZE)) {
+						codecs[i].write(p, out);
+					}
+				}
+				overhead[i] = (out.size() - (long)nrObjects * size) / nrObjects;
+			}
+			
+			System.out.println("-- object size " + size + ", header bytes per object: STANDARD " 
+					+ overhead[0] + ", COMPACT " + overhead[1] + ", COMPACT (no CRC) " + overhead[2]);
+			assertTrue("standard header size", overhead[0] == TransmissionParcel.HEADER_LENGTH 
+					+ ObjectHeader.FIXED_LENGTH);
+			assertTrue("compact header too large: " + overhead[1], overhead[1] <= 11);
+			assertTrue("compact header too large: " + overhead[2], overhead[2] <= 7);
+		}
+	}
+}
@@ -0,0 +1,188 @@
+/*  File: TestUnit_Receive_Buffers.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.kse.jennynet.intfa.Connection;
+import org.kse.jennynet.intfa.SendPriority;
+import org.kse.jennynet.intfa.ServerConnection;
+import org.kse.jennynet.test.FileReceptionListener;
+import org.kse.jennynet.test.FileReceptionListener.Station;
+import org.kse.jennynet.test.StandardServer;
+import org.kse.jennynet.util.Util;
+
+/** Tests the pool of payload buffers for received parcels and its 
+ * statistics in the connection monitor.
+ */
+public class TestUnit_Receive_Buffers {
+
+	/** Counts the received objects and releases a latch when the
+	 * expected number has arrived.
+	 */
+	private static class CountListener extends DefaultConnectionListener {
+		AtomicLong counter = new AtomicLong();
+		CountDownLatch latch;
+		long expected;
+		
+		CountListener (long expected) {
+			this.expected = expected;
+			latch = new CountDownLatch(1);
+		}
+		
+		@Override
+		public void objectReceived (Connection con, SendPriority priority, long objNr, Object obj) {
+			if (counter.incrementAndGet() == expected) {
+				latch.countDown();
+			}
+		}
+	}
+	
+	@Test
+	public void pool_size_classes () {
+		BufferPool pool = new BufferPool(4 * 1024);
+		
+		// buffer sizes of classes
+		assertTrue(pool.allocate(1).length == BufferPool.MIN_BUFFER_SIZE);
+		assertTrue(pool.allocate(1024).length == 1024);
+		assertTrue(pool.allocate(1025).length == 2048);
+		assertTrue(pool.allocate(60000).length == 64 * 1024);
+		assertTrue(pool.allocate(BufferPool.MAX_BUFFER_SIZE).length == BufferPool.MAX_BUFFER_SIZE);
+		assertTrue(pool.allocate(BufferPool.MAX_BUFFER_SIZE + 1).length == BufferPool.MAX_BUFFER_SIZE + 1);
+		
+		// empty pool
+		assertTrue(pool.poll(500) == null);
+		assertTrue(pool.size() == 0);
+		
+		// recycled buffer is served for fitting length
+		byte[] b1 = pool.allocate(3000);
+		pool.recycle(b1);
+		assertTrue(pool.size() == 1);
+		assertTrue(pool.poll(2000) == null);
+		assertTrue(pool.poll(3500) == b1);
+		assertTrue(pool.size() == 0);
+		
+		// foreign buffers are not taken
+		pool.recycle(new byte[3000]);
+		pool.recycle(new byte[512]);
+		pool.recycle(new byte[BufferPool.MAX_BUFFER_SIZE + 1]);
+		assertTrue(pool.size() == 0);
+		
+		// class limit (min. 4 buffers)
+		for (int i = 0; i < 6; i++) {
+			pool.recycle(pool.allocate(100));
+		}
+		assertTrue(pool.size() == 4);
+	}
+
+	@Test
+	public void parcel_references () {
+		Client cl = new Client();
+		byte[] buffer = cl.obtainReceiveBuffer(3000);
+		TransmissionParcel parcel = new TransmissionParcel(cl, 1, 0);
+		parcel.setPooledData(buffer, 3000);
+		assertTrue(cl.getMonitor().receiveBuffersOutstanding == 1);
+		
+		// a retained parcel keeps its buffer until the last release
+		parcel.retain();
+		parcel.release();
+		assertTrue(parcel.getData() == buffer);
+		assertTrue(parcel.getLength() == 3000);
+		assertTrue(cl.getMonitor().receiveBuffersOutstanding == 1);
+		
+		parcel.release();
+		assertTrue(parcel.getData() == null);
+		assertTrue(cl.getMonitor().receiveBuffersOutstanding == 0);
+		
+		// surplus calls have no effect
+		parcel.release();
+		parcel.retain();
+		assertTrue(parcel.getData() == null);
+		assertTrue(cl.getMonitor().receiveBuffersOutstanding == 0);
+		cl.close();
+	}
+
+	@Test
+	public void connection_buffer_release () throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+		int nrObjects = 200;
+		CountListener listener = new CountListener(nrObjects);
+		Object lock = new Object();
+		FileReceptionListener fileListener = new FileReceptionListener(lock, 1, Station.SERVER);
+		
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		File root = new File("test");
+		root.mkdirs();
+		sv.getParameters().setFileRootDir(root);
+		sv.getParameters().setObjectQueueCapacity(nrObjects);
+		sv.start();
+		
+		cl = new Client();
+		cl.getParameters().setTransmissionParcelSize(16 * 1024);
+		cl.connect(100, sv.getSocketAddress());
+		Util.sleep(100);
+		ServerConnection scon = sv.getConnections()[0];
+		scon.addListener(fileListener);
+		
+		// send objects and a file to server
+		byte[] data = Util.randBytes(40000);
+		for (int i = 0; i < nrObjects; i++) {
+			cl.sendData(data, 0, data.length, SendPriority.NORMAL);
+		}
+		File src = Util.getTempFile(); 
+		Util.makeFile(src, Util.randBytes(500000));
+		synchronized (lock) {
+			cl.sendFile(src, "empfang/pool-test.dat");
+			lock.wait(10000);
+		}
+		assertTrue("objects not received", listener.latch.await(10, TimeUnit.SECONDS));
+		assertTrue("file not received", fileListener.getReceived().size() == 1);
+		Util.sleep(200);
+		
+		ConnectionMonitor mon = scon.getMonitor();
+		System.out.println("-- receive buffers: requests " + mon.receiveBufferRequests + ", hits " 
+				+ mon.receiveBufferHits + ", outstanding " + mon.receiveBuffersOutstanding);
+		System.out.println(mon.report(3));
+		
+		// all buffers released, pool serves most requests
+		assertTrue("no receive buffers requested", mon.receiveBufferRequests > nrObjects);
+		assertTrue("receive buffers not released", mon.receiveBuffersOutstanding == 0);
+		assertTrue("low pool hit rate", mon.receiveBufferHits * 2 > mon.receiveBufferRequests);
+		
+	} finally {
+		if (cl != null) cl.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+}
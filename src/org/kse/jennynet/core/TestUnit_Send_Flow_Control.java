@@ -0,0 +1,235 @@
+/*  File: TestUnit_Send_Flow_Control.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.core;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.kse.jennynet.intfa.Connection;
+import org.kse.jennynet.intfa.SendPriority;
+import org.kse.jennynet.intfa.TransmissionEvent;
+import org.kse.jennynet.intfa.TransmissionEventType;
+import org.kse.jennynet.test.StandardServer;
+import org.kse.jennynet.util.Util;
+
+/** Tests the credit based flow control of the send-load.
+ */
+public class TestUnit_Send_Flow_Control {
+
+	/** Counts received objects and files. */
+	private static class CountListener extends DefaultConnectionListener {
+		final CountDownLatch latch;
+		volatile File received;
+		
+		CountListener (int count) {
+			latch = new CountDownLatch(count);
+		}
+		
+		@Override
+		public void objectReceived (Connection con, SendPriority priority, long objNr, Object obj) {
+			latch.countDown();
+		}
+
+		@Override
+		public void transmissionEventOccurred (TransmissionEvent evt) {
+			if (evt.getType() == TransmissionEventType.FILE_RECEIVED) {
+				received = evt.getFile();
+				latch.countDown();
+			} else if (evt.getType() == TransmissionEventType.FILE_ABORTED) {
+				latch.countDown();
+			}
+		}
+	}
+	
+	@Test
+	public void control_states () throws InterruptedException {
+		SendFlowControl control = new SendFlowControl();
+		control.setLimit(1000);
+		
+		// credit below limit is granted without waiting
+		control.acquire(600);
+		control.acquire(600);
+		assertTrue(control.getLoad() == 1200);
+		assertTrue(!control.isAvailable());
+		assertTrue(control.getWaitCount() == 0);
+		
+		// a waiting producer is released when the load falls below the limit
+		AtomicBoolean granted = new AtomicBoolean();
+		Thread producer = new Thread(() -> {
+			try {
+				control.acquire(100);
+				granted.set(true);
+			} catch (InterruptedException e) {
+			}
+		});
+		producer.start();
+		Util.sleep(100);
+		assertTrue("credit granted above limit", !granted.get());
+		control.release(600);
+		producer.join(1000);
+		assertTrue("credit not granted", granted.get());
+		assertTrue(control.getLoad() == 700);
+		assertTrue(control.getWaitCount() == 1);
+		assertTrue(control.getWaitTime() >= 90);
+		
+		// closed control blocks independent of the load
+		control.setOpen(false);
+		assertTrue(!control.isAvailable());
+		granted.set(false);
+		producer = new Thread(() -> {
+			try {
+				control.acquire(100);
+				granted.set(true);
+			} catch (InterruptedException e) {
+			}
+		});
+		producer.start();
+		Util.sleep(100);
+		assertTrue("credit granted while closed", !granted.get());
+		control.setOpen(true);
+		producer.join(1000);
+		assertTrue("credit not granted", granted.get());
+		
+		// a waiting producer can be interrupted
+		control.charge(1000);
+		AtomicBoolean interrupted = new AtomicBoolean();
+		producer = new Thread(() -> {
+			try {
+				control.acquire(100);
+			} catch (InterruptedException e) {
+				interrupted.set(true);
+			}
+		});
+		producer.start();
+		Util.sleep(50);
+		producer.interrupt();
+		producer.join(1000);
+		assertTrue("wait not interrupted", interrupted.get());
+		assertTrue(control.getLoad() == 1800);
+	}
+	
+	/** Many producers acquire credit for parcels which a single consumer 
+	 * releases. The load stays bounded and no producer is left waiting.
+	 */
+	@Test
+	public void concurrent_producers () throws InterruptedException {
+		SendFlowControl control = new SendFlowControl();
+		int producers = 8, parcels = 5000, size = 1000;
+		long limit = 16 * size;
+		control.setLimit(limit);
+		BlockingQueue<Integer> queue = new ArrayBlockingQueue<>(producers * parcels);
+		AtomicLong peak = new AtomicLong();
+		
+		Thread[] threads = new Thread[producers];
+		for (int i = 0; i < producers; i++) {
+			threads[i] = new Thread(() -> {
+				try {
+					for (int j = 0; j < parcels; j++) {
+						control.acquire(size);
+						peak.accumulateAndGet(control.getLoad(), Math::max);
+						queue.put(size);
+					}
+				} catch (InterruptedException e) {
+				}
+			});
+			threads[i].start();
+		}
+		
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < producers * parcels; i++) {
+			Integer length = queue.poll(5, TimeUnit.SECONDS);
+			assertTrue("producers stalled", length != null);
+			control.release(length);
+		}
+		long time = System.currentTimeMillis() - start;
+		for (Thread t : threads) {
+			t.join(1000);
+		}
+		System.out.println("-- " + producers + " producers, " + producers * parcels + " parcels: " 
+				+ time + " ms, waits " + control.getWaitCount() + ", wait time " + control.getWaitTime() 
+				+ " ms, peak load " + peak.get());
+		assertTrue(control.getLoad() == 0);
+		assertTrue("load exceeded bound: " + peak.get(), peak.get() <= limit + producers * size);
+		assertTrue("no waits recorded", control.getWaitCount() > 0);
+	}
+	
+	/** Objects and a file are sent concurrently over a connection with a 
+	 * small send-load limit; the send waits appear in the monitor. 
+	 */
+	@Test
+	public void connection_send_waits () throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+		int number = 200;
+		File src = Util.getTempFile(); 
+		byte[] data = Util.randBytes(2 * JennyNet.MEGA);
+		Util.makeFile(src, data);
+		CountListener listener = new CountListener(number + 1);
+		
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		File root = new File("test");
+		root.mkdirs();
+		sv.getParameters().setFileRootDir(root);
+		sv.getParameters().setObjectQueueCapacity(number);
+		sv.start();
+		
+		cl = new Client();
+		cl.getParameters().setParcelQueueCapacity(10);
+		cl.getParameters().setTransmissionParcelSize(4 * JennyNet.KILO);
+		cl.connect(100, sv.getSocketAddress());
+		cl.setTempo(4 * JennyNet.MEGA);
+		Util.sleep(100);
+		
+		cl.sendFile(src, "empfang/flow-control.dat");
+		byte[] obj = Util.randBytes(10000);
+		for (int i = 0; i < number; i++) {
+			cl.sendData(obj, 0, obj.length, SendPriority.NORMAL);
+		}
+		
+		assertTrue("transmission incomplete", listener.latch.await(60, TimeUnit.SECONDS));
+		assertTrue("file not received", listener.received != null);
+		assertTrue("file data mismatch", Util.equalArrays(data, Util.readFile(listener.received)));
+		
+		ConnectionMonitor mon = cl.getMonitor();
+		System.out.println(mon.report(3));
+		assertTrue("no send waits", mon.sendWaits > 0);
+		
+	} finally {
+		src.delete();
+		if (cl != null) cl.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+}
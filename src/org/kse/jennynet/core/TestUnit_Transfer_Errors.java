@@ -62,6 +62,24 @@ public class TestUnit_Transfer_Errors {
 		}
 	}
 
+	/** Waits until the listener has received a FILE_ABORTED event with the
+	 * given info, at most 10 seconds.
+	 * 
+	 * @return boolean true = event received
+	 */
+	private static boolean waitForAbortion (FileReceptionListener listener, int info) {
+		long deadline = System.currentTimeMillis() + 10000;
+		while (System.currentTimeMillis() < deadline) {
+			synchronized (listener) {
+				if (listener.hasTransmissionEvent(TransmissionEventType.FILE_ABORTED, info)) {
+					return true;
+				}
+			}
+			Util.sleep(20);
+		}
+		return false;
+	}
+	
 	@Test
 	public void missing_transmission_confirm () throws IOException, InterruptedException {
 		Object lock1 = new Object(), lock2 = new Object();
@@ -95,13 +113,9 @@ public class TestUnit_Transfer_Errors {
 		cl.setNextObjectNr(25);
 		cl.sendFile(src, "empfang/albrecht.dat");
 		
-		// wait for completion
-		synchronized(lock1) {
-			lock1.wait();
-		}
-		synchronized(lock2) {
-			lock2.wait();
-		}
+		// wait for completion (the remote event may precede the local one)
+		assertTrue("FILE_ABORTED not signalled on client side", waitForAbortion(sendListener, 103));
+		assertTrue("FILE_ABORTED not signalled on server side", waitForAbortion(receptionListener, 104));
 
 		System.out.println("\nSENDER EVENTS:");
 		for (TransmissionEvent evt : sendListener.getEvents()) {
@@ -161,13 +175,9 @@ public class TestUnit_Transfer_Errors {
 			// transmit file (speed limit)
 			cl.sendFile(src, "empfang/ursula.dat");
 			
-			// wait for completion
-			synchronized(lock1) {
-				lock1.wait();
-			}
-			synchronized(lock2) {
-				lock2.wait();
-			}
+			// wait for completion (the remote event may precede the local one)
+			assertTrue("FILE_ABORTED not signalled on client side", waitForAbortion(sendListener, 111));
+			assertTrue("FILE_ABORTED not signalled on server side", waitForAbortion(receptionListener, 112));
 	
 			System.out.println("\nSENDER EVENTS:");
 			for (TransmissionEvent evt : sendListener.getEvents()) {
@@ -23,18 +23,21 @@ package org.kse.jennynet.core;
 
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
+import org.kse.jennynet.core.JennyNet.ChecksumType;
 import org.kse.jennynet.exception.BadTransmissionParcelException;
 import org.kse.jennynet.exception.StreamOutOfSyncException;
 import org.kse.jennynet.intfa.SendPriority;
-import org.kse.jennynet.util.CRC32;
 import org.kse.jennynet.util.SchedulableTimerTask;
 import org.kse.jennynet.util.Util;
 
@@ -47,6 +50,16 @@ import org.kse.jennynet.util.Util;
 class TransmissionParcel extends JennyNetByteBuffer implements Comparable<TransmissionParcel> {
    
    public static final int PARCEL_MARK = JennyNet.PARCEL_MARKER;
+   /** Serialisation length of the basic parcel header. */
+   public static final int HEADER_LENGTH = 26;
+   /** Parcel mark of the COMPACT header format. */
+   public static final byte COMPACT_MARK = (byte)(PARCEL_MARK >>> 24);
+   /** Maximum serialisation length of the basic parcel header in COMPACT 
+    * format. */
+   public static final int COMPACT_HEADER_LENGTH = 26;
+   /** Flag in the COMPACT header: sequence number is zero and the object 
+    * header, if any, is reduced to the serialisation method. */
+   static final int COMPACT_SINGLE = 0x20;
    
    /** Returns an array of transmission parcels of the OBJECT channel 
     * converted from object serialisation data. It is assumed that 
@@ -76,12 +89,13 @@ class TransmissionParcel extends JennyNetByteBuffer implements Comparable<Transm
       int lastBit = dataLen % parcelSize; 
       if (lastBit > 0) nrOfParcels++;
       
-      // create a list of parcels
+      // create a list of parcels (views on the serialisation data)
       List<TransmissionParcel> list = new ArrayList<>();
       for (int i = 0; i < nrOfParcels; i++) {
-         int segmentSize = i < nrOfParcels-1 ? transmissionParcelSize : lastBit;
-         TransmissionParcel p = new TransmissionParcel(con, objectNr, i, 
-               serObj, i*transmissionParcelSize, segmentSize);
+         int start = i*transmissionParcelSize;
+         int segmentSize = Math.min(transmissionParcelSize, dataLen - start);
+         TransmissionParcel p = new TransmissionParcel(con, objectNr, i);
+         p.setData(serObj, start, segmentSize);
          p.setPriority(priority);
          list.add(p);
       }
@@ -105,6 +119,18 @@ class TransmissionParcel extends JennyNetByteBuffer implements Comparable<Transm
    private long objectID;
    private int sequencelNr;
    
+   // data section if the data block is a view on a larger buffer, otherwise -1
+   private int offset;
+   private int length = -1;
+   // number of holders of a pool buffer, 0 if the data is not pooled
+   private int references;
+   // checksum type of the CRC value, null if not calculated
+   private ChecksumType crcType;
+   
+   // file region as data (FILE channel), replaces the data block
+   private FileSource fileSource;
+   private long filePosition;
+   
    // connection reference
    private ConnectionImpl connection;
    
@@ -112,7 +138,7 @@ class TransmissionParcel extends JennyNetByteBuffer implements Comparable<Transm
    /** Creates a new transmission parcel for the OBJECT channel with the 
     * given data buffer and header information. (For other channels use
     * the <code>setChannel()</code> method.)  
-    * This fully defines the parcel.
+    * This fully defines the parcel. The data section is copied.
     * 
     * @param con {@code ConnectionImpl} connection on which parcel is sent
     * @param objectNr int the transmission object number
@@ -127,7 +153,21 @@ class TransmissionParcel extends JennyNetByteBuffer implements Comparable<Transm
 		   					  byte[] buffer, 
 		   					  int start, 
 		   					  int length) {
-      super(buffer, start, length);
+      this(con, objectNr, parcelNr);
+      Objects.requireNonNull(buffer, "buffer is null");
+      if (start < 0 | length < 0 | start+length > buffer.length)
+         throw new IllegalArgumentException("illegal start/length setting for byte data");
+      setData(Arrays.copyOfRange(buffer, start, start + length));
+   }
+
+   /** Creates a new transmission parcel for the OBJECT channel without 
+    * data. The data block is defined by one of the {@code setData()} methods.
+    * 
+    * @param con {@code ConnectionImpl} connection on which parcel is sent
+    * @param objectNr int the transmission object number
+    * @param parcelNr int the parcel serial number
+    */
+   TransmissionParcel (ConnectionImpl con, long objectNr, int parcelNr) {
       Objects.requireNonNull(con, "connection is null");
 
       connection = con;
@@ -203,7 +243,8 @@ class TransmissionParcel extends JennyNetByteBuffer implements Comparable<Transm
    }
 
    /** Creates a parcel from an existing other parcel (identical settings).
-    * The data-block is the same reference.
+    * The data-block is the same reference; a pool buffer is not owned by 
+    * the new parcel and must not be used after the original is released.
     * 
     * @param p {@code TransmissionParcel}
     */
@@ -214,7 +255,10 @@ class TransmissionParcel extends JennyNetByteBuffer implements Comparable<Transm
       sequencelNr = p.sequencelNr;
       header = p.header;
       setData(p.getData());
+      offset = p.offset;
+      length = p.length;
       crc32 = p.crc32;
+      crcType = p.crcType;
       connection = p.connection;
    }
 
@@ -251,9 +295,50 @@ class TransmissionParcel extends JennyNetByteBuffer implements Comparable<Transm
 
       // write serial buffer if supplied
       if (getLength() > 0) {
-         out.write(getData());
+         out.write(getData(), offset, getLength());
+      }
+   }
+
+   /** Writes the header information of this parcel (basic header and, if 
+    * available, object header) to the given byte-buffer at its current 
+    * position. The parcel's CRC value must have been calculated and the
+    * buffer must have sufficient space (see {@code getHeaderLength()}).
+    * 
+    * @param out {@code ByteBuffer}
+    */
+   void writeHeader (ByteBuffer out) {
+      out.putInt( PARCEL_MARK );
+      out.put( (byte)channel.ordinal() );
+      out.put( (byte)priority.ordinal() );
+      out.putLong( objectID );
+      out.putInt( sequencelNr );
+      out.putInt( getLength() );
+      out.putInt( crc32 );
+
+      // for parcel number 0 we write extended header information
+      if (hasObjectHeader()) {
+         header.writeObject(out);
       }
    }
+   
+   /** Returns the serialisation length of the header information of this
+    * parcel (basic header and object header).
+    * 
+    * @return int header length
+    */
+   int getHeaderLength () {
+	  return HEADER_LENGTH + (hasObjectHeader() ? header.getHeaderLength() : 0);
+   }
+   
+   /** Whether this parcel carries object header information in transmission,
+    * i.e. it is parcel number 0 of the OBJECT or FILE channel.
+    * 
+    * @return boolean
+    */
+   private boolean hasObjectHeader () {
+	  return sequencelNr == 0 & (channel == TransmissionChannel.OBJECT |
+	            channel == TransmissionChannel.FILE);
+   }
 
    /** Reads the content of this parcel from the given input-stream.
     * 
@@ -298,12 +383,524 @@ class TransmissionParcel extends JennyNetByteBuffer implements Comparable<Transm
       }
    }
    
+   /** Reads the content of this parcel from the given byte-buffer. The 
+    * buffer must contain the complete parcel serialisation starting at 
+    * its current position (see {@code frameLength()}). The buffer position
+    * is advanced by the parcel's serialisation length.
+    * 
+    * @param con {@code ConnectionImpl}
+    * @param in {@code ByteBuffer}
+    * @throws IOException
+    */
+   public void readObject (ConnectionImpl con, ByteBuffer in) throws IOException {
+      readObject(con, in, null);
+   }
+   
+   /** Reads the content of this parcel from the given byte-buffer with an
+    * optional checksum instance for CRC verification. 
+    * 
+    * @param con {@code ConnectionImpl}
+    * @param in {@code ByteBuffer}
+    * @param checksum {@code ParcelChecksum} reusable checksum, may be null
+    * @throws IOException
+    */
+   void readObject (ConnectionImpl con, ByteBuffer in, ParcelChecksum checksum) throws IOException {
+      int crc = in.getInt(in.position() + 22);
+      int dataLength = readHeader(con, in);
+
+      // read the serial buffer if it is supplied
+      if (dataLength > 0) {
+         byte[] buffer = new byte[dataLength];
+         in.get(buffer);
+         setData(buffer);
+      }
+      
+      // check CRC value of the parcel
+      if (crc != getCRC(checksum)) {
+         throw new BadTransmissionParcelException("bad CRC value");
+      }
+   }
+   
+   /** Reads the header information of this parcel (basic header and object
+    * header) from the given byte-buffer and returns the length of the data
+    * block which follows. The buffer must contain the complete header 
+    * information starting at its current position; its position is advanced
+    * to the end of the header.
+    * 
+    * @param con {@code ConnectionImpl}
+    * @param in {@code ByteBuffer}
+    * @return int data length
+    * @throws IOException
+    */
+   int readHeader (ConnectionImpl con, ByteBuffer in) throws IOException {
+      int mark = in.getInt();
+      if (mark != PARCEL_MARK) {
+         throw new StreamOutOfSyncException("bad parcel mark");
+      }
+      
+      // read basic parcel information
+      connection = con;
+      channel = TransmissionChannel.valueOf(in.get() & 0xFF);
+      priority = SendPriority.valueOf(in.get());
+      objectID = in.getLong();
+      sequencelNr = in.getInt();
+      int dataLength = in.getInt();
+      in.getInt();
+      
+      // for parcel number 0 we read extended header information
+      if (hasObjectHeader()) {
+         header = new ObjectHeader(objectID);
+         header.readObject(in);
+      }
+      return dataLength;
+   }
+   
+   /** Returns the serialisation length of the parcel which starts at the 
+    * current position of the given buffer or -1 if the buffer does not yet
+    * contain enough data to determine this value. The buffer position is
+    * not modified, except when no parcel mark is found, in which case the 
+    * position is advanced by the length of the mark.
+    * 
+    * @param buf {@code ByteBuffer} received data
+    * @return int parcel length or -1 if undetermined
+    * @throws StreamOutOfSyncException if there is no parcel mark
+    * @throws BadTransmissionParcelException if the data length is invalid
+    */
+   public static int frameLength (ByteBuffer buf) throws IOException {
+      if (buf.remaining() < HEADER_LENGTH) return -1;
+      int pos = buf.position();
+      if (buf.getInt(pos) != PARCEL_MARK) {
+    	 buf.position(pos + 4);
+         throw new StreamOutOfSyncException("bad parcel mark");
+      }
+      
+      int channel = buf.get(pos + 4);
+      int sequence = buf.getInt(pos + 14);
+      int dataLength = buf.getInt(pos + 18);
+      if (dataLength < 0) {
+    	 buf.position(pos + HEADER_LENGTH);
+         throw new BadTransmissionParcelException("bad data length: " + dataLength);
+      }
+      int length = HEADER_LENGTH + dataLength;
+
+      // parcel number 0 of OBJECT and FILE has extended header information
+      if (sequence == 0 & (channel == TransmissionChannel.OBJECT.ordinal() |
+    		channel == TransmissionChannel.FILE.ordinal()) ) {
+    	 if (buf.remaining() < HEADER_LENGTH + ObjectHeader.FIXED_LENGTH) return -1;
+    	 int pathLength = buf.getShort(pos + HEADER_LENGTH + 22);
+    	 length += ObjectHeader.FIXED_LENGTH + Math.max(pathLength, 0);
+      }
+      return length;
+   }
+   
+   /** Writes the header information of this parcel in the COMPACT format
+    * to the given byte-buffer at its current position. The parcel's CRC 
+    * value must have been calculated and the buffer must have sufficient 
+    * space (see {@code getCompactHeaderLength()}).
+    * <p>The COMPACT format consists of a mark byte, a flags byte holding
+    * channel (bits 0..1), priority (bits 2..4) and the SINGLE flag (bit 5),
+    * the CRC value (4 bytes, only if {@code withCrc} is true) and the 
+    * variable length encoded object-ID, sequence number (not for SINGLE) 
+    * and data length. The object header follows for parcel number 0; it
+    * consists of the serialisation method only if the parcel is the single
+    * parcel of an object without path and CRC (SINGLE). 
+    * 
+    * @param out {@code ByteBuffer}
+    * @param withCrc boolean whether the CRC value is written
+    */
+   void writeCompactHeader (ByteBuffer out, boolean withCrc) {
+	  boolean hasHeader = hasObjectHeader();
+	  boolean single = sequencelNr == 0 && (!hasHeader || header.isSingleParcel(getLength()));
+      out.put( COMPACT_MARK );
+      out.put( (byte)(channel.ordinal() | priority.ordinal() << 2 | (single ? COMPACT_SINGLE : 0)) );
+      if (withCrc) {
+    	 out.putInt( crc32 );
+      }
+      putVarLong(out, objectID);
+      if (!single) {
+    	 putVarLong(out, sequencelNr);
+      }
+      putVarLong(out, getLength());
+
+      // for parcel number 0 we write extended header information
+      if (hasHeader) {
+         header.writeCompact(out, single);
+      }
+   }
+   
+   /** Returns the maximum serialisation length of the header information of
+    * this parcel in the COMPACT format (basic header and object header).
+    * 
+    * @return int header length
+    */
+   int getCompactHeaderLength () {
+	  return COMPACT_HEADER_LENGTH + (hasObjectHeader() ? header.getCompactLength() : 0);
+   }
+   
+   /** Reads the header information of this parcel in the COMPACT format 
+    * from the given byte-buffer and returns the length of the data
+    * block which follows. The buffer must contain the complete header 
+    * information starting at its current position; its position is advanced
+    * to the end of the header.
+    * 
+    * @param con {@code ConnectionImpl}
+    * @param in {@code ByteBuffer}
+    * @param withCrc boolean whether the header contains a CRC value
+    * @return int data length
+    * @throws IOException
+    */
+   int readCompactHeader (ConnectionImpl con, ByteBuffer in, boolean withCrc) throws IOException {
+      if (in.get() != COMPACT_MARK) {
+         throw new StreamOutOfSyncException("bad parcel mark");
+      }
+      
+      // read basic parcel information
+      connection = con;
+      int flags = in.get() & 0xFF;
+      boolean single = (flags & COMPACT_SINGLE) != 0;
+      channel = TransmissionChannel.valueOf(flags & 3);
+      priority = SendPriority.valueOf(flags >> 2 & 7);
+      if (withCrc) {
+    	 in.getInt();
+      }
+      objectID = getVarLong(in);
+      sequencelNr = single ? 0 : toInt(getVarLong(in));
+      int dataLength = toInt(getVarLong(in));
+      
+      // for parcel number 0 we read extended header information
+      if (hasObjectHeader()) {
+         header = new ObjectHeader(objectID);
+         header.readCompact(in, single, priority, dataLength);
+      }
+      return dataLength;
+   }
+   
+   /** Returns the serialisation length of the parcel in COMPACT format which
+    * starts at the current position of the given buffer or -1 if the buffer 
+    * does not yet contain enough data to determine this value. The buffer 
+    * position is not modified, except when no parcel mark is found, in which
+    * case the position is advanced by the length of the mark.
+    * 
+    * @param buf {@code ByteBuffer} received data
+    * @param withCrc boolean whether the header contains a CRC value
+    * @return int parcel length or -1 if undetermined
+    * @throws StreamOutOfSyncException if there is no parcel mark
+    * @throws BadTransmissionParcelException if the data length is invalid
+    */
+   public static int compactFrameLength (ByteBuffer buf, boolean withCrc) throws IOException {
+      int pos = buf.position();
+      if (buf.remaining() < 2) return -1;
+      if (buf.get(pos) != COMPACT_MARK) {
+    	 buf.position(pos + 1);
+         throw new StreamOutOfSyncException("bad parcel mark");
+      }
+      
+      int flags = buf.get(pos + 1) & 0xFF;
+      boolean single = (flags & COMPACT_SINGLE) != 0;
+      int channel = flags & 3;
+      int p = pos + 2 + (withCrc ? 4 : 0);
+      
+      // object-ID and sequence number
+      int n = varLength(buf, p);
+      if (n < 0) return -1;
+      p += n;
+      long sequence = 0;
+      if (!single) {
+    	 if ((n = varLength(buf, p)) < 0) return -1;
+    	 sequence = getVarLong(buf, p);
+    	 p += n;
+      }
+      
+      // data length
+      if ((n = varLength(buf, p)) < 0) return -1;
+      long dataLength = getVarLong(buf, p);
+      p += n;
+      if (dataLength > Integer.MAX_VALUE) {
+    	 buf.position(p);
+         throw new BadTransmissionParcelException("bad data length: " + dataLength);
+      }
+
+      // parcel number 0 of OBJECT and FILE has extended header information
+      if (sequence == 0 & (channel == TransmissionChannel.OBJECT.ordinal() |
+    		channel == TransmissionChannel.FILE.ordinal()) ) {
+    	 p++;
+    	 if (!single) {
+    		// object size, number of parcels, CRC, path length
+    		for (int i = 0; i < 3; i++) {
+    		   if ((n = varLength(buf, p)) < 0) return -1;
+    		   p += n;
+    		}
+    		if ((n = varLength(buf, p)) < 0) return -1;
+    		long pathLength = getVarLong(buf, p);
+    		if (pathLength > 0xFFFF) {
+    		   buf.position(p + n);
+    		   throw new BadTransmissionParcelException("bad path length: " + pathLength);
+    		}
+    		p += n + (int)pathLength;
+    	 }
+      }
+      return p - pos + (int)dataLength;
+   }
+   
+   /** Writes the given non-negative value in variable length encoding 
+    * (7 bits per byte, least significant group first, high bit marks 
+    * continuation) to the given buffer.
+    * 
+    * @param out {@code ByteBuffer}
+    * @param value long value
+    */
+   static void putVarLong (ByteBuffer out, long value) {
+	  while ((value & ~0x7FL) != 0) {
+		 out.put((byte)(value & 0x7F | 0x80));
+		 value >>>= 7;
+	  }
+	  out.put((byte)value);
+   }
+   
+   /** Reads a variable length encoded value from the given buffer at its
+    * current position.
+    * 
+    * @param in {@code ByteBuffer}
+    * @return long value
+    * @throws BadTransmissionParcelException if the encoding is too long
+    */
+   static long getVarLong (ByteBuffer in) {
+	  long value = 0;
+	  for (int shift = 0; shift < 64; shift += 7) {
+		 int b = in.get();
+		 value |= (long)(b & 0x7F) << shift;
+		 if (b >= 0) return value;
+	  }
+      throw new BadTransmissionParcelException("bad variable length value");
+   }
+   
+   /** Reads a variable length encoded value from the given buffer at the 
+    * given position. The encoding must be complete (see {@code varLength()}).
+    * 
+    * @param in {@code ByteBuffer}
+    * @param pos int buffer position
+    * @return long value
+    */
+   private static long getVarLong (ByteBuffer in, int pos) {
+	  long value = 0;
+	  for (int shift = 0;; shift += 7) {
+		 int b = in.get(pos++);
+		 value |= (long)(b & 0x7F) << shift;
+		 if (b >= 0) return value;
+	  }
+   }
+   
+   /** Returns the length of the variable length encoded value at the given
+    * position of the buffer or -1 if the buffer does not contain the 
+    * complete encoding.
+    * 
+    * @param buf {@code ByteBuffer}
+    * @param pos int buffer position
+    * @return int encoding length or -1
+    * @throws BadTransmissionParcelException if the encoding is too long
+    */
+   private static int varLength (ByteBuffer buf, int pos) throws IOException {
+	  for (int i = 0; i < 10; i++) {
+		 if (pos + i >= buf.limit()) return -1;
+		 if (buf.get(pos + i) >= 0) return i + 1;
+	  }
+      throw new BadTransmissionParcelException("bad variable length value");
+   }
+   
+   /** Returns the given header value as integer.
+    * 
+    * @param value long
+    * @return int 
+    * @throws BadTransmissionParcelException if the value is out of range
+    */
+   private static int toInt (long value) throws IOException {
+	  if (value < 0 | value > Integer.MAX_VALUE) 
+         throw new BadTransmissionParcelException("bad header value: " + value);
+	  return (int)value;
+   }
+   
    @Override
    public void setData(byte[] block) {
       super.setData(block);
+      offset = 0;
+      length = -1;
+      crc32 = 0;
+   }
+
+   /** Defines the content of this parcel as a section of the given data 
+    * buffer. The data is not copied, the parcel becomes a view on the 
+    * buffer; hence the buffer must not be modified while the parcel 
+    * is alive.
+    * 
+    * @param block byte[] data buffer
+    * @param start int data start offset in buffer
+    * @param length int data length in buffer
+    * @throws IllegalArgumentException if data addressing is wrong
+    */
+   void setData (byte[] block, int start, int length) {
+      if (start < 0 | length < 0 | start+length > block.length)
+         throw new IllegalArgumentException("illegal start/length setting for byte data");
+      super.setData(block);
+      offset = start;
+      this.length = length;
       crc32 = 0;
    }
 
+   /** Defines the content of this parcel as a buffer obtained from the 
+    * receive buffer pool of the parcel's connection. The buffer may be larger
+    * than the data length. The parcel holds one reference on the buffer; 
+    * further holders acquire one by {@code retain()}. The buffer is given 
+    * back to the pool when the last reference is released by 
+    * {@code release()}.
+    * 
+    * @param block byte[] pool buffer
+    * @param length int data length in buffer
+    */
+   void setPooledData (byte[] block, int length) {
+      setData(block, 0, length);
+      references = 1;
+   }
+
+   /** Acquires an additional reference on the pool buffer of this parcel, 
+    * which has to be given back by {@code release()}. Has no effect if the
+    * data is not pooled or has already been released.
+    */
+   synchronized void retain () {
+	  if (references > 0) {
+		 references++;
+	  }
+   }
+
+   /** Defines the content of this parcel as a region of the given file 
+    * source. The file data is not stored in the parcel but transferred from
+    * the file to the socket when the parcel is written. The parcel holds a 
+    * reference on the file source until it is released. The CRC value of the
+    * parcel is calculated from the given buffer which has to contain the 
+    * data of the region between its position and limit.
+    * 
+    * @param source {@code FileSource} file source
+    * @param position long file position of the region
+    * @param content {@code ByteBuffer} data of the region
+    * @param checksum {@code ParcelChecksum} reusable checksum, may be null
+    */
+   void setFileRegion (FileSource source, long position, ByteBuffer content, ParcelChecksum checksum) {
+      setFileRegion(source, position, content.remaining());
+      
+      ParcelChecksum crc = checksum == null ? newChecksum() : checksum;
+      crc.reset();
+      crc.update(content);
+      crc32 = finishCRC(crc);
+   }
+
+   /** Defines the content of this parcel as a region of the given file 
+    * source without reading the region. This is for connections with 
+    * checksum type NONE, where the CRC value does not depend on the data.
+    * 
+    * @param source {@code FileSource} file source
+    * @param position long file position of the region
+    * @param length int data length of the region
+    */
+   void setFileRegion (FileSource source, long position, int length) {
+      super.setData(null);
+      source.retain();
+      fileSource = source;
+      filePosition = position;
+      offset = 0;
+      this.length = length;
+      crc32 = finishCRC(newChecksum());
+   }
+   
+   /** Recalculates the CRC value of a file region parcel if it was 
+    * calculated for a different checksum type than the given one. This 
+    * occurs if the parcel format of the connection changed while the parcel
+    * was queued; the region is then read from the file.
+    * 
+    * @param checksum {@code ParcelChecksum} reusable checksum of the sender
+    * @throws IOException
+    */
+   void adjustRegionCRC (ParcelChecksum checksum) throws IOException {
+      if (fileSource == null || checksum.getType() == crcType) return;
+      
+      checksum.reset();
+      if (checksum.getType() != ChecksumType.NONE) {
+         ByteBuffer content = ByteBuffer.allocate(length);
+         if (fileSource.read(content, filePosition) < length) {
+            throw new EOFException("file region beyond end of file");
+         }
+         content.flip();
+         checksum.update(content);
+      }
+      crc32 = finishCRC(checksum);
+   }
+   
+   /** Whether the data of this parcel is a region of a file source.
+    * 
+    * @return boolean
+    */
+   boolean isFileRegion () {return fileSource != null;}
+
+   /** Returns the file source of this parcel or null if the data is not 
+    * a file region.
+    * 
+    * @return {@code FileSource} or null
+    */
+   FileSource getFileSource () {return fileSource;}
+   
+   /** Returns the file position of the data if this parcel refers to a
+    * file region.
+    * 
+    * @return long file position
+    */
+   long getFilePosition () {return filePosition;}
+   
+   /** Returns the offset of the data section in the data block (see
+    * {@code getData()}).
+    * 
+    * @return int data offset
+    */
+   public int getOffset () {
+      return offset;
+   }
+
+   /** Returns the length of the stored data.
+    * 
+    * @return int data length
+    */
+   @Override
+   public int getLength () {
+      return length > -1 ? length : super.getLength();
+   }
+   
+   /** Releases a reference on the data block of this parcel if it was 
+    * obtained from the receive buffer pool, or the file source if the data 
+    * is a file region. With the last reference the block is given back to 
+    * the pool and the parcel has no data. 
+    * <p>A received parcel has a single holder on all paths: the receive
+    * engine for SIGNAL and OBJECT parcels, the file agglomeration for FILE
+    * parcels, which writes the data before it releases. Batch unpacking and 
+    * object agglomeration copy the data they keep. A consumer which holds 
+    * the parcel beyond its digestion has to call {@code retain()}. Calls on
+    * parcels without pool buffer or file region and surplus calls have no 
+    * effect.
+    */
+   void release () {
+	  byte[] block;
+	  synchronized (this) {
+		 if (fileSource != null) {
+			fileSource.release();
+			fileSource = null;
+			length = -1;
+			return;
+		 }
+		 if (references == 0 || --references > 0) return;
+		 block = getData();
+		 super.setData(null);
+		 offset = 0;
+		 length = -1;
+	  }
+	  connection.releaseReceiveBuffer(block);
+   }
+
    /** Returns the object header data record if available.
     * On each parcel number 0 the transmittable object's header
     * data is available, null otherwise.
@@ -360,19 +957,57 @@ class TransmissionParcel extends JennyNetByteBuffer implements Comparable<Transm
     */
    @Override
    public int getCRC () {
-      if (crc32 == 0) {
-         CRC32 crc = new CRC32();
+      return getCRC(null);
+   }
+   
+   /** Returns a CRC value for all information in this parcel, using the
+    * given checksum instance for calculation if it is not yet available
+    * or was calculated for a different checksum type.
+    * 
+    * @param checksum {@code ParcelChecksum} reusable checksum, may be null
+    * @return int CRC value
+    */
+   int getCRC (ParcelChecksum checksum) {
+      if ((crc32 == 0 || checksum != null && checksum.getType() != crcType) 
+    	  && fileSource == null) {
+         ParcelChecksum crc = checksum;
+         if (crc == null) {
+        	 crc = newChecksum();
+         } else {
+        	 crc.reset();
+         }
          if (getLength() > 0) {
-            crc.update(getData());
+            crc.update(getData(), offset, getLength());
          }
-         crc.update(objectID);
-         crc.update(sequencelNr);
-         crc.update((byte)channel.ordinal());
-         crc32 = (int)crc.getValue();
+         crc32 = finishCRC(crc);
       }
       return crc32;
    }
    
+   /** Returns a new checksum instance of the type which is assigned to the
+    * connection of this parcel (default type if there is no connection).
+    * 
+    * @return {@code ParcelChecksum}
+    */
+   private ParcelChecksum newChecksum () {
+      return connection == null ? new ParcelChecksum() 
+    		 : new ParcelChecksum(connection.getChecksumType());
+   }
+   
+   /** Adds the header values of this parcel to the given checksum which 
+    * contains the data and returns the resulting CRC value.
+    * 
+    * @param crc {@code ParcelChecksum} checksum over parcel data
+    * @return int CRC value
+    */
+   private int finishCRC (ParcelChecksum crc) {
+      crcType = crc.getType();
+      crc.update(objectID);
+      crc.update(sequencelNr);
+      crc.update((byte)channel.ordinal());
+      return (int)crc.getValue();
+   }
+   
    public void report (int io, PrintStream out) {
 	  String hstr = this instanceof Signal ? (" " + ((Signal)this).getSigType()) : "";
       prot("++ " + (io==0 ? "REC":"SND") + "-PARCEL: obj=" + objectID + ", ser=" + sequencelNr 
@@ -406,6 +1041,12 @@ class TransmissionParcel extends JennyNetByteBuffer implements Comparable<Transm
       return p;
    }
 
+   public static TransmissionParcel readParcel(ConnectionImpl con, ByteBuffer in) throws IOException {
+      TransmissionParcel p = new TransmissionParcel();
+      p.readObject(con, in);
+      return p;
+   }
+
    public ConnectionImpl getConnection () {
 	   return connection;
    }
@@ -425,7 +1066,7 @@ class TransmissionParcel extends JennyNetByteBuffer implements Comparable<Transm
     * @return int
     */
    public int getSerialisedLength () {
-      return getLength() + 26 + (header != null ? header.getHeaderLength() : 0);
+      return getLength() + HEADER_LENGTH + (header != null ? header.getHeaderLength() : 0);
    }
    
    
@@ -0,0 +1,146 @@
+/*  File: WaiterList.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+
+package org.kse.jennynet.core;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/** List of threads which wait for a condition of a lock-free control, 
+ * shared by {@code SendFlowControl} and {@code DeliveryControl}. Waiting
+ * threads are parked and woken by {@code signal()}, which the control 
+ * calls whenever the condition may have become true. The time threads 
+ * spend waiting is recorded.
+ */
+final class WaiterList {
+
+   private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
+   private final AtomicLong waitTime = new AtomicLong();
+   private final AtomicLong waitCounter = new AtomicLong();
+   
+   /** Blocks the calling thread until the given condition is true. The 
+    * wait is recorded.
+    * 
+    * @param condition {@code BooleanSupplier} condition to end waiting
+    * @param blocker Object synchronisation object of the control
+    * @throws InterruptedException if the calling thread is interrupted 
+    *         while waiting
+    */
+   public void await (BooleanSupplier condition, Object blocker) throws InterruptedException {
+	  // enter the waiter list before testing again, so that a signal
+	  // occurring meanwhile unparks this thread
+	  Thread thread = Thread.currentThread();
+	  long start = System.nanoTime();
+	  waiters.add(thread);
+	  try {
+		 while (!condition.getAsBoolean()) {
+			if (Thread.interrupted()) 
+			   throw new InterruptedException();
+			LockSupport.park(blocker);
+		 }
+	  } finally {
+		 waiters.remove(thread);
+		 waitTime.addAndGet(System.nanoTime() - start);
+		 waitCounter.incrementAndGet();
+	  }
+   }
+   
+   /** Blocks the calling thread until the given condition is true. This 
+    * does not react to thread interruption; the interrupted state of the
+    * calling thread is preserved. The wait is recorded.
+    * 
+    * @param condition {@code BooleanSupplier} condition to end waiting
+    * @param blocker Object synchronisation object of the control
+    */
+   public void awaitUninterruptibly (BooleanSupplier condition, Object blocker) {
+	  Thread thread = Thread.currentThread();
+	  long start = System.nanoTime();
+	  boolean interrupted = false;
+	  waiters.add(thread);
+	  try {
+		 while (!condition.getAsBoolean()) {
+			LockSupport.park(blocker);
+			interrupted |= Thread.interrupted();
+		 }
+	  } finally {
+		 waiters.remove(thread);
+		 waitTime.addAndGet(System.nanoTime() - start);
+		 waitCounter.incrementAndGet();
+		 if (interrupted) {
+			thread.interrupt();
+		 }
+	  }
+   }
+   
+   /** Blocks the calling thread until the given condition is true, testing
+    * it at least in the given period for conditions which are not 
+    * signalled. The wait is not recorded.
+    * 
+    * @param condition {@code BooleanSupplier} condition to end waiting
+    * @param blocker Object synchronisation object of the control
+    * @param period long nanoseconds of testing the condition
+    * @return boolean true = condition reached, false = calling thread 
+    *         interrupted
+    */
+   public boolean awaitPolling (BooleanSupplier condition, Object blocker, long period) {
+	  Thread thread = Thread.currentThread();
+	  waiters.add(thread);
+	  try {
+		 while (!condition.getAsBoolean()) {
+			if (Thread.interrupted()) return false;
+			LockSupport.parkNanos(blocker, period);
+		 }
+		 return true;
+	  } finally {
+		 waiters.remove(thread);
+	  }
+   }
+   
+   /** Wakes all waiting threads, which then test their condition again.
+    */
+   public void signal () {
+	  if (!waiters.isEmpty()) {
+		 for (Thread thread : waiters) {
+			LockSupport.unpark(thread);
+		 }
+	  }
+   }
+   
+   /** Returns the total time threads have been waiting.
+    * 
+    * @return long milliseconds
+    */
+   public long getWaitTime () {
+	  return waitTime.get() / 1000000;
+   }
+   
+   /** Returns the number of recorded waits.
+    * 
+    * @return long number of waits
+    */
+   public long getWaitCount () {
+	  return waitCounter.get();
+   }
+}
@@ -0,0 +1,116 @@
+/*  File: CompressionCodec.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+
+package org.kse.jennynet.intfa;
+
+import java.io.IOException;
+
+/**
+ * Interface for a device which compresses transmission data of objects
+ * and files. A codec is identified by a code number which is unique in the
+ * layer and announced to the remote station during connection handshake;
+ * data is only sent compressed with codecs which are known to the remote
+ * station. Codecs are registered at the layer with 
+ * {@code JennyNet.setCompressionCodec()}.
+ * 
+ * <p>Implementations must be thread-safe as a codec instance is shared by
+ * all connections of the layer.
+ */
+
+public interface CompressionCodec {
+
+   /** The code number of this codec in the range 1..6. 
+    * 
+    * @return int codec ID
+    */
+   int getCodecID ();
+   
+   /** A human readable name for this codec.
+    * 
+    * @return String
+    */
+   String getName ();
+   
+   /** Returns the compressed form of the given data block.
+    * 
+    * @param data byte[] data buffer
+    * @param offset int start offset in data
+    * @param length int length of data block
+    * @return byte[] compressed data
+    */
+   byte[] compress (byte[] data, int offset, int length);
+   
+   /** Returns the original form of the given compressed data block. 
+    * 
+    * @param data byte[] data buffer
+    * @param offset int start offset in data
+    * @param length int length of compressed data block
+    * @param maxLength int maximum length of the decompressed data
+    * @return byte[] decompressed data
+    * @throws IOException if the data is corrupted or the decompressed data 
+    *         exceeds the maximum length
+    */
+   byte[] decompress (byte[] data, int offset, int length, int maxLength) throws IOException;
+   
+   /** Whether this codec compresses object serialisations with a preset
+    * dictionary of the serialisation device (see 
+    * {@code Serialization.getCompressionDictionary()}). Such codecs are
+    * applied to object serialisations regardless of the compression 
+    * threshold. Returns false by default.
+    * 
+    * @return boolean
+    */
+   default boolean usesDictionary () {
+	   return false;
+   }
+   
+   /** Returns the compressed form of the given data block using the given
+    * preset dictionary. By default the dictionary is ignored.
+    * 
+    * @param data byte[] data buffer
+    * @param offset int start offset in data
+    * @param length int length of data block
+    * @param dictionary byte[] preset dictionary or null
+    * @return byte[] compressed data
+    */
+   default byte[] compress (byte[] data, int offset, int length, byte[] dictionary) {
+	   return compress(data, offset, length);
+   }
+   
+   /** Returns the original form of the given compressed data block using
+    * the given preset dictionary, which must be equal to the dictionary 
+    * used for compression. By default the dictionary is ignored.
+    * 
+    * @param data byte[] data buffer
+    * @param offset int start offset in data
+    * @param length int length of compressed data block
+    * @param maxLength int maximum length of the decompressed data
+    * @param dictionary byte[] preset dictionary or null
+    * @return byte[] decompressed data
+    * @throws IOException if the data is corrupted, the decompressed data 
+    *         exceeds the maximum length or the dictionary does not match
+    */
+   default byte[] decompress (byte[] data, int offset, int length, int maxLength, 
+		   byte[] dictionary) throws IOException {
+	   return decompress(data, offset, length, maxLength);
+   }
+}
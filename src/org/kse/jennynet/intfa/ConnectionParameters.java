@@ -25,6 +25,8 @@ import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 
+import org.kse.jennynet.core.JennyNet.ChecksumType;
+import org.kse.jennynet.core.JennyNet.HeaderFormat;
 import org.kse.jennynet.core.JennyNet.ThreadUsage;
 import org.kse.jennynet.exception.SerialisationUnavailableException;
 
@@ -148,12 +150,19 @@ public interface ConnectionParameters extends Cloneable, Serializable {
 	ThreadUsage getDeliveryThreadUsage ();
 
 	/** Sets delivery thread usage of this connection. The setting can have
-	 * one of two values.
+	 * one of three values.
 	 * 'INDIVIDUAL' makes object and event delivery occurring in a thread 
 	 * reserved exclusively for this connection, while 'GLOBAL' means delivery 
 	 * takes place in the context of a single global thread. This setting is 
 	 * only relevant for a multi-connection setup, e.g. for a Server 
 	 * application. 
+	 * <p>'VIRTUAL' is like INDIVIDUAL but runs delivery and all other 
+	 * processing threads of the connection (input, receive, file sending and
+	 * file reception) on virtual threads. This requires a Java runtime of 
+	 * version 21 or later and makes large numbers of connections cheap. 
+	 * Thread priority settings have no effect on virtual threads. The 
+	 * processing threads of a connection are created as virtual threads 
+	 * only if the setting is present when the connection starts.
 	 * <p>Object delivery of a single connection always takes place in a
 	 * sequence. By large, this setting makes the difference between parallel
 	 * and serial delivery processing in a multi-connection setup. The 
@@ -161,6 +170,8 @@ public interface ConnectionParameters extends Cloneable, Serializable {
 	 * if there are possibly lengthy operations associated in the reception. 
 	 * 
 	 * @param usage JennyNet.ThreadUsage
+	 * @throws IllegalArgumentException if VIRTUAL is not supported by this
+	 *         Java runtime
 	 */
 	void setDeliveryThreadUsage (ThreadUsage usage);
 
@@ -179,6 +190,168 @@ public interface ConnectionParameters extends Cloneable, Serializable {
 	 * @param delay int milliseconds
 	 */
 	void setDeliverTolerance (int delay);
+
+	/** Returns the preferred integrity checksum type for transmission 
+	 * parcels. Defaults to ADLER32.
+	 * 
+	 * @return {@code ChecksumType}
+	 */
+	ChecksumType getChecksumType ();
+	
+	/** Sets the preferred integrity checksum type for transmission parcels
+	 * and transmitted files. The type of a connection is determined by the
+	 * server during connection handshake: the server's preference is used
+	 * if the client supports it, otherwise ADLER32. Hence the setting is 
+	 * effective on {@code Server} and {@code ServerConnection} parameters
+	 * and ignored on a {@code Client}. The type is assigned by signals 
+	 * shortly after the connection is established; parcels sent before use
+	 * ADLER32. A connection with a station of version 1.0.0 remains on 
+	 * ADLER32.
+	 * <p>CRC32C requires a Java runtime of version 9 or later. NONE 
+	 * disables the checksum, which is an option for trusted links where
+	 * the TCP checksum is sufficient.
+	 * 
+	 * @param type {@code ChecksumType}
+	 * @throws IllegalArgumentException if the type is not supported by
+	 *         this Java runtime
+	 */
+	void setChecksumType (ChecksumType type);
+	
+	/** Returns the preferred wire format of transmission parcel headers.
+	 * Defaults to STANDARD.
+	 * 
+	 * @return {@code HeaderFormat}
+	 */
+	HeaderFormat getHeaderFormat ();
+	
+	/** Sets the preferred wire format of transmission parcel headers. The
+	 * COMPACT format encodes header fields with variable length and omits
+	 * fields which are redundant for single-parcel objects; it saves some 
+	 * 40 bytes per parcel, which is significant for streams of small 
+	 * objects. Like the checksum type, the format of a connection is 
+	 * determined by the server during connection handshake: the server's
+	 * preference is used if the client supports it, otherwise STANDARD. 
+	 * Hence the setting is effective on {@code Server} and 
+	 * {@code ServerConnection} parameters and ignored on a {@code Client}. 
+	 * Parcels sent before the format is assigned use STANDARD, and a 
+	 * connection with a station of version 1.0.0 remains on STANDARD.
+	 * 
+	 * @param format {@code HeaderFormat}
+	 */
+	void setHeaderFormat (HeaderFormat format);
+	
+	/** Whether small objects are sent in batches. Defaults to false.
+	 * 
+	 * @return boolean
+	 */
+	boolean isObjectBatching ();
+	
+	/** Sets whether small objects are sent in batches. With batching, 
+	 * objects of the same send priority which are waiting in the send 
+	 * queue and whose serialisation fits into a single transmission parcel 
+	 * are packed together into one parcel, up to the transmission parcel 
+	 * size. This reduces the header, checksum and flush cost per object for
+	 * streams of many small objects. The receiver unpacks the objects in
+	 * sending order; object numbers and events are not affected. 
+	 * <p>Batches are only sent if the remote station has announced that it
+	 * supports them, otherwise the setting has no effect. A server learns
+	 * this shortly after the connection is established; a station of 
+	 * version 1.0.0 never receives batches. 
+	 * 
+	 * @param batching boolean true = batch small objects
+	 */
+	void setObjectBatching (boolean batching);
+	
+	/** Returns the maximum time a batch of small objects waits for further
+	 * objects before it is sent. Defaults to 0.
+	 * 
+	 * @return int milliseconds
+	 */
+	int getBatchLinger ();
+	
+	/** Sets the maximum time a batch of small objects waits for further
+	 * objects before it is sent, if the send queue is empty. With 0 a batch
+	 * comprises only the objects already waiting in the send queue; higher
+	 * values increase the batch yield on the expense of latency. Only 
+	 * relevant with object batching. Range 0..1,000, defaults to 0.
+	 * 
+	 * @param linger int milliseconds
+	 */
+	void setBatchLinger (int linger);
+	
+	/** Returns the ID of the compression codec for sending objects and 
+	 * files. Defaults to 0 (no compression).
+	 * 
+	 * @return int codec ID
+	 */
+	int getCompressionCodec ();
+	
+	/** Sets the ID of the compression codec for sending objects and files,
+	 * 0 for no compression. Codec 1 is the DEFLATE codec of the layer, 
+	 * codec 2 the DEFLATE codec with a preset dictionary which is built 
+	 * from the registered classes of the serialisation; it suits streams 
+	 * of small objects of a few classes and compresses object 
+	 * serialisations regardless of the threshold. Further codecs can be 
+	 * registered with {@code JennyNet.setCompressionCodec()}. Object serialisations and 
+	 * file data are sent compressed if the codec is known to the remote 
+	 * station, the send priority is enabled for compression, the data 
+	 * length reaches the compression threshold and the compressed data is
+	 * smaller than the original. 
+	 * 
+	 * @param codec int codec ID (0..6)
+	 * @throws IllegalArgumentException if codec is out of range
+	 */
+	void setCompressionCodec (int codec);
+	
+	/** Returns the minimum data length of objects and files for 
+	 * compression. Defaults to 1,024.
+	 * 
+	 * @return int bytes
+	 */
+	int getCompressionThreshold ();
+	
+	/** Sets the minimum data length of objects (serialisation) and files 
+	 * for compression. Smaller transmissions are sent uncompressed. 
+	 * Defaults to 1,024.
+	 * 
+	 * @param threshold int bytes (minimum 0)
+	 */
+	void setCompressionThreshold (int threshold);
+	
+	/** Whether transmissions of the given send priority are compressed
+	 * if a compression codec is set. Defaults to true for all priorities.
+	 * 
+	 * @param priority {@code SendPriority}
+	 * @return boolean
+	 */
+	boolean isCompressedPriority (SendPriority priority);
+	
+	/** Sets whether transmissions of the given send priority are 
+	 * compressed if a compression codec is set. This allows to exempt 
+	 * latency sensitive channels from compression. 
+	 * 
+	 * @param priority {@code SendPriority}
+	 * @param compressed boolean true = compress
+	 */
+	void setCompressedPriority (SendPriority priority, boolean compressed);
+	
+	/** Whether the transmission parcel size is adapted to the measured
+	 * send rate of the connection. Defaults to false.
+	 * 
+	 * @return boolean
+	 */
+	boolean isAdaptiveParcelSize ();
+	
+	/** Sets whether the transmission parcel size is adapted to the measured
+	 * send rate of the connection. With adaptive size, the 
+	 * TRANSMISSION_PARCEL_SIZE setting is the upper bound. Parcels are 
+	 * made small while traffic of higher send priority is present, so that 
+	 * priority data is not held up on slow links, and large while the send 
+	 * queue is saturated. The size does not fall below 4 k.
+	 * 
+	 * @param adaptive boolean true = adaptive parcel size
+	 */
+	void setAdaptiveParcelSize (boolean adaptive);
 	
    /** Returns the value for capacity of queues handling with data parcels.
     * Defaults to 600.
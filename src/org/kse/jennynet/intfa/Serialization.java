@@ -132,4 +132,16 @@ public interface Serialization {
     * @return {@code List<Class<?>>}
     */
    List<Class<?>> getRegisteredClasses ();
+   
+   /** Returns a preset dictionary for the compression of serialisations
+    * rendered by this device, or null if none is available. The dictionary
+    * is built from the typical serialised forms of the registered classes,
+    * so that devices with equal class registrations render equal 
+    * dictionaries.
+    * 
+    * @return byte[] dictionary or null
+    */
+   default byte[] getCompressionDictionary () {
+	   return null;
+   }
 }
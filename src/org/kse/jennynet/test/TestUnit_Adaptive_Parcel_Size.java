@@ -0,0 +1,202 @@
+/*  File: TestUnit_Adaptive_Parcel_Size.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.kse.jennynet.core.Client;
+import org.kse.jennynet.core.ConnectionMonitor;
+import org.kse.jennynet.core.DefaultConnectionListener;
+import org.kse.jennynet.core.JennyNet;
+import org.kse.jennynet.core.JennyNetByteBuffer;
+import org.kse.jennynet.core.Server;
+import org.kse.jennynet.intfa.Connection;
+import org.kse.jennynet.intfa.ConnectionParameters;
+import org.kse.jennynet.intfa.SendPriority;
+import org.kse.jennynet.intfa.TransmissionEvent;
+import org.kse.jennynet.intfa.TransmissionEventType;
+import org.kse.jennynet.util.Util;
+
+/** Tests on the adaptive transmission parcel size.
+ */
+public class TestUnit_Adaptive_Parcel_Size {
+
+	/** Collects received objects and files. */
+	private static class ReceptionListener extends DefaultConnectionListener {
+		final CountDownLatch latch;
+		volatile byte[] lastObject;
+		volatile File received;
+		
+		ReceptionListener (int count) {
+			latch = new CountDownLatch(count);
+		}
+		
+		@Override
+		public void objectReceived (Connection con, SendPriority priority, long objNr, Object obj) {
+			if (priority == SendPriority.NORMAL) {
+				lastObject = ((JennyNetByteBuffer)obj).getData();
+			}
+			latch.countDown();
+		}
+
+		@Override
+		public void transmissionEventOccurred (TransmissionEvent evt) {
+			if (evt.getType() == TransmissionEventType.FILE_RECEIVED) {
+				received = evt.getFile();
+				latch.countDown();
+			} else if (evt.getType() == TransmissionEventType.FILE_ABORTED) {
+				latch.countDown();
+			}
+		}
+	}
+	
+	private interface Sender {
+		void send (Client cl) throws IOException;
+	}
+	
+	/** Transmits from client to server with the given client settings and
+	 * returns the client monitor after reception of the given number of 
+	 * objects or files.
+	 */
+	private ConnectionMonitor transmit (boolean adaptive, int tempo, ReceptionListener listener, 
+			Sender sender) throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		File root = new File("test");
+		root.mkdirs();
+		sv.getParameters().setFileRootDir(root);
+		sv.start();
+		
+		cl = new Client();
+		cl.getParameters().setAdaptiveParcelSize(adaptive);
+		cl.connect(100, sv.getSocketAddress());
+		cl.setTempo(tempo);
+		Util.sleep(100);
+		
+		sender.send(cl);
+		assertTrue("transmission incomplete", listener.latch.await(60, TimeUnit.SECONDS));
+		ConnectionMonitor mon = cl.getMonitor();
+		System.out.println(mon.report(3));
+		return mon;
+		
+	} finally {
+		if (cl != null) cl.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+	
+	@Test
+	public void parameters () {
+		ConnectionParameters par = JennyNet.getDefaultParameters();
+		assertFalse("default adaptive", par.isAdaptiveParcelSize());
+		ConnectionParameters par2 = (ConnectionParameters) par.clone();
+		par2.setAdaptiveParcelSize(true);
+		assertTrue("adaptive not set", par2.isAdaptiveParcelSize());
+		assertFalse("equal values", par.equalValues(par2));
+		
+		Client cl = new Client();
+		try {
+			cl.getParameters().setAdaptiveParcelSize(true);
+			assertTrue("adaptive not set", cl.getParameters().isAdaptiveParcelSize());
+		} finally {
+			cl.close();
+		}
+	}
+
+	/** Without adaptive size no parcel sizes are rendered. */
+	@Test
+	public void fixed_size () throws IOException, InterruptedException {
+		byte[] data = Util.randBytes(200 * JennyNet.KILO);
+		ReceptionListener listener = new ReceptionListener(1);
+		ConnectionMonitor mon = transmit(false, 1000000, listener, 
+				cl -> cl.sendData(data, 0, data.length, SendPriority.NORMAL));
+		assertTrue("object data mismatch", Util.equalArrays(data, listener.lastObject));
+		assertFalse("adaptive in monitor", mon.adaptiveParcelSize);
+		assertTrue("parcel sizes rendered", mon.parcelSizes[SendPriority.NORMAL.ordinal()] == 0);
+	}
+	
+	/** On a 1 MB/s link an object alone is sent in parcels of 20 ms link
+	 * time, following higher priority traffic in parcels of the minimum size. 
+	 */
+	@Test
+	public void priority_traffic () throws IOException, InterruptedException {
+		byte[] data = Util.randBytes(200 * JennyNet.KILO);
+		byte[] signal = Util.randBytes(100);
+		int normal = SendPriority.NORMAL.ordinal();
+		
+		ReceptionListener listener = new ReceptionListener(1);
+		ConnectionMonitor mon = transmit(true, 1000000, listener, 
+				cl -> cl.sendData(data, 0, data.length, SendPriority.NORMAL));
+		assertTrue("object data mismatch", Util.equalArrays(data, listener.lastObject));
+		assertTrue("adaptive not in monitor", mon.adaptiveParcelSize);
+		assertTrue("unexpected parcel size " + mon.parcelSizes[normal], 
+				mon.parcelSizes[normal] == 20000 / JennyNet.KILO * JennyNet.KILO);
+
+		listener = new ReceptionListener(2);
+		mon = transmit(true, 1000000, listener, cl -> {
+				cl.sendData(signal, 0, signal.length, SendPriority.HIGH);
+				Util.sleep(50);
+				cl.sendData(data, 0, data.length, SendPriority.NORMAL);
+			});
+		assertTrue("object data mismatch", Util.equalArrays(data, listener.lastObject));
+		assertTrue("unexpected parcel size " + mon.parcelSizes[normal], 
+				mon.parcelSizes[normal] == JennyNet.MIN_ADAPTIVE_PARCEL_SIZE);
+	}
+	
+	/** A file following higher priority traffic is sent in small parcels. */
+	@Test
+	public void file_transfer () throws IOException, InterruptedException {
+		int length = 2 * JennyNet.MEGA + 1000;
+		File src = Util.getTempFile(); 
+		byte[] data = Util.randBytes(length);
+		byte[] signal = Util.randBytes(100);
+		Util.makeFile(src, data);
+		ReceptionListener listener = new ReceptionListener(2);
+		
+		try {
+			ConnectionMonitor mon = transmit(true, 4000000, listener, cl -> {
+				cl.sendData(signal, 0, signal.length, SendPriority.HIGH);
+				Util.sleep(50);
+				cl.sendFile(src, "empfang/adaptive.dat");
+			});
+			assertTrue("file not received", listener.received != null);
+			assertTrue("file data mismatch", Util.equalArrays(data, Util.readFile(listener.received)));
+			int size = mon.parcelSizes[SendPriority.NORMAL.ordinal()];
+			assertTrue("unexpected file parcel size " + size, size == 8000 / JennyNet.KILO * JennyNet.KILO);
+		} finally {
+			src.delete();
+		}
+	}
+}
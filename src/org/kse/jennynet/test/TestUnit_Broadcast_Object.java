@@ -0,0 +1,200 @@
+/*  File: TestUnit_Broadcast_Object.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.kse.jennynet.core.Client;
+import org.kse.jennynet.core.ConnectionMonitor;
+import org.kse.jennynet.core.DefaultConnectionListener;
+import org.kse.jennynet.core.DeflateCodec;
+import org.kse.jennynet.core.JennyNet;
+import org.kse.jennynet.core.Server;
+import org.kse.jennynet.intfa.Connection;
+import org.kse.jennynet.intfa.SendPriority;
+import org.kse.jennynet.util.Util;
+
+/** Tests the broadcast of objects from a server to its connections, which 
+ * serialises the object once for all connections with the same 
+ * serialisation setting. Compares the broadcast with sending the object 
+ * to each connection individually.
+ */
+public class TestUnit_Broadcast_Object {
+
+	private static final int NR_CLIENTS = 12;
+	private static final AtomicInteger WRITES = new AtomicInteger();
+	
+	/** A serialisable object which counts its serialisations. */
+	private static class Report implements Serializable {
+		private static final long serialVersionUID = 6327014533218853402L;
+		
+		final long id;
+		final List<String> lines = new ArrayList<>();
+		
+		Report (long id, int nrLines) {
+			this.id = id;
+			for (int i = 0; i < nrLines; i++) {
+				lines.add("report line " + i + ", value " + Util.nextRand(1000000));
+			}
+		}
+		
+		private void writeObject (ObjectOutputStream out) throws IOException {
+			WRITES.incrementAndGet();
+			out.defaultWriteObject();
+		}
+		
+		@Override
+		public boolean equals (Object obj) {
+			return obj instanceof Report && ((Report)obj).id == id && 
+					((Report)obj).lines.equals(lines);
+		}
+
+		@Override
+		public int hashCode () {
+			return (int) id;
+		}
+	}
+	
+	private static class Extra implements Serializable {
+		private static final long serialVersionUID = 1L;
+	}
+	
+	private static class ReceptionListener extends DefaultConnectionListener {
+		volatile CountDownLatch latch;
+		volatile Object expected;
+		AtomicInteger errors = new AtomicInteger();
+		
+		void expect (Object object) {
+			expected = object;
+			latch = new CountDownLatch(NR_CLIENTS);
+		}
+		
+		@Override
+		public void objectReceived (Connection con, SendPriority priority, long objNr, Object obj) {
+			if (!obj.equals(expected)) {
+				errors.incrementAndGet();
+			}
+			latch.countDown();
+		}
+	}
+	
+	@Test
+	public void serialise_once () throws IOException, InterruptedException {
+		JennyNet.getDefaultSerialisation(0).registerClass(Report.class);
+		JennyNet.getDefaultSerialisation(0).registerClass(ArrayList.class);
+		ReceptionListener listener = new ReceptionListener();
+		Server sv = null;
+		List<Client> clients = new ArrayList<>();
+		
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000));
+		sv.getParameters().setSerialisationMethod(0);
+		sv.getParameters().setCompressionCodec(DeflateCodec.CODEC_ID);
+		sv.getParameters().setObjectQueueCapacity(JennyNet.MAX_QUEUE_CAPACITY);
+		sv.start();
+		
+		for (int i = 0; i < NR_CLIENTS; i++) {
+			Client cl = new Client();
+			cl.getParameters().setSerialisationMethod(0);
+			cl.getParameters().setObjectQueueCapacity(JennyNet.MAX_QUEUE_CAPACITY);
+			cl.addListener(listener);
+			cl.connect(100, sv.getSocketAddress());
+			clients.add(cl);
+		}
+		Util.sleep(100);
+		Connection[] cons = sv.getConnections();
+		assertTrue(cons.length == NR_CLIENTS);
+		
+		// broadcast: one serialisation for all connections
+		Report report = new Report(1, 5000);
+		listener.expect(report);
+		WRITES.set(0);
+		sv.sendObjectToAll(report);
+		assertTrue("broadcast incomplete", listener.latch.await(30, TimeUnit.SECONDS));
+		assertTrue("received object mismatch", listener.errors.get() == 0);
+		System.out.println("-- broadcast to " + NR_CLIENTS + " connections, serialisations = " + WRITES.get());
+		assertTrue("serialisations: " + WRITES.get(), WRITES.get() == 1);
+		
+		// shared compression is accounted in each connection
+		for (Connection con : cons) {
+			ConnectionMonitor mon = con.getMonitor();
+			assertTrue("no compression", mon.compressInput > 0);
+			assertTrue("no compression", mon.compressOutput < mon.compressInput / 2);
+		}
+		
+		// a different class registration requires a separate serialisation
+		for (int i = 0; i < NR_CLIENTS / 2; i++) {
+			cons[i].getSendSerialization(0).registerClass(Extra.class);
+		}
+		report = new Report(2, 5000);
+		listener.expect(report);
+		WRITES.set(0);
+		sv.sendObjectToAllExcept(null, report, SendPriority.HIGH);
+		assertTrue("broadcast incomplete", listener.latch.await(30, TimeUnit.SECONDS));
+		assertTrue("received object mismatch", listener.errors.get() == 0);
+		assertTrue("serialisations: " + WRITES.get(), WRITES.get() == 2);
+		
+		// compare time of broadcast and individual sending
+		for (int round = 0; round < 3; round++) {
+			report = new Report(10 + round, 20000);
+			listener.expect(report);
+			long start = System.nanoTime();
+			for (Connection con : cons) {
+				con.sendObject(report);
+			}
+			assertTrue("sending incomplete", listener.latch.await(30, TimeUnit.SECONDS));
+			long individual = System.nanoTime() - start;
+			
+			listener.expect(report);
+			WRITES.set(0);
+			start = System.nanoTime();
+			sv.sendObjectToAll(report);
+			assertTrue("broadcast incomplete", listener.latch.await(30, TimeUnit.SECONDS));
+			long broadcast = System.nanoTime() - start;
+			assertTrue(WRITES.get() == 2);
+			
+			System.out.println("-- object to " + NR_CLIENTS + " connections: individual " 
+					+ individual / 1000000 + " ms, broadcast " + broadcast / 1000000 + " ms");
+		}
+		assertTrue("received object mismatch", listener.errors.get() == 0);
+		
+	} finally {
+		for (Client cl : clients) {
+			cl.close();
+		}
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+}
@@ -0,0 +1,149 @@
+/*  File: TestUnit_Checksum_Types.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.kse.jennynet.core.Client;
+import org.kse.jennynet.core.DefaultConnectionListener;
+import org.kse.jennynet.core.JennyNet;
+import org.kse.jennynet.core.JennyNet.ChecksumType;
+import org.kse.jennynet.core.JennyNetByteBuffer;
+import org.kse.jennynet.core.Server;
+import org.kse.jennynet.intfa.Connection;
+import org.kse.jennynet.intfa.SendPriority;
+import org.kse.jennynet.intfa.TransmissionEvent;
+import org.kse.jennynet.intfa.TransmissionEventType;
+import org.kse.jennynet.util.Util;
+
+/** Tests on the negotiated parcel checksum types.
+ */
+public class TestUnit_Checksum_Types {
+
+	/** Counts received objects and files. */
+	private static class ReceptionListener extends DefaultConnectionListener {
+		final CountDownLatch latch;
+		volatile byte[] object;
+		volatile File file;
+		
+		ReceptionListener (int count) {
+			latch = new CountDownLatch(count);
+		}
+		
+		@Override
+		public void objectReceived (Connection con, SendPriority priority, long objNr, Object obj) {
+			object = ((JennyNetByteBuffer)obj).getData();
+			latch.countDown();
+		}
+
+		@Override
+		public void transmissionEventOccurred (TransmissionEvent evt) {
+			if (evt.getType() == TransmissionEventType.FILE_RECEIVED) {
+				file = evt.getFile();
+				latch.countDown();
+			}
+		}
+	}
+	
+	/** Sets up a connection where the server prefers the given checksum 
+	 * type, transmits an object and a file and verifies the data and the
+	 * checksum type of both connection ends. The transmission starts while
+	 * the connection ends still negotiate the parcel format.
+	 * 
+	 * @param type {@code ChecksumType} server preference
+	 */
+	private void transmit_with (ChecksumType type) throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+		ReceptionListener listener = new ReceptionListener(2);
+		byte[] data = Util.randBytes(200000);
+		File src = Util.getTempFile(); 
+		Util.makeFile(src, data);
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		File root = new File("test");
+		root.mkdirs();
+		sv.getParameters().setFileRootDir(root);
+		sv.getParameters().setChecksumType(type);
+		sv.start();
+		
+		cl = new Client();
+		cl.getParameters().setTransmissionParcelSize(16 * JennyNet.KILO);
+		cl.connect(100, sv.getSocketAddress());
+		cl.sendData(data, 0, data.length, SendPriority.NORMAL);
+		cl.sendFile(src, "empfang/checksum-" + type + ".dat");
+		assertTrue("transmission incomplete", listener.latch.await(20, TimeUnit.SECONDS));
+		assertTrue("object data mismatch", Util.equalArrays(data, listener.object));
+		assertTrue("file data mismatch", Util.equalArrays(data, Util.readFile(listener.file)));
+		
+		// both ends operate on the server's preference
+		Connection svCon = sv.getConnections()[0];
+		long deadline = System.currentTimeMillis() + 5000;
+		while ((cl.getMonitor().checksumType != type || svCon.getMonitor().checksumType != type)
+				&& System.currentTimeMillis() < deadline) {
+			Util.sleep(10);
+		}
+		assertTrue("client checksum type", cl.getMonitor().checksumType == type);
+		assertTrue("server checksum type", svCon.getMonitor().checksumType == type);
+		
+	} finally {
+		src.delete();
+		if (cl != null) cl.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+	
+	@Test
+	public void negotiated_adler32 () throws IOException, InterruptedException {
+		transmit_with(ChecksumType.ADLER32);
+	}
+	
+	@Test
+	public void negotiated_crc32c () throws IOException, InterruptedException {
+		try {
+			JennyNet.getConnectionParameters().setChecksumType(ChecksumType.CRC32C);
+		} catch (IllegalArgumentException e) {
+			System.out.println("-- CRC32C not supported in this Java runtime, test skipped");
+			return;
+		}
+		try {
+			transmit_with(ChecksumType.CRC32C);
+		} finally {
+			JennyNet.getConnectionParameters().setChecksumType(JennyNet.DEFAULT_CHECKSUM_TYPE);
+		}
+	}
+	
+	@Test
+	public void negotiated_none () throws IOException, InterruptedException {
+		transmit_with(ChecksumType.NONE);
+	}
+}
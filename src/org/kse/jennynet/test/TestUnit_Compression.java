@@ -0,0 +1,373 @@
+/*  File: TestUnit_Compression.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+
+package org.kse.jennynet.test;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.kse.jennynet.core.Client;
+import org.kse.jennynet.core.ConnectionMonitor;
+import org.kse.jennynet.core.DefaultConnectionListener;
+import org.kse.jennynet.core.DeflateCodec;
+import org.kse.jennynet.core.JennyNet;
+import org.kse.jennynet.core.JennyNetByteBuffer;
+import org.kse.jennynet.core.Server;
+import org.kse.jennynet.intfa.CompressionCodec;
+import org.kse.jennynet.intfa.Connection;
+import org.kse.jennynet.intfa.SendPriority;
+import org.kse.jennynet.intfa.TransmissionEvent;
+import org.kse.jennynet.intfa.TransmissionEventType;
+import org.kse.jennynet.util.Util;
+
+/** Tests on the compression of transmitted objects and files.
+ */
+public class TestUnit_Compression {
+
+	private static final String[] WORDS = {"the", "network", "layer", "sends", "objects", 
+			"and", "files", "over", "a", "connection", "with", "priority", "parcel", "data"};
+	
+	/** Collects received objects and files. */
+	private static class ReceptionListener extends DefaultConnectionListener {
+		final CountDownLatch latch;
+		volatile byte[] lastObject;
+		volatile File received;
+		
+		ReceptionListener (int count) {
+			latch = new CountDownLatch(count);
+		}
+		
+		@Override
+		public void objectReceived (Connection con, SendPriority priority, long objNr, Object obj) {
+			if (obj instanceof JennyNetByteBuffer) {
+				lastObject = ((JennyNetByteBuffer)obj).getData();
+			}
+			latch.countDown();
+		}
+
+		@Override
+		public void transmissionEventOccurred (TransmissionEvent evt) {
+			if (evt.getType() == TransmissionEventType.FILE_RECEIVED) {
+				received = evt.getFile();
+				latch.countDown();
+			} else if (evt.getType() == TransmissionEventType.FILE_ABORTED) {
+				latch.countDown();
+			}
+		}
+	}
+	
+	/** Returns a text-like data block of the given length.
+	 * 
+	 * @param length int
+	 * @return byte[]
+	 */
+	private static byte[] textData (int length) {
+		Random rand = new Random(length);
+		StringBuilder sb = new StringBuilder(length + 16);
+		while (sb.length() < length) {
+			sb.append(WORDS[rand.nextInt(WORDS.length)]).append(rand.nextInt(10) == 0 ? ".\n" : " ");
+		}
+		sb.setLength(length);
+		return sb.toString().getBytes();
+	}
+	
+	/** A small serialisable object as typical for streams of updates. */
+	public static class Quote implements Serializable {
+		private static final long serialVersionUID = 1L;
+		String symbol;
+		long time;
+		double bid, ask;
+		int volume;
+		
+		Quote (int i) {
+			symbol = WORDS[i % WORDS.length].toUpperCase();
+			time = 1700000000000L + i * 37;
+			bid = 100 + i % 50 * 0.25;
+			ask = bid + 0.5;
+			volume = i * 13 % 1000;
+		}
+	}
+	
+	private interface Sender {
+		void send (Client cl) throws IOException;
+	}
+	
+	/** Transmits from client to server with the given client compression 
+	 * settings and returns the client monitor after reception of the given 
+	 * number of objects or files.
+	 */
+	private ConnectionMonitor transmit (int codec, ReceptionListener listener, Sender sender) 
+			throws IOException, InterruptedException {
+		return transmit(codec, JennyNet.DEFAULT_COMPRESSION_THRESHOLD, null, listener, sender);
+	}
+	
+	private ConnectionMonitor transmit (int codec, int threshold, SendPriority exempted, 
+			ReceptionListener listener, Sender sender) throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		File root = new File("test");
+		root.mkdirs();
+		sv.getParameters().setFileRootDir(root);
+		sv.start();
+		
+		cl = new Client();
+		cl.getParameters().setCompressionCodec(codec);
+		cl.getParameters().setCompressionThreshold(threshold);
+		if (exempted != null) {
+			cl.getParameters().setCompressedPriority(exempted, false);
+		}
+		cl.connect(100, sv.getSocketAddress());
+		Util.sleep(100);
+		
+		sender.send(cl);
+		assertTrue("transmission incomplete", listener.latch.await(60, TimeUnit.SECONDS));
+		ConnectionMonitor mon = cl.getMonitor();
+		System.out.println("-- compression " + mon.compressInput + " -> " + mon.compressOutput 
+				+ " bytes, time " + mon.compressTime + " ms");
+		return mon;
+		
+	} finally {
+		if (cl != null) cl.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+	
+	@Test
+	public void deflate_codec () throws IOException {
+		CompressionCodec codec = new DeflateCodec();
+		byte[] data = textData(100000);
+		byte[] block = codec.compress(data, 0, data.length);
+		assertTrue("no compression", block.length < data.length / 2);
+		assertTrue("data mismatch", Util.equalArrays(data, codec.decompress(block, 0, block.length, data.length)));
+
+		// offset and length
+		block = codec.compress(data, 500, 3000);
+		byte[] part = new byte[3000];
+		System.arraycopy(data, 500, part, 0, 3000);
+		assertTrue("data mismatch", Util.equalArrays(part, codec.decompress(block, 0, block.length, 3000)));
+		
+		// maximum length exceeded
+		try {
+			codec.decompress(block, 0, block.length, 2999);
+			fail("expected IOException for oversized data");
+		} catch (IOException e) {
+		}
+		
+		// corrupted data
+		try {
+			codec.decompress(block, 0, block.length / 2, 3000);
+			fail("expected IOException for truncated data");
+		} catch (IOException e) {
+		}
+	}
+	
+	@Test
+	public void deflate_dictionary () throws IOException {
+		CompressionCodec codec = new DeflateCodec(-1, true);
+		assertTrue("codec ID", codec.getCodecID() == DeflateCodec.DICTIONARY_CODEC_ID && codec.usesDictionary());
+		byte[] dictionary = textData(2000);
+		byte[] data = textData(300);
+		byte[] block = codec.compress(data, 0, data.length, dictionary);
+		byte[] plain = codec.compress(data, 0, data.length);
+		assertTrue("dictionary not effective", block.length < plain.length);
+		assertTrue("data mismatch", Util.equalArrays(data, codec.decompress(block, 0, block.length, 300, dictionary)));
+		
+		// missing or different dictionary
+		try {
+			codec.decompress(block, 0, block.length, 300);
+			fail("expected IOException for missing dictionary");
+		} catch (IOException e) {
+		}
+		try {
+			codec.decompress(block, 0, block.length, 300, textData(2001));
+			fail("expected IOException for dictionary mismatch");
+		} catch (IOException e) {
+		}
+	}
+	
+	/** Benchmark of the wire volume per small object without compression, 
+	 * with plain DEFLATE and with DEFLATE and class dictionary (Java 
+	 * serialisation).
+	 */
+	@Test
+	public void dictionary_small_objects () throws IOException, InterruptedException {
+		int number = 2000;
+		JennyNet.getDefaultSerialisation(0).registerClass(Quote.class);
+		long[] payload = new long[3];
+		
+		for (int codec = 0; codec < 3; codec++) {
+			ReceptionListener listener = new ReceptionListener(number);
+			Server sv = null;
+			Client cl = null;
+		try {
+			sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+			sv.getParameters().setObjectQueueCapacity(JennyNet.MAX_QUEUE_CAPACITY);
+			sv.start();
+			
+			cl = new Client();
+			cl.getParameters().setSerialisationMethod(0);
+			cl.getParameters().setObjectQueueCapacity(JennyNet.MAX_QUEUE_CAPACITY);
+			cl.getParameters().setCompressionCodec(codec);
+			cl.getParameters().setCompressionThreshold(0);
+			cl.connect(100, sv.getSocketAddress());
+			Util.sleep(100);
+			
+			for (int i = 0; i < number; i++) {
+				cl.sendObject(new Quote(i));
+			}
+			assertTrue("transmission incomplete", listener.latch.await(60, TimeUnit.SECONDS));
+			Util.sleep(100);
+			
+			ConnectionMonitor mon = cl.getMonitor();
+			payload[codec] = codec == 0 ? (long)number * JennyNet.getDefaultSerialisation(0)
+					.serialiseObject(new Quote(1)).length : mon.compressOutput;
+			System.out.println("-- small objects, codec " + codec + ": payload " + payload[codec] / number 
+					+ " bytes/object, on the wire " + mon.exchangedVolume / number + " bytes/object, compression time " 
+					+ mon.compressTime + " ms");
+			
+		} finally {
+			if (cl != null) cl.close();
+			if (sv != null) {
+				sv.closeAndWait(3000);
+			}
+		}
+		}
+		assertTrue("dictionary not effective", payload[2] * 2 < payload[1]);
+	}
+	
+	@Test
+	public void object_compression () throws IOException, InterruptedException {
+		byte[] data = textData(200000);
+		ReceptionListener listener = new ReceptionListener(1);
+		ConnectionMonitor mon = transmit(DeflateCodec.CODEC_ID, listener, 
+				cl -> cl.sendData(data, 0, data.length, SendPriority.NORMAL));
+
+		assertTrue("object data mismatch", Util.equalArrays(data, listener.lastObject));
+		assertTrue("no compression", mon.compressInput > data.length);
+		assertTrue("low compression", mon.compressOutput < mon.compressInput / 2);
+	}
+	
+	@Test
+	public void object_incompressible () throws IOException, InterruptedException {
+		byte[] data = Util.randBytes(200000);
+		ReceptionListener listener = new ReceptionListener(1);
+		ConnectionMonitor mon = transmit(DeflateCodec.CODEC_ID, listener, 
+				cl -> cl.sendData(data, 0, data.length, SendPriority.NORMAL));
+		
+		assertTrue("object data mismatch", Util.equalArrays(data, listener.lastObject));
+		assertTrue("no compression attempt", mon.compressInput > data.length);
+		assertTrue("compressed output", mon.compressOutput == mon.compressInput);
+	}
+	
+	@Test
+	public void object_threshold_priority () throws IOException, InterruptedException {
+		// below threshold
+		byte[] data = textData(1000);
+		ReceptionListener listener = new ReceptionListener(1);
+		ConnectionMonitor mon = transmit(DeflateCodec.CODEC_ID, 5000, null, listener, 
+				cl -> cl.sendData(data, 0, data.length, SendPriority.NORMAL));
+		assertTrue("object data mismatch", Util.equalArrays(data, listener.lastObject));
+		assertTrue("compression below threshold", mon.compressInput == 0);
+		
+		// exempted priority
+		byte[] data2 = textData(100000);
+		listener = new ReceptionListener(2);
+		mon = transmit(DeflateCodec.CODEC_ID, 5000, SendPriority.HIGH, listener, cl -> { 
+				cl.sendData(data2, 0, data2.length, SendPriority.HIGH);
+				cl.sendData(data2, 0, data2.length, SendPriority.LOW);
+			});
+		assertTrue("object data mismatch", Util.equalArrays(data2, listener.lastObject));
+		assertTrue("compression of exempted priority", mon.compressInput > data2.length 
+				&& mon.compressInput < 2 * data2.length);
+	}
+	
+	@Test
+	public void remote_without_codec () throws IOException, InterruptedException {
+		byte[] data = textData(100000);
+		ReceptionListener listener = new ReceptionListener(1);
+		JennyNet.removeCompressionCodec(DeflateCodec.CODEC_ID);
+		try {
+			ConnectionMonitor mon = transmit(DeflateCodec.CODEC_ID, listener, 
+					cl -> cl.sendData(data, 0, data.length, SendPriority.NORMAL));
+			assertTrue("object data mismatch", Util.equalArrays(data, listener.lastObject));
+			assertTrue("compression without remote codec", mon.compressInput == 0);
+		} finally {
+			JennyNet.setCompressionCodec(new DeflateCodec());
+		}
+	}
+	
+	@Test
+	public void file_compression () throws IOException, InterruptedException {
+		int length = 3 * JennyNet.MEGA + 1000;
+		File src = Util.getTempFile(); 
+		byte[] data = textData(length);
+		Util.makeFile(src, data);
+		ReceptionListener listener = new ReceptionListener(1);
+		
+		try {
+			ConnectionMonitor mon = transmit(DeflateCodec.CODEC_ID, listener, 
+					cl -> cl.sendFile(src, "empfang/compressed.txt"));
+			assertTrue("file not received", listener.received != null);
+			assertTrue("file data mismatch", Util.equalArrays(data, Util.readFile(listener.received)));
+			assertTrue("no compression", mon.compressInput == length);
+			assertTrue("low compression", mon.compressOutput < length / 2);
+		} finally {
+			src.delete();
+		}
+	}
+	
+	@Test
+	public void file_incompressible () throws IOException, InterruptedException {
+		int length = 3 * JennyNet.MEGA + 1000;
+		File src = Util.getTempFile(); 
+		byte[] data = Util.randBytes(length);
+		Util.makeFile(src, data);
+		ReceptionListener listener = new ReceptionListener(1);
+		
+		try {
+			ConnectionMonitor mon = transmit(DeflateCodec.CODEC_ID, listener, 
+					cl -> cl.sendFile(src, "empfang/random.dat"));
+			assertTrue("file not received", listener.received != null);
+			assertTrue("file data mismatch", Util.equalArrays(data, Util.readFile(listener.received)));
+			
+			// compression is abandoned after the first parcel
+			assertTrue("compression attempts", mon.compressInput == mon.compressOutput 
+					&& mon.compressInput <= JennyNet.DEFAULT_TRANSMISSION_PARCEL_SIZE);
+		} finally {
+			src.delete();
+		}
+	}
+}
@@ -397,6 +397,8 @@ public class TestUnit_Connection_Static {
           assertTrue(par.getObjectQueueCapacity() == JennyNet.DEFAULT_QUEUE_CAPACITY);
           assertTrue(par.getParcelQueueCapacity() == JennyNet.DEFAULT_PARCEL_QUEUE_CAPACITY);
           assertTrue(par.getSerialisationMethod() == JennyNet.DEFAULT_SERIALISATION_METHOD);
+          assertTrue(par.getChecksumType() == JennyNet.DEFAULT_CHECKSUM_TYPE);
+          assertTrue(par.getHeaderFormat() == JennyNet.DEFAULT_HEADER_FORMAT);
 
        } catch (Exception e) {
           e.printStackTrace();
@@ -0,0 +1,177 @@
+/*  File: TestUnit_Delivery_Latency.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.kse.jennynet.core.Client;
+import org.kse.jennynet.core.ConnectionMonitor;
+import org.kse.jennynet.core.DefaultConnectionListener;
+import org.kse.jennynet.core.JennyNet;
+import org.kse.jennynet.core.JennyNet.ReceiveEngine;
+import org.kse.jennynet.core.JennyNetByteBuffer;
+import org.kse.jennynet.core.Server;
+import org.kse.jennynet.intfa.Connection;
+import org.kse.jennynet.intfa.SendPriority;
+
+/** Benchmarks the delivery of received objects while the receiver's output
+ * queue is near capacity. The application consumes objects at a steady 
+ * rate slower than the network, so the receive engine is constantly 
+ * waiting for delivery space; the gap between deliveries shows how fast 
+ * reception resumes when space becomes available. 
+ */
+public class TestUnit_Delivery_Latency {
+
+	private static final int NR_OBJECTS = 600;
+	private static final int CAPACITY = 8;
+	private static final long CONSUME_NANOS = 1000000;
+	/** sleep period of the former polling wait for delivery space */
+	private static final int POLLING_PERIOD = 20;
+	
+	/** Consumes received objects with a fixed processing time and 
+	 * records the time of each delivery and the latency since sending.
+	 */
+	private static class ConsumerListener extends DefaultConnectionListener {
+		final long[] delivered = new long[NR_OBJECTS];
+		final long[] latency = new long[NR_OBJECTS];
+		final CountDownLatch latch = new CountDownLatch(NR_OBJECTS);
+		volatile Connection connection;
+		int count;
+		
+		@Override
+		public void objectReceived (Connection con, SendPriority priority, long objNr, Object obj) {
+			long now = System.nanoTime();
+			if (count < NR_OBJECTS) {
+				long sent = ByteBuffer.wrap(((JennyNetByteBuffer)obj).getData()).getLong();
+				delivered[count] = now;
+				latency[count] = now - sent;
+				count++;
+			}
+			connection = con;
+			
+			// simulate application processing time
+			long end = now + CONSUME_NANOS;
+			while (System.nanoTime() < end);
+			latch.countDown();
+		}
+	}
+	
+	@After
+	public void restore () {
+		JennyNet.setReceiveEngine(ReceiveEngine.THREAD);
+	}
+	
+	private static double percentile (long[] values, double p) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		int index = Math.min(sorted.length - 1, (int)Math.ceil(p / 100 * sorted.length) - 1);
+		return sorted[Math.max(0, index)] / 1000000.0;
+	}
+	
+	private void run_benchmark (String engine) throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+		ConsumerListener listener = new ConsumerListener();
+		
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		sv.getParameters().setObjectQueueCapacity(CAPACITY);
+		sv.start();
+		
+		cl = new Client();
+		cl.getParameters().setObjectQueueCapacity(NR_OBJECTS + 10);
+		cl.connect(100, sv.getSocketAddress());
+		
+		// send time-stamped objects as fast as possible
+		for (int i = 0; i < NR_OBJECTS; i++) {
+			byte[] data = ByteBuffer.allocate(64).putLong(System.nanoTime()).array();
+			cl.sendData(data, SendPriority.NORMAL);
+		}
+		
+		assertTrue("objects not delivered", listener.latch.await(30, TimeUnit.SECONDS));
+		
+		// evaluate gaps between deliveries after the output queue is filled
+		int start = CAPACITY * 2;
+		long[] gaps = new long[NR_OBJECTS - start];
+		for (int i = start; i < NR_OBJECTS; i++) {
+			gaps[i - start] = listener.delivered[i] - listener.delivered[i - 1] - CONSUME_NANOS;
+		}
+		double gap50 = percentile(gaps, 50), gap95 = percentile(gaps, 95), gap99 = percentile(gaps, 99);
+		double lat50 = percentile(listener.latency, 50), lat99 = percentile(listener.latency, 99);
+		double total = (listener.delivered[NR_OBJECTS - 1] - listener.delivered[0]) / 1000000.0;
+		
+		ConnectionMonitor mon = listener.connection.getMonitor();
+		System.out.println("-- delivery benchmark (" + engine + "), " + NR_OBJECTS + " objects, capacity " 
+				+ CAPACITY + ", consume time " + CONSUME_NANOS / 1000 + " us");
+		System.out.printf("   total %.1f ms, delivery gap p50 %.3f ms, p95 %.3f ms, p99 %.3f ms%n", 
+				total, gap50, gap95, gap99);
+		System.out.printf("   latency p50 %.1f ms, p99 %.1f ms, delivery waits %d, wait time %d ms%n", 
+				lat50, lat99, mon.deliveryWaits, mon.deliveryWaitTime);
+		System.out.println("   receive resumes " + mon.receiveResumesSignalled + " signalled, " 
+				+ mon.receiveResumesPolled + " polled");
+		
+		// the receive thread has waited for delivery space and is woken 
+		// when space becomes available: a polling engine (20 ms steps) 
+		// waits at least one polling period each time
+		if (JennyNet.getReceiveEngine() == ReceiveEngine.THREAD) {
+			assertTrue("no delivery waits", mon.deliveryWaits > 0);
+			assertTrue("polling delivery waits: " + mon.deliveryWaitTime + " ms / " 
+					+ mon.deliveryWaits, mon.deliveryWaitTime < mon.deliveryWaits * POLLING_PERIOD);
+		
+		// the selector engine suspends the connection instead of waiting and
+		// resumes it on the space signal of the delivery control, not by the 
+		// periodic control of suspended connections
+		} else {
+			assertTrue("no signalled resumes", mon.receiveResumesSignalled > 0);
+			assertTrue("polled resumes: " + mon.receiveResumesPolled + " / " + mon.receiveResumesSignalled, 
+					mon.receiveResumesPolled * 10 <= mon.receiveResumesSignalled);
+		}
+		
+	} finally {
+		if (cl != null) cl.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+	
+	@Test
+	public void thread_engine () throws IOException, InterruptedException {
+		JennyNet.setReceiveEngine(ReceiveEngine.THREAD);
+		run_benchmark("THREAD");
+	}
+	
+	@Test
+	public void selector_engine () throws IOException, InterruptedException {
+		JennyNet.setReceiveEngine(ReceiveEngine.SELECTOR);
+		run_benchmark("SELECTOR");
+	}
+}
@@ -0,0 +1,155 @@
+/*  File: TestUnit_File_Checksum.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.kse.jennynet.core.Client;
+import org.kse.jennynet.core.DefaultConnectionListener;
+import org.kse.jennynet.core.JennyNet;
+import org.kse.jennynet.core.Server;
+import org.kse.jennynet.intfa.TransmissionEvent;
+import org.kse.jennynet.intfa.TransmissionEventType;
+import org.kse.jennynet.util.Util;
+
+/** Tests on the file checksum which is calculated while file data is
+ * transmitted.
+ */
+public class TestUnit_File_Checksum {
+
+	/** Records the arrival times of FILE_INCOMING, FILE_RECEIVED and 
+	 * FILE_CONFIRMED. 
+	 */
+	private static class TimingListener extends DefaultConnectionListener {
+		final CountDownLatch latch = new CountDownLatch(1);
+		volatile long incomingTime, receivedTime, confirmedTime;
+		volatile File received;
+		
+		@Override
+		public void transmissionEventOccurred (TransmissionEvent evt) {
+			if (evt.getType() == TransmissionEventType.FILE_INCOMING) {
+				incomingTime = System.currentTimeMillis();
+			} else if (evt.getType() == TransmissionEventType.FILE_RECEIVED) {
+				receivedTime = System.currentTimeMillis();
+				received = evt.getFile();
+				latch.countDown();
+			} else if (evt.getType() == TransmissionEventType.FILE_CONFIRMED) {
+				confirmedTime = System.currentTimeMillis();
+				latch.countDown();
+			} else if (evt.getType() == TransmissionEventType.FILE_ABORTED) {
+				latch.countDown();
+			}
+		}
+	}
+	
+	@Test
+	public void file_start_latency () throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+		TimingListener listener = new TimingListener();
+		int length = 64 * JennyNet.MEGA;
+		File src = Util.getTempFile(); 
+		byte[] data = Util.randBytes(length);
+		Util.makeFile(src, data);
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		File root = new File("test");
+		root.mkdirs();
+		sv.getParameters().setFileRootDir(root);
+		sv.start();
+		
+		cl = new Client();
+		cl.connect(100, sv.getSocketAddress());
+		Util.sleep(100);
+		
+		long start = System.currentTimeMillis();
+		cl.sendFile(src, "empfang/latency.dat");
+		assertTrue("file not received", listener.latch.await(60, TimeUnit.SECONDS));
+		assertTrue("file not received", listener.received != null);
+		
+		long latency = listener.incomingTime - start;
+		long total = listener.receivedTime - start;
+		System.out.println("-- file start latency: " + latency + " ms, total transfer: " + total + " ms");
+		assertTrue("file data mismatch", Util.equalArrays(data, Util.readFile(listener.received)));
+		assertTrue("start latency too high: " + latency, latency < 1000);
+		
+	} finally {
+		src.delete();
+		if (cl != null) cl.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+	
+	@Test
+	public void file_confirm_time () throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+		TimingListener svListener = new TimingListener();
+		TimingListener clListener = new TimingListener();
+		int length = 64 * JennyNet.MEGA;
+		File src = Util.getTempFile(); 
+		byte[] data = Util.randBytes(length);
+		Util.makeFile(src, data);
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), svListener);
+		File root = new File("test");
+		root.mkdirs();
+		sv.getParameters().setFileRootDir(root);
+		sv.start();
+		
+		cl = new Client();
+		cl.addListener(clListener);
+		cl.connect(100, sv.getSocketAddress());
+		Util.sleep(100);
+		
+		long start = System.currentTimeMillis();
+		cl.sendFile(src, "empfang/confirm.dat");
+		assertTrue("file not received", svListener.latch.await(60, TimeUnit.SECONDS));
+		assertTrue("file not confirmed", clListener.latch.await(10, TimeUnit.SECONDS));
+		assertTrue("file not received", svListener.received != null);
+		assertTrue("file not confirmed", clListener.confirmedTime > 0);
+		
+		long transfer = svListener.receivedTime - svListener.incomingTime;
+		long confirm = clListener.confirmedTime - start;
+		System.out.println("-- file reception: " + transfer + " ms, confirmed after: " + confirm + " ms");
+		assertTrue("file data mismatch", Util.equalArrays(data, Util.readFile(svListener.received)));
+		
+	} finally {
+		src.delete();
+		if (cl != null) cl.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+}
@@ -0,0 +1,209 @@
+/*  File: TestUnit_File_Zero_Copy.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kse.jennynet.core.Client;
+import org.kse.jennynet.core.DefaultConnectionListener;
+import org.kse.jennynet.core.JennyNet;
+import org.kse.jennynet.core.JennyNet.ChecksumType;
+import org.kse.jennynet.core.JennyNet.ReceiveEngine;
+import org.kse.jennynet.core.Server;
+import org.kse.jennynet.intfa.TransmissionEvent;
+import org.kse.jennynet.intfa.TransmissionEventType;
+import org.kse.jennynet.util.Util;
+
+/** Benchmark on file sending over a loopback link with and without 
+ * zero-copy transfer of the file data (SELECTOR receive engine).
+ */
+public class TestUnit_File_Zero_Copy {
+
+	private static final int FILE_SIZE = 40 * JennyNet.MEGA;
+	
+	/** Releases a latch when a file has been received. */
+	private static class ReceptionListener extends DefaultConnectionListener {
+		volatile CountDownLatch latch;
+		volatile File received;
+		
+		@Override
+		public void transmissionEventOccurred (TransmissionEvent evt) {
+			if (evt.getType() == TransmissionEventType.FILE_RECEIVED) {
+				received = evt.getFile();
+				latch.countDown();
+			} else if (evt.getType() == TransmissionEventType.FILE_ABORTED) {
+				latch.countDown();
+			}
+		}
+	}
+	
+	@Before
+	public void setup () {
+		JennyNet.setReceiveEngine(ReceiveEngine.SELECTOR);
+	}
+	
+	@After
+	public void restore () {
+		JennyNet.setReceiveEngine(ReceiveEngine.THREAD);
+		JennyNet.setZeroCopyFileSending(true);
+	}
+	
+	/** Sends the given file and returns the time in milliseconds until
+	 * it was received or -1 if it was not received.
+	 */
+	private long measureFile (Client cl, ReceptionListener listener, File src, String target,
+			byte[] data) throws IOException, InterruptedException {
+		listener.latch = new CountDownLatch(1);
+		listener.received = null;
+		long start = System.currentTimeMillis();
+		cl.sendFile(src, target);
+		if (!listener.latch.await(60, TimeUnit.SECONDS) || listener.received == null) {
+			return -1;
+		}
+		long time = System.currentTimeMillis() - start;
+		assertTrue("file data mismatch", Util.equalArrays(data, Util.readFile(listener.received)));
+		return time;
+	}
+	
+	@Test
+	public void file_sending_throughput () throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+		ReceptionListener listener = new ReceptionListener();
+		File src = Util.getTempFile(); 
+		byte[] data = Util.randBytes(FILE_SIZE);
+		Util.makeFile(src, data);
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		File root = new File("test");
+		root.mkdirs();
+		sv.getParameters().setFileRootDir(root);
+		sv.start();
+		
+		cl = new Client();
+		cl.connect(100, sv.getSocketAddress());
+		Util.sleep(100);
+		
+		// stream sending
+		JennyNet.setZeroCopyFileSending(false);
+		long time1 = measureFile(cl, listener, src, "empfang/stream-copy.dat", data);
+		
+		// zero-copy sending
+		JennyNet.setZeroCopyFileSending(true);
+		long time2 = measureFile(cl, listener, src, "empfang/zero-copy.dat", data);
+		
+		long mb = FILE_SIZE / JennyNet.MEGA;
+		System.out.println("-- stream sending: " + time1 + " ms, " + mb * 1000 / Math.max(time1, 1) + " MB/s");
+		System.out.println("-- zero-copy sending: " + time2 + " ms, " + mb * 1000 / Math.max(time2, 1) + " MB/s");
+		
+		assertTrue("file not received (stream)", time1 > -1);
+		assertTrue("file not received (zero-copy)", time2 > -1);
+		assertTrue("zero-copy sending too slow", time2 < 2 * time1 + 2000);
+		
+	} finally {
+		src.delete();
+		if (cl != null) cl.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+
+	@Test
+	public void no_checksum_regions () throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+		ReceptionListener listener = new ReceptionListener();
+		File src = Util.getTempFile(); 
+		byte[] data = Util.randBytes(FILE_SIZE / 4);
+		Util.makeFile(src, data);
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		File root = new File("test");
+		root.mkdirs();
+		sv.getParameters().setFileRootDir(root);
+		sv.getParameters().setChecksumType(ChecksumType.NONE);
+		sv.start();
+		
+		cl = new Client();
+		cl.connect(100, sv.getSocketAddress());
+		Util.sleep(100);
+		assertTrue(cl.getMonitor().checksumType == ChecksumType.NONE);
+		
+		// zero-copy sending without reading the file regions
+		long time = measureFile(cl, listener, src, "empfang/zero-copy-none.dat", data);
+		System.out.println("-- zero-copy sending w/o checksum: " + time + " ms");
+		assertTrue("file not received (zero-copy, no checksum)", time > -1);
+		
+	} finally {
+		src.delete();
+		if (cl != null) cl.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+
+	@Test
+	public void regions_over_format_change () throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+		ReceptionListener listener = new ReceptionListener();
+		File src = Util.getTempFile(); 
+		byte[] data = Util.randBytes(FILE_SIZE / 4);
+		Util.makeFile(src, data);
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		File root = new File("test");
+		root.mkdirs();
+		sv.getParameters().setFileRootDir(root);
+		sv.getParameters().setChecksumType(ChecksumType.NONE);
+		sv.start();
+		
+		// file regions are queued while the parcel format is negotiated
+		cl = new Client();
+		cl.connect(100, sv.getSocketAddress());
+		long time = measureFile(cl, listener, src, "empfang/zero-copy-change.dat", data);
+		assertTrue("file not received (zero-copy, format change)", time > -1);
+		assertTrue(cl.getMonitor().checksumType == ChecksumType.NONE);
+		
+	} finally {
+		src.delete();
+		if (cl != null) cl.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+}
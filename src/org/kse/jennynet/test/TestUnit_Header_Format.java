@@ -0,0 +1,179 @@
+/*  File: TestUnit_Header_Format.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.kse.jennynet.core.Client;
+import org.kse.jennynet.core.DefaultConnectionListener;
+import org.kse.jennynet.core.JennyNet;
+import org.kse.jennynet.core.JennyNet.ChecksumType;
+import org.kse.jennynet.core.JennyNet.HeaderFormat;
+import org.kse.jennynet.core.JennyNet.ReceiveEngine;
+import org.kse.jennynet.core.JennyNetByteBuffer;
+import org.kse.jennynet.core.Server;
+import org.kse.jennynet.intfa.Connection;
+import org.kse.jennynet.intfa.SendPriority;
+import org.kse.jennynet.intfa.TransmissionEvent;
+import org.kse.jennynet.intfa.TransmissionEventType;
+import org.kse.jennynet.util.Util;
+
+/** Tests on the negotiated wire format of parcel headers.
+ */
+public class TestUnit_Header_Format {
+
+	private static final int NR_SMALL_OBJECTS = 150;
+	
+	/** Counts received objects and files and verifies the content of
+	 * small objects (40 bytes). */
+	private static class ReceptionListener extends DefaultConnectionListener {
+		final CountDownLatch latch;
+		final AtomicInteger errors = new AtomicInteger();
+		volatile byte[] object;
+		volatile File file;
+		
+		ReceptionListener (int count) {
+			latch = new CountDownLatch(count);
+		}
+		
+		@Override
+		public void objectReceived (Connection con, SendPriority priority, long objNr, Object obj) {
+			byte[] data = ((JennyNetByteBuffer)obj).getData();
+			if (data.length == 40) {
+				for (byte b : data) {
+					if (b != data[0]) {
+						errors.incrementAndGet();
+						break;
+					}
+				}
+			} else {
+				object = data;
+			}
+			latch.countDown();
+		}
+
+		@Override
+		public void transmissionEventOccurred (TransmissionEvent evt) {
+			if (evt.getType() == TransmissionEventType.FILE_RECEIVED) {
+				file = evt.getFile();
+				latch.countDown();
+			}
+		}
+	}
+	
+	/** Sets up a connection where the server prefers the given header format 
+	 * and checksum type, transmits a series of small objects, a large object
+	 * and a file and verifies the data and the header format of both 
+	 * connection ends.
+	 * 
+	 * @param format {@code HeaderFormat} server preference
+	 * @param type {@code ChecksumType} server preference
+	 */
+	private void transmit_with (HeaderFormat format, ChecksumType type) 
+			throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+		ReceptionListener listener = new ReceptionListener(NR_SMALL_OBJECTS + 2);
+		byte[] data = Util.randBytes(200000);
+		File src = Util.getTempFile(); 
+		Util.makeFile(src, data);
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		File root = new File("test");
+		root.mkdirs();
+		sv.getParameters().setFileRootDir(root);
+		sv.getParameters().setHeaderFormat(format);
+		sv.getParameters().setChecksumType(type);
+		sv.start();
+		
+		cl = new Client();
+		cl.getParameters().setTransmissionParcelSize(16 * JennyNet.KILO);
+		cl.connect(100, sv.getSocketAddress());
+
+		// small objects consist of a single repeated value (the first are 
+		// sent while the header format is negotiated)
+		for (int i = 1; i <= NR_SMALL_OBJECTS; i++) {
+			byte[] obj = new byte[40];
+			Arrays.fill(obj, (byte)i);
+			cl.sendData(obj, 0, obj.length, SendPriority.NORMAL);
+		}
+		cl.sendData(data, 0, data.length, SendPriority.NORMAL);
+		cl.sendFile(src, "empfang/header-" + format + ".dat");
+		assertTrue("transmission incomplete", listener.latch.await(20, TimeUnit.SECONDS));
+		assertTrue("small object errors: " + listener.errors.get(), listener.errors.get() == 0);
+		assertTrue("object data mismatch", Util.equalArrays(data, listener.object));
+		assertTrue("file data mismatch", Util.equalArrays(data, Util.readFile(listener.file)));
+		
+		// both ends operate on the server's preference
+		Connection svCon = sv.getConnections()[0];
+		long deadline = System.currentTimeMillis() + 5000;
+		while ((cl.getMonitor().headerFormat != format || svCon.getMonitor().headerFormat != format)
+				&& System.currentTimeMillis() < deadline) {
+			Util.sleep(10);
+		}
+		assertTrue("client header format", cl.getMonitor().headerFormat == format);
+		assertTrue("server header format", svCon.getMonitor().headerFormat == format);
+		
+	} finally {
+		src.delete();
+		if (cl != null) cl.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+	
+	@Test
+	public void negotiated_standard () throws IOException, InterruptedException {
+		transmit_with(HeaderFormat.STANDARD, ChecksumType.ADLER32);
+	}
+	
+	@Test
+	public void negotiated_compact () throws IOException, InterruptedException {
+		transmit_with(HeaderFormat.COMPACT, ChecksumType.ADLER32);
+	}
+	
+	@Test
+	public void negotiated_compact_none () throws IOException, InterruptedException {
+		transmit_with(HeaderFormat.COMPACT, ChecksumType.NONE);
+	}
+	
+	@Test
+	public void negotiated_compact_selector () throws IOException, InterruptedException {
+		JennyNet.setReceiveEngine(ReceiveEngine.SELECTOR);
+		try {
+			transmit_with(HeaderFormat.COMPACT, ChecksumType.ADLER32);
+		} finally {
+			JennyNet.setReceiveEngine(ReceiveEngine.THREAD);
+		}
+	}
+}
@@ -0,0 +1,275 @@
+/*  File: TestUnit_Object_Batching.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.kse.jennynet.core.Client;
+import org.kse.jennynet.core.ConnectionMonitor;
+import org.kse.jennynet.core.DefaultConnectionListener;
+import org.kse.jennynet.core.JennyNet;
+import org.kse.jennynet.core.JennyNetByteBuffer;
+import org.kse.jennynet.core.JennyNet.ReceiveEngine;
+import org.kse.jennynet.core.JennyNet.ThreadUsage;
+import org.kse.jennynet.core.Server;
+import org.kse.jennynet.intfa.Connection;
+import org.kse.jennynet.intfa.SendPriority;
+import org.kse.jennynet.util.Util;
+
+/** Tests on the batching of small objects into shared parcels.
+ */
+public class TestUnit_Object_Batching {
+
+	/** Counts received objects and verifies their sending order. Objects
+	 * carry a serial number per priority in their first four bytes.
+	 */
+	private static class ReceptionListener extends DefaultConnectionListener {
+		final CountDownLatch latch;
+		final AtomicInteger errors = new AtomicInteger();
+		final int[] nextSerial = new int[SendPriority.values().length];
+		
+		ReceptionListener (int count) {
+			latch = new CountDownLatch(count);
+		}
+		
+		@Override
+		public void objectReceived (Connection con, SendPriority priority, long objNr, Object obj) {
+			byte[] data = ((JennyNetByteBuffer)obj).getData();
+			int serial = Util.readInt(data, 0);
+			if (serial != nextSerial[priority.ordinal()]++) {
+				errors.incrementAndGet();
+			}
+			latch.countDown();
+		}
+	}
+	
+	/** Counts received objects of a slow consumer connection, which sleeps 
+	 * on each object, and of the other connections.
+	 */
+	private static class SlowConsumerListener extends DefaultConnectionListener {
+		final CountDownLatch slowLatch;
+		final CountDownLatch fastLatch;
+		final AtomicInteger errors = new AtomicInteger();
+		volatile InetSocketAddress slowAddress;
+		int nextSerial;
+		
+		SlowConsumerListener (int slowCount, int fastCount) {
+			slowLatch = new CountDownLatch(slowCount);
+			fastLatch = new CountDownLatch(fastCount);
+		}
+		
+		@Override
+		public void objectReceived (Connection con, SendPriority priority, long objNr, Object obj) {
+			if (con.getRemoteAddress().equals(slowAddress)) {
+				byte[] data = ((JennyNetByteBuffer)obj).getData();
+				if (Util.readInt(data, 0) != nextSerial++) {
+					errors.incrementAndGet();
+				}
+				Util.sleep(20);
+				slowLatch.countDown();
+			} else {
+				fastLatch.countDown();
+			}
+		}
+	}
+	
+	private static byte[] smallObject (int serial, int size) {
+		byte[] data = Util.randBytes(size);
+		Util.writeInt(data, 0, serial);
+		return data;
+	}
+	
+	/** Transmits the given number of small objects from client to server 
+	 * and returns the time until reception of all objects.
+	 * 
+	 * @param batching boolean whether client sends in batches
+	 * @param linger int batch linger time 
+	 * @param number int number of objects
+	 * @param priorities {@code SendPriority[]} cycled send priorities
+	 * @return {@code ConnectionMonitor} of the sending client
+	 */
+	private ConnectionMonitor transmit (boolean batching, int linger, int number, 
+			SendPriority ... priorities) throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+		ReceptionListener listener = new ReceptionListener(number);
+		int[] serials = new int[SendPriority.values().length];
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		sv.getParameters().setObjectQueueCapacity(JennyNet.MAX_QUEUE_CAPACITY);
+		sv.start();
+		
+		cl = new Client();
+		cl.getParameters().setObjectBatching(batching);
+		cl.getParameters().setBatchLinger(linger);
+		cl.getParameters().setObjectQueueCapacity(JennyNet.MAX_QUEUE_CAPACITY);
+		cl.connect(100, sv.getSocketAddress());
+		Util.sleep(100);
+
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < number; i++) {
+			SendPriority priority = priorities[i % priorities.length];
+			byte[] obj = smallObject(serials[priority.ordinal()]++, 40);
+			cl.sendData(obj, 0, obj.length, priority);
+		}
+		assertTrue("transmission incomplete", listener.latch.await(60, TimeUnit.SECONDS));
+		long time = System.currentTimeMillis() - start;
+		assertTrue("object order errors: " + listener.errors.get(), listener.errors.get() == 0);
+		
+		ConnectionMonitor mon = cl.getMonitor();
+		System.out.println("-- " + number + " objects, batching = " + batching + ", linger = " + linger 
+				+ ": " + time + " ms, " + number * 1000L / Math.max(1, time) + " objects/s, batched " 
+				+ mon.objectsBatched);
+		assertTrue("objects sent", mon.objectsSent == number);
+		return mon;
+		
+	} finally {
+		if (cl != null) cl.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+	
+	@Test
+	public void no_batching () throws IOException, InterruptedException {
+		ConnectionMonitor mon = transmit(false, 0, 5000, SendPriority.NORMAL);
+		assertTrue("objects batched", mon.objectsBatched == 0);
+	}
+	
+	@Test
+	public void batching () throws IOException, InterruptedException {
+		ConnectionMonitor mon = transmit(true, 0, 5000, SendPriority.NORMAL);
+		assertTrue("no objects batched", mon.objectsBatched > 0);
+	}
+	
+	@Test
+	public void batching_priorities () throws IOException, InterruptedException {
+		ConnectionMonitor mon = transmit(true, 0, 5000, SendPriority.LOW, SendPriority.NORMAL, 
+				SendPriority.HIGH);
+		assertTrue("no objects batched", mon.objectsBatched > 0);
+	}
+	
+	/** Objects which are sent with pauses are batched within the linger time. 
+	 */
+	@Test
+	public void batching_linger () throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+		int number = 100;
+		ReceptionListener listener = new ReceptionListener(number);
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		sv.start();
+		
+		cl = new Client();
+		cl.getParameters().setObjectBatching(true);
+		cl.getParameters().setBatchLinger(200);
+		cl.connect(100, sv.getSocketAddress());
+		Util.sleep(100);
+
+		for (int i = 0; i < number; i++) {
+			byte[] obj = smallObject(i, 40);
+			cl.sendData(obj, 0, obj.length, SendPriority.NORMAL);
+			Util.sleep(2);
+		}
+		assertTrue("transmission incomplete", listener.latch.await(20, TimeUnit.SECONDS));
+		assertTrue("object order errors: " + listener.errors.get(), listener.errors.get() == 0);
+		long batched = cl.getMonitor().objectsBatched; 
+		System.out.println("-- linger 200 ms, objects sent in 2 ms intervals: " + number + ", batched " + batched);
+		assertTrue("too few objects batched: " + batched, batched > number / 2);
+		
+	} finally {
+		if (cl != null) cl.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+	
+	/** A batch which exceeds the free delivery capacity of a slow consumer
+	 * does not stall the selector thread for other connections.
+	 */
+	@Test
+	public void batching_slow_consumer_selector () throws IOException, InterruptedException {
+		Server sv = null;
+		Client slow = null, fast = null;
+		int number = 300, fastNumber = 50;
+		SlowConsumerListener listener = new SlowConsumerListener(number, fastNumber);
+		JennyNet.setReceiveEngine(ReceiveEngine.SELECTOR);
+		JennyNet.setSelectorThreads(1);
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		sv.getParameters().setObjectQueueCapacity(10);
+		sv.getParameters().setDeliveryThreadUsage(ThreadUsage.INDIVIDUAL);
+		sv.start();
+		
+		slow = new Client();
+		slow.getParameters().setObjectBatching(true);
+		slow.getParameters().setBatchLinger(100);
+		slow.getParameters().setObjectQueueCapacity(JennyNet.MAX_QUEUE_CAPACITY);
+		slow.connect(100, sv.getSocketAddress());
+		listener.slowAddress = slow.getLocalAddress();
+		fast = new Client();
+		fast.connect(100, sv.getSocketAddress());
+		Util.sleep(100);
+
+		// batches to the slow consumer, single objects to the other connection
+		for (int i = 0; i < number; i++) {
+			byte[] obj = smallObject(i, 40);
+			slow.sendData(obj, 0, obj.length, SendPriority.NORMAL);
+		}
+		Util.sleep(200);
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < fastNumber; i++) {
+			byte[] obj = smallObject(i, 40);
+			fast.sendData(obj, 0, obj.length, SendPriority.NORMAL);
+		}
+		assertTrue("fast connection stalled", listener.fastLatch.await(3, TimeUnit.SECONDS));
+		long time = System.currentTimeMillis() - start;
+		assertTrue("slow connection incomplete", listener.slowLatch.await(60, TimeUnit.SECONDS));
+		assertTrue("object order errors: " + listener.errors.get(), listener.errors.get() == 0);
+		long batched = slow.getMonitor().objectsBatched; 
+		System.out.println("-- slow consumer, " + number + " objects, batched " + batched 
+				+ ", other connection received in " + time + " ms");
+		assertTrue("no objects batched", batched > 0);
+		
+	} finally {
+		JennyNet.setReceiveEngine(ReceiveEngine.THREAD);
+		if (slow != null) slow.close();
+		if (fast != null) fast.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+}
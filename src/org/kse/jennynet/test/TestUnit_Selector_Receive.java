@@ -0,0 +1,233 @@
+/*  File: TestUnit_Selector_Receive.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kse.jennynet.core.Client;
+import org.kse.jennynet.core.JennyNet;
+import org.kse.jennynet.core.JennyNet.ReceiveEngine;
+import org.kse.jennynet.core.Server;
+import org.kse.jennynet.intfa.Connection;
+import org.kse.jennynet.intfa.SendPriority;
+import org.kse.jennynet.test.FileReceptionListener.Station;
+import org.kse.jennynet.util.Util;
+
+public class TestUnit_Selector_Receive {
+
+	public TestUnit_Selector_Receive() {
+	}
+
+	@Before
+	public void setup () {
+		JennyNet.setReceiveEngine(ReceiveEngine.SELECTOR);
+		JennyNet.setSelectorThreads(2);
+	}
+	
+	@After
+	public void restore () {
+		JennyNet.setReceiveEngine(ReceiveEngine.THREAD);
+	}
+	
+	private static int countThreads (String namePrefix) {
+		int count = 0;
+		for (Thread t : Thread.getAllStackTraces().keySet()) {
+			if (t.getName().startsWith(namePrefix)) {
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	@Test
+	public void selector_objects_multi_client () throws IOException, InterruptedException {
+		Server sv = null;
+		List<Client> clients = new ArrayList<>();
+		int nrClients = 8;
+		int nrObjects = 3;
+		
+		final Object lock = new Object();
+		final ObjectReceptionListener receptionListener = new ObjectReceptionListener(lock, 
+				nrClients * nrObjects, Station.SERVER);
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), receptionListener);
+		sv.start();
+		
+		// set up running connections
+		for (int i = 0; i < nrClients; i++) {
+			Client cl = new Client();
+			cl.getParameters().setTransmissionParcelSize(8*1024);
+			cl.connect(100, sv.getSocketAddress());
+			clients.add(cl);
+		}
+		Util.sleep(100);
+		System.out.println("-- " + nrClients + " connections established");
+
+		// no receive threads are operating in client or server connections
+		assertTrue("receive-processor threads found", countThreads("ReceiveProcessor") == 0);
+		int selectors = countThreads("JennyNet Receive Selector");
+		assertTrue("unexpected number of selector threads: " + selectors, selectors > 0 & selectors <= 2);
+		
+		synchronized (lock) {
+			// each client sends a small, a medium and a large data block
+			List<byte[]> blocks = new ArrayList<>();
+			for (Client cl : clients) {
+				for (int size : new int[] {100, 20000, 150000}) {
+					byte[] block = Util.randBytes(size);
+					blocks.add(block);
+					cl.sendData(block, 0, size, SendPriority.NORMAL);
+				}
+			}
+			lock.wait(20000);
+			
+			// check received data
+			assertTrue("not all objects received: " + receptionListener.getSize(), 
+					receptionListener.getSize() == nrClients * nrObjects);
+			for (byte[] block : blocks) {
+				assertTrue("data integrity error", receptionListener.containsBlockCrc(Util.CRC32_of(block)));
+			}
+		}
+		
+		// selector threads do not grow with connections
+		assertTrue("selector threads increased", countThreads("JennyNet Receive Selector") <= 2);
+		
+	} finally {
+		for (Client cl : clients) {
+			cl.close();
+		}
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+
+	@Test
+	public void selector_output_blocking () throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+		final int nrObjects = 60;
+		
+		final Object lock = new Object();
+		final ObjectReceptionListener receptionListener = new ObjectReceptionListener(lock, 
+				nrObjects, Station.SERVER) {
+			@Override
+			public void objectReceived (Connection con, SendPriority priority, long objNr, Object obj) {
+				// slow application
+				Util.sleep(10);
+				super.objectReceived(con, priority, objNr, obj);
+			}
+		};
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), receptionListener);
+		sv.getParameters().setObjectQueueCapacity(5);
+		sv.start();
+		
+		cl = new Client();
+		cl.connect(100, sv.getSocketAddress());
+		Util.sleep(50);
+		
+		synchronized (lock) {
+			// send more objects than the receiving queue can take
+			List<byte[]> blocks = new ArrayList<>();
+			for (int i = 0; i < nrObjects; i++) {
+				byte[] block = Util.randBytes(1000 + i);
+				blocks.add(block);
+				cl.sendData(block, 0, block.length, SendPriority.NORMAL);
+			}
+			lock.wait(20000);
+		
+			// all objects received in sequence
+			List<byte[]> rec = receptionListener.getReceived();
+			assertTrue("not all objects received: " + rec.size(), rec.size() == nrObjects);
+			for (int i = 0; i < nrObjects; i++) {
+				assertTrue("data integrity error, object " + i, Util.equalArrays(blocks.get(i), rec.get(i)));
+			}
+		}
+		
+	} finally {
+		if (cl != null) {
+			cl.close();
+		}
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+
+	@Test
+	public void selector_file_transfer () throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+		
+		final Object lock = new Object();
+		final FileReceptionListener serverListener = new FileReceptionListener(lock, 1, Station.SERVER);
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), serverListener);
+		File root = new File("test");
+		root.mkdirs();
+		sv.getParameters().setFileRootDir(root);
+		sv.start();
+		
+		cl = new Client();
+		cl.getParameters().setTransmissionParcelSize(16*1024);
+		cl.connect(100, sv.getSocketAddress());
+		Util.sleep(50);
+		
+		synchronized (lock) {
+			int length = 2000000;
+			byte[] data = Util.randBytes(length);
+			File src = Util.getTempFile(); 
+			Util.makeFile(src, data);
+			
+			cl.sendFile(src, "selector-file.dat");
+			lock.wait(20000);
+			
+			assertFalse("no file received", serverListener.getReceived().isEmpty());
+			File f = serverListener.getReceived().get(0);
+			assertTrue("file length mismatch", f.length() == length);
+			assertTrue("file data mismatch", Util.equalArrays(data, Util.readFile(f)));
+			src.delete();
+		}
+		
+	} finally {
+		if (cl != null) {
+			cl.close();
+		}
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+}
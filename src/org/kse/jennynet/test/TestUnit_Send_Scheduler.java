@@ -0,0 +1,265 @@
+/*  File: TestUnit_Send_Scheduler.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.test;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+import org.kse.jennynet.core.Client;
+import org.kse.jennynet.core.ConnectionMonitor;
+import org.kse.jennynet.core.DefaultConnectionListener;
+import org.kse.jennynet.core.JennyNet;
+import org.kse.jennynet.core.JennyNet.ThreadUsage;
+import org.kse.jennynet.core.JennyNetByteBuffer;
+import org.kse.jennynet.core.Server;
+import org.kse.jennynet.intfa.Connection;
+import org.kse.jennynet.intfa.SendPriority;
+import org.kse.jennynet.util.Util;
+
+/** Benchmarks on the layer's send scheduling. 
+ * <p>A server sends data blocks to two fast clients while a third client has
+ * stopped reading from its socket. The throughput to the fast clients is 
+ * measured with and without the stalled receiver.
+ * <p>A client sends a series of small objects with and without send-gathering.
+ * Objects per second and the number of socket flushes are reported.
+ */
+public class TestUnit_Send_Scheduler {
+
+	private static final int BLOCK_SIZE = 100000;
+	private static final int NR_BLOCKS = 40;
+	
+	/** Counts the received data volume and releases a latch when the
+	 * expected volume has arrived.
+	 */
+	private static class VolumeListener extends DefaultConnectionListener {
+		AtomicLong volume = new AtomicLong();
+		volatile CountDownLatch latch;
+		long expected;
+		
+		void expect (long volume, CountDownLatch latch) {
+			this.volume.set(0);
+			this.expected = volume;
+			this.latch = latch;
+		}
+		
+		@Override
+		public void objectReceived (Connection con, SendPriority priority, long objNr, Object obj) {
+			if (obj instanceof JennyNetByteBuffer) {
+				long v = volume.addAndGet(((JennyNetByteBuffer)obj).getLength());
+				if (v == expected && latch != null) {
+					latch.countDown();
+				}
+			}
+		}
+	}
+	
+	/** Blocks object delivery until released, so that the connection stops
+	 * reading from its socket.
+	 */
+	private static class StallingListener extends DefaultConnectionListener {
+		CountDownLatch release = new CountDownLatch(1);
+		
+		@Override
+		public void objectReceived (Connection con, SendPriority priority, long objNr, Object obj) {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+			}
+		}
+	}
+	
+	private static Connection serverConnectionOf (Server sv, Client cl) {
+		for (Connection con : sv.getConnections()) {
+			if (con.getRemoteAddress().getPort() == cl.getLocalAddress().getPort()) {
+				return con;
+			}
+		}
+		return null;
+	}
+	
+	/** Sends the test volume to both fast clients and returns the time 
+	 * required until all data has been received, or -1 if the data did 
+	 * not arrive within 60 seconds.
+	 */
+	private static long measureSending (Connection[] targets, VolumeListener[] listeners) 
+			throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(targets.length);
+		for (VolumeListener li : listeners) {
+			li.expect((long)BLOCK_SIZE * NR_BLOCKS, latch);
+		}
+		
+		byte[] block = Util.randBytes(BLOCK_SIZE);
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < NR_BLOCKS; i++) {
+			for (Connection con : targets) {
+				con.sendData(block, 0, block.length, SendPriority.NORMAL);
+			}
+		}
+		boolean ok = latch.await(60, TimeUnit.SECONDS);
+		return ok ? System.currentTimeMillis() - start : -1;
+	}
+	
+	@Test
+	public void stalled_receiver_throughput () throws IOException, InterruptedException {
+		Server sv = null;
+		Client clA = null, clB = null, clC = null;
+		StallingListener stall = new StallingListener();
+		VolumeListener[] listeners = new VolumeListener[] {new VolumeListener(), new VolumeListener()};
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000));
+		sv.start();
+		
+		// the stalled client has its own delivery thread with minimal capacity
+		clA = new Client();
+		clA.getParameters().setDeliveryThreadUsage(ThreadUsage.INDIVIDUAL);
+		clA.getParameters().setObjectQueueCapacity(1);
+		clA.addListener(stall);
+		clA.connect(100, sv.getSocketAddress());
+		
+		clB = new Client();
+		clB.addListener(listeners[0]);
+		clB.connect(100, sv.getSocketAddress());
+		
+		clC = new Client();
+		clC.addListener(listeners[1]);
+		clC.connect(100, sv.getSocketAddress());
+		Util.sleep(100);
+		
+		final Connection conA = serverConnectionOf(sv, clA);
+		Connection[] targets = new Connection[] {serverConnectionOf(sv, clB), serverConnectionOf(sv, clC)};
+		
+		// reference throughput without stalled receiver
+		long time1 = measureSending(targets, listeners);
+		assertTrue("reference sending failed", time1 > -1);
+		
+		// flood the stalled client (sending may block on the connection's send-load)
+		Thread flood = new Thread("Flood Sender") {
+			@Override
+			public void run() {
+				byte[] block = Util.randBytes(BLOCK_SIZE);
+				for (int i = 0; i < 200 && conA.isConnected(); i++) {
+					conA.sendData(block, 0, block.length, SendPriority.NORMAL);
+				}
+			}
+		};
+		flood.setDaemon(true);
+		flood.start();
+		Util.sleep(1000);
+		
+		// throughput with stalled receiver
+		long time2 = measureSending(targets, listeners);
+		
+		long volume = 2L * BLOCK_SIZE * NR_BLOCKS;
+		System.out.println("-- reference: " + time1 + " ms, " + volume / Math.max(time1, 1) + " KB/s");
+		System.out.println("-- with stalled receiver: " + time2 + " ms, " 
+				+ (time2 < 0 ? "-" : String.valueOf(volume / Math.max(time2, 1))) + " KB/s");
+		
+		assertTrue("sending stalled by blocked receiver", time2 > -1);
+		assertTrue("throughput degraded by blocked receiver", time2 < 4 * time1 + 2000);
+		
+	} finally {
+		stall.release.countDown();
+		if (clA != null) clA.close();
+		if (clB != null) clB.close();
+		if (clC != null) clC.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+
+	/** Sends small objects from a client and returns the time required
+	 * until all have been received, or -1 if they did not arrive within
+	 * 60 seconds.
+	 */
+	private static long measureSmallObjects (Client cl, VolumeListener listener, int nrObjects) 
+			throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+		listener.expect(50L * nrObjects, latch);
+		byte[] block = Util.randBytes(50);
+		
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < nrObjects; i++) {
+			cl.sendData(block, 0, block.length, SendPriority.NORMAL);
+		}
+		boolean ok = latch.await(60, TimeUnit.SECONDS);
+		return ok ? System.currentTimeMillis() - start : -1;
+	}
+	
+	@Test
+	public void small_object_gathering () throws IOException, InterruptedException {
+		Server sv = null;
+		Client cl = null;
+		VolumeListener listener = new VolumeListener();
+		int nrObjects = 10000;
+
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		sv.getParameters().setObjectQueueCapacity(nrObjects);
+		sv.start();
+		
+		cl = new Client();
+		cl.getParameters().setObjectQueueCapacity(nrObjects);
+		cl.connect(100, sv.getSocketAddress());
+		Util.sleep(100);
+		
+		// single flush per parcel
+		JennyNet.setSendGathering(false);
+		ConnectionMonitor m1 = cl.getMonitor();
+		long time1 = measureSmallObjects(cl, listener, nrObjects);
+		ConnectionMonitor m2 = cl.getMonitor();
+		
+		// gathering flush
+		JennyNet.setSendGathering(true);
+		long time2 = measureSmallObjects(cl, listener, nrObjects);
+		ConnectionMonitor m3 = cl.getMonitor();
+		
+		long flush1 = m2.socketFlushes - m1.socketFlushes;
+		long flush2 = m3.socketFlushes - m2.socketFlushes;
+		long parcels1 = m2.parcelsWritten - m1.parcelsWritten;
+		long parcels2 = m3.parcelsWritten - m2.parcelsWritten;
+		System.out.println("-- single flush: " + time1 + " ms, " + nrObjects * 1000L / Math.max(time1, 1) 
+				+ " obj/s, parcels " + parcels1 + ", flushes " + flush1);
+		System.out.println("-- gathering flush: " + time2 + " ms, " + nrObjects * 1000L / Math.max(time2, 1) 
+				+ " obj/s, parcels " + parcels2 + ", flushes " + flush2);
+		
+		assertTrue("objects not received (single)", time1 > -1);
+		assertTrue("objects not received (gathering)", time2 > -1);
+		assertTrue("no flush per parcel in single mode", flush1 == parcels1);
+		assertTrue("no flush reduction in gathering mode", flush2 < parcels2);
+		
+	} finally {
+		JennyNet.setSendGathering(true);
+		if (cl != null) cl.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+}
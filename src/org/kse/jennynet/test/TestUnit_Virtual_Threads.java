@@ -0,0 +1,149 @@
+/*  File: TestUnit_Virtual_Threads.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.test;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.kse.jennynet.core.Client;
+import org.kse.jennynet.core.DefaultConnectionListener;
+import org.kse.jennynet.core.JennyNet;
+import org.kse.jennynet.core.JennyNet.ThreadUsage;
+import org.kse.jennynet.core.JennyNetByteBuffer;
+import org.kse.jennynet.core.Server;
+import org.kse.jennynet.intfa.Connection;
+import org.kse.jennynet.intfa.ConnectionParameters;
+import org.kse.jennynet.intfa.SendPriority;
+import org.kse.jennynet.intfa.TransmissionEvent;
+import org.kse.jennynet.intfa.TransmissionEventType;
+import org.kse.jennynet.util.Util;
+
+/** Tests on the VIRTUAL thread usage of connections.
+ */
+public class TestUnit_Virtual_Threads {
+
+	/** Counts received objects and files. */
+	private static class ReceptionListener extends DefaultConnectionListener {
+		final CountDownLatch latch;
+		final AtomicInteger errors = new AtomicInteger();
+		volatile File received;
+		int nextSerial;
+		
+		ReceptionListener (int count) {
+			latch = new CountDownLatch(count);
+		}
+		
+		@Override
+		public void objectReceived (Connection con, SendPriority priority, long objNr, Object obj) {
+			byte[] data = ((JennyNetByteBuffer)obj).getData();
+			if (Util.readInt(data, 0) != nextSerial++) {
+				errors.incrementAndGet();
+			}
+			latch.countDown();
+		}
+
+		@Override
+		public void transmissionEventOccurred (TransmissionEvent evt) {
+			if (evt.getType() == TransmissionEventType.FILE_RECEIVED) {
+				received = evt.getFile();
+				latch.countDown();
+			} else if (evt.getType() == TransmissionEventType.FILE_ABORTED) {
+				errors.incrementAndGet();
+				latch.countDown();
+			}
+		}
+	}
+	
+	@Test
+	public void parameters () {
+		ConnectionParameters par = (ConnectionParameters) JennyNet.getDefaultParameters().clone();
+		if (JennyNet.isVirtualThreadSupported()) {
+			par.setDeliveryThreadUsage(ThreadUsage.VIRTUAL);
+			assertTrue("VIRTUAL not set", par.getDeliveryThreadUsage() == ThreadUsage.VIRTUAL);
+		} else {
+			try {
+				par.setDeliveryThreadUsage(ThreadUsage.VIRTUAL);
+				fail("expected IllegalArgumentException for unsupported VIRTUAL");
+			} catch (IllegalArgumentException e) {
+			}
+			assertTrue("usage modified", par.getDeliveryThreadUsage() == JennyNet.DEFAULT_THREAD_USAGE);
+		}
+	}
+	
+	/** Objects and a file are transmitted between connections which run 
+	 * on virtual threads on both sides. 
+	 */
+	@Test
+	public void virtual_transmission () throws IOException, InterruptedException {
+		Assume.assumeTrue(JennyNet.isVirtualThreadSupported());
+		Server sv = null;
+		Client cl = null;
+		int number = 1000;
+		int length = 2 * JennyNet.MEGA + 1000;
+		File src = Util.getTempFile(); 
+		byte[] data = Util.randBytes(length);
+		Util.makeFile(src, data);
+		ReceptionListener listener = new ReceptionListener(number + 1);
+		
+	try {
+		sv = new StandardServer(new InetSocketAddress("localhost", 3000), listener);
+		sv.getParameters().setDeliveryThreadUsage(ThreadUsage.VIRTUAL);
+		File root = new File("test");
+		root.mkdirs();
+		sv.getParameters().setFileRootDir(root);
+		sv.start();
+		
+		cl = new Client();
+		cl.getParameters().setDeliveryThreadUsage(ThreadUsage.VIRTUAL);
+		cl.connect(100, sv.getSocketAddress());
+		Util.sleep(100);
+
+		cl.sendFile(src, "empfang/virtual.dat");
+		for (int i = 0; i < number; i++) {
+			byte[] obj = Util.randBytes(200);
+			Util.writeInt(obj, 0, i);
+			cl.sendData(obj, 0, obj.length, SendPriority.NORMAL);
+		}
+		
+		assertTrue("transmission incomplete", listener.latch.await(60, TimeUnit.SECONDS));
+		assertTrue("reception errors: " + listener.errors.get(), listener.errors.get() == 0);
+		assertTrue("file not received", listener.received != null);
+		assertTrue("file data mismatch", Util.equalArrays(data, Util.readFile(listener.received)));
+		
+	} finally {
+		src.delete();
+		if (cl != null) cl.close();
+		if (sv != null) {
+			sv.closeAndWait(3000);
+		}
+	}
+	}
+}
@@ -0,0 +1,281 @@
+/*  File: TestUnit_Wheel_Timer.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.test;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import org.junit.Test;
+import org.kse.jennynet.util.SchedulableTimerTask;
+import org.kse.jennynet.util.Util;
+import org.kse.jennynet.util.WheelTimer;
+
+/** Tests the hashed-wheel timer and compares its scheduling cost with
+ * the formerly used {@code java.util.Timer}, which keeps cancelled tasks
+ * in its queue until they expire or the queue is purged.
+ */
+public class TestUnit_Wheel_Timer {
+
+	/** Tolerated lateness of a task in milliseconds. */
+	private static final int TOLERANCE = 60;
+
+	private static class TimedTask implements Runnable {
+		final long created = System.currentTimeMillis();
+		volatile long runTime;
+		AtomicInteger count = new AtomicInteger();
+		
+		@Override
+		public void run () {
+			runTime = System.currentTimeMillis();
+			count.incrementAndGet();
+		}
+	}
+	
+	@Test
+	public void one_time () {
+		WheelTimer timer = new WheelTimer("Test Timer");
+		assertTrue(timer.size() == 0);
+		
+		List<TimedTask> tasks = new ArrayList<>();
+		List<Integer> delays = new ArrayList<>();
+		for (int i = 0; i < 30; i++) {
+			int delay = i * 17;
+			TimedTask task = new TimedTask();
+			WheelTimer.Timeout t = timer.schedule(task, delay);
+			assertTrue(t.getTask() == task);
+			tasks.add(task);
+			delays.add(delay);
+		}
+		assertTrue(timer.size() == 30);
+		
+		// a delay beyond one revolution of the wheel (512 x 10 ms)
+		TimedTask far = new TimedTask();
+		timer.schedule(far, 5500);
+		Util.sleep(1000);
+		
+		int maxLate = 0;
+		for (int i = 0; i < tasks.size(); i++) {
+			TimedTask task = tasks.get(i);
+			assertTrue("task not executed: " + i, task.count.get() == 1);
+			int late = (int)(task.runTime - task.created - delays.get(i));
+			assertTrue("task executed early: " + i + ", " + late, late >= 0);
+			maxLate = Math.max(maxLate, late);
+		}
+		System.out.println("-- one-time tasks, max lateness = " + maxLate + " ms");
+		assertTrue("task too late: " + maxLate, maxLate <= TOLERANCE);
+		assertTrue(timer.size() == 1);
+		assertTrue(far.count.get() == 0);
+
+		Util.sleep(5000);
+		int late = (int)(far.runTime - far.created - 5500);
+		System.out.println("-- far task, lateness = " + late + " ms");
+		assertTrue(far.count.get() == 1);
+		assertTrue("far task early or late: " + late, late >= 0 && late <= TOLERANCE);
+		assertTrue(timer.size() == 0);
+		assertTrue(timer.getExecutedCount() == 31);
+		timer.cancel();
+	}
+	
+	@Test
+	public void cancelling () {
+		WheelTimer timer = new WheelTimer("Test Timer");
+		List<WheelTimer.Timeout> list = new ArrayList<>();
+		AtomicInteger counter = new AtomicInteger();
+		for (int i = 0; i < 1000; i++) {
+			list.add(timer.schedule(counter::incrementAndGet, 100 + i % 200));
+		}
+		
+		// cancel every second task
+		for (int i = 0; i < 1000; i += 2) {
+			assertTrue(list.get(i).cancel());
+			assertTrue(list.get(i).isCancelled());
+			assertTrue(!list.get(i).cancel());
+		}
+		Util.sleep(500);
+		assertTrue("executed: " + counter.get(), counter.get() == 500);
+		assertTrue(timer.size() == 0);
+		for (int i = 0; i < 1000; i++) {
+			WheelTimer.Timeout t = list.get(i);
+			assertTrue(i % 2 == 0 ? t.isCancelled() && !t.isExpired() : t.isExpired());
+		}
+		
+		// cancelling expired task has no effect
+		assertTrue(!list.get(1).cancel());
+		
+		// cancelled timer rejects tasks
+		timer.cancel();
+		assertTrue(timer.isCancelled());
+		try {
+			timer.schedule(counter::incrementAndGet, 10);
+			fail("expected IllegalStateException");
+		} catch (IllegalStateException e) {
+		}
+	}
+	
+	@Test
+	public void periodic () {
+		WheelTimer timer = new WheelTimer("Test Timer");
+		TimedTask task = new TimedTask();
+		WheelTimer.Timeout t = timer.schedule(task, 50, 50);
+		Util.sleep(525);
+		int count = task.count.get();
+		System.out.println("-- periodic task (50 ms), executions in 525 ms = " + count);
+		assertTrue("executions: " + count, count >= 7 && count <= 10);
+		assertTrue(timer.size() == 1);
+		
+		assertTrue(t.cancel());
+		Util.sleep(150);
+		count = task.count.get();
+		Util.sleep(150);
+		assertTrue(task.count.get() == count);
+		assertTrue(timer.size() == 0);
+		
+		// schedulable timer-task cancelling itself after 3 runs
+		SchedulableTimerTask stask = new SchedulableTimerTask(20, 20, "test task") {
+			int runs;
+			@Override
+			public void run() {
+				if (++runs == 3) {
+					cancel();
+				}
+			}
+		};
+		stask.schedule(timer);
+		Util.sleep(300);
+		assertTrue(timer.size() == 0);
+		assertTrue(timer.getExecutedCount() == count + 3);
+		
+		// schedulable timer-task cancelled before execution
+		stask = new SchedulableTimerTask(100, "test task") {
+			@Override
+			public void run() {
+				fail("cancelled task executed");
+			}
+		};
+		stask.schedule(timer);
+		assertTrue(stask.cancel());
+		Util.sleep(200);
+		assertTrue(timer.size() == 0);
+		timer.cancel();
+	}
+	
+	@Test
+	public void tick_lag () {
+		WheelTimer timer = new WheelTimer("Test Timer");
+		timer.schedule(() -> {}, 0);
+		Util.sleep(200);
+		long lag = timer.getTickLag();
+		System.out.println("-- tick lag idle = " + lag + " ms");
+		assertTrue("lag: " + lag, lag < 30);
+		
+		// a blocking task delays the ticks
+		timer.schedule(() -> Util.sleep(150), 0);
+		TimedTask task = new TimedTask();
+		timer.schedule(task, 20);
+		Util.sleep(400);
+		long maxLag = timer.getMaxTickLag();
+		System.out.println("-- tick lag after blocking task, max = " + maxLag + 
+				" ms, current = " + timer.getTickLag());
+		assertTrue("max lag: " + maxLag, maxLag >= 100);
+		assertTrue(task.runTime - task.created >= 150);
+		assertTrue(timer.getTickLag() < 30);
+		timer.cancel();
+	}
+	
+	/** Schedules and cancels the given number of tasks with random delays
+	 * from each of the given number of threads. Returns the time spent.
+	 * 
+	 * @param threads int number of threads
+	 * @param n int tasks per thread
+	 * @param action {@code IntFunction<Runnable>} creates the cancel action
+	 *        for a random delay 
+	 * @return long nanoseconds per task
+	 */
+	private static long loadTimer (int threads, int n, IntFunction<Runnable> action) 
+			throws InterruptedException {
+		List<Thread> list = new ArrayList<>();
+		for (int j = 0; j < threads; j++) {
+			list.add(new Thread(() -> {
+				Runnable[] cancels = new Runnable[n];
+				for (int i = 0; i < n; i++) {
+					cancels[i] = action.apply(10000 + Util.nextRand(50000));
+				}
+				for (int i = 0; i < n; i++) {
+					cancels[i].run();
+				}
+			}));
+		}
+		long start = System.nanoTime();
+		for (Thread t : list) {
+			t.start();
+		}
+		for (Thread t : list) {
+			t.join();
+		}
+		return (System.nanoTime() - start) / ((long)threads * n);
+	}
+	
+	@Test
+	public void scheduling_cost () throws InterruptedException {
+		int n = 100000;
+		Runnable noop = () -> {};
+		
+		for (int round = 0; round < 3; round++) {
+			for (int threads : new int[] {1, 4}) {
+				// java.util.Timer: schedule and cancel with random delays
+				Timer jtimer = new Timer(true);
+				long jtime = loadTimer(threads, n, delay -> {
+					TimerTask task = new TimerTask() {
+						@Override
+						public void run() {}
+					};
+					jtimer.schedule(task, delay);
+					return task::cancel;
+				});
+				// cancelled tasks remain in the queue until purged or expired
+				int retained = jtimer.purge();
+				jtimer.cancel();
+				
+				// wheel timer: same load
+				WheelTimer timer = new WheelTimer("Test Timer");
+				long wtime = loadTimer(threads, n, delay -> timer.schedule(noop, delay)::cancel);
+				// cancelled tasks are removed by the timer thread
+				long deadline = System.currentTimeMillis() + 5000;
+				while (timer.size() > 0 && System.currentTimeMillis() < deadline) {
+					Util.sleep(20);
+				}
+				assertTrue("size: " + timer.size(), timer.size() == 0);
+				timer.cancel();
+				
+				System.out.println("-- schedule+cancel " + threads + " x " + n + " tasks: java.util.Timer " 
+						+ jtime + " ns/task (" + retained + " retained), WheelTimer " + wtime + " ns/task");
+			}
+		}
+	}
+}
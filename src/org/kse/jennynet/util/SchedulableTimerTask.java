@@ -24,13 +24,14 @@ package org.kse.jennynet.util;
 import java.util.Timer;
 import java.util.TimerTask;
 
-/** A java.util.TimerTask that can be scheduled at a Timer with the pre-defined
- * values for delay and period parameters.
+/** A java.util.TimerTask that can be scheduled at a Timer or a WheelTimer
+ * with the pre-defined values for delay and period parameters.
  * 
  */
 public abstract class SchedulableTimerTask extends TimerTask {
    private final int delay;
    private final int period;
+   private volatile WheelTimer.Timeout timeout;
 
    /** Creates a new schedulable timer task.
     * 
@@ -67,6 +68,31 @@ public abstract class SchedulableTimerTask extends TimerTask {
       }
    }
 
+   /** Schedules this timer-task according to its defined scheduling
+    * parameters at the given wheel timer. A period is performed as
+    * fixed-delay repetition. The task can be cancelled by its 
+    * {@code cancel()} method.
+    * 
+    * @param timer {@code WheelTimer}
+    */
+   public void schedule (WheelTimer timer) {
+      timeout = timer.schedule(this, delay, Math.max(0, period));
+   }
+
+   /** Cancels this timer-task, including its scheduling at a wheel timer.
+    * 
+    * @return boolean true = this prevented one or more scheduled executions
+    */
+   @Override
+   public boolean cancel () {
+      boolean ok = super.cancel();
+      WheelTimer.Timeout t = timeout;
+      if (t != null) {
+         ok |= t.cancel();
+      }
+      return ok;
+   }
+
    public int getDelay() {
       return delay;
    }
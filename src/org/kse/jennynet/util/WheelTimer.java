@@ -0,0 +1,453 @@
+/*  File: WheelTimer.java
+* 
+*  Project JennyNet
+*  @author Wolfgang Keller
+*  
+*  Copyright (c) 2025 by Wolfgang Keller, Munich, Germany
+* 
+This program is not public domain software but copyright protected to the 
+author(s) stated above. However, you can use, redistribute and/or modify it 
+under the terms of the The GNU General Public License (GPL) as published by
+the Free Software Foundation, version 3.0 of the License.
+
+This program is distributed in the hope that it will be useful, but WITHOUT
+ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+FOR A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+
+You should have received a copy of the License along with this program; if not,
+write to the Free Software Foundation, Inc., 59 Temple Place - Suite 330, 
+Boston, MA 02111-1307, USA, or go to http://www.gnu.org/copyleft/gpl.html.
+*/
+
+package org.kse.jennynet.util;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/** A hashed-wheel timer for large numbers of coarse-grained timeouts.
+ * Tasks are placed into the buckets of a circular wheel which is advanced
+ * by a single worker thread in steps of a fixed tick duration. Scheduling
+ * and cancelling a task are O(1) operations which don't contend on a 
+ * common lock; the worker only looks at the bucket of the current tick.
+ * 
+ * <p>Execution time of a task is accurate to the tick duration, tasks are
+ * never executed early. Tasks are executed on the worker thread and should
+ * not block. Periodic tasks are repeated with fixed delay, i.e. the period
+ * is counted from the actual execution time of the task.
+ * 
+ * <p>The <i>tick lag</i> is the time by which the worker was late on
+ * processing a tick. It rises when tasks take too long or the worker
+ * thread is starved and can be read as a health metric of the timer.
+ * 
+ * <p>The worker thread is a daemon thread and started with the first
+ * scheduled task.
+ */
+public class WheelTimer {
+   public static final int DEFAULT_TICK_DURATION = 10;
+   public static final int DEFAULT_WHEEL_SIZE = 512;
+
+   private static final int ST_INIT = 0, ST_STARTED = 1, ST_SHUTDOWN = 2;
+   private static final int MAX_TRANSFER = 100000;
+
+   private final String name;
+   private final long tickNanos;
+   private final Bucket[] wheel;
+   private final int mask;
+   private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+   private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+   private final AtomicInteger size = new AtomicInteger();
+   private final AtomicInteger state = new AtomicInteger(ST_INIT);
+   private volatile long startTime;
+   private volatile long tickLag;
+   private volatile long maxTickLag;
+   private volatile long executed;
+   private Thread worker;
+   private long tick;
+
+   /** Creates a new wheel timer with the given tick duration and number
+    * of buckets in the wheel.
+    * 
+    * @param name String name of the worker thread
+    * @param tickDuration int milliseconds of a wheel tick (min. 1)
+    * @param wheelSize int number of buckets, rounded up to a power of 2
+    * @throws IllegalArgumentException if tickDuration or wheelSize is below 1
+    */
+   public WheelTimer (String name, int tickDuration, int wheelSize) {
+	  Objects.requireNonNull(name);
+	  if (tickDuration < 1)
+		  throw new IllegalArgumentException("tick duration < 1");
+	  if (wheelSize < 1 | wheelSize > 1 << 20)
+		  throw new IllegalArgumentException("illegal wheel size: " + wheelSize);
+	  
+	  int n = 1;
+	  while (n < wheelSize) {
+		  n <<= 1;
+	  }
+	  wheel = new Bucket[n];
+	  for (int i = 0; i < n; i++) {
+		  wheel[i] = new Bucket();
+	  }
+	  this.name = name;
+	  this.mask = n - 1;
+	  this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickDuration);
+   }
+   
+   /** Creates a new wheel timer with default tick duration and wheel size.
+    * 
+    * @param name String name of the worker thread
+    */
+   public WheelTimer (String name) {
+	  this(name, DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE);
+   }
+   
+   /** Schedules the given task for one-time execution after the given 
+    * delay.
+    *  
+    * @param task Runnable
+    * @param delay long milliseconds, values below 0 are treated as 0
+    * @return {@code Timeout} handle of the scheduled task
+    * @throws IllegalStateException if this timer has been cancelled
+    */
+   public Timeout schedule (Runnable task, long delay) {
+	  return schedule(task, delay, 0);
+   }
+   
+   /** Schedules the given task for repeated fixed-delay execution, starting 
+    * after the given delay. If <i>period</i> is zero the task is executed
+    * once.
+    *  
+    * @param task Runnable
+    * @param delay long milliseconds, values below 0 are treated as 0
+    * @param period long milliseconds between executions, 0 for one-time
+    * @return {@code Timeout} handle of the scheduled task
+    * @throws IllegalArgumentException if period is negative
+    * @throws IllegalStateException if this timer has been cancelled
+    */
+   public Timeout schedule (Runnable task, long delay, long period) {
+	  Objects.requireNonNull(task);
+	  if (period < 0)
+		  throw new IllegalArgumentException("period < 0");
+	  start();
+
+	  long deadline = System.nanoTime() - startTime 
+			  + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delay));
+	  Timeout timeout = new Timeout(task, deadline, TimeUnit.MILLISECONDS.toNanos(period));
+	  size.incrementAndGet();
+	  pending.add(timeout);
+	  return timeout;
+   }
+   
+   /** Terminates this timer, discarding any currently scheduled tasks.
+    * Does not interfere with a currently executing task. After this
+    * no more tasks can be scheduled.
+    */
+   public synchronized void cancel () {
+	  int st = state.getAndSet(ST_SHUTDOWN);
+	  if (st == ST_STARTED) {
+		 worker.interrupt();
+	  }
+   }
+   
+   /** Whether this timer has been cancelled.
+    * 
+    * @return boolean
+    */
+   public boolean isCancelled () {
+	  return state.get() == ST_SHUTDOWN;
+   }
+   
+   /** Returns the number of tasks currently scheduled in this timer,
+    * including periodic tasks.
+    * 
+    * @return int
+    */
+   public int size () {
+	  return size.get();
+   }
+   
+   /** Returns the total number of task executions performed by this timer.
+    * 
+    * @return long
+    */
+   public long getExecutedCount () {
+	  return executed;
+   }
+   
+   /** Returns the tick duration of this timer.
+    * 
+    * @return int milliseconds
+    */
+   public int getTickDuration () {
+	  return (int) TimeUnit.NANOSECONDS.toMillis(tickNanos);
+   }
+   
+   /** Returns the lag of the most recent tick, i.e. the time by which the
+    * worker was late on processing it.
+    * 
+    * @return long milliseconds
+    */
+   public long getTickLag () {
+	  return TimeUnit.NANOSECONDS.toMillis(tickLag);
+   }
+   
+   /** Returns the highest tick lag observed since start of this timer.
+    * 
+    * @return long milliseconds
+    */
+   public long getMaxTickLag () {
+	  return TimeUnit.NANOSECONDS.toMillis(maxTickLag);
+   }
+   
+   /** Starts the worker thread if not already running.
+    * 
+    * @throws IllegalStateException if this timer has been cancelled
+    */
+   private void start () {
+	  int st = state.get();
+	  if (st == ST_INIT) {
+		 synchronized (this) {
+			if (state.get() == ST_INIT) {
+			   startTime = System.nanoTime();
+			   worker = new Thread(this::work, name);
+			   worker.setDaemon(true);
+			   worker.start();
+			   state.set(ST_STARTED);
+			}
+		 }
+		 st = state.get();
+	  }
+	  if (st == ST_SHUTDOWN) 
+		 throw new IllegalStateException("timer is cancelled");
+   }
+   
+   /** The worker loop. */
+   private void work () {
+	  while (state.get() != ST_SHUTDOWN) {
+		 long now = waitForNextTick();
+		 if (now < 0) break;
+		 
+		 Bucket bucket = wheel[(int) (tick & mask)];
+		 processCancelled();
+		 transferPending();
+		 bucket.expire(now);
+		 tick++;
+	  }
+	  
+	  // discard all tasks
+	  for (Bucket bucket : wheel) {
+		 bucket.clear();
+	  }
+	  pending.clear();
+	  cancelled.clear();
+	  size.set(0);
+   }
+   
+   /** Waits until the deadline of the current tick and records the
+    * tick lag.
+    * 
+    * @return long nanoseconds since start time, -1 if timer was cancelled
+    */
+   private long waitForNextTick () {
+	  long target = tickNanos * (tick + 1);
+	  while (true) {
+		 long now = System.nanoTime() - startTime;
+		 long sleep = target - now;
+		 if (sleep <= 0) {
+			long lag = -sleep;
+			tickLag = lag;
+			if (lag > maxTickLag) {
+			   maxTickLag = lag;
+			}
+			return now;
+		 }
+		 LockSupport.parkNanos(this, sleep);
+		 if (state.get() == ST_SHUTDOWN) return -1;
+	  }
+   }
+   
+   /** Removes cancelled tasks from their buckets. */
+   private void processCancelled () {
+	  Timeout timeout;
+	  while ((timeout = cancelled.poll()) != null) {
+		 Bucket bucket = timeout.bucket;
+		 if (bucket != null) {
+			bucket.remove(timeout);
+			size.decrementAndGet();
+		 }
+	  }
+   }
+
+   /** Places newly scheduled tasks into the wheel. */
+   private void transferPending () {
+	  for (int i = 0; i < MAX_TRANSFER; i++) {
+		 Timeout timeout = pending.poll();
+		 if (timeout == null) break;
+		 if (timeout.state.get() == Timeout.ST_CANCELLED) {
+			size.decrementAndGet();
+			continue;
+		 }
+		 
+		 long ticks = timeout.deadline / tickNanos;
+		 timeout.remainingRounds = (ticks - tick) / wheel.length;
+		 ticks = Math.max(ticks, tick);
+		 wheel[(int) (ticks & mask)].add(timeout);
+	  }
+   }
+   
+   /** Executes the given expired task and re-schedules it if periodic.
+    * 
+    * @param timeout {@code Timeout}
+    */
+   private void execute (Timeout timeout) {
+	  // skip a task cancelled after the last check on cancellations
+	  boolean valid = timeout.period == 0 ? 
+			  timeout.state.compareAndSet(Timeout.ST_INIT, Timeout.ST_EXPIRED) :
+			  timeout.state.get() == Timeout.ST_INIT;
+	  if (!valid) {
+		 size.decrementAndGet();
+		 return;
+	  }
+	  
+	  try {
+		 executed++;
+		 timeout.task.run();
+	  } catch (Throwable e) {
+		 e.printStackTrace();
+	  }
+	  
+	  if (timeout.period > 0 && timeout.state.get() == Timeout.ST_INIT && 
+		  state.get() != ST_SHUTDOWN) {
+		 timeout.deadline = System.nanoTime() - startTime + timeout.period;
+		 pending.add(timeout);
+	  } else {
+		 size.decrementAndGet();
+	  }
+   }
+   
+   @Override
+   public String toString () {
+	  return "WheelTimer " + name + ", tasks = " + size.get() + ", lag = " + getTickLag() + " ms";
+   }
+
+// ----------  INNER CLASSES  ---------------	
+
+   /** Handle of a task scheduled at a {@code WheelTimer}. Allows to cancel
+    * the task.
+    */
+   public final class Timeout {
+	  static final int ST_INIT = 0, ST_CANCELLED = 1, ST_EXPIRED = 2;
+	  
+	  private final Runnable task;
+	  private final long period;
+	  private final AtomicInteger state = new AtomicInteger(ST_INIT);
+	  private long deadline;
+	  private long remainingRounds;
+	  
+	  // bucket list, worker thread only
+	  private Bucket bucket;
+	  private Timeout next, prev;
+	  
+	  private Timeout (Runnable task, long deadline, long period) {
+		 this.task = task;
+		 this.deadline = deadline;
+		 this.period = period;
+	  }
+	  
+	  /** The scheduled task.
+	   * 
+	   * @return Runnable
+	   */
+	  public Runnable getTask () {return task;}
+	  
+	  /** Cancels the execution of the task. For a periodic task further 
+	   * executions are cancelled. Does nothing if the task has already 
+	   * been cancelled or has expired.
+	   * 
+	   * @return boolean true = this call cancelled the task
+	   */
+	  public boolean cancel () {
+		 if (!state.compareAndSet(ST_INIT, ST_CANCELLED)) return false;
+		 cancelled.add(this);
+		 return true;
+	  }
+	  
+	  /** Whether this task has been cancelled.
+	   * 
+	   * @return boolean
+	   */
+	  public boolean isCancelled () {
+		 return state.get() == ST_CANCELLED;
+	  }
+	  
+	  /** Whether this one-time task has been executed or is executing.
+	   * 
+	   * @return boolean
+	   */
+	  public boolean isExpired () {
+		 return state.get() == ST_EXPIRED;
+	  }
+   }
+   
+   /** A bucket of the wheel, a doubly linked list of timeouts which is
+    * only accessed by the worker thread.
+    */
+   private final class Bucket {
+	  private Timeout head, tail;
+	  
+	  void add (Timeout timeout) {
+		 timeout.bucket = this;
+		 if (head == null) {
+			head = tail = timeout;
+		 } else {
+			tail.next = timeout;
+			timeout.prev = tail;
+			tail = timeout;
+		 }
+	  }
+	  
+	  /** Executes all timeouts of this bucket whose deadline has been 
+	   * reached and counts down the rounds of the others.
+	   * 
+	   * @param now long nanoseconds since start time
+	   */
+	  void expire (long now) {
+		 Timeout timeout = head;
+		 while (timeout != null) {
+			Timeout next = timeout.next;
+			if (timeout.remainingRounds <= 0 && timeout.deadline <= now) {
+			   remove(timeout);
+			   execute(timeout);
+			} else {
+			   timeout.remainingRounds--;
+			}
+			timeout = next;
+		 }
+	  }
+	  
+	  void remove (Timeout timeout) {
+		 Timeout next = timeout.next;
+		 if (timeout.prev != null) {
+			timeout.prev.next = next;
+		 }
+		 if (next != null) {
+			next.prev = timeout.prev;
+		 }
+		 if (timeout == head) {
+			head = next;
+		 }
+		 if (timeout == tail) {
+			tail = timeout.prev;
+		 }
+		 timeout.prev = timeout.next = null;
+		 timeout.bucket = null;
+	  }
+	  
+	  void clear () {
+		 head = tail = null;
+	  }
+   }
+}